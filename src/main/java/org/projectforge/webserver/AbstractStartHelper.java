@@ -24,16 +24,85 @@
 package org.projectforge.webserver;
 
 import java.awt.Desktop;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.management.remote.JMXConnectorServer;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang.ArrayUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.eclipse.jetty.jmx.MBeanContainer;
+import org.eclipse.jetty.server.AbstractConnector;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.bio.SocketConnector;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.eclipse.jetty.server.nio.SelectChannelConnector;
+import org.eclipse.jetty.server.session.AbstractSessionManager;
 import org.eclipse.jetty.server.session.HashSessionManager;
+import org.eclipse.jetty.server.session.JDBCSessionIdManager;
+import org.eclipse.jetty.server.session.JDBCSessionManager;
+import org.eclipse.jetty.servlet.ServletHandler;
+import org.eclipse.jetty.util.Loader;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.util.resource.ResourceFactory;
+import org.eclipse.jetty.webapp.Configuration;
 import org.eclipse.jetty.webapp.WebAppContext;
+import org.eclipse.jetty.webapp.WebInfConfiguration;
 import org.eclipse.jetty.xml.XmlConfiguration;
+import org.projectforge.common.DatabaseDialect;
+import org.projectforge.webserver.admin.AdminEndpoint;
+import org.projectforge.webserver.admin.AdminServer;
+import org.projectforge.webserver.deploy.AnnotationScanIndex;
+import org.projectforge.webserver.handler.CacheControlHandler;
+import org.projectforge.webserver.handler.ClientRateLimiter;
+import org.projectforge.webserver.handler.CompressionHandler;
+import org.projectforge.webserver.handler.ConnectionTimeoutHandler;
+import org.projectforge.webserver.handler.GracefulShutdownHandler;
+import org.projectforge.webserver.handler.KeepAliveHandler;
+import org.projectforge.webserver.handler.LowResourcesHandler;
+import org.projectforge.webserver.handler.RateLimitHandler;
+import org.projectforge.webserver.handler.RequestStatisticsHandler;
+import org.projectforge.webserver.handler.RouteGrouping;
+import org.projectforge.webserver.handler.StaticResourceCache;
+import org.projectforge.webserver.handler.ThreadPoolSaturationHandler;
+import org.projectforge.webserver.jdbc.ConnectionPrewarmer;
+import org.projectforge.webserver.jdbc.DataSourceFactory;
+import org.projectforge.webserver.jdbc.JdbcHealthCheck;
+import org.projectforge.webserver.jdbc.JdbcPoolMonitor;
+import org.projectforge.webserver.jdbc.ReplicaRoutingDataSource;
+import org.projectforge.webserver.jdbc.StatementTracer;
+import org.projectforge.webserver.metrics.JmxUtils;
+import org.projectforge.webserver.metrics.MetricsSource;
+import org.projectforge.webserver.metrics.PrometheusWriter;
+import org.projectforge.webserver.session.BoundedHashSessionManager;
+import org.projectforge.webserver.startup.StartupTimer;
+import org.projectforge.webserver.startup.TimedConfiguration;
+import org.projectforge.webserver.startup.TimedServletHandler;
 
 /**
  * Helper for starting ProjectForge via Jetty web server.
@@ -50,6 +119,30 @@ public abstract class AbstractStartHelper
 
   private Server server;
 
+  private ServerThreadPool threadPool;
+
+  private AdminServer adminServer;
+
+  private RequestStatisticsHandler requestStatisticsHandler;
+
+  private AbstractSessionManager sessionManager;
+
+  private StartupTimer startupTimer;
+
+  private StaticResourceCache staticResourceCache;
+
+  private GracefulShutdownHandler gracefulShutdownHandler;
+
+  private LowResourcesMonitor lowResourcesMonitor;
+
+  private RateLimitHandler rateLimitHandler;
+
+  private HsqlMaintenance hsqlMaintenance;
+
+  private final AtomicBoolean stopped = new AtomicBoolean();
+
+  private JMXConnectorServer jmxConnectorServer;
+
   public AbstractStartHelper()
   {
   }
@@ -71,27 +164,81 @@ public abstract class AbstractStartHelper
 
   public void start(final boolean waitForKeyPress)
   {
-    final int timeout = MILLIS_HOUR;
+    startupTimer = new StartupTimer();
     setProperty("base.dir", startSettings.getBaseDir());
     if (startSettings.getDialect() != null) {
       setProperty("hibernate.dialect", startSettings.getDialect());
       setProperty("jettyEnv.driverClassName", startSettings.getJdbcDriverClass());
-      setProperty("jettyEnv.jdbcUrl", startSettings.getJdbcUrl());
+      setProperty("jettyEnv.jdbcUrl", startSettings.getEffectiveJdbcUrl());
       setProperty("hibernate.schemaUpdate", startSettings.isSchemaUpdate());
       setProperty("jettyEnv.jdbcUser", startSettings.getJdbcUser());
       setProperty("jettyEnv.jdbcPassword", startSettings.getJdbcPassword(), false);
       setProperty("jettyEnv.jdbcMaxActive", startSettings.getJdbcMaxActive());
+      setProperty("jettyEnv.jdbcPoolType", startSettings.getJdbcPoolType());
+      setProperty("jettyEnv.jdbcMinIdle", startSettings.getJdbcMinIdle());
+      setProperty("jettyEnv.jdbcMaxIdle", startSettings.getJdbcMaxIdle());
+      setProperty("jettyEnv.jdbcConnectionTimeout", startSettings.getJdbcConnectionTimeout());
+      setProperty("jettyEnv.jdbcMaxLifetime", startSettings.getJdbcMaxLifetime());
+      setProperty("jettyEnv.jdbcStatementCacheSize", startSettings.getJdbcStatementCacheSize());
+      setProperty("jettyEnv.jdbcValidationQuery", startSettings.getEffectiveJdbcValidationQuery());
+      setProperty("jettyEnv.jdbcTestOnBorrow", startSettings.isJdbcTestOnBorrow());
+      setProperty("jettyEnv.jdbcMonitoring", startSettings.isJdbcMonitoring());
+      setProperty("jettyEnv.jdbcLeakDetectionThreshold", startSettings.getJdbcLeakDetectionThreshold());
+      setProperty("jettyEnv.jdbcSlowBorrowThreshold", startSettings.getJdbcSlowBorrowThreshold());
+      setProperty("jettyEnv.jdbcReplicaUrls", startSettings.getJdbcReplicaUrls());
+      setProperty("jettyEnv.jdbcReplicaUser", startSettings.getJdbcReplicaUser());
+      setProperty("jettyEnv.jdbcReplicaPassword", startSettings.getJdbcReplicaPassword(), false);
+      setProperty("jettyEnv.jdbcReplicaMaxActive", startSettings.getJdbcReplicaMaxActive());
+      setProperty("jettyEnv.jdbcReplicaRetryDelay", startSettings.getJdbcReplicaRetryDelay());
+      setProperty("jettyEnv.jdbcStatementTracing", startSettings.isJdbcStatementTracing());
+      setProperty("jettyEnv.jdbcSlowQueryThreshold", startSettings.getJdbcSlowQueryThreshold());
+      setProperty("jettyEnv.jdbcMaxStatementFingerprints", startSettings.getJdbcMaxStatementFingerprints());
+      setProperty("jettyEnv.jdbcSlowQueryLog", startSettings.getJdbcSlowQueryLog());
+      setProperty("jettyEnv.jdbcPrewarmConnections", startSettings.getEffectiveJdbcPrewarmConnections());
+      setProperty("jettyEnv.jmx", startSettings.isJmx());
     }
     setProperty("jetty.home", startSettings.getBaseDir());
 
     server = new Server();
-    final SocketConnector connector = new SocketConnector();
-
-    // Set some timeout options to make debugging easier.
-    connector.setMaxIdleTime(timeout);
-    connector.setSoLingerTime(-1);
-    connector.setPort(startSettings.getPort());
+    if (startSettings.isJmx() == true) {
+      // Register connectors, thread pool, session manager and handlers as MBeans (they're registered when added to the server).
+      final MBeanContainer mBeanContainer = new MBeanContainer(ManagementFactory.getPlatformMBeanServer());
+      server.getContainer().addEventListener(mBeanContainer);
+      server.addBean(mBeanContainer);
+    }
+    threadPool = new ServerThreadPool(startSettings);
+    server.setThreadPool(threadPool);
+    log.info("Using thread pool (minThreads="
+        + threadPool.getMinThreads()
+        + ", maxThreads="
+        + threadPool.getMaxThreads()
+        + ", queueCapacity="
+        + threadPool.getQueueCapacity()
+        + ", rejectPolicy="
+        + threadPool.getRejectPolicy()
+        + ").");
+    if (startSettings.getRequestExecutionMode() == RequestExecutionMode.VIRTUAL
+        && startSettings.getEffectiveConnectorMode() == ConnectorMode.BIO) {
+      // A job of the blocking connector serves all requests of a keep-alive connection, so it would hold a permit while idle:
+      log.warn("Virtual threads aren't supported by the blocking connector (bio), processing requests on the thread pool.");
+    } else if (startSettings.getRequestExecutionMode() == RequestExecutionMode.VIRTUAL) {
+      final VirtualThreadDispatcher dispatcher = VirtualThreadDispatcher.create("ProjectForge-virtual-",
+          startSettings.getEffectiveVirtualThreadsMaxConcurrent());
+      if (dispatcher != null) {
+        threadPool.setVirtualThreadDispatcher(dispatcher);
+        log.info("Processing requests on virtual threads (maxConcurrent=" + dispatcher.getMaxConcurrent() + ").");
+      } else {
+        log.warn("Virtual threads aren't supported by Java "
+            + System.getProperty("java.version")
+            + ", processing requests on the thread pool.");
+      }
+    }
+    final AbstractConnector connector = createConnector();
     server.addConnector(connector);
+    if (startSettings.isLowResourcesMonitor() == true) {
+      lowResourcesMonitor = createLowResourcesMonitor(connector);
+      server.addBean(lowResourcesMonitor); // Started and stopped with the server.
+    }
 
     // check if a keystore for a SSL certificate is available, and
     // if so, start a SSL connector on port 8443. By default, the
@@ -125,25 +272,143 @@ public abstract class AbstractStartHelper
       webAppContext.setClassLoader(webAppContext.getClassLoader());
     }
     webAppContext.setMaxFormContentSize(2000000); // Increase 10 times.
+    if (startSettings.isQuickstart() == true) {
+      final long begin = startupTimer.begin();
+      configureQuickstart(webAppContext);
+      startupTimer.end("Quickstart index", begin);
+    }
+    instrumentWebAppContext(webAppContext);
+    if (startSettings.isStaticContent() == true) {
+      configureStaticContent(webAppContext);
+    }
     webAppContext.setServer(server);
+    sessionManager = createSessionManager(webAppContext);
+    if (sessionManager != webAppContext.getSessionHandler().getSessionManager()) {
+      webAppContext.getSessionHandler().setSessionManager(sessionManager);
+    }
+    if (sessionManager instanceof HashSessionManager && startSettings.getSessionScavengePeriod() > 0) {
+      ((HashSessionManager) sessionManager).setScavengePeriod(startSettings.getSessionScavengePeriod());
+    }
+    if (startSettings.getSessionMaxInactiveInterval() > 0) {
+      // The session-timeout of the web.xml is set while configuring the web app, so overwrite it on start of the session manager:
+      sessionManager.addLifeCycleListener(new AbstractLifeCycle.AbstractLifeCycleListener() {
+        @Override
+        public void lifeCycleStarting(final LifeCycle event)
+        {
+          sessionManager.setMaxInactiveInterval(startSettings.getSessionMaxInactiveInterval());
+        }
+      });
+    }
     if (startSettings.isUsingCookies() == false) {
       log.info("Using cookies is disabled.");
-      final HashSessionManager manager = (HashSessionManager) webAppContext.getSessionHandler().getSessionManager();
-      manager.setUsingCookies(false);
+      sessionManager.setUsingCookies(false);
+    }
+    server.setHandler(createHandlerChain(webAppContext));
+    if (StringUtils.isNotBlank(startSettings.getHsqlMaintenanceTimes()) == true) {
+      hsqlMaintenance = createHsqlMaintenance();
+      if (hsqlMaintenance != null) {
+        server.addBean(hsqlMaintenance); // Started and stopped with the server.
+      }
+    }
+    if (startSettings.isJmx() == true) {
+      JmxUtils.register(threadPool, "ThreadPool", "ProjectForge");
+      if (requestStatisticsHandler != null) {
+        JmxUtils.register(requestStatisticsHandler, "RequestStatistics", "ProjectForge");
+      }
+      if (sessionManager instanceof BoundedHashSessionManager) {
+        JmxUtils.register(sessionManager, "Sessions", "ProjectForge");
+      }
     }
-    server.setHandler(webAppContext);
-    // START JMX SERVER
-    // MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
-    // MBeanContainer mBeanContainer = new MBeanContainer(mBeanServer);
-    // server.getContainer().addEventListener(mBeanContainer);
-    // mBeanContainer.start();
+    if (startSettings.getAdminPort() > 0) {
+      adminServer = new AdminServer(startSettings.getAdminHost(), startSettings.getAdminPort());
+      adminServer.setToken(startSettings.getAdminToken());
+      if (StringUtils.isEmpty(startSettings.getAdminToken()) == true && "127.0.0.1".equals(startSettings.getAdminHost()) == false) {
+        log.info("No admin token configured, /shutdown, /jdbc and /jdbc/statements of the admin server accept local requests only.");
+      }
+      registerAdminEndpoints(adminServer);
+    }
+    startupTimer.time(connector, "Connector open (port " + startSettings.getPort() + ")");
+    // Independent start-up work runs in parallel to the configuration of the web app:
+    final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+      private final AtomicInteger counter = new AtomicInteger();
 
+      public Thread newThread(final Runnable runnable)
+      {
+        final Thread thread = new Thread(runnable, "ProjectForge-Startup-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    final List<Future< ? >> startupTasks = new ArrayList<Future< ? >>();
+    boolean started = false;
     try {
+      if (startSettings.getDialect() != null && startSettings.getJdbcInitMode() == DataSourceInitMode.LAZY) {
+        log.info("Lazy initialization of the data source, the data base is opened on the first use.");
+        if (startSettings.isHsqlProfileApplicable() == true) {
+          log.warn("The statements of the HSQLDB profile aren't applied in lazy init mode.");
+        }
+      } else if (startSettings.getDialect() != null) {
+        final Future< ? > dataSourceTask = executor.submit(new Runnable() {
+          public void run()
+          {
+            initDataSource();
+          }
+        });
+        startupTasks.add(dataSourceTask);
+        if (startSettings.getJdbcInitMode() == DataSourceInitMode.PREWARM) {
+          // Beans are started after the handlers and before the connectors, so no request is accepted before the pool is warm:
+          server.addBean(new AbstractLifeCycle() {
+            @Override
+            protected void doStart() throws Exception
+            {
+              dataSourceTask.get();
+            }
+          });
+        }
+      }
+      if (adminServer != null) {
+        startupTasks.add(executor.submit(new Callable<Void>() {
+          public Void call() throws Exception
+          {
+            final long begin = startupTimer.begin();
+            adminServer.start();
+            startupTimer.end("Admin server start", begin);
+            return null;
+          }
+        }));
+      }
+      if (startSettings.isJmx() == true && startSettings.getJmxPort() > 0) {
+        jmxConnectorServer = JmxUtils.startConnectorServer(startSettings.getJmxHost(), startSettings.getJmxPort(),
+            startSettings.getJmxPasswordFile(), startSettings.getJmxAccessFile());
+      }
+      long begin = startupTimer.begin();
       final ClassLoader classLoader = AbstractStartHelper.class.getClassLoader();
       final InputStream is = classLoader.getResourceAsStream("jetty.xml");
       final XmlConfiguration configuration = new XmlConfiguration(is);
       configuration.configure(server);
-      server.start();
+      startupTimer.end("XML configuration (jetty.xml)", begin);
+      begin = startupTimer.begin();
+      try {
+        server.start();
+      } catch (final Exception ex) {
+        awaitStartupTasks(startupTasks); // Throws the failure of the data source awaited by the server in init mode PREWARM.
+        throw ex;
+      }
+      startupTimer.end("Server start", begin);
+      if (startSettings.isShutdownHook() == true) {
+        // Registered before waiting for the start-up tasks, so a SIGTERM during the start-up stops the server too:
+        Runtime.getRuntime().addShutdownHook(new Thread("ProjectForge-Shutdown") {
+          @Override
+          public void run()
+          {
+            AbstractStartHelper.this.stop();
+          }
+        });
+      }
+      awaitStartupTasks(startupTasks);
+      started = true;
+      executor.shutdown();
+      log.info("ProjectForge server started in " + startupTimer.getElapsedMillis() + "ms, start-up phases:\n" + startupTimer.getReport());
       if (startSettings.isLaunchBrowserAfterStartup() == true) {
         launchBrowser(connector, webAppContext);
       }
@@ -155,14 +420,260 @@ public abstract class AbstractStartHelper
         System.err.println(">>> |                                                        |");
         System.err.println(">>> ----------------------------------------------------------");
         System.err.println(">>>");
-        System.in.read();
-        System.out.println(">>> STOPPING EMBEDDED JETTY SERVER");
-        server.stop();
-        server.join();
+        if (System.in.read() < 0) {
+          // Standard input is closed (e. g. started as daemon), so wait for the shutdown by SIGTERM or admin command:
+          log.info("Standard input closed, the server is stopped by SIGTERM or by the admin command /shutdown.");
+          server.join();
+        } else {
+          System.out.println(">>> STOPPING EMBEDDED JETTY SERVER");
+          stop();
+        }
+      }
+    } catch (final StartupException ex) {
+      throw ex;
+    } catch (final Exception ex) {
+      if (started == true) {
+        log.error(ex.getMessage(), ex);
+        return;
+      }
+      // E. g. jetty.xml or the server start failed, the admin server and the JMX connector may already run:
+      log.fatal("Start-up failed, stopping server: " + ex.getMessage(), ex);
+      awaitStartupTasksQuietly(startupTasks); // So the data source isn't created again after closing it.
+      stop();
+      throw new StartupException("Start-up failed: " + ex.getMessage(), ex);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Waits for the start-up tasks running in parallel to the server start. If a task failed, the server, the admin server and the
+   * connection pool are stopped, so the server doesn't serve requests without data base.
+   * @param startupTasks
+   * @throws StartupException if a task failed.
+   * @throws InterruptedException
+   */
+  private void awaitStartupTasks(final List<Future< ? >> startupTasks) throws InterruptedException
+  {
+    for (final Future< ? > task : startupTasks) {
+      try {
+        task.get();
+      } catch (final ExecutionException ex) {
+        final Throwable cause = ex.getCause();
+        log.fatal("Start-up failed, stopping server: " + cause.getMessage(), cause);
+        stop();
+        throw new StartupException("Start-up failed: " + cause.getMessage(), cause);
+      }
+    }
+  }
+
+  /**
+   * Waits for the start-up tasks after the start-up failed otherwise, failures of the tasks are only logged.
+   * @param startupTasks
+   */
+  private void awaitStartupTasksQuietly(final List<Future< ? >> startupTasks)
+  {
+    for (final Future< ? > task : startupTasks) {
+      try {
+        task.get();
+      } catch (final ExecutionException ex) {
+        log.error("Start-up task failed: " + ex.getCause().getMessage(), ex.getCause());
+      } catch (final InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Shuts the server down gracefully: the connectors stop accepting new connections, the requests in process are drained (up to the
+   * shutdown time-out), the web app is stopped (which saves the sessions of the file store), the server and the connection pool are
+   * closed. The duration of each phase is logged. Further calls (e. g. by the shutdown hook after an admin command) are ignored.
+   */
+  public void stop()
+  {
+    if (server == null || stopped.compareAndSet(false, true) == false) {
+      return;
+    }
+    final StartupTimer timer = new StartupTimer();
+    log.info("Shutting down ProjectForge server (shutdownTimeout=" + startSettings.getShutdownTimeout() + "s).");
+    long begin = timer.begin();
+    if (gracefulShutdownHandler != null) {
+      gracefulShutdownHandler.startDraining();
+    }
+    for (final Connector connector : server.getConnectors()) {
+      try {
+        connector.close();
+      } catch (final IOException ex) {
+        log.warn("Error while closing connector " + connector + ": " + ex.getMessage(), ex);
+      }
+    }
+    timer.end("Stop accepting connections", begin);
+    if (gracefulShutdownHandler != null) {
+      begin = timer.begin();
+      try {
+        final int remaining = gracefulShutdownHandler.awaitIdle(startSettings.getShutdownTimeout() * 1000L);
+        if (remaining > 0) {
+          log.warn(remaining + " request(s) still in process after the shutdown time-out of " + startSettings.getShutdownTimeout() + "s.");
+        }
+      } catch (final InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      timer.end("Drain requests in process", begin);
+    }
+    begin = timer.begin();
+    for (final Handler context : server.getChildHandlersByClass(WebAppContext.class)) {
+      try {
+        context.stop();
+      } catch (final Exception ex) {
+        log.error("Error while stopping web app: " + ex.getMessage(), ex);
       }
+    }
+    timer.end("Web app stop (sessions saved)", begin);
+    begin = timer.begin();
+    try {
+      server.stop();
+      server.join();
     } catch (final Exception ex) {
-      log.error(ex.getMessage(), ex);
+      log.error("Error while stopping server: " + ex.getMessage(), ex);
+    }
+    timer.end("Server stop", begin);
+    if (DataSourceFactory.isInitialized() == true) {
+      begin = timer.begin();
+      DataSourceFactory.close();
+      timer.end("Connection pool close", begin);
+    }
+    if (adminServer != null) {
+      begin = timer.begin();
+      adminServer.stop();
+      timer.end("Admin server stop", begin);
+    }
+    if (jmxConnectorServer != null) {
+      try {
+        jmxConnectorServer.stop();
+      } catch (final IOException ex) {
+        log.error("Error while stopping JMX connector: " + ex.getMessage(), ex);
+      }
+    }
+    log.info("ProjectForge server stopped in " + timer.getElapsedMillis() + "ms, shutdown phases:\n" + timer.getReport());
+  }
+
+  /**
+   * @return true if {@link #stop()} was called.
+   */
+  public boolean isStopped()
+  {
+    return stopped.get();
+  }
+
+  /**
+   * Creates the connection pool and opens the first connection (opens the data base), so this is done in parallel to the configuration of
+   * the web app. The web app gets the data source via JNDI (jetty-env.xml) from the {@link DataSourceFactory}. In init mode
+   * {@link DataSourceInitMode#PREWARM} further connections are opened afterwards (see {@link #prewarmDataSource()}).
+   * @throws StartupException if the data base can't be opened, so the start-up fails.
+   */
+  protected void initDataSource()
+  {
+    final long begin = startupTimer.begin();
+    try {
+      // The connection of the primary pool, connections of the data source are lazy if read replicas are used:
+      final Connection connection = DataSourceFactory.getConnectionPool().getDataSource().getConnection();
+      try {
+        applyHsqlProfile(connection);
+      } finally {
+        connection.close();
+      }
+    } catch (final Exception ex) {
+      throw new StartupException("Can't open data base connection while starting: " + ex.getMessage(), ex);
+    }
+    startupTimer.end("JNDI DataSource setup (pool and first connection)", begin);
+    if (startSettings.getEffectiveJdbcPrewarmConnections() > 0) {
+      prewarmDataSource();
+    }
+  }
+
+  /**
+   * Opens and validates the configured number of connections of the pool in parallel, so the first requests don't wait for the connection
+   * setup.
+   */
+  protected void prewarmDataSource()
+  {
+    final long begin = startupTimer.begin();
+    final int connections = new ConnectionPrewarmer(DataSourceFactory.getConnectionPool().getDataSource(),
+        startSettings.getEffectiveJdbcPrewarmConnections(), startSettings.getEffectiveJdbcValidationQuery()).prewarm();
+    startupTimer.end("JDBC pool pre-warming (" + connections + " connections)", begin);
+  }
+
+  /**
+   * @return The scheduled checkpoint and backup of the embedded HSQLDB, configured by the start settings, or null if no embedded HSQLDB
+   *         with file storage is used.
+   */
+  protected HsqlMaintenance createHsqlMaintenance()
+  {
+    if (DatabaseDialect.fromString(startSettings.getDialect()) != DatabaseDialect.HSQL
+        || HsqlProfile.isEmbeddedFileUrl(startSettings.getJdbcUrl()) == false) {
+      log.warn("Scheduled data base maintenance is only supported for the embedded HSQLDB stored in files, ignoring maintenance times.");
+      return null;
+    }
+    final File backupDir = startSettings.isHsqlBackup() == true ? new File(startSettings.getEffectiveHsqlBackupDir()) : null;
+    final HsqlMaintenance maintenance = new HsqlMaintenance(startSettings.getEffectiveJdbcUrl(), startSettings.getJdbcUser(),
+        startSettings.getJdbcPassword(), startSettings.getHsqlMaintenanceTimes(), startSettings.isHsqlMaintenanceDefrag(), backupDir,
+        startSettings.getHsqlBackupKeep(), gracefulShutdownHandler, startSettings.getHsqlMaintenanceMaxActiveRequests());
+    log.info("Using scheduled data base maintenance: " + maintenance);
+    return maintenance;
+  }
+
+  /**
+   * Sets the write delay and the log size of the {@link HsqlProfile} (the other properties of the profile are given by the jdbc url).
+   * @param connection
+   * @throws SQLException
+   */
+  protected void applyHsqlProfile(final Connection connection) throws SQLException
+  {
+    if (startSettings.isHsqlProfileApplicable() == false) {
+      return;
+    }
+    final List<String> statements = startSettings.getHsqlProfile().getStatements();
+    final Statement statement = connection.createStatement();
+    try {
+      for (final String sql : statements) {
+        statement.execute(sql);
+      }
+    } finally {
+      statement.close();
     }
+    log.info("Using HSQLDB profile " + startSettings.getHsqlProfile() + ": " + startSettings.getEffectiveJdbcUrl() + " " + statements);
+  }
+
+  /**
+   * Measures the web app configurations, the initialization of filters and servlets and the start of the web app context.
+   * @param webAppContext
+   */
+  protected void instrumentWebAppContext(final WebAppContext webAppContext)
+  {
+    final String[] configurationClasses = webAppContext.getConfigurationClasses();
+    if (configurationClasses != null && webAppContext.getConfigurations() == null) {
+      final Configuration[] configurations = new Configuration[configurationClasses.length];
+      try {
+        for (int i = 0; i < configurationClasses.length; i++) {
+          final Configuration configuration = (Configuration) Loader.loadClass(AbstractStartHelper.class, configurationClasses[i])
+              .newInstance();
+          configurations[i] = new TimedConfiguration(configuration, startupTimer);
+        }
+        webAppContext.setConfigurations(configurations);
+      } catch (final Exception ex) {
+        log.warn("Can't measure web app configurations: " + ex.getMessage(), ex);
+      }
+    }
+    final ServletHandler servletHandler = webAppContext.getServletHandler();
+    if (servletHandler.getClass() == ServletHandler.class
+        && ArrayUtils.isEmpty(servletHandler.getServlets()) == true
+        && ArrayUtils.isEmpty(servletHandler.getFilters()) == true) {
+      webAppContext.setServletHandler(new TimedServletHandler(startupTimer));
+    }
+    startupTimer.time(webAppContext, "Web app context start ("
+        + (startSettings.isQuickstart() == true ? "with" : "without")
+        + " quickstart index)");
   }
 
   public Server getServer()
@@ -170,14 +681,579 @@ public abstract class AbstractStartHelper
     return server;
   }
 
+  /**
+   * @return The low resources monitor if enabled, otherwise null.
+   */
+  public LowResourcesMonitor getLowResourcesMonitor()
+  {
+    return lowResourcesMonitor;
+  }
+
+  /**
+   * @return The handler limiting the requests per client and of the rate limit patterns if enabled, otherwise null.
+   */
+  public RateLimitHandler getRateLimitHandler()
+  {
+    return rateLimitHandler;
+  }
+
+  /**
+   * @return The scheduled maintenance of the embedded HSQLDB if enabled, otherwise null.
+   */
+  public HsqlMaintenance getHsqlMaintenance()
+  {
+    return hsqlMaintenance;
+  }
+
+  /**
+   * @return The cache of the static resources if the static content mode is enabled, otherwise null.
+   */
+  public StaticResourceCache getStaticResourceCache()
+  {
+    return staticResourceCache;
+  }
+
+  /**
+   * @return The timer of the last start.
+   */
+  public StartupTimer getStartupTimer()
+  {
+    return startupTimer;
+  }
+
+  public ServerThreadPool getThreadPool()
+  {
+    return threadPool;
+  }
+
+  /**
+   * @return The request statistics or null if request statistics are disabled.
+   */
+  public RequestStatisticsHandler getRequestStatisticsHandler()
+  {
+    return requestStatisticsHandler;
+  }
+
+  /**
+   * @return The session manager (available after start).
+   */
+  public AbstractSessionManager getSessionManager()
+  {
+    return sessionManager;
+  }
+
+  /**
+   * @return The admin server or null if no admin port is configured.
+   */
+  public AdminServer getAdminServer()
+  {
+    return adminServer;
+  }
+
   protected abstract WebAppContext getWebAppContext();
 
+  /**
+   * Creates the http connector depending on the connector mode of the start settings.
+   * @see StartSettings#getEffectiveConnectorMode()
+   */
+  protected AbstractConnector createConnector()
+  {
+    final ConnectorMode connectorMode = startSettings.getEffectiveConnectorMode();
+    final AbstractConnector connector;
+    if (connectorMode == ConnectorMode.NIO) {
+      if (startSettings.isLowResourcesMonitor() == true && startSettings.isLowResourcesPauseAccept() == true) {
+        connector = new PausableSelectChannelConnector();
+      } else {
+        connector = new SelectChannelConnector();
+      }
+    } else {
+      connector = new SocketConnector();
+    }
+    if (startSettings.getAcceptors() > 0) {
+      connector.setAcceptors(startSettings.getAcceptors());
+    }
+    if (startSettings.getAcceptQueueSize() > 0) {
+      connector.setAcceptQueueSize(startSettings.getAcceptQueueSize());
+    }
+    connector.setMaxIdleTime(startSettings.getEffectiveMaxIdleTime());
+    connector.setLowResourcesMaxIdleTime(startSettings.getEffectiveLowResourcesMaxIdleTime());
+    if (connector instanceof SelectChannelConnector && startSettings.getEffectiveLowResourcesConnections() > 0) {
+      ((SelectChannelConnector) connector).setLowResourcesConnections(startSettings.getEffectiveLowResourcesConnections());
+    }
+    if (startSettings.getRequestHeaderSize() > 0) {
+      connector.setRequestHeaderSize(startSettings.getRequestHeaderSize());
+    }
+    if (startSettings.getResponseHeaderSize() > 0) {
+      connector.setResponseHeaderSize(startSettings.getResponseHeaderSize());
+    }
+    if (startSettings.getRequestBufferSize() > 0) {
+      connector.setRequestBufferSize(startSettings.getRequestBufferSize());
+    }
+    if (startSettings.getResponseBufferSize() > 0) {
+      connector.setResponseBufferSize(startSettings.getResponseBufferSize());
+    }
+    if (startSettings.getMaxBuffers() >= 0) {
+      connector.setMaxBuffers(startSettings.getMaxBuffers());
+    }
+    connector.setSoLingerTime(-1);
+    connector.setPort(startSettings.getPort());
+    log.info("Using "
+        + connectorMode
+        + " connector (acceptors="
+        + connector.getAcceptors()
+        + ", acceptQueueSize="
+        + connector.getAcceptQueueSize()
+        + ") with "
+        + startSettings.getEffectiveTimeoutProfile()
+        + " time-outs (maxIdleTime="
+        + connector.getMaxIdleTime()
+        + "ms, readTimeout="
+        + startSettings.getEffectiveReadTimeout()
+        + "ms, lowResourcesMaxIdleTime="
+        + connector.getLowResourcesMaxIdleTime()
+        + "ms, lowResourcesConnections="
+        + startSettings.getEffectiveLowResourcesConnections()
+        + ", keepAliveTimeout="
+        + startSettings.getKeepAliveTimeout()
+        + "ms, maxRequestsPerConnection="
+        + startSettings.getMaxRequestsPerConnection()
+        + ") and buffers (requestHeaderSize="
+        + connector.getRequestHeaderSize()
+        + ", responseHeaderSize="
+        + connector.getResponseHeaderSize()
+        + ", requestBufferSize="
+        + connector.getRequestBufferSize()
+        + ", responseBufferSize="
+        + connector.getResponseBufferSize()
+        + ", maxBuffers="
+        + connector.getMaxBuffers()
+        + ").");
+    return connector;
+  }
+
+  /**
+   * @param connector The connector of the server.
+   * @return The monitor of the thread pool, the connections and the heap, configured by the start settings.
+   */
+  protected LowResourcesMonitor createLowResourcesMonitor(final AbstractConnector connector)
+  {
+    log.info("Using low resources monitor (threadUsage="
+        + startSettings.getLowResourcesThreadUsage()
+        + "%, maxConnections="
+        + startSettings.getLowResourcesMaxConnections()
+        + ", heapUsage="
+        + startSettings.getLowResourcesHeapUsage()
+        + "%, pauseAccept="
+        + startSettings.isLowResourcesPauseAccept()
+        + ", shedPattern="
+        + startSettings.getLowResourcesShedPattern()
+        + ").");
+    return new LowResourcesMonitor(threadPool, connector, startSettings.getLowResourcesThreadUsage(),
+        startSettings.getLowResourcesMaxConnections(), startSettings.getLowResourcesHeapUsage(), startSettings.isLowResourcesPauseAccept(),
+        startSettings.getLowResourcesCheckPeriod());
+  }
+
+  /**
+   * Wraps the web app context with the optional handlers configured by the start settings.
+   * @param webAppContext
+   * @return The outer most handler to set as handler of the server.
+   */
+  protected Handler createHandlerChain(final WebAppContext webAppContext)
+  {
+    Handler handler = webAppContext;
+    if (startSettings.isCompression() == true) {
+      handler = wrap(createCompressionHandler(), handler);
+      if (startSettings.isCompressionPrecompressed() == true) {
+        // Jetty's DefaultServlet serves *.gz files for static resources if the client accepts gzip:
+        webAppContext.setInitParameter("org.eclipse.jetty.servlet.Default.gzip", "true");
+      }
+    }
+    if (startSettings.getEffectiveReadTimeout() != startSettings.getEffectiveMaxIdleTime() || startSettings.getKeepAliveTimeout() >= 0) {
+      handler = wrap(new ConnectionTimeoutHandler(startSettings.getEffectiveReadTimeout(), startSettings.getKeepAliveTimeout()), handler);
+    }
+    if (startSettings.getMaxRequestsPerConnection() > 0) {
+      handler = wrap(new KeepAliveHandler(startSettings.getMaxRequestsPerConnection()), handler);
+    }
+    if (threadPool.getQueueCapacity() > 0 && threadPool.getRejectPolicy() == ThreadPoolRejectPolicy.SERVICE_UNAVAILABLE) {
+      handler = wrap(new ThreadPoolSaturationHandler(threadPool), handler);
+    }
+    if (lowResourcesMonitor != null && StringUtils.isNotEmpty(startSettings.getLowResourcesShedPattern()) == true) {
+      handler = wrap(new LowResourcesHandler(lowResourcesMonitor, startSettings.getLowResourcesShedPattern(),
+          startSettings.getLowResourcesRetryAfter()), handler);
+    }
+    if (startSettings.isRateLimit() == true) {
+      rateLimitHandler = createRateLimitHandler();
+      handler = wrap(rateLimitHandler, handler);
+    }
+    if (startSettings.isStaticContent() == true) {
+      handler = wrap(new CacheControlHandler(StringUtils.defaultIfEmpty(startSettings.getStaticVersionedPattern(),
+          CacheControlHandler.DEFAULT_VERSIONED_PATTERN), startSettings.getStaticMaxAge()), handler);
+    }
+    if (startSettings.isRequestStatistics() == true) {
+      requestStatisticsHandler = new RequestStatisticsHandler(createRouteGrouping(), startSettings.getRequestStatisticsMaxRoutes());
+      handler = wrap(requestStatisticsHandler, handler);
+    }
+    gracefulShutdownHandler = new GracefulShutdownHandler();
+    handler = wrap(gracefulShutdownHandler, handler);
+    return handler;
+  }
+
+  /**
+   * Restricts the jars scanned for annotations, TLDs and web fragments to the jars of the quickstart index.
+   * @param webAppContext
+   */
+  protected void configureQuickstart(final WebAppContext webAppContext)
+  {
+    final File webAppDir = webAppContext.getWar() != null ? new File(webAppContext.getWar()) : null;
+    if (webAppDir == null || webAppDir.isDirectory() == false) {
+      log.warn("Quickstart requires an extracted war (war cache or war directory), all jars are scanned.");
+      return;
+    }
+    try {
+      final File indexFile = new File(new File(startSettings.getBaseDir(), "work"), "quickstart.properties");
+      final AnnotationScanIndex index = AnnotationScanIndex.getIndex(webAppDir, indexFile, startSettings.getQuickstartExcludeJars());
+      webAppContext.setAttribute(WebInfConfiguration.WEBINF_JAR_PATTERN, index.getIncludeJarPattern());
+      log.info("Quickstart: scanning " + index.getJars().size() + " of " + index.getNumberOfAllJars() + " jars " + index.getJars() + ".");
+    } catch (final IOException ex) {
+      log.warn("Can't use quickstart index, all jars are scanned: " + ex.getMessage(), ex);
+    }
+  }
+
+  /**
+   * @param webAppContext
+   * @return The session manager for the configured session store mode.
+   */
+  protected AbstractSessionManager createSessionManager(final WebAppContext webAppContext)
+  {
+    final SessionStoreMode mode = startSettings.getSessionStoreMode();
+    if ((startSettings.getSessionMaxResident() > 0 || startSettings.getSessionMemoryBudget() > 0) && mode == SessionStoreMode.JDBC) {
+      log.warn("Max resident sessions and session memory budget aren't supported by session store mode JDBC, ignoring the limits.");
+    }
+    if (mode == SessionStoreMode.FILE) {
+      final BoundedHashSessionManager manager = new BoundedHashSessionManager(startSettings.getSessionMaxResident(),
+          startSettings.getSessionMemoryBudget());
+      final File storeDir = new File(startSettings.getEffectiveSessionStoreDir());
+      try {
+        manager.setStoreDirectory(storeDir);
+      } catch (final IOException ex) {
+        throw new RuntimeException("Can't use session store directory '" + storeDir.getAbsolutePath() + "': " + ex.getMessage(), ex);
+      }
+      manager.setIdleSavePeriod(startSettings.getSessionPassivationIdleTime());
+      manager.setDeleteUnrestorableSessions(true);
+      manager.setSizeSampling(isSessionSizeSampling());
+      log.info("Using file session store (dir="
+          + storeDir.getAbsolutePath()
+          + ", passivationIdleTime="
+          + startSettings.getSessionPassivationIdleTime()
+          + "s, maxResident="
+          + startSettings.getSessionMaxResident()
+          + ", memoryBudget="
+          + startSettings.getSessionMemoryBudget()
+          + ").");
+      return manager;
+    } else if (mode == SessionStoreMode.JDBC) {
+      if (startSettings.getJdbcInitMode() == DataSourceInitMode.LAZY) {
+        log.warn("Session store mode JDBC opens the data base while starting (the session tables are created on start), "
+            + "lazy initialization of the data source has no effect.");
+      }
+      final JDBCSessionIdManager idManager = new JDBCSessionIdManager(server);
+      idManager.setWorkerName("projectforge"); // Jetty stores the last node of each session, a worker name is required.
+      idManager.setDatasource(DataSourceFactory.getDataSource());
+      if (DatabaseDialect.fromString(startSettings.getDialect()) == DatabaseDialect.HSQL) {
+        idManager.setBlobType("LONGVARBINARY"); // HSQLDB 1.8 doesn't support BLOB.
+      }
+      server.setSessionIdManager(idManager);
+      final JDBCSessionManager manager = new JDBCSessionManager();
+      manager.setSessionIdManager(idManager); // Checked before the manager falls back to the id manager of the server.
+      if (startSettings.getSessionScavengePeriod() > 0) {
+        idManager.setScavengeInterval(startSettings.getSessionScavengePeriod());
+      }
+      log.info("Using jdbc session store.");
+      return manager;
+    }
+    if (startSettings.getSessionMaxResident() > 0 || startSettings.getSessionMemoryBudget() > 0) {
+      // Without store directory the evicted sessions would be invalidated, the users would be logged out:
+      log.warn("Max resident sessions and session memory budget require session store mode FILE (evicted sessions are passivated), "
+          + "ignoring the limits.");
+    }
+    final BoundedHashSessionManager manager = new BoundedHashSessionManager(0, 0);
+    manager.setSizeSampling(isSessionSizeSampling());
+    return manager;
+  }
+
+  /**
+   * @return true if the session sizes are published (admin server with metrics endpoint or JMX).
+   */
+  private boolean isSessionSizeSampling()
+  {
+    return startSettings.getAdminPort() > 0 || startSettings.isJmx() == true;
+  }
+
+  /**
+   * @return All sources of the metrics for the Prometheus scrape endpoint /metrics of the admin server.
+   */
+  protected List<MetricsSource> getMetricsSources()
+  {
+    final List<MetricsSource> sources = new ArrayList<MetricsSource>();
+    sources.add(threadPool);
+    if (threadPool.getVirtualThreadDispatcher() != null) {
+      sources.add(threadPool.getVirtualThreadDispatcher());
+    }
+    if (requestStatisticsHandler != null) {
+      sources.add(requestStatisticsHandler);
+    }
+    if (staticResourceCache != null) {
+      sources.add(staticResourceCache);
+    }
+    if (lowResourcesMonitor != null) {
+      sources.add(lowResourcesMonitor);
+    }
+    if (rateLimitHandler != null) {
+      sources.add(rateLimitHandler);
+    }
+    if (hsqlMaintenance != null) {
+      sources.add(hsqlMaintenance);
+    }
+    if (sessionManager instanceof MetricsSource) {
+      sources.add((MetricsSource) sessionManager);
+    }
+    final JdbcPoolMonitor monitor = DataSourceFactory.getMonitor();
+    if (monitor != null) {
+      sources.add(monitor);
+    }
+    final ReplicaRoutingDataSource routingDataSource = DataSourceFactory.getRoutingDataSource();
+    if (routingDataSource != null) {
+      sources.add(routingDataSource);
+    }
+    final StatementTracer statementTracer = DataSourceFactory.getStatementTracer();
+    if (statementTracer != null) {
+      sources.add(statementTracer);
+    }
+    return sources;
+  }
+
+  /**
+   * Override this method for additional rules of grouping the request paths for the request statistics.
+   * @return The default grouping for Wicket.
+   */
+  protected RouteGrouping createRouteGrouping()
+  {
+    return new RouteGrouping();
+  }
+
+  /**
+   * Lets the DefaultServlet of the web app serve the static resources from a {@link StaticResourceCache} with strong ETags.
+   * @param webAppContext
+   */
+  protected void configureStaticContent(final WebAppContext webAppContext)
+  {
+    final boolean fileMapped = startSettings.isStaticFileMappedBuffer() == true && startSettings.isDevelopment() == false;
+    staticResourceCache = new StaticResourceCache(new ResourceFactory() {
+      public Resource getResource(final String path)
+      {
+        try {
+          return webAppContext.getResource(path);
+        } catch (final MalformedURLException ex) {
+          return null;
+        }
+      }
+    }, webAppContext.getMimeTypes(), fileMapped);
+    staticResourceCache.setMaxCacheSize((int) Math.min(Integer.MAX_VALUE, startSettings.getStaticCacheSize()));
+    staticResourceCache.setMaxCachedFileSize(startSettings.getStaticCachedFileSize());
+    staticResourceCache.setMaxCachedFiles(startSettings.getStaticCachedFiles());
+    webAppContext.setAttribute(StaticResourceCache.ATTRIBUTE_NAME, staticResourceCache);
+    // The init parameters of the context overwrite the init parameters of the DefaultServlet (given by the webdefault.xml):
+    webAppContext.setInitParameter("org.eclipse.jetty.servlet.Default.resourceCache", StaticResourceCache.ATTRIBUTE_NAME);
+    webAppContext.setInitParameter("org.eclipse.jetty.servlet.Default.etags", "true");
+    log.info("Using static resource cache (maxCacheSize="
+        + staticResourceCache.getMaxCacheSize()
+        + ", maxCachedFileSize="
+        + staticResourceCache.getMaxCachedFileSize()
+        + ", maxCachedFiles="
+        + staticResourceCache.getMaxCachedFiles()
+        + ", fileMappedBuffer="
+        + fileMapped
+        + ", maxAge of versioned resources="
+        + startSettings.getStaticMaxAge()
+        + ").");
+  }
+
+  /**
+   * @return The handler compressing the responses, configured by the start settings.
+   */
+  protected CompressionHandler createCompressionHandler()
+  {
+    final String mimeTypes = StringUtils.defaultIfEmpty(startSettings.getCompressionMimeTypes(), CompressionHandler.DEFAULT_MIME_TYPES);
+    log.info("Using response compression (minSize="
+        + startSettings.getCompressionMinSize()
+        + ", level="
+        + startSettings.getCompressionLevel()
+        + ", precompressed="
+        + startSettings.isCompressionPrecompressed()
+        + ", mimeTypes="
+        + mimeTypes
+        + ").");
+    return new CompressionHandler(mimeTypes, startSettings.getCompressionMinSize(), startSettings.getCompressionLevel(),
+        threadPool.getMaxThreads());
+  }
+
+  /**
+   * @return The handler limiting the request rate and the concurrent requests per client and of the rate limit patterns, configured by
+   *         the start settings.
+   */
+  protected RateLimitHandler createRateLimitHandler()
+  {
+    log.info("Using rate limits (key="
+        + startSettings.getRateLimitKey()
+        + ", requestsPerSecond="
+        + startSettings.getRateLimitRequestsPerSecond()
+        + ", burst="
+        + startSettings.getRateLimitBurst()
+        + ", maxConcurrent="
+        + startSettings.getRateLimitMaxConcurrent()
+        + ", maxClients="
+        + startSettings.getRateLimitMaxClients()
+        + ", patterns="
+        + startSettings.getRateLimitPatterns()
+        + ", patternMaxWait="
+        + startSettings.getRateLimitPatternMaxWait()
+        + "ms, patternMaxQueued="
+        + startSettings.getRateLimitPatternMaxQueued()
+        + ").");
+    final ClientRateLimiter limiter = new ClientRateLimiter(startSettings.getRateLimitRequestsPerSecond(),
+        startSettings.getRateLimitBurst(), startSettings.getRateLimitMaxConcurrent(), startSettings.getRateLimitMaxClients());
+    return new RateLimitHandler(limiter, startSettings.getRateLimitKey(), startSettings.getRateLimitPatternMaxWait(),
+        startSettings.getRateLimitPatternMaxQueued()).setSessionManager(sessionManager)
+        .addPatternLimits(startSettings.getRateLimitPatterns());
+  }
+
+  /**
+   * The server is ready if it isn't shutting down, the web app is started and (if a data base is used) a pooled connection was validated.
+   * @param jdbcHealthCheck The check of the data base or null if no data base is used.
+   * @return The reasons why the server isn't ready for requests, an empty list if it's ready.
+   */
+  protected List<String> getReadinessProblems(final JdbcHealthCheck jdbcHealthCheck)
+  {
+    final List<String> problems = new ArrayList<String>();
+    if (stopped.get() == true) {
+      problems.add("Server is shutting down.");
+      return problems;
+    }
+    if (server.isStarted() == false) {
+      problems.add("Server not started.");
+      return problems;
+    }
+    for (final Handler handler : server.getChildHandlersByClass(WebAppContext.class)) {
+      final WebAppContext context = (WebAppContext) handler;
+      if (context.isStarted() == false || context.isAvailable() == false) {
+        problems.add("Web app " + context.getContextPath() + " not started.");
+      }
+    }
+    if (jdbcHealthCheck != null) {
+      final String problem = jdbcHealthCheck.getProblem();
+      if (problem != null) {
+        problems.add(problem);
+      }
+    }
+    return problems;
+  }
+
+  /**
+   * Registers the monitoring endpoints of the admin server. Override this method for adding further endpoints. The shutdown and the dumps
+   * of the data base are restricted (see {@link StartSettings#getAdminToken()}).
+   * @param adminServer
+   */
+  protected void registerAdminEndpoints(final AdminServer adminServer)
+  {
+    adminServer.addEndpoint("/metrics", new AdminEndpoint() {
+      public void handle(final HttpServletRequest request, final HttpServletResponse response) throws IOException
+      {
+        final PrometheusWriter writer = new PrometheusWriter();
+        for (final MetricsSource source : getMetricsSources()) {
+          source.writeMetrics(writer);
+        }
+        AdminServer.writeText(response, writer.toString(), PrometheusWriter.CONTENT_TYPE);
+      }
+    });
+    adminServer.addEndpoint("/health/live", new AdminEndpoint() {
+      public void handle(final HttpServletRequest request, final HttpServletResponse response) throws IOException
+      {
+        if (server.isFailed() == true) {
+          response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+          AdminServer.writeText(response, "DOWN\n");
+          return;
+        }
+        AdminServer.writeText(response, "UP\n");
+      }
+    });
+    final JdbcHealthCheck jdbcHealthCheck = startSettings.getDialect() != null ? new JdbcHealthCheck(
+        startSettings.getEffectiveJdbcValidationQuery(), startSettings.getHealthCheckTtl()) : null;
+    adminServer.addEndpoint("/health/ready", new AdminEndpoint() {
+      public void handle(final HttpServletRequest request, final HttpServletResponse response) throws IOException
+      {
+        final List<String> problems = getReadinessProblems(jdbcHealthCheck);
+        if (problems.isEmpty() == false) {
+          response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+          AdminServer.writeText(response, "NOT READY\n" + StringUtils.join(problems, "\n") + "\n");
+          return;
+        }
+        AdminServer.writeText(response, "READY\n");
+      }
+    });
+    adminServer.addEndpoint("/shutdown", new AdminEndpoint() {
+      public void handle(final HttpServletRequest request, final HttpServletResponse response) throws IOException
+      {
+        if ("POST".equals(request.getMethod()) == false) {
+          response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED, "Use POST for shutting down the server.");
+          return;
+        }
+        log.info("Shutdown requested by admin command from " + request.getRemoteAddr() + ".");
+        // Stopping runs in its own thread, because the admin server itself is stopped:
+        new Thread("ProjectForge-Shutdown") {
+          @Override
+          public void run()
+          {
+            AbstractStartHelper.this.stop();
+          }
+        }.start();
+        response.setStatus(HttpServletResponse.SC_ACCEPTED);
+        AdminServer.writeText(response, "Shutdown initiated.\n");
+      }
+    }, true);
+    adminServer.addEndpoint("/jdbc", new AdminEndpoint() {
+      public void handle(final HttpServletRequest request, final HttpServletResponse response) throws IOException
+      {
+        final JdbcPoolMonitor monitor = DataSourceFactory.getMonitor();
+        AdminServer.writeText(response, monitor != null ? monitor.dump() : "Connection pool not yet created or monitoring disabled.\n");
+      }
+    }, true);
+    adminServer.addEndpoint("/jdbc/statements", new AdminEndpoint() {
+      public void handle(final HttpServletRequest request, final HttpServletResponse response) throws IOException
+      {
+        final StatementTracer tracer = DataSourceFactory.getStatementTracer();
+        if (tracer == null) {
+          AdminServer.writeText(response, "Connection pool not yet created or statement tracing disabled.\n");
+          return;
+        }
+        final StatementTracer.Order order = StatementTracer.Order.fromString(request.getParameter("order"));
+        final int top = NumberUtils.toInt(request.getParameter("top"), 20);
+        AdminServer.writeText(response, tracer.dump(top > 0 ? top : 20, order != null ? order : StatementTracer.Order.TOTAL));
+      }
+    }, true);
+  }
+
+  private static Handler wrap(final HandlerWrapper wrapper, final Handler handler)
+  {
+    wrapper.setHandler(handler);
+    return wrapper;
+  }
+
   protected String getLaunchUrlPath()
   {
     return "";
   }
 
-  private void launchBrowser(final SocketConnector connector, final WebAppContext webAppContext)
+  private void launchBrowser(final Connector connector, final WebAppContext webAppContext)
   {
     Desktop desktop = null;
     if (Desktop.isDesktopSupported()) {
@@ -24,6 +24,7 @@
 package org.projectforge.webserver;
 
 import java.io.File;
+import java.io.IOException;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -36,6 +37,8 @@ import org.apache.commons.cli.ParseException;
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.jetty.webapp.WebAppContext;
 import org.projectforge.common.DatabaseDialect;
+import org.projectforge.webserver.deploy.WarExtractionCache;
+import org.projectforge.webserver.jdbc.JdbcPoolType;
 
 /**
  * Use this starter for starting ProjectForge from command line.<br/>
@@ -44,6 +47,8 @@ import org.projectforge.common.DatabaseDialect;
  */
 public class CommandLineStart extends AbstractStartHelper
 {
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(CommandLineStart.class);
+
   private static Options options = new Options();
 
   private String warFile;
@@ -70,6 +75,210 @@ public class CommandLineStart extends AbstractStartHelper
         + StartSettings.getJdbcDefaultUser()
         + "'is used."));
     options.addOption(createOption("jp", "jdbc-password", "string", false, "If not given then no password is assumed."));
+    options.addOption(createOption("jdbc-pool", "hikari|dbcp", false, "Implementation of the connection pool, default is hikari."));
+    options.addOption(createOption("jdbc-max-active", "number", false, "Max number of data base connections, default is "
+        + StartSettings.getJdbcDefaultMaxActive()
+        + "."));
+    options.addOption(createOption("jdbc-min-idle", "number", false, "Min number of idle data base connections, default is 2."));
+    options.addOption(createOption("jdbc-max-idle", "number", false,
+        "Max number of idle data base connections (dbcp only), default is the pool's default."));
+    options.addOption(createOption("jdbc-connection-timeout", "millis", false,
+        "Max time in milliseconds to wait for a free data base connection, default is 30000."));
+    options.addOption(createOption("jdbc-max-lifetime", "millis", false,
+        "Max life time in milliseconds of a data base connection (hikari only), default is 1800000."));
+    options.addOption(createOption("jdbc-statement-cache-size", "number", false,
+        "Number of cached prepared statements per connection (hikari only for PostgreSQL), default is 0 (no caching)."));
+    options.addOption(createOption("jdbc-validation-query", "string", false,
+        "Query for validating connections, default depends on the data base."));
+    options.addOption(createOption("jdbc-test-on-borrow", "boolean", false,
+        "If true then connections are validated before they're borrowed (dbcp only), default is true."));
+    options.addOption(createOption("jdbc-monitoring", "boolean", false,
+        "If true then wait and hold times of data base connections are measured, default is true."));
+    options.addOption(createOption("jdbc-leak-detection-threshold", "millis", false,
+        "Connections held longer are logged with the stack trace of the borrower, default is 0 (no leak detection)."));
+    options.addOption(createOption("jdbc-slow-borrow-threshold", "millis", false,
+        "Requests waiting longer for a data base connection are logged, default is 1000."));
+    options.addOption(createOption("jdbc-replica-urls", "url,...", false,
+        "Jdbc urls of read replicas, read-only connections are routed round-robin to them, default is none."));
+    options.addOption(createOption("jdbc-replica-user", "string", false, "User of the read replicas, default is the jdbc user."));
+    options.addOption(createOption("jdbc-replica-password", "string", false,
+        "Password of the read replicas, default is the jdbc password."));
+    options.addOption(createOption("jdbc-replica-max-active", "number", false,
+        "Max number of connections per read replica, default is 20."));
+    options.addOption(createOption("jdbc-replica-retry-delay", "millis", false,
+        "Time a failed read replica isn't used, default is 30,000."));
+    options.addOption(createOption("jdbc-statement-tracing", "boolean", false,
+        "If true then the execution times of all sql statements are measured, default is false."));
+    options.addOption(createOption("jdbc-slow-query-threshold", "millis", false,
+        "Sql statements executing longer are written to the slow query log, default is 1000."));
+    options.addOption(createOption("jdbc-max-statement-fingerprints", "number", false,
+        "Max number of traced statement fingerprints, default is 500."));
+    options.addOption(createOption("jdbc-slow-query-log", "file", false,
+        "File of the slow query log, default is the ProjectForge log."));
+    options.addOption(createOption("jdbc-init-mode", "eager|prewarm|lazy", false,
+        "Initialization of the data source while starting, default is eager (pool and first connection)."));
+    options.addOption(createOption("jdbc-prewarm-connections", "number", false,
+        "Number of connections opened in parallel while starting in init mode prewarm, default is 10."));
+    options.addOption(createOption("hsql-profile", "none|cached|memory", false,
+        "Tuning of the embedded HSQLDB (table type, cache, nio data file, write delay and log size), default is none."));
+    options.addOption(createOption("hsql-maintenance-times", "HH:mm,...", false,
+        "Off-peak times of the day for checkpoint and backup of the embedded HSQLDB, default is none."));
+    options.addOption(createOption("hsql-maintenance-defrag", "boolean", false,
+        "If true, the data file is defragmented by the scheduled checkpoint, default is true."));
+    options.addOption(createOption("hsql-maintenance-max-requests", "number", false,
+        "The scheduled maintenance is postponed while more requests are in process, default is 2."));
+    options.addOption(createOption("hsql-backup", "boolean", false,
+        "If true, the scheduled maintenance writes a backup, default is true."));
+    options.addOption(createOption("hsql-backup-dir", "directory", false, "Directory of the backups, default is <base dir>/backup."));
+    options.addOption(createOption("hsql-backup-keep", "number", false, "Number of backups to keep, default is 7."));
+    options.addOption(createOption("admin-host", "host", false,
+        "Interface of the admin server (monitoring endpoints), default is 127.0.0.1."));
+    options.addOption(createOption("admin-port", "port", false,
+        "Port of the admin server (monitoring endpoints), default is none (no admin server)."));
+    options.addOption(createOption("admin-token", "token", false,
+        "Shared secret for /shutdown, /jdbc and /jdbc/statements of the admin server (header X-Admin-Token), default is none"
+            + " (these endpoints accept requests from localhost only)."));
+    options.addOption(createOption("health-check-ttl", "millis", false,
+        "Time to live of the data base check of the readiness endpoint of the admin server, default is 5000."));
+    options.addOption(createOption("jmx", "boolean", false,
+        "If true then Jetty and the request statistics are registered as MBeans, default is false."));
+    options.addOption(createOption("jmx-port", "port", false,
+        "Port of a JMX connector for remote clients, default is none."));
+    options.addOption(createOption("jmx-host", "host", false,
+        "Interface of the JMX connector, default is 127.0.0.1. Other interfaces require a password file and use SSL."));
+    options.addOption(createOption("jmx-password-file", "file", false,
+        "Password file of the JMX connector (jmx.remote.x.password.file), default is none (no authentication)."));
+    options.addOption(createOption("jmx-access-file", "file", false,
+        "Access file of the JMX connector (jmx.remote.x.access.file), default is none (read/write for all users)."));
+    options.addOption(createOption("request-statistics", "boolean", false,
+        "If true then request rates, latencies and status codes are measured, default is false (true if jmx is enabled)."));
+    options.addOption(createOption("request-statistics-max-routes", "number", false,
+        "Max number of routes measured by the request statistics, default is 200."));
+    options.addOption(createOption("session-store", "memory|file|jdbc", false,
+        "Where the sessions are stored: memory (default), file (passivation to session-store-dir) or jdbc (data base)."));
+    options.addOption(createOption("session-store-dir", "dir", false,
+        "Directory of the file session store, default is <base-dir>/sessions."));
+    options.addOption(createOption("session-passivation-idle-time", "seconds", false,
+        "Sessions idle for this time are passivated by the file session store, default is 600."));
+    options.addOption(createOption("session-max-resident", "number", false,
+        "Max number of sessions held in memory by the file session store, default is unlimited."));
+    options.addOption(createOption("session-memory-budget", "megabytes", false,
+        "Max estimated size of the sessions held in memory by the file session store, least recently used sessions are passivated, "
+            + "default is unlimited."));
+    options.addOption(createOption("session-scavenge-period", "seconds", false, "Period for checking expired sessions."));
+    options.addOption(createOption("session-max-inactive-interval", "seconds", false,
+        "Session time-out, default is the session-timeout of the web.xml."));
+    options.addOption(createOption("war-cache", "boolean", false,
+        "If true, the extracted war is cached and reused on restart while the war is unchanged, default is true."));
+    options.addOption(createOption("war-cache-dir", "dir", false, "Directory of the war cache, default is <base-dir>/work/webapps."));
+    options.addOption(createOption("quickstart", "boolean", false,
+        "If true, only the jars of the quickstart index are scanned for annotations (requires the war cache), default is false."));
+    options.addOption(createOption("quickstart-exclude-jars", "regexp", false,
+        "Jars known to have no annotations, TLDs or web fragments, e. g. \"(hibernate|spring)-.*\\.jar\"."));
+    options.addOption(createOption("compression", "boolean", false,
+        "If true, the responses are compressed with gzip or deflate if accepted by the client, default is false."));
+    options.addOption(createOption("compression-min-size", "bytes", false,
+        "Responses smaller than this aren't compressed, default is 256."));
+    options.addOption(createOption("compression-mime-types", "list", false,
+        "Comma separated list of the mime types to compress, default are the text types (html, css, javascript, json, xml etc.)."));
+    options.addOption(createOption("compression-level", "1-9", false, "Compression level, 1 is fastest, 9 is best, default is 6."));
+    options.addOption(createOption("compression-precompressed", "boolean", false,
+        "If true, static resources are served from existing precompressed variants (*.gz) if compression is on, default is true."));
+    options.addOption(createOption("static-content", "boolean", false,
+        "If true, static resources are served from a cache with strong ETags and Cache-Control headers, default is false."));
+    options.addOption(createOption("static-cache-size", "megabytes", false, "Max size of the static resource cache, default is 32."));
+    options.addOption(createOption("static-cached-file-size", "kilobytes", false,
+        "Larger static resources aren't cached but streamed, default is 1024."));
+    options.addOption(createOption("static-cached-files", "number", false, "Max number of cached static resources, default is 2048."));
+    options.addOption(createOption("static-file-mapped", "boolean", false,
+        "If true, cached static resources are memory-mapped, default is true (false in development mode)."));
+    options.addOption(createOption("static-max-age", "seconds", false,
+        "Max age of the Cache-Control header of versioned resources, default is one year."));
+    options.addOption(createOption("static-versioned-pattern", "regexp", false,
+        "Pattern of the paths of versioned resources, default matches Wicket's versioned resources and content hashes."));
+    options.addOption(createOption("shutdown-timeout", "seconds", false,
+        "Max time to wait on shutdown for the requests in process, default is 30."));
+    options.addOption(createOption("shutdown-hook", "boolean", false,
+        "If true, the server is shut down gracefully on termination of the JVM (SIGTERM), default is true."));
+    options.addOption(createOption("startup-benchmark", false,
+        "Starts the server, prints the durations of the start-up phases and shuts down the server."));
+    options.addOption(createOption("connector", "bio|nio", false,
+        "Type of the http connector: blocking (bio) or non-blocking (nio), default is nio (bio in development mode)."));
+    options.addOption(createOption("acceptors", "number", false,
+        "Number of acceptor threads (and selector sets of the nio connector), default is Jetty's default."));
+    options.addOption(createOption("accept-queue-size", "number", false,
+        "Backlog of the server socket for not yet accepted connections, default is the system's default."));
+    options.addOption(createOption("timeout-profile", "development|production", false,
+        "Profile of the connection time-outs, default is production (development in development mode)."));
+    options.addOption(createOption("max-idle-time", "millis", false,
+        "Max idle time of connections in milliseconds, default is the value of the time-out profile."));
+    options.addOption(createOption("read-timeout", "millis", false,
+        "Max time in milliseconds a read or write may stall while a request is in progress, default is given by the time-out profile."));
+    options.addOption(createOption("low-resources-idle-time", "millis", false,
+        "Max idle time of connections in milliseconds while the server is low on resources, default is given by the time-out profile."));
+    options.addOption(createOption("low-resources-connections", "number", false,
+        "Number of connections above which the server is low on resources, default is the value of the time-out profile."));
+    options.addOption(createOption("keep-alive-timeout", "millis", false,
+        "Max idle time of persistent connections between two requests, default is the max idle time."));
+    options.addOption(createOption("max-requests-per-connection", "number", false,
+        "Max number of requests per persistent connection, default is unlimited."));
+    options.addOption(createOption("request-header-size", "bytes", false,
+        "Buffer size of the request headers, default is Jetty's default."));
+    options.addOption(createOption("response-header-size", "bytes", false,
+        "Buffer size of the response headers, default is Jetty's default."));
+    options.addOption(createOption("request-buffer-size", "bytes", false,
+        "Buffer size of the request content, default is Jetty's default."));
+    options.addOption(createOption("response-buffer-size", "bytes", false,
+        "Output buffer size of the responses, default is Jetty's default."));
+    options.addOption(createOption("max-buffers", "number", false,
+        "Max number of idle buffers kept in the buffer pool of the connector, default is Jetty's default."));
+    options.addOption(createOption("low-resources-monitor", "boolean", false,
+        "If true, the server sheds load while threads, connections or heap run short, default is false."));
+    options.addOption(createOption("low-resources-thread-usage", "percent", false,
+        "Active threads of the max threads above which the server is low on resources, default is 90."));
+    options.addOption(createOption("low-resources-max-connections", "number", false,
+        "Open connections above which the server is low on resources, default is unlimited."));
+    options.addOption(createOption("low-resources-heap-usage", "percent", false,
+        "Used heap after garbage collection above which the server is low on resources, default is 90."));
+    options.addOption(createOption("low-resources-pause-accept", "boolean", false,
+        "If true, no new connections are accepted while low on resources (nio only), default is false."));
+    options.addOption(createOption("low-resources-shed-pattern", "regexp", false,
+        "Paths of non-essential requests answered with 503 while low on resources, default is none."));
+    options.addOption(createOption("low-resources-retry-after", "seconds", false,
+        "Retry-After of requests rejected because of low resources, default is 10."));
+    options.addOption(createOption("rate-limit", "boolean", false,
+        "If true, the request rate and concurrent requests per client and of the rate limit patterns are limited, default is false."));
+    options.addOption(createOption("rate-limit-key", "key", false,
+        "Identifies the clients of the rate limits: ip or session, default is ip."));
+    options.addOption(createOption("rate-limit-rate", "number", false, "Sustained requests per second per client, default is 20."));
+    options.addOption(createOption("rate-limit-burst", "number", false,
+        "Requests a client may send at once after being idle, default is 50."));
+    options.addOption(createOption("rate-limit-max-concurrent", "number", false, "Max concurrent requests per client, default is 8."));
+    options.addOption(createOption("rate-limit-max-clients", "number", false,
+        "Max number of clients tracked by the rate limiter, default is 10,000."));
+    options.addOption(createOption("rate-limit-patterns", "regex=permits;...", false,
+        "Max concurrent requests over all clients of expensive paths, default is none."));
+    options.addOption(createOption("rate-limit-pattern-wait", "millis", false,
+        "Max time a request of a rate limit pattern waits for a permit, default is 5,000."));
+    options.addOption(createOption("rate-limit-pattern-queue", "number", false,
+        "Max number of requests per rate limit pattern waiting for a permit (blocking a server thread), default is 4."));
+    options.addOption(createOption("min-threads", "number", false, "Min number of server threads, default is "
+        + StartSettings.getDefaultThreadPoolMinThreads()
+        + "."));
+    options.addOption(createOption("max-threads", "number", false, "Max number of server threads, default is "
+        + StartSettings.getDefaultThreadPoolMaxThreads()
+        + "."));
+    options.addOption(createOption("queue-capacity", "number", false, "Max number of requests waiting for a server thread, default is "
+        + StartSettings.getDefaultThreadPoolQueueCapacity()
+        + " (0 for an unbounded queue)."));
+    options.addOption(createOption("thread-idle-timeout", "millis", false,
+        "Idle time in milliseconds after which surplus server threads are stopped, default is 60000."));
+    options.addOption(createOption("reject-policy", "service-unavailable|close-connection", false,
+        "What to do if the request queue is full: respond fast with 503 (default) or close the connection."));
+    options.addOption(createOption("execution-mode", "platform|virtual", false,
+        "Threads the requests are processed on: platform or virtual (Java 21+ and nio connector only), default is platform."));
+    options.addOption(createOption("virtual-threads-max-concurrent", "number", false,
+        "Max number of requests processed on virtual threads at the same time, default is the max size of the JDBC pool."));
   }
 
   @SuppressWarnings("static-access")
@@ -88,6 +297,14 @@ public class CommandLineStart extends AbstractStartHelper
     return option;
   }
 
+  @SuppressWarnings("static-access")
+  private static Option createOption(String longOpt, String arg, boolean required, String description)
+  {
+    Option option = OptionBuilder.withArgName(arg).isRequired(required).hasArg().withDescription(description).withLongOpt(longOpt)
+        .create();
+    return option;
+  }
+
   @SuppressWarnings("static-access")
   private static Option createOption(char flag, String longOpt, boolean required, String description)
   {
@@ -95,6 +312,13 @@ public class CommandLineStart extends AbstractStartHelper
     return option;
   }
 
+  @SuppressWarnings("static-access")
+  private static Option createOption(String longOpt, boolean required, String description)
+  {
+    Option option = OptionBuilder.isRequired(required).withDescription(description).withLongOpt(longOpt).create();
+    return option;
+  }
+
   public static void main(final String[] args) throws Exception
   {
     CommandLineParser parser = new GnuParser();
@@ -118,10 +342,142 @@ public class CommandLineStart extends AbstractStartHelper
     settings.setJdbcUrl(getString(cmdLine, "jdbc-url", StartSettings.getJdbcDefaultUrl(baseDir)));
     settings.setJdbcUser(getString(cmdLine, "ju", StartSettings.getJdbcDefaultUser()));
     settings.setJdbcPassword(getString(cmdLine, "jp", null));
+    final JdbcPoolType jdbcPoolType = JdbcPoolType.fromString(getString(cmdLine, "jdbc-pool", null));
+    if (jdbcPoolType != null) {
+      settings.setJdbcPoolType(jdbcPoolType);
+    }
+    settings.setJdbcMaxActive(getInt(cmdLine, "jdbc-max-active", settings.getJdbcMaxActive()));
+    settings.setJdbcMinIdle(getInt(cmdLine, "jdbc-min-idle", settings.getJdbcMinIdle()));
+    settings.setJdbcMaxIdle(getInt(cmdLine, "jdbc-max-idle", settings.getJdbcMaxIdle()));
+    settings.setJdbcConnectionTimeout(getLong(cmdLine, "jdbc-connection-timeout", settings.getJdbcConnectionTimeout()));
+    settings.setJdbcMaxLifetime(getLong(cmdLine, "jdbc-max-lifetime", settings.getJdbcMaxLifetime()));
+    settings.setJdbcStatementCacheSize(getInt(cmdLine, "jdbc-statement-cache-size", settings.getJdbcStatementCacheSize()));
+    settings.setJdbcValidationQuery(getString(cmdLine, "jdbc-validation-query", null));
+    settings.setJdbcTestOnBorrow(getBoolean(cmdLine, "jdbc-test-on-borrow", settings.isJdbcTestOnBorrow()));
+    settings.setJdbcMonitoring(getBoolean(cmdLine, "jdbc-monitoring", settings.isJdbcMonitoring()));
+    settings.setJdbcLeakDetectionThreshold(getLong(cmdLine, "jdbc-leak-detection-threshold", settings.getJdbcLeakDetectionThreshold()));
+    settings.setJdbcSlowBorrowThreshold(getLong(cmdLine, "jdbc-slow-borrow-threshold", settings.getJdbcSlowBorrowThreshold()));
+    settings.setJdbcReplicaUrls(getString(cmdLine, "jdbc-replica-urls", null));
+    settings.setJdbcReplicaUser(getString(cmdLine, "jdbc-replica-user", null));
+    settings.setJdbcReplicaPassword(getString(cmdLine, "jdbc-replica-password", null));
+    settings.setJdbcReplicaMaxActive(getInt(cmdLine, "jdbc-replica-max-active", settings.getJdbcReplicaMaxActive()));
+    settings.setJdbcReplicaRetryDelay(getLong(cmdLine, "jdbc-replica-retry-delay", settings.getJdbcReplicaRetryDelay()));
+    settings.setJdbcStatementTracing(getBoolean(cmdLine, "jdbc-statement-tracing", settings.isJdbcStatementTracing()));
+    settings.setJdbcSlowQueryThreshold(getLong(cmdLine, "jdbc-slow-query-threshold", settings.getJdbcSlowQueryThreshold()));
+    settings.setJdbcMaxStatementFingerprints(getInt(cmdLine, "jdbc-max-statement-fingerprints",
+        settings.getJdbcMaxStatementFingerprints()));
+    settings.setJdbcSlowQueryLog(getString(cmdLine, "jdbc-slow-query-log", null));
+    final DataSourceInitMode jdbcInitMode = DataSourceInitMode.fromString(getString(cmdLine, "jdbc-init-mode", null));
+    if (jdbcInitMode != null) {
+      settings.setJdbcInitMode(jdbcInitMode);
+    }
+    settings.setJdbcPrewarmConnections(getInt(cmdLine, "jdbc-prewarm-connections", settings.getJdbcPrewarmConnections()));
+    final HsqlProfile hsqlProfile = HsqlProfile.fromString(getString(cmdLine, "hsql-profile", null));
+    if (hsqlProfile != null) {
+      settings.setHsqlProfile(hsqlProfile);
+    }
+    settings.setHsqlMaintenanceTimes(getString(cmdLine, "hsql-maintenance-times", null));
+    settings.setHsqlMaintenanceDefrag(getBoolean(cmdLine, "hsql-maintenance-defrag", settings.isHsqlMaintenanceDefrag()));
+    settings.setHsqlMaintenanceMaxActiveRequests(getInt(cmdLine, "hsql-maintenance-max-requests",
+        settings.getHsqlMaintenanceMaxActiveRequests()));
+    settings.setHsqlBackup(getBoolean(cmdLine, "hsql-backup", settings.isHsqlBackup()));
+    settings.setHsqlBackupDir(getString(cmdLine, "hsql-backup-dir", null));
+    settings.setHsqlBackupKeep(getInt(cmdLine, "hsql-backup-keep", settings.getHsqlBackupKeep()));
+    settings.setAdminHost(getString(cmdLine, "admin-host", settings.getAdminHost()));
+    settings.setAdminPort(getInt(cmdLine, "admin-port", settings.getAdminPort()));
+    settings.setAdminToken(getString(cmdLine, "admin-token", null));
+    settings.setHealthCheckTtl(getInt(cmdLine, "health-check-ttl", settings.getHealthCheckTtl()));
+    settings.setJmx(getBoolean(cmdLine, "jmx", settings.isJmx()));
+    settings.setJmxPort(getInt(cmdLine, "jmx-port", settings.getJmxPort()));
+    settings.setJmxHost(getString(cmdLine, "jmx-host", settings.getJmxHost()));
+    settings.setJmxPasswordFile(getString(cmdLine, "jmx-password-file", null));
+    settings.setJmxAccessFile(getString(cmdLine, "jmx-access-file", null));
+    settings.setRequestStatistics(getBoolean(cmdLine, "request-statistics", false));
+    settings.setRequestStatisticsMaxRoutes(getInt(cmdLine, "request-statistics-max-routes", settings.getRequestStatisticsMaxRoutes()));
     settings.setSchemaUpdate(getBoolean(cmdLine, 'u', false));
     settings.setLaunchBrowserAfterStartup(getBoolean(cmdLine, 'b', true));
     settings.setDevelopment(getBoolean(cmdLine, 'v', false));
     settings.setPort(getInt(cmdLine, 'p', settings.getPort()));
+    settings.setWarCache(getBoolean(cmdLine, "war-cache", settings.isWarCache()));
+    settings.setWarCacheDir(getString(cmdLine, "war-cache-dir", null));
+    settings.setQuickstart(getBoolean(cmdLine, "quickstart", settings.isQuickstart()));
+    settings.setQuickstartExcludeJars(getString(cmdLine, "quickstart-exclude-jars", null));
+    settings.setCompression(getBoolean(cmdLine, "compression", settings.isCompression()));
+    settings.setCompressionMinSize(getInt(cmdLine, "compression-min-size", settings.getCompressionMinSize()));
+    settings.setCompressionMimeTypes(getString(cmdLine, "compression-mime-types", null));
+    settings.setCompressionLevel(getInt(cmdLine, "compression-level", settings.getCompressionLevel()));
+    settings.setCompressionPrecompressed(getBoolean(cmdLine, "compression-precompressed", settings.isCompressionPrecompressed()));
+    settings.setStaticContent(getBoolean(cmdLine, "static-content", settings.isStaticContent()));
+    settings.setStaticCacheSize(getLong(cmdLine, "static-cache-size", settings.getStaticCacheSize() / 1024 / 1024) * 1024 * 1024);
+    settings.setStaticCachedFileSize(getInt(cmdLine, "static-cached-file-size", settings.getStaticCachedFileSize() / 1024) * 1024);
+    settings.setStaticCachedFiles(getInt(cmdLine, "static-cached-files", settings.getStaticCachedFiles()));
+    settings.setStaticFileMappedBuffer(getBoolean(cmdLine, "static-file-mapped", settings.isStaticFileMappedBuffer()));
+    settings.setStaticMaxAge(getInt(cmdLine, "static-max-age", settings.getStaticMaxAge()));
+    settings.setStaticVersionedPattern(getString(cmdLine, "static-versioned-pattern", null));
+    settings.setShutdownTimeout(getInt(cmdLine, "shutdown-timeout", settings.getShutdownTimeout()));
+    settings.setShutdownHook(getBoolean(cmdLine, "shutdown-hook", settings.isShutdownHook()));
+    settings.setConnectorMode(ConnectorMode.fromString(getString(cmdLine, "connector", null)));
+    final SessionStoreMode sessionStoreMode = SessionStoreMode.fromString(getString(cmdLine, "session-store", null));
+    if (sessionStoreMode != null) {
+      settings.setSessionStoreMode(sessionStoreMode);
+    }
+    settings.setSessionStoreDir(getString(cmdLine, "session-store-dir", null));
+    settings.setSessionPassivationIdleTime(getInt(cmdLine, "session-passivation-idle-time", settings.getSessionPassivationIdleTime()));
+    settings.setSessionMaxResident(getInt(cmdLine, "session-max-resident", settings.getSessionMaxResident()));
+    settings.setSessionMemoryBudget(getLong(cmdLine, "session-memory-budget", 0) * 1024 * 1024);
+    settings.setSessionScavengePeriod(getInt(cmdLine, "session-scavenge-period", settings.getSessionScavengePeriod()));
+    settings.setSessionMaxInactiveInterval(getInt(cmdLine, "session-max-inactive-interval", settings.getSessionMaxInactiveInterval()));
+    settings.setAcceptors(getInt(cmdLine, "acceptors", settings.getAcceptors()));
+    settings.setAcceptQueueSize(getInt(cmdLine, "accept-queue-size", settings.getAcceptQueueSize()));
+    settings.setTimeoutProfile(TimeoutProfile.fromString(getString(cmdLine, "timeout-profile", null)));
+    settings.setMaxIdleTime(getInt(cmdLine, "max-idle-time", settings.getMaxIdleTime()));
+    settings.setReadTimeout(getInt(cmdLine, "read-timeout", settings.getReadTimeout()));
+    settings.setLowResourcesMaxIdleTime(getInt(cmdLine, "low-resources-idle-time", settings.getLowResourcesMaxIdleTime()));
+    settings.setLowResourcesConnections(getInt(cmdLine, "low-resources-connections", settings.getLowResourcesConnections()));
+    settings.setKeepAliveTimeout(getInt(cmdLine, "keep-alive-timeout", settings.getKeepAliveTimeout()));
+    settings.setMaxRequestsPerConnection(getInt(cmdLine, "max-requests-per-connection", settings.getMaxRequestsPerConnection()));
+    settings.setRequestHeaderSize(getInt(cmdLine, "request-header-size", settings.getRequestHeaderSize()));
+    settings.setResponseHeaderSize(getInt(cmdLine, "response-header-size", settings.getResponseHeaderSize()));
+    settings.setRequestBufferSize(getInt(cmdLine, "request-buffer-size", settings.getRequestBufferSize()));
+    settings.setResponseBufferSize(getInt(cmdLine, "response-buffer-size", settings.getResponseBufferSize()));
+    settings.setMaxBuffers(getInt(cmdLine, "max-buffers", settings.getMaxBuffers()));
+    settings.setLowResourcesMonitor(getBoolean(cmdLine, "low-resources-monitor", settings.isLowResourcesMonitor()));
+    settings.setLowResourcesThreadUsage(getInt(cmdLine, "low-resources-thread-usage", settings.getLowResourcesThreadUsage()));
+    settings.setLowResourcesMaxConnections(getInt(cmdLine, "low-resources-max-connections", settings.getLowResourcesMaxConnections()));
+    settings.setLowResourcesHeapUsage(getInt(cmdLine, "low-resources-heap-usage", settings.getLowResourcesHeapUsage()));
+    settings.setLowResourcesPauseAccept(getBoolean(cmdLine, "low-resources-pause-accept", settings.isLowResourcesPauseAccept()));
+    settings.setLowResourcesShedPattern(getString(cmdLine, "low-resources-shed-pattern", null));
+    settings.setLowResourcesRetryAfter(getInt(cmdLine, "low-resources-retry-after", settings.getLowResourcesRetryAfter()));
+    settings.setRateLimit(getBoolean(cmdLine, "rate-limit", settings.isRateLimit()));
+    final RateLimitKey rateLimitKey = RateLimitKey.fromString(getString(cmdLine, "rate-limit-key", null));
+    if (rateLimitKey != null) {
+      settings.setRateLimitKey(rateLimitKey);
+    }
+    settings.setRateLimitRequestsPerSecond(getInt(cmdLine, "rate-limit-rate", settings.getRateLimitRequestsPerSecond()));
+    settings.setRateLimitBurst(getInt(cmdLine, "rate-limit-burst", settings.getRateLimitBurst()));
+    settings.setRateLimitMaxConcurrent(getInt(cmdLine, "rate-limit-max-concurrent", settings.getRateLimitMaxConcurrent()));
+    settings.setRateLimitMaxClients(getInt(cmdLine, "rate-limit-max-clients", settings.getRateLimitMaxClients()));
+    settings.setRateLimitPatterns(getString(cmdLine, "rate-limit-patterns", null));
+    settings.setRateLimitPatternMaxWait(getInt(cmdLine, "rate-limit-pattern-wait", settings.getRateLimitPatternMaxWait()));
+    settings.setRateLimitPatternMaxQueued(getInt(cmdLine, "rate-limit-pattern-queue", settings.getRateLimitPatternMaxQueued()));
+    settings.setThreadPoolMinThreads(getInt(cmdLine, "min-threads", settings.getThreadPoolMinThreads()));
+    settings.setThreadPoolMaxThreads(getInt(cmdLine, "max-threads", settings.getThreadPoolMaxThreads()));
+    settings.setThreadPoolQueueCapacity(getInt(cmdLine, "queue-capacity", settings.getThreadPoolQueueCapacity()));
+    settings.setThreadPoolIdleTimeout(getInt(cmdLine, "thread-idle-timeout", settings.getThreadPoolIdleTimeout()));
+    final ThreadPoolRejectPolicy rejectPolicy = ThreadPoolRejectPolicy.fromString(getString(cmdLine, "reject-policy", null));
+    if (rejectPolicy != null) {
+      settings.setThreadPoolRejectPolicy(rejectPolicy);
+    }
+    final RequestExecutionMode executionMode = RequestExecutionMode.fromString(getString(cmdLine, "execution-mode", null));
+    if (executionMode != null) {
+      settings.setRequestExecutionMode(executionMode);
+    }
+    if (executionMode == RequestExecutionMode.VIRTUAL && settings.getEffectiveConnectorMode() == ConnectorMode.BIO) {
+      System.err.println("Execution mode virtual isn't supported by the blocking connector (bio). Please use --connector nio.");
+      printHelp();
+      return;
+    }
+    settings.setVirtualThreadsMaxConcurrent(getInt(cmdLine, "virtual-threads-max-concurrent", settings.getVirtualThreadsMaxConcurrent()));
     // Set the url of ProjectForge's storage web server:
     // System.setProperty(StorageConstants.SYSTEM_PROPERTY_URL, "http://localhost:8081/");
 
@@ -143,6 +499,19 @@ public class CommandLineStart extends AbstractStartHelper
     System.out.println("Using war file '" + new File(warFile).getAbsolutePath() + "'.");
 
     final CommandLineStart startHelper = new CommandLineStart(settings, warFile);
+    if (cmdLine.hasOption("startup-benchmark") == true) {
+      boolean started;
+      try {
+        startHelper.start(false);
+        started = startHelper.getServer().isStarted();
+      } catch (final StartupException ex) {
+        started = false;
+      }
+      System.out.println(started == true ? "Start-up phases:" : "Start-up failed, phases until failure:");
+      System.out.println(startHelper.getStartupTimer().getReport());
+      startHelper.stop();
+      System.exit(started == true ? 0 : 1);
+    }
     startHelper.start();
   }
 
@@ -161,6 +530,15 @@ public class CommandLineStart extends AbstractStartHelper
     return "true".equals(val.toLowerCase());
   }
 
+  private static boolean getBoolean(CommandLine cmdLine, String option, boolean defaultValue)
+  {
+    String val = cmdLine.getOptionValue(option);
+    if (StringUtils.isEmpty(val) == true) {
+      return defaultValue;
+    }
+    return "true".equals(val.toLowerCase());
+  }
+
   private static int getInt(CommandLine cmdLine, char option, int defaultValue)
   {
     String val = cmdLine.getOptionValue(option);
@@ -170,6 +548,24 @@ public class CommandLineStart extends AbstractStartHelper
     return Integer.parseInt(val);
   }
 
+  private static int getInt(CommandLine cmdLine, String option, int defaultValue)
+  {
+    String val = cmdLine.getOptionValue(option);
+    if (StringUtils.isEmpty(val) == true) {
+      return defaultValue;
+    }
+    return Integer.parseInt(val);
+  }
+
+  private static long getLong(CommandLine cmdLine, String option, long defaultValue)
+  {
+    String val = cmdLine.getOptionValue(option);
+    if (StringUtils.isEmpty(val) == true) {
+      return defaultValue;
+    }
+    return Long.parseLong(val);
+  }
+
   private static String getString(CommandLine cmdLine, char option, String defaultValue)
   {
     String val = cmdLine.getOptionValue(option);
@@ -206,11 +602,28 @@ public class CommandLineStart extends AbstractStartHelper
     final WebAppContext webAppContext = new WebAppContext();
     webAppContext.setConfigurationClasses(CONFIGURATION_CLASSES);
     webAppContext.setContextPath("/ProjectForge");
-    webAppContext.setWar(warFile);
+    webAppContext.setWar(getWar());
     // webAppContext.setDescriptor("src/main/webapp/WEB-INF/web.xml");
     // webAppContext.setExtraClasspath("target/classes");
     webAppContext.setInitParameter("development", String.valueOf(startSettings.isDevelopment()));
     webAppContext.setInitParameter("stripWicketTags", String.valueOf(startSettings.isStripWicketTags()));
     return webAppContext;
   }
+
+  /**
+   * @return The extracted war of the war cache if enabled, otherwise the war file.
+   */
+  private String getWar()
+  {
+    if (startSettings.isWarCache() == false || new File(warFile).isDirectory() == true) {
+      return warFile;
+    }
+    try {
+      final WarExtractionCache cache = new WarExtractionCache(new File(startSettings.getEffectiveWarCacheDir()));
+      return cache.getExtractedWar(new File(warFile)).getAbsolutePath();
+    } catch (final IOException ex) {
+      log.warn("Can't use war cache, the war is extracted by Jetty: " + ex.getMessage(), ex);
+      return warFile;
+    }
+  }
 }
@@ -0,0 +1,57 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * The type of the http connector used by the embedded Jetty.
+ */
+public enum ConnectorMode
+{
+  /**
+   * Blocking connector (SocketConnector): every open connection (also idle keep-alive connections) holds a thread of the pool. Easy to
+   * debug, used in development mode.
+   */
+  BIO,
+
+  /**
+   * Non-blocking connector (SelectChannelConnector): idle connections are parked in selectors and threads are only used while a request
+   * is processed. Default for productive environments.
+   */
+  NIO;
+
+  /**
+   * @param value "bio" or "nio" (case insensitive).
+   * @return The connector mode or null if the given value is empty.
+   * @throws IllegalArgumentException if the value isn't a known connector mode.
+   */
+  public static ConnectorMode fromString(final String value)
+  {
+    if (StringUtils.isBlank(value) == true) {
+      return null;
+    }
+    return ConnectorMode.valueOf(value.trim().toUpperCase());
+  }
+}
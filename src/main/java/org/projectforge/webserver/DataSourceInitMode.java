@@ -0,0 +1,61 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * How the data source is initialized while the server is starting.
+ */
+public enum DataSourceInitMode
+{
+  /**
+   * The connection pool is created and its first connection is opened in parallel to the configuration of the web app. Default.
+   */
+  EAGER,
+
+  /**
+   * As {@link #EAGER}, but further connections are opened and validated in parallel, so the first requests don't wait for the
+   * connection setup. The connectors aren't opened before the pre-warming is finished.
+   */
+  PREWARM,
+
+  /**
+   * The data base isn't touched while starting, connections are opened on the first use (fast start-up for development).
+   */
+  LAZY;
+
+  /**
+   * @param value "eager", "prewarm" or "lazy" (case insensitive).
+   * @return The init mode or null if the given value is empty.
+   * @throws IllegalArgumentException if the value isn't a known init mode.
+   */
+  public static DataSourceInitMode fromString(final String value)
+  {
+    if (StringUtils.isBlank(value) == true) {
+      return null;
+    }
+    return DataSourceInitMode.valueOf(value.trim().toUpperCase());
+  }
+}
@@ -0,0 +1,398 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.projectforge.webserver.handler.GracefulShutdownHandler;
+import org.projectforge.webserver.metrics.LatencyHistogram;
+import org.projectforge.webserver.metrics.MetricsSource;
+import org.projectforge.webserver.metrics.PrometheusWriter;
+
+/**
+ * Runs the checkpoint (optionally with defragmentation of the data file) and the online backup of the embedded HSQLDB at the given
+ * off-peak times of the day, so HSQLDB doesn't need to checkpoint automatically during business hours. The maintenance uses its own
+ * connection on a low priority thread. While more requests than the given max are in process, the maintenance is postponed (checked every
+ * minute) and skipped if the load doesn't drop within an hour. The load is checked again between checkpoint and backup.<br/>
+ * HSQLDB 1.8 has no BACKUP DATABASE statement, the backup is written by SCRIPT '&lt;file&gt;' (the complete data base as SQL script).
+ */
+public class HsqlMaintenance extends AbstractLifeCycle implements MetricsSource
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(HsqlMaintenance.class);
+
+  public static final String TASK_CHECKPOINT = "checkpoint";
+
+  public static final String TASK_BACKUP = "backup";
+
+  private static final long RETRY_MILLIS = 60 * 1000;
+
+  private static final long MAX_POSTPONE_MILLIS = 60 * 60 * 1000;
+
+  private static final String BACKUP_PREFIX = "ProjectForgeDB-";
+
+  private static final String BACKUP_SUFFIX = ".script";
+
+  private final String jdbcUrl;
+
+  private final String user;
+
+  private final String password;
+
+  private final int[] minutesOfDay;
+
+  private final boolean defrag;
+
+  private final File backupDir;
+
+  private final int backupKeep;
+
+  private final GracefulShutdownHandler requests;
+
+  private final int maxActiveRequests;
+
+  private final LatencyHistogram checkpointDurations = new LatencyHistogram();
+
+  private final LatencyHistogram backupDurations = new LatencyHistogram();
+
+  private final AtomicLong skippedRuns = new AtomicLong();
+
+  private final AtomicLong failedRuns = new AtomicLong();
+
+  private volatile double lastCheckpointSeconds = Double.NaN;
+
+  private volatile double lastBackupSeconds = Double.NaN;
+
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * @param jdbcUrl Url of the embedded data base.
+   * @param user
+   * @param password
+   * @param times Comma separated times of the day (HH:mm).
+   * @param defrag If true, the data file is defragmented by the checkpoint.
+   * @param backupDir Directory of the backups, null for no backups.
+   * @param backupKeep Number of backups to keep, 0 for keeping all.
+   * @param requests Handler counting the requests in process.
+   * @param maxActiveRequests Max number of requests in process for running the maintenance.
+   * @throws IllegalArgumentException if the times are invalid.
+   */
+  public HsqlMaintenance(final String jdbcUrl, final String user, final String password, final String times, final boolean defrag,
+      final File backupDir, final int backupKeep, final GracefulShutdownHandler requests, final int maxActiveRequests)
+  {
+    this.jdbcUrl = jdbcUrl;
+    this.user = user;
+    this.password = password;
+    this.minutesOfDay = parseTimes(times);
+    this.defrag = defrag;
+    this.backupDir = backupDir;
+    this.backupKeep = backupKeep;
+    this.requests = requests;
+    this.maxActiveRequests = maxActiveRequests;
+  }
+
+  @Override
+  protected void doStart() throws Exception
+  {
+    scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      public Thread newThread(final Runnable runnable)
+      {
+        final Thread thread = new Thread(runnable, "ProjectForge-HsqlMaintenance");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+      }
+    });
+    scheduleNext();
+  }
+
+  @Override
+  protected void doStop() throws Exception
+  {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler = null;
+    }
+  }
+
+  /**
+   * Runs the maintenance now (regardless of the load).
+   * @return true if all tasks were successful.
+   */
+  public boolean runNow()
+  {
+    return runTasks(false);
+  }
+
+  public void writeMetrics(final PrometheusWriter writer)
+  {
+    writer.summary("projectforge_hsql_maintenance_duration_seconds", "Duration of the maintenance tasks of the embedded data base.",
+        checkpointDurations, "task", TASK_CHECKPOINT);
+    writer.summary("projectforge_hsql_maintenance_duration_seconds", "Duration of the maintenance tasks of the embedded data base.",
+        backupDurations, "task", TASK_BACKUP);
+    writer.gauge("projectforge_hsql_maintenance_last_duration_seconds", "Duration of the last run of the maintenance task.",
+        lastCheckpointSeconds, "task", TASK_CHECKPOINT);
+    writer.gauge("projectforge_hsql_maintenance_last_duration_seconds", "Duration of the last run of the maintenance task.",
+        lastBackupSeconds, "task", TASK_BACKUP);
+    writer.counter("projectforge_hsql_maintenance_skipped_total", "Number of maintenance runs skipped because of high request load.",
+        skippedRuns.get());
+    writer.counter("projectforge_hsql_maintenance_failed_total", "Number of failed maintenance runs.", failedRuns.get());
+  }
+
+  @Override
+  public String toString()
+  {
+    return "HsqlMaintenance[times="
+        + formatTimes()
+        + ", defrag="
+        + defrag
+        + ", backupDir="
+        + backupDir
+        + ", backupKeep="
+        + backupKeep
+        + ", maxActiveRequests="
+        + maxActiveRequests
+        + "]";
+  }
+
+  private void scheduleNext()
+  {
+    final long now = System.currentTimeMillis();
+    final long next = getNextRun(now);
+    schedule(new Runnable() {
+      public void run()
+      {
+        runScheduled(next);
+      }
+    }, next - now);
+  }
+
+  private void schedule(final Runnable task, final long delayMillis)
+  {
+    final ScheduledExecutorService s = scheduler;
+    if (s == null || s.isShutdown() == true) {
+      return;
+    }
+    s.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void runScheduled(final long scheduledAt)
+  {
+    if (isRunning() == false) {
+      return;
+    }
+    try {
+      if (isLoadHigh() == true) {
+        if (System.currentTimeMillis() - scheduledAt < MAX_POSTPONE_MILLIS) {
+          schedule(new Runnable() {
+            public void run()
+            {
+              runScheduled(scheduledAt);
+            }
+          }, RETRY_MILLIS);
+          return;
+        }
+        skippedRuns.incrementAndGet();
+        log.warn("Maintenance of the data base skipped, request load didn't drop within an hour ("
+            + requests.getActiveRequests()
+            + " active requests).");
+      } else {
+        runTasks(true);
+      }
+      scheduleNext();
+    } catch (final RuntimeException ex) {
+      log.error("Error while running maintenance of the data base: " + ex.getMessage(), ex);
+      scheduleNext();
+    }
+  }
+
+  /**
+   * @param checkLoad If true, the backup isn't run if the load is high after the checkpoint.
+   * @return true if all tasks were successful.
+   */
+  private synchronized boolean runTasks(final boolean checkLoad)
+  {
+    Connection connection = null;
+    try {
+      connection = DriverManager.getConnection(jdbcUrl, user, password);
+      long begin = System.nanoTime();
+      execute(connection, defrag == true ? "CHECKPOINT DEFRAG" : "CHECKPOINT");
+      long millis = (System.nanoTime() - begin) / 1000000;
+      checkpointDurations.record(millis * 1000);
+      lastCheckpointSeconds = millis / 1000.0;
+      log.info("Data base checkpoint" + (defrag == true ? " with defragmentation" : "") + " done in " + millis + "ms.");
+      if (backupDir == null) {
+        return true;
+      }
+      if (checkLoad == true && isLoadHigh() == true) {
+        skippedRuns.incrementAndGet();
+        log.warn("Backup of the data base skipped because of high request load (" + requests.getActiveRequests() + " active requests).");
+        return false;
+      }
+      if (backupDir.isDirectory() == false && backupDir.mkdirs() == false) {
+        throw new SQLException("Can't create backup directory: " + backupDir.getAbsolutePath());
+      }
+      final File file = new File(backupDir, BACKUP_PREFIX + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + BACKUP_SUFFIX);
+      begin = System.nanoTime();
+      execute(connection, "SCRIPT '" + file.getAbsolutePath().replace("'", "''") + "'");
+      millis = (System.nanoTime() - begin) / 1000000;
+      backupDurations.record(millis * 1000);
+      lastBackupSeconds = millis / 1000.0;
+      log.info("Data base backup written in " + millis + "ms: " + file.getAbsolutePath());
+      deleteOldBackups();
+      return true;
+    } catch (final SQLException ex) {
+      failedRuns.incrementAndGet();
+      log.error("Maintenance of the data base failed: " + ex.getMessage(), ex);
+      return false;
+    } finally {
+      if (connection != null) {
+        try {
+          connection.close();
+        } catch (final SQLException ex) {
+          log.warn("Can't close maintenance connection: " + ex.getMessage());
+        }
+      }
+    }
+  }
+
+  private void execute(final Connection connection, final String sql) throws SQLException
+  {
+    final Statement statement = connection.createStatement();
+    try {
+      statement.execute(sql);
+    } finally {
+      statement.close();
+    }
+  }
+
+  private boolean isLoadHigh()
+  {
+    return requests != null && requests.getActiveRequests() > maxActiveRequests;
+  }
+
+  private void deleteOldBackups()
+  {
+    if (backupKeep <= 0) {
+      return;
+    }
+    final File[] backups = backupDir.listFiles(new FileFilter() {
+      public boolean accept(final File file)
+      {
+        return file.isFile() == true && file.getName().startsWith(BACKUP_PREFIX) == true && file.getName().endsWith(BACKUP_SUFFIX) == true;
+      }
+    });
+    if (backups == null || backups.length <= backupKeep) {
+      return;
+    }
+    Arrays.sort(backups, new Comparator<File>() {
+      public int compare(final File o1, final File o2)
+      {
+        return o2.getName().compareTo(o1.getName()); // Newest first.
+      }
+    });
+    for (int i = backupKeep; i < backups.length; i++) {
+      if (backups[i].delete() == false) {
+        log.warn("Can't delete old backup: " + backups[i].getAbsolutePath());
+      }
+    }
+  }
+
+  /**
+   * @param now
+   * @return The next of the maintenance times after now.
+   */
+  long getNextRun(final long now)
+  {
+    long next = Long.MAX_VALUE;
+    for (final int minuteOfDay : minutesOfDay) {
+      final Calendar cal = Calendar.getInstance();
+      cal.setTimeInMillis(now);
+      cal.set(Calendar.HOUR_OF_DAY, minuteOfDay / 60);
+      cal.set(Calendar.MINUTE, minuteOfDay % 60);
+      cal.set(Calendar.SECOND, 0);
+      cal.set(Calendar.MILLISECOND, 0);
+      if (cal.getTimeInMillis() <= now) {
+        cal.add(Calendar.DAY_OF_MONTH, 1);
+      }
+      next = Math.min(next, cal.getTimeInMillis());
+    }
+    return next;
+  }
+
+  private String formatTimes()
+  {
+    final List<String> list = new ArrayList<String>();
+    for (final int minuteOfDay : minutesOfDay) {
+      list.add(String.format("%02d:%02d", minuteOfDay / 60, minuteOfDay % 60));
+    }
+    return StringUtils.join(list, ",");
+  }
+
+  /**
+   * @param times Comma separated times of the day (HH:mm).
+   * @return The minutes of the day.
+   * @throws IllegalArgumentException if the times are invalid.
+   */
+  static int[] parseTimes(final String times)
+  {
+    final String[] tokens = StringUtils.split(times, ", ");
+    if (tokens == null || tokens.length == 0) {
+      throw new IllegalArgumentException("No maintenance times given.");
+    }
+    final int[] result = new int[tokens.length];
+    for (int i = 0; i < tokens.length; i++) {
+      final String[] parts = StringUtils.split(tokens[i], ':');
+      try {
+        final int hours = Integer.parseInt(parts[0]);
+        final int minutes = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+        if (parts.length > 2 || hours < 0 || hours > 23 || minutes < 0 || minutes > 59) {
+          throw new IllegalArgumentException("Invalid maintenance time (HH:mm expected): " + tokens[i]);
+        }
+        result[i] = hours * 60 + minutes;
+      } catch (final NumberFormatException ex) {
+        throw new IllegalArgumentException("Invalid maintenance time (HH:mm expected): " + tokens[i]);
+      }
+    }
+    return result;
+  }
+}
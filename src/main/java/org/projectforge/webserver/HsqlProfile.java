@@ -0,0 +1,199 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Tuning of the embedded HSQLDB (1.8). The table type, cache and nio properties are appended to the jdbc url (HSQLDB stores them in the
+ * database's properties file), the write delay and the log size are set by SQL on the first connection. The cached profile keeps only the
+ * most recently used rows of new tables in the heap, the memory profile all rows (fast queries, but the heap grows with the data base and
+ * checkpoints rewrite the script file).<br/>
+ * Please note: the default table type is only used for tables created afterwards.
+ */
+public enum HsqlProfile
+{
+  /**
+   * No tuning, the settings of the data base files (or HSQLDB's defaults) are used. Default.
+   */
+  NONE(null, 0, 0, false, -1, 0), //
+  CACHED("cached", 14, 10, true, 500, 50), //
+  MEMORY("memory", 14, 10, true, 1000, 200);
+
+  private final String defaultTableType;
+
+  private final int cacheScale;
+
+  private final int cacheSizeScale;
+
+  private final boolean nioDataFile;
+
+  private final int writeDelayMillis;
+
+  private final int logSize;
+
+  private HsqlProfile(final String defaultTableType, final int cacheScale, final int cacheSizeScale, final boolean nioDataFile,
+      final int writeDelayMillis, final int logSize)
+  {
+    this.defaultTableType = defaultTableType;
+    this.cacheScale = cacheScale;
+    this.cacheSizeScale = cacheSizeScale;
+    this.nioDataFile = nioDataFile;
+    this.writeDelayMillis = writeDelayMillis;
+    this.logSize = logSize;
+  }
+
+  /**
+   * Type (cached or memory) of tables created without explicit type.
+   */
+  public String getDefaultTableType()
+  {
+    return defaultTableType;
+  }
+
+  /**
+   * Max number of cached rows is 3 * 2^cacheScale.
+   */
+  public int getCacheScale()
+  {
+    return cacheScale;
+  }
+
+  /**
+   * Max size of the cached rows is 3 * 2^cacheScale * 2^cacheSizeScale bytes.
+   */
+  public int getCacheSizeScale()
+  {
+    return cacheSizeScale;
+  }
+
+  /**
+   * If true, the data file of the cached tables is accessed via memory mapped nio buffers.
+   */
+  public boolean isNioDataFile()
+  {
+    return nioDataFile;
+  }
+
+  /**
+   * Delay in milliseconds of the sync of the transaction log to disk, -1 if not set.
+   */
+  public int getWriteDelayMillis()
+  {
+    return writeDelayMillis;
+  }
+
+  /**
+   * Size in MB of the transaction log which triggers an automatic checkpoint.
+   */
+  public int getLogSize()
+  {
+    return logSize;
+  }
+
+  /**
+   * @param jdbcUrl
+   * @return true if this isn't the profile {@link #NONE} and the given url is the url of an embedded HSQLDB stored in files.
+   * @see #isEmbeddedFileUrl(String)
+   */
+  public boolean isApplicable(final String jdbcUrl)
+  {
+    return this != NONE && isEmbeddedFileUrl(jdbcUrl) == true;
+  }
+
+  /**
+   * @param jdbcUrl
+   * @return The given url with the properties of this profile appended. Properties already given by the url aren't overwritten. Urls not
+   *         applicable (see {@link #isApplicable(String)}) are returned unmodified.
+   */
+  public String applyToUrl(final String jdbcUrl)
+  {
+    if (isApplicable(jdbcUrl) == false) {
+      return jdbcUrl;
+    }
+    final StringBuilder buf = new StringBuilder(jdbcUrl);
+    appendProperty(buf, jdbcUrl, "hsqldb.default_table_type", defaultTableType);
+    appendProperty(buf, jdbcUrl, "hsqldb.cache_scale", String.valueOf(cacheScale));
+    appendProperty(buf, jdbcUrl, "hsqldb.cache_size_scale", String.valueOf(cacheSizeScale));
+    appendProperty(buf, jdbcUrl, "hsqldb.nio_data_file", String.valueOf(nioDataFile));
+    return buf.toString();
+  }
+
+  /**
+   * @return The SQL statements setting the write delay and the log size (HSQLDB 1.8 ignores them as url properties).
+   */
+  public List<String> getStatements()
+  {
+    final List<String> statements = new ArrayList<String>();
+    if (writeDelayMillis >= 0) {
+      statements.add("SET WRITE_DELAY " + writeDelayMillis + " MILLIS");
+    }
+    if (logSize > 0) {
+      statements.add("SET LOGSIZE " + logSize);
+    }
+    return statements;
+  }
+
+  /**
+   * @param value "none", "cached" or "memory" (case insensitive).
+   * @return The profile or null if the given value is empty.
+   * @throws IllegalArgumentException if the value isn't a known profile.
+   */
+  public static HsqlProfile fromString(final String value)
+  {
+    if (StringUtils.isBlank(value) == true) {
+      return null;
+    }
+    return HsqlProfile.valueOf(value.trim().toUpperCase());
+  }
+
+  /**
+   * @param jdbcUrl
+   * @return true if the given url is the url of an embedded HSQLDB stored in files (not of an in-memory data base or a HSQLDB server).
+   */
+  public static boolean isEmbeddedFileUrl(final String jdbcUrl)
+  {
+    if (jdbcUrl == null || jdbcUrl.startsWith("jdbc:hsqldb:") == false) {
+      return false;
+    }
+    final String database = jdbcUrl.substring("jdbc:hsqldb:".length());
+    return database.startsWith("mem:") == false
+        && database.startsWith("res:") == false
+        && database.startsWith("hsql:") == false
+        && database.startsWith("hsqls:") == false
+        && database.startsWith("http:") == false
+        && database.startsWith("https:") == false;
+  }
+
+  private static void appendProperty(final StringBuilder buf, final String jdbcUrl, final String key, final String value)
+  {
+    if (jdbcUrl.contains(";" + key + "=") == true) {
+      return;
+    }
+    buf.append(';').append(key).append('=').append(value);
+  }
+}
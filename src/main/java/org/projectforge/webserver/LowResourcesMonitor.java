@@ -0,0 +1,334 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.jetty.server.AbstractConnector;
+import org.eclipse.jetty.server.nio.SelectChannelConnector;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.projectforge.webserver.metrics.MetricsSource;
+import org.projectforge.webserver.metrics.PrometheusWriter;
+
+/**
+ * Checks periodically the usage of the server thread pool, the number of open connections and the heap usage after the last garbage
+ * collection. If one of them exceeds its threshold, the server is low on resources until all of them are below their thresholds again.
+ * While low on resources
+ * <ul>
+ * <li>the idle time-outs of the connections are shortened to the low resources max idle time,</li>
+ * <li>new connections aren't accepted (if pausing is enabled and the non-blocking connector is used),</li>
+ * <li>requests of non-essential paths are answered with 503 and Retry-After (see
+ * {@link org.projectforge.webserver.handler.LowResourcesHandler}).</li>
+ * </ul>
+ * So the server finishes the work of the established sessions instead of thrashing in garbage collections.
+ */
+public class LowResourcesMonitor extends AbstractLifeCycle implements MetricsSource
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(LowResourcesMonitor.class);
+
+  public static final String REASON_THREADS = "threads";
+
+  public static final String REASON_CONNECTIONS = "connections";
+
+  public static final String REASON_HEAP = "heap";
+
+  private final ServerThreadPool threadPool;
+
+  private final AbstractConnector connector;
+
+  private final int threadUsageThreshold;
+
+  private final int maxConnections;
+
+  private final int heapUsageThreshold;
+
+  private final boolean pauseAccept;
+
+  private final long periodMillis;
+
+  private final MemoryPoolMXBean tenuredPool;
+
+  private final AtomicLong lowResourcesThreads = new AtomicLong();
+
+  private final AtomicLong lowResourcesConnections = new AtomicLong();
+
+  private final AtomicLong lowResourcesHeap = new AtomicLong();
+
+  private final AtomicLong shedRequests = new AtomicLong();
+
+  private volatile boolean lowOnResources;
+
+  private volatile String reasons;
+
+  private long lowSince;
+
+  private long lowMillisTotal;
+
+  private int savedLowResourcesConnections;
+
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * @param threadPool
+   * @param connector
+   * @param threadUsageThreshold Max percentage of active threads of the max threads, 0 for no limit.
+   * @param maxConnections Max number of open connections, 0 for no limit.
+   * @param heapUsageThreshold Max percentage of the used heap after the last garbage collection, 0 for no limit.
+   * @param pauseAccept If true, new connections aren't accepted while low on resources (requires a
+   *          {@link PausableSelectChannelConnector}).
+   * @param periodMillis Period of the checks.
+   */
+  public LowResourcesMonitor(final ServerThreadPool threadPool, final AbstractConnector connector, final int threadUsageThreshold,
+      final int maxConnections, final int heapUsageThreshold, final boolean pauseAccept, final long periodMillis)
+  {
+    this.threadPool = threadPool;
+    this.connector = connector;
+    this.threadUsageThreshold = threadUsageThreshold;
+    this.maxConnections = maxConnections;
+    this.heapUsageThreshold = heapUsageThreshold;
+    this.pauseAccept = pauseAccept;
+    this.periodMillis = periodMillis;
+    this.tenuredPool = getTenuredPool();
+    if (maxConnections > 0) {
+      connector.setStatsOn(true); // Needed for counting the open connections.
+    }
+  }
+
+  @Override
+  protected void doStart() throws Exception
+  {
+    scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      public Thread newThread(final Runnable runnable)
+      {
+        final Thread thread = new Thread(runnable, "ProjectForge-LowResourcesMonitor");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    scheduler.scheduleWithFixedDelay(new Runnable() {
+      public void run()
+      {
+        try {
+          check();
+        } catch (final RuntimeException ex) {
+          log.error("Error while checking resources: " + ex.getMessage(), ex);
+        }
+      }
+    }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  protected void doStop() throws Exception
+  {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler = null;
+    }
+    synchronized (this) {
+      if (lowOnResources == true) {
+        leaveLowResources();
+      }
+    }
+  }
+
+  public boolean isLowOnResources()
+  {
+    return lowOnResources;
+  }
+
+  /**
+   * @return The comma separated reasons of the current low resources state or null if not low on resources.
+   */
+  public String getReasons()
+  {
+    return reasons;
+  }
+
+  /**
+   * Called by handlers rejecting requests because the server is low on resources.
+   */
+  public void incrementShedRequests()
+  {
+    shedRequests.incrementAndGet();
+  }
+
+  public long getShedRequests()
+  {
+    return shedRequests.get();
+  }
+
+  /**
+   * @return The percentage of the used heap after the last garbage collection or -1 if unknown.
+   */
+  public int getHeapUsageAfterGc()
+  {
+    if (tenuredPool == null) {
+      return -1;
+    }
+    final MemoryUsage usage = tenuredPool.getCollectionUsage();
+    if (usage == null) {
+      return -1;
+    }
+    final long max = usage.getMax() > 0 ? usage.getMax() : usage.getCommitted();
+    return max > 0 ? (int) (usage.getUsed() * 100 / max) : -1;
+  }
+
+  /**
+   * @return The total time in milliseconds the server was low on resources (including the current period).
+   */
+  public synchronized long getLowResourcesMillis()
+  {
+    return lowMillisTotal + (lowOnResources == true ? System.currentTimeMillis() - lowSince : 0);
+  }
+
+  public void writeMetrics(final PrometheusWriter writer)
+  {
+    writer.gauge("projectforge_low_resources", "1 if the server is low on resources, otherwise 0.", lowOnResources == true ? 1 : 0);
+    writer.counter("projectforge_low_resources_seconds_total", "Total time the server was low on resources.",
+        getLowResourcesMillis() / 1000.0);
+    writer.counter("projectforge_low_resources_total", "Number of times the server became low on resources by reason.",
+        lowResourcesThreads.get(), "reason", REASON_THREADS);
+    writer.counter("projectforge_low_resources_total", "Number of times the server became low on resources by reason.",
+        lowResourcesConnections.get(), "reason", REASON_CONNECTIONS);
+    writer.counter("projectforge_low_resources_total", "Number of times the server became low on resources by reason.",
+        lowResourcesHeap.get(), "reason", REASON_HEAP);
+    writer.counter("projectforge_low_resources_shed_requests_total", "Number of requests rejected because of low resources.",
+        getShedRequests());
+    writer.gauge("projectforge_heap_usage_after_gc_percent", "Used heap after the last garbage collection in percent.",
+        getHeapUsageAfterGc());
+  }
+
+  synchronized void check()
+  {
+    final List<String> reasonList = new ArrayList<String>();
+    if (threadUsageThreshold > 0 && threadPool.getMaxThreads() > 0
+        && threadPool.getActiveThreads() * 100 >= threadUsageThreshold * threadPool.getMaxThreads()) {
+      reasonList.add(REASON_THREADS);
+    }
+    if (maxConnections > 0 && connector.getConnectionsOpen() >= maxConnections) {
+      reasonList.add(REASON_CONNECTIONS);
+    }
+    if (heapUsageThreshold > 0 && getHeapUsageAfterGc() >= heapUsageThreshold) {
+      reasonList.add(REASON_HEAP);
+    }
+    if (reasonList.isEmpty() == true) {
+      if (lowOnResources == true) {
+        leaveLowResources();
+      }
+      return;
+    }
+    final String newReasons = StringUtils.join(reasonList, ",");
+    if (lowOnResources == false) {
+      enterLowResources(reasonList, newReasons);
+    } else if (newReasons.equals(reasons) == false) {
+      reasons = newReasons;
+      log.warn("Server still low on resources (" + newReasons + "): " + getResourceState());
+    }
+  }
+
+  private void enterLowResources(final List<String> reasonList, final String newReasons)
+  {
+    lowSince = System.currentTimeMillis();
+    reasons = newReasons;
+    lowOnResources = true;
+    if (reasonList.contains(REASON_THREADS) == true) {
+      lowResourcesThreads.incrementAndGet();
+    }
+    if (reasonList.contains(REASON_CONNECTIONS) == true) {
+      lowResourcesConnections.incrementAndGet();
+    }
+    if (reasonList.contains(REASON_HEAP) == true) {
+      lowResourcesHeap.incrementAndGet();
+    }
+    // The blocking connector shortens the idle time-outs if the thread pool is low on threads:
+    threadPool.setLowOnResources(true);
+    if (connector instanceof SelectChannelConnector) {
+      // The non-blocking connector shortens the idle time-outs if the number of connections exceeds the low resources connections:
+      final SelectChannelConnector selectChannelConnector = (SelectChannelConnector) connector;
+      savedLowResourcesConnections = selectChannelConnector.getLowResourcesConnections();
+      selectChannelConnector.getSelectorManager().setLowResourcesConnections(1);
+    }
+    if (pauseAccept == true && connector instanceof PausableSelectChannelConnector) {
+      ((PausableSelectChannelConnector) connector).setAcceptPaused(true);
+    }
+    log.warn("Server low on resources (" + newReasons + "), shedding load: " + getResourceState());
+  }
+
+  private void leaveLowResources()
+  {
+    final long millis = System.currentTimeMillis() - lowSince;
+    lowMillisTotal += millis;
+    lowOnResources = false;
+    reasons = null;
+    threadPool.setLowOnResources(false);
+    if (connector instanceof SelectChannelConnector) {
+      ((SelectChannelConnector) connector).getSelectorManager().setLowResourcesConnections(savedLowResourcesConnections);
+    }
+    if (connector instanceof PausableSelectChannelConnector) {
+      ((PausableSelectChannelConnector) connector).setAcceptPaused(false);
+    }
+    log.info("Server recovered from low resources after " + millis + "ms: " + getResourceState());
+  }
+
+  private String getResourceState()
+  {
+    return "activeThreads="
+        + threadPool.getActiveThreads()
+        + "/"
+        + threadPool.getMaxThreads()
+        + (maxConnections > 0 ? ", openConnections=" + connector.getConnectionsOpen() + "/" + maxConnections : "")
+        + ", heapUsageAfterGc="
+        + getHeapUsageAfterGc()
+        + "%";
+  }
+
+  /**
+   * @return The heap pool of the old (tenured) generation: the young generation pools don't support usage thresholds.
+   */
+  private static MemoryPoolMXBean getTenuredPool()
+  {
+    MemoryPoolMXBean result = null;
+    for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP
+          && pool.isUsageThresholdSupported() == true
+          && pool.isCollectionUsageThresholdSupported() == true) {
+        if (result == null || pool.getUsage().getMax() > result.getUsage().getMax()) {
+          result = pool;
+        }
+      }
+    }
+    return result;
+  }
+}
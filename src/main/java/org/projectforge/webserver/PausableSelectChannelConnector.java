@@ -0,0 +1,66 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver;
+
+import java.io.IOException;
+
+import org.eclipse.jetty.server.nio.SelectChannelConnector;
+
+/**
+ * Non-blocking connector which is able to pause accepting new connections. While paused, new connections wait in the accept queue of the
+ * server socket (and are refused by the operating system if the queue is full), established connections are served as usual.
+ */
+public class PausableSelectChannelConnector extends SelectChannelConnector
+{
+  private static final int PAUSE_MILLIS = 100;
+
+  private volatile boolean acceptPaused;
+
+  @Override
+  public void accept(final int acceptorID) throws IOException
+  {
+    if (acceptPaused == true) {
+      try {
+        Thread.sleep(PAUSE_MILLIS);
+      } catch (final InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      return;
+    }
+    super.accept(acceptorID);
+  }
+
+  public boolean isAcceptPaused()
+  {
+    return acceptPaused;
+  }
+
+  /**
+   * @param acceptPaused If true, no new connections are accepted.
+   */
+  public void setAcceptPaused(final boolean acceptPaused)
+  {
+    this.acceptPaused = acceptPaused;
+  }
+}
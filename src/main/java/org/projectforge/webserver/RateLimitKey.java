@@ -0,0 +1,57 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Identifies the clients of the per-client rate and concurrency limits.
+ */
+public enum RateLimitKey
+{
+  /**
+   * The remote address of the client (the address of the proxy if ProjectForge runs behind a proxy without forwarded header support).
+   * Default.
+   */
+  IP,
+
+  /**
+   * The requested session id if the session exists on the server, the remote address for requests without (existing) session (e. g. the
+   * login). Session ids invented by the client don't get an own rate limit.
+   */
+  SESSION;
+
+  /**
+   * @param value The name of the key (case insensitive, '-' may be used instead of '_').
+   * @return The key or null if the given value is empty.
+   * @throws IllegalArgumentException if the value isn't a known key.
+   */
+  public static RateLimitKey fromString(final String value)
+  {
+    if (StringUtils.isBlank(value) == true) {
+      return null;
+    }
+    return RateLimitKey.valueOf(value.trim().toUpperCase().replace('-', '_'));
+  }
+}
@@ -0,0 +1,57 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * The threads the requests are processed on.
+ */
+public enum RequestExecutionMode
+{
+  /**
+   * The requests are processed by the threads of the server thread pool. Default.
+   */
+  PLATFORM,
+
+  /**
+   * Every request is processed on a new virtual thread if the Java runtime supports virtual threads (Java 21+), otherwise the server falls
+   * back to {@link #PLATFORM}. Acceptors and selectors of the connectors still use the server thread pool. Only supported by the
+   * non-blocking connector ({@link ConnectorMode#NIO}), the blocking connector processes all requests of a connection by one job.
+   */
+  VIRTUAL;
+
+  /**
+   * @param value The name of the mode (case insensitive, '-' may be used instead of '_').
+   * @return The mode or null if the given value is empty.
+   * @throws IllegalArgumentException if the value isn't a known mode.
+   */
+  public static RequestExecutionMode fromString(final String value)
+  {
+    if (StringUtils.isBlank(value) == true) {
+      return null;
+    }
+    return RequestExecutionMode.valueOf(value.trim().toUpperCase().replace('-', '_'));
+  }
+}
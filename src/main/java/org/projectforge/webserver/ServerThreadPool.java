@@ -0,0 +1,334 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.io.Buffer;
+import org.eclipse.jetty.io.ByteArrayBuffer;
+import org.eclipse.jetty.io.ConnectedEndPoint;
+import org.eclipse.jetty.io.Connection;
+import org.eclipse.jetty.io.nio.IndirectNIOBuffer;
+import org.eclipse.jetty.server.AbstractHttpConnection;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.projectforge.webserver.metrics.MetricsSource;
+import org.projectforge.webserver.metrics.PrometheusWriter;
+
+/**
+ * Thread pool of the embedded Jetty with a bounded job queue. Jetty doesn't answer connections whose job can't be queued (the
+ * non-blocking connector only logs "Dispatched Failed!" and the client runs into its time-out), so the pool rejects them itself: with
+ * policy {@link ThreadPoolRejectPolicy#SERVICE_UNAVAILABLE} a minimal 503 response is written to the connection before it's closed. The
+ * pool counts the rejected jobs and provides the figures needed for monitoring the saturation.
+ */
+public class ServerThreadPool extends QueuedThreadPool implements ServerThreadPoolMBean, MetricsSource
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(ServerThreadPool.class);
+
+  /**
+   * Retry-After in seconds of the requests rejected because the pool is saturated.
+   */
+  public static final int RETRY_AFTER_SECONDS = 1;
+
+  private static final byte[] SERVICE_UNAVAILABLE_RESPONSE = ("HTTP/1.1 503 Service Unavailable\r\n"
+      + "Retry-After: "
+      + RETRY_AFTER_SECONDS
+      + "\r\n"
+      + "Content-Length: 0\r\n"
+      + "Connection: close\r\n"
+      + "\r\n").getBytes();
+
+  /**
+   * The job of the non-blocking connector processing an end point (anonymous Runnable of the end point calling its handle method).
+   */
+  private static final String SELECT_CHANNEL_HANDLER_CLASS = "org.eclipse.jetty.io.nio.SelectChannelEndPoint$1";
+
+  private static volatile Field selectChannelEndPointField;
+
+  private final AtomicLong rejectedJobs = new AtomicLong();
+
+  private final AtomicLong rejectedRequests = new AtomicLong();
+
+  private final int queueCapacity;
+
+  private final ThreadPoolRejectPolicy rejectPolicy;
+
+  private volatile boolean lowOnResources;
+
+  private VirtualThreadDispatcher virtualThreadDispatcher;
+
+  public ServerThreadPool(final StartSettings startSettings)
+  {
+    setName("ProjectForge");
+    setMinThreads(startSettings.getThreadPoolMinThreads());
+    setMaxThreads(startSettings.getThreadPoolMaxThreads());
+    setMaxIdleTimeMs(startSettings.getThreadPoolIdleTimeout());
+    this.queueCapacity = startSettings.getThreadPoolQueueCapacity();
+    if (queueCapacity > 0) {
+      setMaxQueued(queueCapacity);
+    }
+    this.rejectPolicy = startSettings.getThreadPoolRejectPolicy();
+  }
+
+  /**
+   * Connection jobs which can't be queued are answered with 503 (or only closed, depending on the reject policy) and counted as rejected
+   * jobs. Connection jobs are dispatched to virtual threads if a {@link VirtualThreadDispatcher} is set.
+   * @see org.eclipse.jetty.util.thread.QueuedThreadPool#dispatch(java.lang.Runnable)
+   */
+  @Override
+  public boolean dispatch(final Runnable job)
+  {
+    if (virtualThreadDispatcher != null && virtualThreadDispatcher.isConnectionJob(job) == true) {
+      return virtualThreadDispatcher.dispatch(job);
+    }
+    if (super.dispatch(job) == true) {
+      return true;
+    }
+    if (isRunning() == true) {
+      final long rejected = rejectedJobs.incrementAndGet();
+      if (rejected % 100 == 1) {
+        log.warn("Job queue of thread pool is full (capacity=" + queueCapacity + "), " + rejected + " jobs rejected so far.");
+      }
+      rejectConnection(job);
+    }
+    return false;
+  }
+
+  /**
+   * Answers the connection of the given job with 503 and closes it. The response is only written if no request of the connection is in
+   * progress (otherwise it would corrupt the response being sent), in this case the connection is only closed. Jobs which don't process a
+   * connection are left alone.
+   * @param job
+   */
+  private void rejectConnection(final Runnable job)
+  {
+    final ConnectedEndPoint endPoint = getEndPoint(job);
+    if (endPoint == null || endPoint.isOpen() == false) {
+      return;
+    }
+    try {
+      final Connection connection = endPoint.getConnection();
+      if (rejectPolicy == ThreadPoolRejectPolicy.SERVICE_UNAVAILABLE
+          && connection instanceof AbstractHttpConnection
+          && ((AbstractHttpConnection) connection).isIdle() == true) {
+        // Read the pending request, otherwise closing the socket resets the connection and the client may miss the response:
+        drainInput(endPoint);
+        endPoint.flush(new ByteArrayBuffer(SERVICE_UNAVAILABLE_RESPONSE));
+        endPoint.shutdownOutput();
+      }
+    } catch (final IOException ex) {
+      log.debug("Can't send 503 to rejected connection: " + ex.getMessage());
+    } finally {
+      try {
+        endPoint.close();
+      } catch (final IOException ex) {
+        log.debug("Can't close rejected connection: " + ex.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Reads the input already received without blocking.
+   */
+  private static void drainInput(final ConnectedEndPoint endPoint) throws IOException
+  {
+    if (endPoint.isBlocking() == false) {
+      final Buffer buffer = new IndirectNIOBuffer(4096); // Channel end points only fill NIO buffers.
+      for (int i = 0; i < 16 && endPoint.fill(buffer) > 0; i++) {
+        buffer.clear();
+      }
+    } else if (endPoint.getTransport() instanceof Socket) {
+      final InputStream in = ((Socket) endPoint.getTransport()).getInputStream();
+      final byte[] buffer = new byte[4096];
+      for (int i = 0; i < 16 && in.available() > 0; i++) {
+        in.read(buffer, 0, Math.min(buffer.length, in.available()));
+      }
+    }
+  }
+
+  /**
+   * @param job
+   * @return The end point processed by the given job or null if the job doesn't process a connection.
+   */
+  private static ConnectedEndPoint getEndPoint(final Runnable job)
+  {
+    if (job instanceof ConnectedEndPoint) {
+      // Blocking connector: the end point is the job.
+      return (ConnectedEndPoint) job;
+    }
+    if (SELECT_CHANNEL_HANDLER_CLASS.equals(job.getClass().getName()) == false) {
+      return null;
+    }
+    try {
+      Field field = selectChannelEndPointField;
+      if (field == null) {
+        field = job.getClass().getDeclaredField("this$0");
+        field.setAccessible(true);
+        selectChannelEndPointField = field;
+      }
+      return (ConnectedEndPoint) field.get(job);
+    } catch (final Exception ex) {
+      log.debug("Can't get end point of job " + job + ": " + ex.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Jetty shortens the idle time-outs of the connections while the pool is low on threads.
+   * @return true if the pool is low on threads or the {@link LowResourcesMonitor} detected low resources.
+   * @see org.eclipse.jetty.util.thread.QueuedThreadPool#isLowOnThreads()
+   */
+  @Override
+  public boolean isLowOnThreads()
+  {
+    return lowOnResources == true || super.isLowOnThreads();
+  }
+
+  @Override
+  protected void doStop() throws Exception
+  {
+    if (virtualThreadDispatcher != null) {
+      virtualThreadDispatcher.stop();
+    }
+    super.doStop();
+  }
+
+  /**
+   * @return The dispatcher of the connection jobs if the requests are processed on virtual threads, otherwise null.
+   */
+  public VirtualThreadDispatcher getVirtualThreadDispatcher()
+  {
+    return virtualThreadDispatcher;
+  }
+
+  /**
+   * @param virtualThreadDispatcher Dispatcher of the connection jobs (request processing), null for processing them by this pool.
+   */
+  public void setVirtualThreadDispatcher(final VirtualThreadDispatcher virtualThreadDispatcher)
+  {
+    this.virtualThreadDispatcher = virtualThreadDispatcher;
+  }
+
+  /**
+   * @param lowOnResources the lowOnResources to set
+   */
+  public void setLowOnResources(final boolean lowOnResources)
+  {
+    this.lowOnResources = lowOnResources;
+  }
+
+  /**
+   * @return Number of threads currently processing jobs.
+   */
+  public int getActiveThreads()
+  {
+    return Math.max(0, getThreads() - getIdleThreads());
+  }
+
+  /**
+   * @return Number of jobs waiting for a free thread.
+   */
+  public int getQueuedJobs()
+  {
+    final BlockingQueue<Runnable> queue = getQueue();
+    return queue != null ? queue.size() : 0;
+  }
+
+  /**
+   * @return The max number of queued jobs or 0 if the queue is unbounded.
+   */
+  public int getQueueCapacity()
+  {
+    return queueCapacity;
+  }
+
+  /**
+   * @return true, if the queue is bounded and no further job can be queued.
+   */
+  public boolean isQueueFull()
+  {
+    return queueCapacity > 0 && getQueuedJobs() >= queueCapacity;
+  }
+
+  /**
+   * @return Number of jobs refused by the pool because the job queue was full.
+   */
+  public long getRejectedJobs()
+  {
+    return rejectedJobs.get();
+  }
+
+  /**
+   * @return Number of requests which got a thread but were rejected by a handler (e. g. with 503) because the job queue was full.
+   */
+  public long getRejectedRequests()
+  {
+    return rejectedRequests.get();
+  }
+
+  /**
+   * Called by handlers rejecting requests on behalf of the saturated pool (e. g. with 503).
+   */
+  public void incrementRejectedRequests()
+  {
+    rejectedRequests.incrementAndGet();
+  }
+
+  public ThreadPoolRejectPolicy getRejectPolicy()
+  {
+    return rejectPolicy;
+  }
+
+  public void writeMetrics(final PrometheusWriter writer)
+  {
+    writer.gauge("projectforge_threadpool_threads", "Number of threads of the server thread pool.", getThreads());
+    writer.gauge("projectforge_threadpool_threads_active", "Number of threads processing jobs.", getActiveThreads());
+    writer.gauge("projectforge_threadpool_threads_max", "Max number of threads of the server thread pool.", getMaxThreads());
+    writer.gauge("projectforge_threadpool_queued_jobs", "Number of jobs waiting for a free thread.", getQueuedJobs());
+    writer.counter("projectforge_threadpool_rejected_jobs_total", "Number of jobs refused because the job queue was full.",
+        getRejectedJobs());
+    writer.counter("projectforge_threadpool_rejected_requests_total",
+        "Number of requests rejected by a handler because the job queue was full.", getRejectedRequests());
+  }
+
+  @Override
+  public String toString()
+  {
+    return "ServerThreadPool[threads="
+        + getThreads()
+        + ", active="
+        + getActiveThreads()
+        + ", queued="
+        + getQueuedJobs()
+        + ", rejectedJobs="
+        + getRejectedJobs()
+        + ", rejectedRequests="
+        + getRejectedRequests()
+        + "]";
+  }
+}
@@ -0,0 +1,62 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Where the http sessions of ProjectForge are stored.
+ */
+public enum SessionStoreMode
+{
+  /**
+   * All sessions are held in the heap and are lost on restart (default).
+   */
+  MEMORY,
+
+  /**
+   * Sessions are held in the heap, idle sessions are passivated to files in the session store directory. All sessions are saved on
+   * shutdown and restored on start-up, so they survive restarts.
+   */
+  FILE,
+
+  /**
+   * Sessions are stored in the data base of ProjectForge (tables JettySessions and JettySessionIds), so they survive restarts and may be
+   * shared by several nodes.
+   */
+  JDBC;
+
+  /**
+   * @param value "memory", "file" or "jdbc" (case insensitive).
+   * @return The session store mode or null if the given value is empty.
+   * @throws IllegalArgumentException if the value isn't a known mode.
+   */
+  public static SessionStoreMode fromString(final String value)
+  {
+    if (StringUtils.isBlank(value) == true) {
+      return null;
+    }
+    return SessionStoreMode.valueOf(value.trim().toUpperCase());
+  }
+}
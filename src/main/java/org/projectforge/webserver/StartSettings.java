@@ -26,7 +26,10 @@ package org.projectforge.webserver;
 import java.io.File;
 import java.util.TimeZone;
 
+import org.apache.commons.lang.StringUtils;
 import org.projectforge.common.DatabaseDialect;
+import org.projectforge.webserver.jdbc.JdbcPoolSettings;
+import org.projectforge.webserver.jdbc.JdbcPoolType;
 
 /**
  * The settings for starting ProjectForge web server Jetty.
@@ -63,8 +66,216 @@ public class StartSettings
 
   private int jdbcMaxActive = getJdbcDefaultMaxActive();
 
+  private JdbcPoolType jdbcPoolType = JdbcPoolType.HIKARI;
+
+  private String jdbcReplicaUrls;
+
+  private String jdbcReplicaUser;
+
+  private String jdbcReplicaPassword;
+
+  private int jdbcReplicaMaxActive = 20;
+
+  private long jdbcReplicaRetryDelay = 30000;
+
+  private boolean jdbcStatementTracing = false;
+
+  private long jdbcSlowQueryThreshold = 1000;
+
+  private int jdbcMaxStatementFingerprints = 500;
+
+  private String jdbcSlowQueryLog;
+
+  private DataSourceInitMode jdbcInitMode = DataSourceInitMode.EAGER;
+
+  private int jdbcPrewarmConnections = 10;
+
+  private HsqlProfile hsqlProfile = HsqlProfile.NONE;
+
+  private String hsqlMaintenanceTimes;
+
+  private boolean hsqlMaintenanceDefrag = true;
+
+  private int hsqlMaintenanceMaxActiveRequests = 2;
+
+  private boolean hsqlBackup = true;
+
+  private String hsqlBackupDir;
+
+  private int hsqlBackupKeep = 7;
+
+  private int jdbcMinIdle = 2;
+
+  private int jdbcMaxIdle = -1;
+
+  private long jdbcConnectionTimeout = 30000;
+
+  private long jdbcMaxLifetime = JdbcPoolSettings.DEFAULT_MAX_LIFETIME;
+
+  private int jdbcStatementCacheSize = 0;
+
+  private String jdbcValidationQuery;
+
+  private boolean jdbcTestOnBorrow = true;
+
+  private boolean jdbcMonitoring = true;
+
+  private long jdbcLeakDetectionThreshold = 0;
+
+  private long jdbcSlowBorrowThreshold = 1000;
+
+  private String adminHost = "127.0.0.1";
+
+  private int adminPort = -1;
+
+  private String adminToken;
+
+  private boolean jmx = false;
+
+  private int jmxPort = -1;
+
+  private String jmxHost = "127.0.0.1";
+
+  private String jmxPasswordFile;
+
+  private String jmxAccessFile;
+
+  private boolean requestStatistics = false;
+
+  private int requestStatisticsMaxRoutes = 200;
+
+  private SessionStoreMode sessionStoreMode = SessionStoreMode.MEMORY;
+
+  private String sessionStoreDir;
+
+  private int sessionPassivationIdleTime = 600;
+
+  private int sessionMaxResident = 0;
+
+  private long sessionMemoryBudget = 0;
+
+  private int sessionScavengePeriod = -1;
+
+  private int sessionMaxInactiveInterval = -1;
+
+  private boolean warCache = true;
+
+  private String warCacheDir;
+
+  private boolean quickstart = false;
+
+  private String quickstartExcludeJars;
+
+  private boolean compression = false;
+
+  private int compressionMinSize = 256;
+
+  private String compressionMimeTypes;
+
+  private int compressionLevel = 6;
+
+  private boolean compressionPrecompressed = true;
+
+  private boolean staticContent = false;
+
+  private long staticCacheSize = 32 * 1024 * 1024;
+
+  private int staticCachedFileSize = 1024 * 1024;
+
+  private int staticCachedFiles = 2048;
+
+  private boolean staticFileMappedBuffer = true;
+
+  private int staticMaxAge = 365 * 24 * 60 * 60;
+
+  private String staticVersionedPattern;
+
+  private int shutdownTimeout = 30;
+
+  private boolean shutdownHook = true;
+
+  private int healthCheckTtl = 5000;
+
   private boolean launchBrowserAfterStartup = false;
 
+  private ConnectorMode connectorMode;
+
+  private int acceptors = -1;
+
+  private int acceptQueueSize = 0;
+
+  private TimeoutProfile timeoutProfile;
+
+  private int maxIdleTime = -1;
+
+  private int readTimeout = -1;
+
+  private int lowResourcesMaxIdleTime = -1;
+
+  private int lowResourcesConnections = -1;
+
+  private int keepAliveTimeout = -1;
+
+  private int maxRequestsPerConnection = 0;
+
+  private int requestHeaderSize = -1;
+
+  private int responseHeaderSize = -1;
+
+  private int requestBufferSize = -1;
+
+  private int responseBufferSize = -1;
+
+  private int maxBuffers = -1;
+
+  private boolean lowResourcesMonitor = false;
+
+  private int lowResourcesThreadUsage = 90;
+
+  private int lowResourcesMaxConnections = 0;
+
+  private int lowResourcesHeapUsage = 90;
+
+  private boolean lowResourcesPauseAccept = false;
+
+  private String lowResourcesShedPattern;
+
+  private int lowResourcesRetryAfter = 10;
+
+  private int lowResourcesCheckPeriod = 1000;
+
+  private boolean rateLimit = false;
+
+  private RateLimitKey rateLimitKey = RateLimitKey.IP;
+
+  private int rateLimitRequestsPerSecond = 20;
+
+  private int rateLimitBurst = 50;
+
+  private int rateLimitMaxConcurrent = 8;
+
+  private int rateLimitMaxClients = 10000;
+
+  private String rateLimitPatterns;
+
+  private int rateLimitPatternMaxWait = 5000;
+
+  private int rateLimitPatternMaxQueued = 4;
+
+  private int threadPoolMinThreads = getDefaultThreadPoolMinThreads();
+
+  private int threadPoolMaxThreads = getDefaultThreadPoolMaxThreads();
+
+  private int threadPoolQueueCapacity = getDefaultThreadPoolQueueCapacity();
+
+  private int threadPoolIdleTimeout = 60000;
+
+  private ThreadPoolRejectPolicy threadPoolRejectPolicy = ThreadPoolRejectPolicy.SERVICE_UNAVAILABLE;
+
+  private RequestExecutionMode requestExecutionMode = RequestExecutionMode.PLATFORM;
+
+  private int virtualThreadsMaxConcurrent = -1;
+
   private static final String DEFAULT_JDBC_URL_HSQL_DB = "database/ProjectForgeDB";
 
   private static final String DEFAULT_JDBC_URL_POSTGRESQL = "jdbc:postgresql://localhost:5432/projectforge";
@@ -128,6 +339,42 @@ public class StartSettings
     return 200;
   }
 
+  /**
+   * @return 10
+   */
+  public static int getDefaultThreadPoolMinThreads()
+  {
+    return 10;
+  }
+
+  /**
+   * @return 200
+   */
+  public static int getDefaultThreadPoolMaxThreads()
+  {
+    return 200;
+  }
+
+  /**
+   * @return 1000
+   */
+  public static int getDefaultThreadPoolQueueCapacity()
+  {
+    return 1000;
+  }
+
+  /**
+   * @param dialect
+   * @return "SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS" for HSQLDB, otherwise "SELECT 1".
+   */
+  public static String getJdbcDefaultValidationQuery(final DatabaseDialect dialect)
+  {
+    if (dialect == DatabaseDialect.HSQL) {
+      return "SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS";
+    }
+    return "SELECT 1";
+  }
+
   /**
    * @return DatabaseDialect.HSQL
    */
@@ -271,6 +518,25 @@ public class StartSettings
     return jdbcUrl;
   }
 
+  /**
+   * @return The jdbc url with the properties of the {@link HsqlProfile} (if the embedded HSQLDB is used).
+   */
+  public String getEffectiveJdbcUrl()
+  {
+    if (isHsqlProfileApplicable() == false) {
+      return jdbcUrl;
+    }
+    return hsqlProfile.applyToUrl(jdbcUrl);
+  }
+
+  /**
+   * @return true if an {@link HsqlProfile} other than NONE is set and the embedded HSQLDB is used with file storage.
+   */
+  public boolean isHsqlProfileApplicable()
+  {
+    return DatabaseDialect.fromString(dialect) == DatabaseDialect.HSQL && hsqlProfile != null && hsqlProfile.isApplicable(jdbcUrl) == true;
+  }
+
   /**
    * @return the jdbcDriverClass to be used
    */
@@ -391,25 +657,2176 @@ public class StartSettings
   }
 
   /**
-   * Should the browser be started with ProjectForge automatically after start-up?
-   * @return the launchBrowserAfterStartup
+   * Comma separated jdbc urls of read replicas of the data base. If given, read-only connections (read-only transactions) are
+   * routed round-robin to the replicas, all other connections to the primary data base (jdbcUrl). Default is none.
+   * @return the jdbcReplicaUrls
    */
-  public boolean isLaunchBrowserAfterStartup()
+  public String getJdbcReplicaUrls()
   {
-    return launchBrowserAfterStartup;
+    return jdbcReplicaUrls;
   }
 
   /**
-   * Should the browser be started with ProjectForge automatically after start-up?
-   * @param launchBrowserAfterStartup the launchBrowserAfterStartup to set
+   * @param jdbcReplicaUrls the jdbcReplicaUrls to set
    * @return this for chaining.
    */
-  public StartSettings setLaunchBrowserAfterStartup(final boolean launchBrowserAfterStartup)
+  public StartSettings setJdbcReplicaUrls(final String jdbcReplicaUrls)
   {
-    this.launchBrowserAfterStartup = launchBrowserAfterStartup;
+    this.jdbcReplicaUrls = jdbcReplicaUrls;
+    return this;
+  }
+
+  /**
+   * User of the read replicas. Default is the user of the primary data base.
+   * @return the jdbcReplicaUser
+   */
+  public String getJdbcReplicaUser()
+  {
+    return jdbcReplicaUser;
+  }
+
+  /**
+   * @param jdbcReplicaUser the jdbcReplicaUser to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcReplicaUser(final String jdbcReplicaUser)
+  {
+    this.jdbcReplicaUser = jdbcReplicaUser;
+    return this;
+  }
+
+  /**
+   * Password of the read replicas. Default is the password of the primary data base.
+   * @return the jdbcReplicaPassword
+   */
+  public String getJdbcReplicaPassword()
+  {
+    return jdbcReplicaPassword;
+  }
+
+  /**
+   * @param jdbcReplicaPassword the jdbcReplicaPassword to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcReplicaPassword(final String jdbcReplicaPassword)
+  {
+    this.jdbcReplicaPassword = jdbcReplicaPassword;
+    return this;
+  }
+
+  /**
+   * Max number of connections of the pool of every read replica. Default is 20.
+   * @return the jdbcReplicaMaxActive
+   */
+  public int getJdbcReplicaMaxActive()
+  {
+    return jdbcReplicaMaxActive;
+  }
+
+  /**
+   * @param jdbcReplicaMaxActive the jdbcReplicaMaxActive to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcReplicaMaxActive(final int jdbcReplicaMaxActive)
+  {
+    this.jdbcReplicaMaxActive = jdbcReplicaMaxActive;
+    return this;
+  }
+
+  /**
+   * Time in milliseconds a failed read replica isn't used (its connections are routed to the other replicas or the primary).
+   * Default is 30,000.
+   * @return the jdbcReplicaRetryDelay
+   */
+  public long getJdbcReplicaRetryDelay()
+  {
+    return jdbcReplicaRetryDelay;
+  }
+
+  /**
+   * @param jdbcReplicaRetryDelay the jdbcReplicaRetryDelay to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcReplicaRetryDelay(final long jdbcReplicaRetryDelay)
+  {
+    this.jdbcReplicaRetryDelay = jdbcReplicaRetryDelay;
+    return this;
+  }
+
+  /**
+   * If true then the execution time of every sql statement is measured per fingerprint (the statement without literals). The top
+   * statements are shown by the admin endpoint /jdbc/statements. Default is false.
+   * @return the jdbcStatementTracing
+   */
+  public boolean isJdbcStatementTracing()
+  {
+    return jdbcStatementTracing;
+  }
+
+  /**
+   * @param jdbcStatementTracing the jdbcStatementTracing to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcStatementTracing(final boolean jdbcStatementTracing)
+  {
+    this.jdbcStatementTracing = jdbcStatementTracing;
+    return this;
+  }
+
+  /**
+   * Sql statements executing at least this time in milliseconds are written to the slow query log, 0 for no logging. Requires statement
+   * tracing. Default is 1,000.
+   * @return the jdbcSlowQueryThreshold
+   */
+  public long getJdbcSlowQueryThreshold()
+  {
+    return jdbcSlowQueryThreshold;
+  }
+
+  /**
+   * @param jdbcSlowQueryThreshold the jdbcSlowQueryThreshold to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcSlowQueryThreshold(final long jdbcSlowQueryThreshold)
+  {
+    this.jdbcSlowQueryThreshold = jdbcSlowQueryThreshold;
+    return this;
+  }
+
+  /**
+   * Max number of statement fingerprints with their own statistics, further statements are counted together. Default is 500.
+   * @return the jdbcMaxStatementFingerprints
+   */
+  public int getJdbcMaxStatementFingerprints()
+  {
+    return jdbcMaxStatementFingerprints;
+  }
+
+  /**
+   * @param jdbcMaxStatementFingerprints the jdbcMaxStatementFingerprints to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcMaxStatementFingerprints(final int jdbcMaxStatementFingerprints)
+  {
+    this.jdbcMaxStatementFingerprints = jdbcMaxStatementFingerprints;
+    return this;
+  }
+
+  /**
+   * File of the slow query log (rolled over daily). If null (default) the slow queries are written to the ProjectForge log (category
+   * org.projectforge.webserver.jdbc.StatementTracer.SlowQueries).
+   * @return the jdbcSlowQueryLog
+   */
+  public String getJdbcSlowQueryLog()
+  {
+    return jdbcSlowQueryLog;
+  }
+
+  /**
+   * @param jdbcSlowQueryLog the jdbcSlowQueryLog to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcSlowQueryLog(final String jdbcSlowQueryLog)
+  {
+    this.jdbcSlowQueryLog = jdbcSlowQueryLog;
+    return this;
+  }
+
+  /**
+   * How the data source is initialized while starting: eager (pool and first connection), prewarm (further connections are opened before
+   * the connectors accept requests) or lazy (the data base isn't touched before the first use). Default is
+   * {@link DataSourceInitMode#EAGER}. Lazy has no effect with session store mode {@link SessionStoreMode#JDBC}, because the session tables
+   * are created while starting.
+   * @return the jdbcInitMode
+   */
+  public DataSourceInitMode getJdbcInitMode()
+  {
+    return jdbcInitMode;
+  }
+
+  /**
+   * @param jdbcInitMode the jdbcInitMode to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcInitMode(final DataSourceInitMode jdbcInitMode)
+  {
+    this.jdbcInitMode = jdbcInitMode;
     return this;
   }
 
+  /**
+   * Number of connections opened and validated in parallel while starting if the init mode is {@link DataSourceInitMode#PREWARM}.
+   * Default is 10.
+   * @return the jdbcPrewarmConnections
+   * @see #getEffectiveJdbcPrewarmConnections()
+   */
+  public int getJdbcPrewarmConnections()
+  {
+    return jdbcPrewarmConnections;
+  }
+
+  /**
+   * @param jdbcPrewarmConnections the jdbcPrewarmConnections to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcPrewarmConnections(final int jdbcPrewarmConnections)
+  {
+    this.jdbcPrewarmConnections = jdbcPrewarmConnections;
+    return this;
+  }
+
+  /**
+   * @return The jdbcPrewarmConnections (at most the max size of the JDBC pool) or 0 if the init mode isn't
+   *         {@link DataSourceInitMode#PREWARM}.
+   */
+  public int getEffectiveJdbcPrewarmConnections()
+  {
+    return jdbcInitMode == DataSourceInitMode.PREWARM ? Math.max(0, Math.min(jdbcPrewarmConnections, jdbcMaxActive)) : 0;
+  }
+
+  /**
+   * The tuning of the embedded HSQLDB (ignored for other data bases and HSQLDB servers). Default is {@link HsqlProfile#NONE}.
+   * @return the hsqlProfile
+   */
+  public HsqlProfile getHsqlProfile()
+  {
+    return hsqlProfile;
+  }
+
+  /**
+   * @param hsqlProfile the hsqlProfile to set
+   * @return this for chaining.
+   */
+  public StartSettings setHsqlProfile(final HsqlProfile hsqlProfile)
+  {
+    this.hsqlProfile = hsqlProfile;
+    return this;
+  }
+
+  /**
+   * Comma separated off-peak times of the day (HH:mm, e. g. "03:00") at which the embedded HSQLDB is checkpointed and backed up.
+   * Default is none (no scheduled maintenance).
+   * @return the hsqlMaintenanceTimes
+   */
+  public String getHsqlMaintenanceTimes()
+  {
+    return hsqlMaintenanceTimes;
+  }
+
+  /**
+   * @param hsqlMaintenanceTimes the hsqlMaintenanceTimes to set
+   * @return this for chaining.
+   */
+  public StartSettings setHsqlMaintenanceTimes(final String hsqlMaintenanceTimes)
+  {
+    this.hsqlMaintenanceTimes = hsqlMaintenanceTimes;
+    return this;
+  }
+
+  /**
+   * If true, the data file is defragmented by the scheduled checkpoint (CHECKPOINT DEFRAG). Default is true.
+   * @return the hsqlMaintenanceDefrag
+   */
+  public boolean isHsqlMaintenanceDefrag()
+  {
+    return hsqlMaintenanceDefrag;
+  }
+
+  /**
+   * @param hsqlMaintenanceDefrag the hsqlMaintenanceDefrag to set
+   * @return this for chaining.
+   */
+  public StartSettings setHsqlMaintenanceDefrag(final boolean hsqlMaintenanceDefrag)
+  {
+    this.hsqlMaintenanceDefrag = hsqlMaintenanceDefrag;
+    return this;
+  }
+
+  /**
+   * The scheduled maintenance is postponed while more requests are in process (and skipped if the load doesn't drop within an
+   * hour). Default is 2.
+   * @return the hsqlMaintenanceMaxActiveRequests
+   */
+  public int getHsqlMaintenanceMaxActiveRequests()
+  {
+    return hsqlMaintenanceMaxActiveRequests;
+  }
+
+  /**
+   * @param hsqlMaintenanceMaxActiveRequests the hsqlMaintenanceMaxActiveRequests to set
+   * @return this for chaining.
+   */
+  public StartSettings setHsqlMaintenanceMaxActiveRequests(final int hsqlMaintenanceMaxActiveRequests)
+  {
+    this.hsqlMaintenanceMaxActiveRequests = hsqlMaintenanceMaxActiveRequests;
+    return this;
+  }
+
+  /**
+   * If true, the scheduled maintenance writes a backup of the data base after the checkpoint. Default is true.
+   * @return the hsqlBackup
+   */
+  public boolean isHsqlBackup()
+  {
+    return hsqlBackup;
+  }
+
+  /**
+   * @param hsqlBackup the hsqlBackup to set
+   * @return this for chaining.
+   */
+  public StartSettings setHsqlBackup(final boolean hsqlBackup)
+  {
+    this.hsqlBackup = hsqlBackup;
+    return this;
+  }
+
+  /**
+   * Directory of the backups written by the scheduled maintenance. Default is &lt;baseDir&gt;/backup.
+   * @return the hsqlBackupDir
+   * @see #getEffectiveHsqlBackupDir()
+   */
+  public String getHsqlBackupDir()
+  {
+    return hsqlBackupDir;
+  }
+
+  /**
+   * @param hsqlBackupDir the hsqlBackupDir to set
+   * @return this for chaining.
+   */
+  public StartSettings setHsqlBackupDir(final String hsqlBackupDir)
+  {
+    this.hsqlBackupDir = hsqlBackupDir;
+    return this;
+  }
+
+  /**
+   * Number of backups to keep, older backups are deleted (0 for keeping all). Default is 7.
+   * @return the hsqlBackupKeep
+   */
+  public int getHsqlBackupKeep()
+  {
+    return hsqlBackupKeep;
+  }
+
+  /**
+   * @param hsqlBackupKeep the hsqlBackupKeep to set
+   * @return this for chaining.
+   */
+  public StartSettings setHsqlBackupKeep(final int hsqlBackupKeep)
+  {
+    this.hsqlBackupKeep = hsqlBackupKeep;
+    return this;
+  }
+
+  /**
+   * @return The hsqlBackupDir or &lt;baseDir&gt;/backup if not given.
+   */
+  public String getEffectiveHsqlBackupDir()
+  {
+    return StringUtils.isNotBlank(hsqlBackupDir) == true ? hsqlBackupDir : new File(baseDir, "backup").getPath();
+  }
+
+  /**
+   * The implementation of the connection pool, default is HIKARI.
+   * @return the jdbcPoolType
+   */
+  public JdbcPoolType getJdbcPoolType()
+  {
+    return jdbcPoolType;
+  }
+
+  /**
+   * @param jdbcPoolType the jdbcPoolType to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcPoolType(final JdbcPoolType jdbcPoolType)
+  {
+    this.jdbcPoolType = jdbcPoolType;
+    return this;
+  }
+
+  /**
+   * Min number of idle data base connections held open by the pool.
+   * @return the jdbcMinIdle
+   */
+  public int getJdbcMinIdle()
+  {
+    return jdbcMinIdle;
+  }
+
+  /**
+   * @param jdbcMinIdle the jdbcMinIdle to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcMinIdle(final int jdbcMinIdle)
+  {
+    this.jdbcMinIdle = jdbcMinIdle;
+    return this;
+  }
+
+  /**
+   * Max number of idle data base connections (dbcp only). If negative, the default of the pool is used.
+   * @return the jdbcMaxIdle
+   */
+  public int getJdbcMaxIdle()
+  {
+    return jdbcMaxIdle;
+  }
+
+  /**
+   * @param jdbcMaxIdle the jdbcMaxIdle to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcMaxIdle(final int jdbcMaxIdle)
+  {
+    this.jdbcMaxIdle = jdbcMaxIdle;
+    return this;
+  }
+
+  /**
+   * Max time in milliseconds to wait for a free data base connection.
+   * @return the jdbcConnectionTimeout
+   */
+  public long getJdbcConnectionTimeout()
+  {
+    return jdbcConnectionTimeout;
+  }
+
+  /**
+   * @param jdbcConnectionTimeout the jdbcConnectionTimeout to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcConnectionTimeout(final long jdbcConnectionTimeout)
+  {
+    this.jdbcConnectionTimeout = jdbcConnectionTimeout;
+    return this;
+  }
+
+  /**
+   * Max life time in milliseconds of a pooled data base connection (Hikari only).
+   * @return the jdbcMaxLifetime
+   */
+  public long getJdbcMaxLifetime()
+  {
+    return jdbcMaxLifetime;
+  }
+
+  /**
+   * @param jdbcMaxLifetime the jdbcMaxLifetime to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcMaxLifetime(final long jdbcMaxLifetime)
+  {
+    this.jdbcMaxLifetime = jdbcMaxLifetime;
+    return this;
+  }
+
+  /**
+   * Number of cached prepared statements per connection, 0 (default) for no caching. Hikari supports this only for PostgreSQL.
+   * @return the jdbcStatementCacheSize
+   */
+  public int getJdbcStatementCacheSize()
+  {
+    return jdbcStatementCacheSize;
+  }
+
+  /**
+   * @param jdbcStatementCacheSize the jdbcStatementCacheSize to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcStatementCacheSize(final int jdbcStatementCacheSize)
+  {
+    this.jdbcStatementCacheSize = jdbcStatementCacheSize;
+    return this;
+  }
+
+  /**
+   * Query for validating pooled connections.
+   * @return the jdbcValidationQuery or null if the default of the data-base dialect is used.
+   * @see #getEffectiveJdbcValidationQuery()
+   */
+  public String getJdbcValidationQuery()
+  {
+    return jdbcValidationQuery;
+  }
+
+  /**
+   * @param jdbcValidationQuery the jdbcValidationQuery to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcValidationQuery(final String jdbcValidationQuery)
+  {
+    this.jdbcValidationQuery = jdbcValidationQuery;
+    return this;
+  }
+
+  /**
+   * @return The validation query if set, otherwise the default validation query of the data-base dialect.
+   */
+  public String getEffectiveJdbcValidationQuery()
+  {
+    if (jdbcValidationQuery != null) {
+      return jdbcValidationQuery;
+    }
+    return getJdbcDefaultValidationQuery(DatabaseDialect.fromString(dialect));
+  }
+
+  /**
+   * Validate connections before they're borrowed from the pool? Dbcp only, Hikari validates connections always.
+   * @return the jdbcTestOnBorrow
+   */
+  public boolean isJdbcTestOnBorrow()
+  {
+    return jdbcTestOnBorrow;
+  }
+
+  /**
+   * @param jdbcTestOnBorrow the jdbcTestOnBorrow to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcTestOnBorrow(final boolean jdbcTestOnBorrow)
+  {
+    this.jdbcTestOnBorrow = jdbcTestOnBorrow;
+    return this;
+  }
+
+  /**
+   * If true (default) then the connection pool is instrumented: wait times for connections, hold times, active and idle connections are
+   * measured and published via JMX and the admin server.
+   * @return the jdbcMonitoring
+   */
+  public boolean isJdbcMonitoring()
+  {
+    return jdbcMonitoring;
+  }
+
+  /**
+   * @param jdbcMonitoring the jdbcMonitoring to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcMonitoring(final boolean jdbcMonitoring)
+  {
+    this.jdbcMonitoring = jdbcMonitoring;
+    return this;
+  }
+
+  /**
+   * Connections held longer than this time in milliseconds are logged with the stack trace of the borrower (potential leaks), 0 (default)
+   * for no leak detection. Requires jdbc monitoring.
+   * @return the jdbcLeakDetectionThreshold
+   */
+  public long getJdbcLeakDetectionThreshold()
+  {
+    return jdbcLeakDetectionThreshold;
+  }
+
+  /**
+   * @param jdbcLeakDetectionThreshold the jdbcLeakDetectionThreshold to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcLeakDetectionThreshold(final long jdbcLeakDetectionThreshold)
+  {
+    this.jdbcLeakDetectionThreshold = jdbcLeakDetectionThreshold;
+    return this;
+  }
+
+  /**
+   * Requests waiting longer than this time in milliseconds for a data base connection are logged, 0 for no logging. Requires jdbc
+   * monitoring.
+   * @return the jdbcSlowBorrowThreshold
+   */
+  public long getJdbcSlowBorrowThreshold()
+  {
+    return jdbcSlowBorrowThreshold;
+  }
+
+  /**
+   * @param jdbcSlowBorrowThreshold the jdbcSlowBorrowThreshold to set
+   * @return this for chaining.
+   */
+  public StartSettings setJdbcSlowBorrowThreshold(final long jdbcSlowBorrowThreshold)
+  {
+    this.jdbcSlowBorrowThreshold = jdbcSlowBorrowThreshold;
+    return this;
+  }
+
+  /**
+   * The interface the admin server is bound to, default is 127.0.0.1 (localhost only).
+   * @return the adminHost
+   */
+  public String getAdminHost()
+  {
+    return adminHost;
+  }
+
+  /**
+   * @param adminHost the adminHost to set (null for all interfaces).
+   * @return this for chaining.
+   */
+  public StartSettings setAdminHost(final String adminHost)
+  {
+    this.adminHost = adminHost;
+    return this;
+  }
+
+  /**
+   * The port of the admin server (monitoring endpoints), if not positive (default) no admin server is started.
+   * @return the adminPort
+   */
+  public int getAdminPort()
+  {
+    return adminPort;
+  }
+
+  /**
+   * @param adminPort the adminPort to set
+   * @return this for chaining.
+   */
+  public StartSettings setAdminPort(final int adminPort)
+  {
+    this.adminPort = adminPort;
+    return this;
+  }
+
+  /**
+   * Shared secret of the admin endpoints shutting down the server or showing internals (/shutdown, /jdbc, /jdbc/statements), expected in
+   * the request header {@link org.projectforge.webserver.admin.AdminServer#TOKEN_HEADER}. Without token (default) these endpoints accept
+   * requests from the loopback interface only, the probes and the metrics are always accessible.
+   * @return the adminToken
+   */
+  public String getAdminToken()
+  {
+    return adminToken;
+  }
+
+  /**
+   * @param adminToken the adminToken to set
+   * @return this for chaining.
+   */
+  public StartSettings setAdminToken(final String adminToken)
+  {
+    this.adminToken = adminToken;
+    return this;
+  }
+
+  /**
+   * If true then Jetty's connectors, thread pool, session manager and handlers as well as the request statistics are registered as MBeans
+   * in the platform MBean server.
+   * @return the jmx
+   */
+  public boolean isJmx()
+  {
+    return jmx;
+  }
+
+  /**
+   * @param jmx the jmx to set
+   * @return this for chaining.
+   */
+  public StartSettings setJmx(final boolean jmx)
+  {
+    this.jmx = jmx;
+    return this;
+  }
+
+  /**
+   * If positive then a JMX connector for remote clients is started on this port (only if jmx is enabled).
+   * @return the jmxPort
+   */
+  public int getJmxPort()
+  {
+    return jmxPort;
+  }
+
+  /**
+   * @param jmxPort the jmxPort to set
+   * @return this for chaining.
+   */
+  public StartSettings setJmxPort(final int jmxPort)
+  {
+    this.jmxPort = jmxPort;
+    return this;
+  }
+
+  /**
+   * The interface the JMX connector is bound to, default is 127.0.0.1 (localhost only). Other interfaces require a password file.
+   * @return the jmxHost
+   */
+  public String getJmxHost()
+  {
+    return jmxHost;
+  }
+
+  /**
+   * @param jmxHost the jmxHost to set (null for all interfaces).
+   * @return this for chaining.
+   */
+  public StartSettings setJmxHost(final String jmxHost)
+  {
+    this.jmxHost = jmxHost;
+    return this;
+  }
+
+  /**
+   * Password file of the JMX connector (format of jmx.remote.x.password.file), required if the connector isn't bound to the loopback
+   * interface.
+   * @return the jmxPasswordFile
+   */
+  public String getJmxPasswordFile()
+  {
+    return jmxPasswordFile;
+  }
+
+  /**
+   * @param jmxPasswordFile the jmxPasswordFile to set
+   * @return this for chaining.
+   */
+  public StartSettings setJmxPasswordFile(final String jmxPasswordFile)
+  {
+    this.jmxPasswordFile = jmxPasswordFile;
+    return this;
+  }
+
+  /**
+   * Access file of the JMX connector (format of jmx.remote.x.access.file), default is none (read/write access for all authenticated
+   * users).
+   * @return the jmxAccessFile
+   */
+  public String getJmxAccessFile()
+  {
+    return jmxAccessFile;
+  }
+
+  /**
+   * @param jmxAccessFile the jmxAccessFile to set
+   * @return this for chaining.
+   */
+  public StartSettings setJmxAccessFile(final String jmxAccessFile)
+  {
+    this.jmxAccessFile = jmxAccessFile;
+    return this;
+  }
+
+  /**
+   * If true then requests per second, latency percentiles and responses per status code are measured. Always enabled if jmx is enabled.
+   * @return the requestStatistics
+   */
+  public boolean isRequestStatistics()
+  {
+    return requestStatistics || jmx;
+  }
+
+  /**
+   * @param requestStatistics the requestStatistics to set
+   * @return this for chaining.
+   */
+  public StartSettings setRequestStatistics(final boolean requestStatistics)
+  {
+    this.requestStatistics = requestStatistics;
+    return this;
+  }
+
+  /**
+   * Max number of routes (grouped request paths) measured by the request statistics, further routes are summarized as "other".
+   * @return the requestStatisticsMaxRoutes
+   */
+  public int getRequestStatisticsMaxRoutes()
+  {
+    return requestStatisticsMaxRoutes;
+  }
+
+  /**
+   * @param requestStatisticsMaxRoutes the requestStatisticsMaxRoutes to set
+   * @return this for chaining.
+   */
+  public StartSettings setRequestStatisticsMaxRoutes(final int requestStatisticsMaxRoutes)
+  {
+    this.requestStatisticsMaxRoutes = requestStatisticsMaxRoutes;
+    return this;
+  }
+
+  /**
+   * @return the sessionStoreMode
+   */
+  public SessionStoreMode getSessionStoreMode()
+  {
+    return sessionStoreMode;
+  }
+
+  /**
+   * @param sessionStoreMode the sessionStoreMode to set
+   * @return this for chaining.
+   */
+  public StartSettings setSessionStoreMode(final SessionStoreMode sessionStoreMode)
+  {
+    this.sessionStoreMode = sessionStoreMode;
+    return this;
+  }
+
+  /**
+   * The directory for passivated and saved sessions (only used by {@link SessionStoreMode#FILE}).
+   * @return the sessionStoreDir
+   * @see #getEffectiveSessionStoreDir()
+   */
+  public String getSessionStoreDir()
+  {
+    return sessionStoreDir;
+  }
+
+  /**
+   * @param sessionStoreDir the sessionStoreDir to set
+   * @return this for chaining.
+   */
+  public StartSettings setSessionStoreDir(final String sessionStoreDir)
+  {
+    this.sessionStoreDir = sessionStoreDir;
+    return this;
+  }
+
+  /**
+   * @return The session store dir if given, otherwise the sub directory "sessions" of the base dir.
+   */
+  public String getEffectiveSessionStoreDir()
+  {
+    if (sessionStoreDir != null) {
+      return sessionStoreDir;
+    }
+    return new File(baseDir, "sessions").getPath();
+  }
+
+  /**
+   * Sessions not accessed for this time in seconds are passivated to the session store dir (only used by {@link SessionStoreMode#FILE}).
+   * 0 means no passivation of idle sessions. Default is 600 (10 minutes).
+   * @return the sessionPassivationIdleTime
+   */
+  public int getSessionPassivationIdleTime()
+  {
+    return sessionPassivationIdleTime;
+  }
+
+  /**
+   * @param sessionPassivationIdleTime the sessionPassivationIdleTime to set
+   * @return this for chaining.
+   */
+  public StartSettings setSessionPassivationIdleTime(final int sessionPassivationIdleTime)
+  {
+    this.sessionPassivationIdleTime = sessionPassivationIdleTime;
+    return this;
+  }
+
+  /**
+   * Max number of sessions held in the heap, the least recently used sessions are passivated. Only supported by
+   * {@link SessionStoreMode#FILE} (invalidating sessions would log out the users), ignored otherwise. 0 means no limit (default).
+   * @return the sessionMaxResident
+   */
+  public int getSessionMaxResident()
+  {
+    return sessionMaxResident;
+  }
+
+  /**
+   * @param sessionMaxResident the sessionMaxResident to set
+   * @return this for chaining.
+   */
+  public StartSettings setSessionMaxResident(final int sessionMaxResident)
+  {
+    this.sessionMaxResident = sessionMaxResident;
+    return this;
+  }
+
+  /**
+   * Max estimated total size of the sessions held in the heap in bytes, the least recently used sessions are passivated. Only supported
+   * by {@link SessionStoreMode#FILE} (invalidating sessions would log out the users), ignored otherwise. 0 means no limit (default).
+   * @return the sessionMemoryBudget
+   */
+  public long getSessionMemoryBudget()
+  {
+    return sessionMemoryBudget;
+  }
+
+  /**
+   * @param sessionMemoryBudget the sessionMemoryBudget to set
+   * @return this for chaining.
+   */
+  public StartSettings setSessionMemoryBudget(final long sessionMemoryBudget)
+  {
+    this.sessionMemoryBudget = sessionMemoryBudget;
+    return this;
+  }
+
+  /**
+   * Period in seconds for checking expired sessions (and the session limits). -1 means Jetty's default (30 seconds for
+   * {@link SessionStoreMode#MEMORY} and {@link SessionStoreMode#FILE}, 10 minutes for {@link SessionStoreMode#JDBC}).
+   * @return the sessionScavengePeriod
+   */
+  public int getSessionScavengePeriod()
+  {
+    return sessionScavengePeriod;
+  }
+
+  /**
+   * @param sessionScavengePeriod the sessionScavengePeriod to set
+   * @return this for chaining.
+   */
+  public StartSettings setSessionScavengePeriod(final int sessionScavengePeriod)
+  {
+    this.sessionScavengePeriod = sessionScavengePeriod;
+    return this;
+  }
+
+  /**
+   * Sessions not accessed for this time in seconds expire. -1 means the session-timeout of the web.xml.
+   * @return the sessionMaxInactiveInterval
+   */
+  public int getSessionMaxInactiveInterval()
+  {
+    return sessionMaxInactiveInterval;
+  }
+
+  /**
+   * @param sessionMaxInactiveInterval the sessionMaxInactiveInterval to set
+   * @return this for chaining.
+   */
+  public StartSettings setSessionMaxInactiveInterval(final int sessionMaxInactiveInterval)
+  {
+    this.sessionMaxInactiveInterval = sessionMaxInactiveInterval;
+    return this;
+  }
+
+  /**
+   * If true, the war file is extracted once into the war cache dir and the extracted directory is reused on restart as long as the war
+   * file isn't modified. Otherwise Jetty extracts the war into a new temporary directory on every start.
+   * @return the warCache
+   */
+  public boolean isWarCache()
+  {
+    return warCache;
+  }
+
+  /**
+   * @param warCache the warCache to set
+   * @return this for chaining.
+   */
+  public StartSettings setWarCache(final boolean warCache)
+  {
+    this.warCache = warCache;
+    return this;
+  }
+
+  /**
+   * @return the warCacheDir
+   * @see #getEffectiveWarCacheDir()
+   */
+  public String getWarCacheDir()
+  {
+    return warCacheDir;
+  }
+
+  /**
+   * @param warCacheDir the warCacheDir to set
+   * @return this for chaining.
+   */
+  public StartSettings setWarCacheDir(final String warCacheDir)
+  {
+    this.warCacheDir = warCacheDir;
+    return this;
+  }
+
+  /**
+   * @return The war cache dir if given, otherwise the sub directory "work/webapps" of the base dir.
+   */
+  public String getEffectiveWarCacheDir()
+  {
+    if (warCacheDir != null) {
+      return warCacheDir;
+    }
+    return new File(new File(baseDir, "work"), "webapps").getPath();
+  }
+
+  /**
+   * If true, only the jars listed in the quickstart index are scanned for annotations, TLDs and web fragments. The index is created on
+   * the first start (and whenever the jars of the war change) as file work/quickstart.properties in the base dir. Requires an extracted
+   * war (war cache or exploded war directory).
+   * @return the quickstart
+   */
+  public boolean isQuickstart()
+  {
+    return quickstart;
+  }
+
+  /**
+   * @param quickstart the quickstart to set
+   * @return this for chaining.
+   */
+  public StartSettings setQuickstart(final boolean quickstart)
+  {
+    this.quickstart = quickstart;
+    return this;
+  }
+
+  /**
+   * Regular expression of jar names (e. g. "(hibernate|spring)-.*\.jar") which are known to have no annotations, TLDs or web fragments
+   * and are skipped by the quickstart index (unless they contain classes handled by a ServletContainerInitializer).
+   * @return the quickstartExcludeJars
+   */
+  public String getQuickstartExcludeJars()
+  {
+    return quickstartExcludeJars;
+  }
+
+  /**
+   * @param quickstartExcludeJars the quickstartExcludeJars to set
+   * @return this for chaining.
+   */
+  public StartSettings setQuickstartExcludeJars(final String quickstartExcludeJars)
+  {
+    this.quickstartExcludeJars = quickstartExcludeJars;
+    return this;
+  }
+
+  /**
+   * If true, the responses are compressed with gzip or deflate (if accepted by the client).
+   * @return the compression
+   */
+  public boolean isCompression()
+  {
+    return compression;
+  }
+
+  /**
+   * @param compression the compression to set
+   * @return this for chaining.
+   */
+  public StartSettings setCompression(final boolean compression)
+  {
+    this.compression = compression;
+    return this;
+  }
+
+  /**
+   * Responses smaller than this size (in bytes) aren't compressed, because the compression wouldn't save noticeably bandwidth. Default is
+   * 256.
+   * @return the compressionMinSize
+   */
+  public int getCompressionMinSize()
+  {
+    return compressionMinSize;
+  }
+
+  /**
+   * @param compressionMinSize the compressionMinSize to set
+   * @return this for chaining.
+   */
+  public StartSettings setCompressionMinSize(final int compressionMinSize)
+  {
+    this.compressionMinSize = compressionMinSize;
+    return this;
+  }
+
+  /**
+   * Comma separated list of the mime types to compress, if not given the text types (html, css, javascript, json, xml etc.) are
+   * compressed.
+   * @return the compressionMimeTypes
+   */
+  public String getCompressionMimeTypes()
+  {
+    return compressionMimeTypes;
+  }
+
+  /**
+   * @param compressionMimeTypes the compressionMimeTypes to set
+   * @return this for chaining.
+   */
+  public StartSettings setCompressionMimeTypes(final String compressionMimeTypes)
+  {
+    this.compressionMimeTypes = compressionMimeTypes;
+    return this;
+  }
+
+  /**
+   * The compression level from 1 (fastest) to 9 (best compression). Default is 6.
+   * @return the compressionLevel
+   */
+  public int getCompressionLevel()
+  {
+    return compressionLevel;
+  }
+
+  /**
+   * @param compressionLevel the compressionLevel to set
+   * @return this for chaining.
+   */
+  public StartSettings setCompressionLevel(final int compressionLevel)
+  {
+    this.compressionLevel = compressionLevel;
+    return this;
+  }
+
+  /**
+   * If true (default) and compression is enabled, static resources of the war are served from a precompressed variant (e. g. style.css.gz
+   * for style.css) if such a file exists and the client accepts gzip. The file is sent as it is, so it isn't compressed per request.
+   * @return the compressionPrecompressed
+   */
+  public boolean isCompressionPrecompressed()
+  {
+    return compressionPrecompressed;
+  }
+
+  /**
+   * @param compressionPrecompressed the compressionPrecompressed to set
+   * @return this for chaining.
+   */
+  public StartSettings setCompressionPrecompressed(final boolean compressionPrecompressed)
+  {
+    this.compressionPrecompressed = compressionPrecompressed;
+    return this;
+  }
+
+  /**
+   * If true, the static resources of the war are served from a bounded cache of direct (or memory-mapped) buffers with strong ETags and
+   * versioned resources get a long-lived Cache-Control header (see {@link #getStaticMaxAge()}).
+   * @return the staticContent
+   */
+  public boolean isStaticContent()
+  {
+    return staticContent;
+  }
+
+  /**
+   * @param staticContent the staticContent to set
+   * @return this for chaining.
+   */
+  public StartSettings setStaticContent(final boolean staticContent)
+  {
+    this.staticContent = staticContent;
+    return this;
+  }
+
+  /**
+   * Max total size of the cached static resources in bytes. Default is 32 MB.
+   * @return the staticCacheSize
+   */
+  public long getStaticCacheSize()
+  {
+    return staticCacheSize;
+  }
+
+  /**
+   * @param staticCacheSize the staticCacheSize to set
+   * @return this for chaining.
+   */
+  public StartSettings setStaticCacheSize(final long staticCacheSize)
+  {
+    this.staticCacheSize = staticCacheSize;
+    return this;
+  }
+
+  /**
+   * Static resources larger than this size in bytes aren't cached but streamed. Default is 1 MB.
+   * @return the staticCachedFileSize
+   */
+  public int getStaticCachedFileSize()
+  {
+    return staticCachedFileSize;
+  }
+
+  /**
+   * @param staticCachedFileSize the staticCachedFileSize to set
+   * @return this for chaining.
+   */
+  public StartSettings setStaticCachedFileSize(final int staticCachedFileSize)
+  {
+    this.staticCachedFileSize = staticCachedFileSize;
+    return this;
+  }
+
+  /**
+   * Max number of cached static resources. Default is 2048.
+   * @return the staticCachedFiles
+   */
+  public int getStaticCachedFiles()
+  {
+    return staticCachedFiles;
+  }
+
+  /**
+   * @param staticCachedFiles the staticCachedFiles to set
+   * @return this for chaining.
+   */
+  public StartSettings setStaticCachedFiles(final int staticCachedFiles)
+  {
+    this.staticCachedFiles = staticCachedFiles;
+    return this;
+  }
+
+  /**
+   * If true (default), cached static resources are memory-mapped instead of copied into direct buffers. Mapped files can't be replaced
+   * on Windows while the server is running, so it's disabled in development mode.
+   * @return the staticFileMappedBuffer
+   */
+  public boolean isStaticFileMappedBuffer()
+  {
+    return staticFileMappedBuffer;
+  }
+
+  /**
+   * @param staticFileMappedBuffer the staticFileMappedBuffer to set
+   * @return this for chaining.
+   */
+  public StartSettings setStaticFileMappedBuffer(final boolean staticFileMappedBuffer)
+  {
+    this.staticFileMappedBuffer = staticFileMappedBuffer;
+    return this;
+  }
+
+  /**
+   * Max age in seconds of the Cache-Control header of versioned resources. Default is one year.
+   * @return the staticMaxAge
+   */
+  public int getStaticMaxAge()
+  {
+    return staticMaxAge;
+  }
+
+  /**
+   * @param staticMaxAge the staticMaxAge to set
+   * @return this for chaining.
+   */
+  public StartSettings setStaticMaxAge(final int staticMaxAge)
+  {
+    this.staticMaxAge = staticMaxAge;
+    return this;
+  }
+
+  /**
+   * Regular expression found in the paths of versioned resources, if not given Wicket's versioned resources and resources with a content
+   * hash in their name are matched.
+   * @return the staticVersionedPattern
+   */
+  public String getStaticVersionedPattern()
+  {
+    return staticVersionedPattern;
+  }
+
+  /**
+   * @param staticVersionedPattern the staticVersionedPattern to set
+   * @return this for chaining.
+   */
+  public StartSettings setStaticVersionedPattern(final String staticVersionedPattern)
+  {
+    this.staticVersionedPattern = staticVersionedPattern;
+    return this;
+  }
+
+  /**
+   * Max time in seconds to wait on shutdown for the requests in process before the web app is stopped. Default is 30.
+   * @return the shutdownTimeout
+   */
+  public int getShutdownTimeout()
+  {
+    return shutdownTimeout;
+  }
+
+  /**
+   * @param shutdownTimeout the shutdownTimeout to set
+   * @return this for chaining.
+   */
+  public StartSettings setShutdownTimeout(final int shutdownTimeout)
+  {
+    this.shutdownTimeout = shutdownTimeout;
+    return this;
+  }
+
+  /**
+   * If true (default), the server is shut down gracefully when the JVM is terminated (e. g. by SIGTERM).
+   * @return the shutdownHook
+   */
+  public boolean isShutdownHook()
+  {
+    return shutdownHook;
+  }
+
+  /**
+   * @param shutdownHook the shutdownHook to set
+   * @return this for chaining.
+   */
+  public StartSettings setShutdownHook(final boolean shutdownHook)
+  {
+    this.shutdownHook = shutdownHook;
+    return this;
+  }
+
+  /**
+   * Time to live in millis of the data base check of the readiness endpoint /health/ready of the admin server. Default is 5,000.
+   * @return the healthCheckTtl
+   */
+  public int getHealthCheckTtl()
+  {
+    return healthCheckTtl;
+  }
+
+  /**
+   * @param healthCheckTtl the healthCheckTtl to set
+   * @return this for chaining.
+   */
+  public StartSettings setHealthCheckTtl(final int healthCheckTtl)
+  {
+    this.healthCheckTtl = healthCheckTtl;
+    return this;
+  }
+
+  /**
+   * Should the browser be started with ProjectForge automatically after start-up?
+   * @return the launchBrowserAfterStartup
+   */
+  public boolean isLaunchBrowserAfterStartup()
+  {
+    return launchBrowserAfterStartup;
+  }
+
+  /**
+   * Should the browser be started with ProjectForge automatically after start-up?
+   * @param launchBrowserAfterStartup the launchBrowserAfterStartup to set
+   * @return this for chaining.
+   */
+  public StartSettings setLaunchBrowserAfterStartup(final boolean launchBrowserAfterStartup)
+  {
+    this.launchBrowserAfterStartup = launchBrowserAfterStartup;
+    return this;
+  }
+
+  /**
+   * The type of the http connector (blocking or non-blocking). If not given, the non-blocking connector is used in productive environments
+   * and the blocking connector in development mode.
+   * @return the connectorMode or null if not explicitly set.
+   * @see #getEffectiveConnectorMode()
+   */
+  public ConnectorMode getConnectorMode()
+  {
+    return connectorMode;
+  }
+
+  /**
+   * @param connectorMode the connectorMode to set (null for the default depending on the development mode).
+   * @return this for chaining.
+   */
+  public StartSettings setConnectorMode(final ConnectorMode connectorMode)
+  {
+    this.connectorMode = connectorMode;
+    return this;
+  }
+
+  /**
+   * @return The connector mode to use: the explicit set one or NIO in productive and BIO in development mode.
+   */
+  public ConnectorMode getEffectiveConnectorMode()
+  {
+    if (connectorMode != null) {
+      return connectorMode;
+    }
+    return development == true ? ConnectorMode.BIO : ConnectorMode.NIO;
+  }
+
+  /**
+   * Number of acceptor threads of the connector. For the NIO connector every acceptor runs its own selector set, so this is also the
+   * number of selectors. If not positive, Jetty's default is used.
+   * @return the acceptors
+   */
+  public int getAcceptors()
+  {
+    return acceptors;
+  }
+
+  /**
+   * @param acceptors the acceptors to set
+   * @return this for chaining.
+   */
+  public StartSettings setAcceptors(final int acceptors)
+  {
+    this.acceptors = acceptors;
+    return this;
+  }
+
+  /**
+   * Size of the queue of the server socket for not yet accepted connections (backlog). If not positive, the default of the operating system
+   * is used.
+   * @return the acceptQueueSize
+   */
+  public int getAcceptQueueSize()
+  {
+    return acceptQueueSize;
+  }
+
+  /**
+   * @param acceptQueueSize the acceptQueueSize to set
+   * @return this for chaining.
+   */
+  public StartSettings setAcceptQueueSize(final int acceptQueueSize)
+  {
+    this.acceptQueueSize = acceptQueueSize;
+    return this;
+  }
+
+  /**
+   * The profile of the connection time-outs. If not given, the production profile is used in productive environments and the development
+   * profile (long time-outs for debugging) in development mode. Every time-out of the profile may be overridden separately.
+   * @return the timeoutProfile or null if not explicitly set.
+   * @see #getEffectiveTimeoutProfile()
+   */
+  public TimeoutProfile getTimeoutProfile()
+  {
+    return timeoutProfile;
+  }
+
+  /**
+   * @param timeoutProfile the timeoutProfile to set (null for the default depending on the development mode).
+   * @return this for chaining.
+   */
+  public StartSettings setTimeoutProfile(final TimeoutProfile timeoutProfile)
+  {
+    this.timeoutProfile = timeoutProfile;
+    return this;
+  }
+
+  /**
+   * @return The explicit set time-out profile or PRODUCTION in productive and DEVELOPMENT in development mode.
+   */
+  public TimeoutProfile getEffectiveTimeoutProfile()
+  {
+    if (timeoutProfile != null) {
+      return timeoutProfile;
+    }
+    return development == true ? TimeoutProfile.DEVELOPMENT : TimeoutProfile.PRODUCTION;
+  }
+
+  /**
+   * Max idle time of a connection in milliseconds, after this time idle connections are closed.
+   * @return the maxIdleTime or -1 if the value of the time-out profile is used.
+   * @see #getEffectiveMaxIdleTime()
+   */
+  public int getMaxIdleTime()
+  {
+    return maxIdleTime;
+  }
+
+  /**
+   * @param maxIdleTime the maxIdleTime to set (-1 for the value of the time-out profile).
+   * @return this for chaining.
+   */
+  public StartSettings setMaxIdleTime(final int maxIdleTime)
+  {
+    this.maxIdleTime = maxIdleTime;
+    return this;
+  }
+
+  /**
+   * @return The max idle time if set, otherwise the max idle time of the effective time-out profile.
+   */
+  public int getEffectiveMaxIdleTime()
+  {
+    return maxIdleTime >= 0 ? maxIdleTime : getEffectiveTimeoutProfile().getMaxIdleTime();
+  }
+
+  /**
+   * Max time in milliseconds a blocking read or write may stall while a request is in progress.
+   * @return the readTimeout or -1 if the value of the time-out profile is used.
+   * @see #getEffectiveReadTimeout()
+   */
+  public int getReadTimeout()
+  {
+    return readTimeout;
+  }
+
+  /**
+   * @param readTimeout the readTimeout to set (-1 for the value of the time-out profile).
+   * @return this for chaining.
+   */
+  public StartSettings setReadTimeout(final int readTimeout)
+  {
+    this.readTimeout = readTimeout;
+    return this;
+  }
+
+  /**
+   * @return The read time-out if set, otherwise the read time-out of the effective time-out profile.
+   */
+  public int getEffectiveReadTimeout()
+  {
+    return readTimeout >= 0 ? readTimeout : getEffectiveTimeoutProfile().getReadTimeout();
+  }
+
+  /**
+   * Max idle time of connections in milliseconds while the server is low on resources (too many connections or too few free threads).
+   * @return the lowResourcesMaxIdleTime or -1 if the value of the time-out profile is used.
+   * @see #getEffectiveLowResourcesMaxIdleTime()
+   */
+  public int getLowResourcesMaxIdleTime()
+  {
+    return lowResourcesMaxIdleTime;
+  }
+
+  /**
+   * @param lowResourcesMaxIdleTime the lowResourcesMaxIdleTime to set (-1 for the value of the time-out profile).
+   * @return this for chaining.
+   */
+  public StartSettings setLowResourcesMaxIdleTime(final int lowResourcesMaxIdleTime)
+  {
+    this.lowResourcesMaxIdleTime = lowResourcesMaxIdleTime;
+    return this;
+  }
+
+  /**
+   * @return The low resources max idle time if set, otherwise the value of the effective time-out profile.
+   */
+  public int getEffectiveLowResourcesMaxIdleTime()
+  {
+    return lowResourcesMaxIdleTime >= 0 ? lowResourcesMaxIdleTime : getEffectiveTimeoutProfile().getLowResourcesMaxIdleTime();
+  }
+
+  /**
+   * Number of open connections above which the server shortens the idle time-outs to the low resources max idle time (nio connector only).
+   * The blocking connector switches to low resources when the thread pool runs out of threads.
+   * @return the lowResourcesConnections or -1 if the value of the time-out profile is used.
+   * @see #getEffectiveLowResourcesConnections()
+   */
+  public int getLowResourcesConnections()
+  {
+    return lowResourcesConnections;
+  }
+
+  /**
+   * @param lowResourcesConnections the lowResourcesConnections to set (-1 for the value of the time-out profile, 0 for no limit).
+   * @return this for chaining.
+   */
+  public StartSettings setLowResourcesConnections(final int lowResourcesConnections)
+  {
+    this.lowResourcesConnections = lowResourcesConnections;
+    return this;
+  }
+
+  /**
+   * @return The low resources connections if set, otherwise the value of the effective time-out profile.
+   */
+  public int getEffectiveLowResourcesConnections()
+  {
+    return lowResourcesConnections >= 0 ? lowResourcesConnections : getEffectiveTimeoutProfile().getLowResourcesConnections();
+  }
+
+  /**
+   * Max idle time in milliseconds of a persistent connection between two requests. The max idle time is still used for new connections
+   * until their first request.
+   * @return the keepAliveTimeout or -1 if the max idle time is used.
+   */
+  public int getKeepAliveTimeout()
+  {
+    return keepAliveTimeout;
+  }
+
+  /**
+   * @param keepAliveTimeout the keepAliveTimeout to set (-1 for the max idle time).
+   * @return this for chaining.
+   */
+  public StartSettings setKeepAliveTimeout(final int keepAliveTimeout)
+  {
+    this.keepAliveTimeout = keepAliveTimeout;
+    return this;
+  }
+
+  /**
+   * Max number of requests per persistent connection, the response of the last request closes the connection.
+   * @return the maxRequestsPerConnection or 0 for no limit.
+   */
+  public int getMaxRequestsPerConnection()
+  {
+    return maxRequestsPerConnection;
+  }
+
+  /**
+   * @param maxRequestsPerConnection the maxRequestsPerConnection to set (0 for no limit).
+   * @return this for chaining.
+   */
+  public StartSettings setMaxRequestsPerConnection(final int maxRequestsPerConnection)
+  {
+    this.maxRequestsPerConnection = maxRequestsPerConnection;
+    return this;
+  }
+
+  /**
+   * Size of the buffer for the request line and headers in bytes, larger requests are rejected with 413.
+   * @return the requestHeaderSize or -1 for Jetty's default.
+   */
+  public int getRequestHeaderSize()
+  {
+    return requestHeaderSize;
+  }
+
+  /**
+   * @param requestHeaderSize the requestHeaderSize to set (-1 for Jetty's default).
+   * @return this for chaining.
+   */
+  public StartSettings setRequestHeaderSize(final int requestHeaderSize)
+  {
+    this.requestHeaderSize = requestHeaderSize;
+    return this;
+  }
+
+  /**
+   * Size of the buffer for the response status line and headers in bytes.
+   * @return the responseHeaderSize or -1 for Jetty's default.
+   */
+  public int getResponseHeaderSize()
+  {
+    return responseHeaderSize;
+  }
+
+  /**
+   * @param responseHeaderSize the responseHeaderSize to set (-1 for Jetty's default).
+   * @return this for chaining.
+   */
+  public StartSettings setResponseHeaderSize(final int responseHeaderSize)
+  {
+    this.responseHeaderSize = responseHeaderSize;
+    return this;
+  }
+
+  /**
+   * Size of the buffer for the request content in bytes.
+   * @return the requestBufferSize or -1 for Jetty's default.
+   */
+  public int getRequestBufferSize()
+  {
+    return requestBufferSize;
+  }
+
+  /**
+   * @param requestBufferSize the requestBufferSize to set (-1 for Jetty's default).
+   * @return this for chaining.
+   */
+  public StartSettings setRequestBufferSize(final int requestBufferSize)
+  {
+    this.requestBufferSize = requestBufferSize;
+    return this;
+  }
+
+  /**
+   * Size of the output buffer of the responses in bytes. Responses fitting into this buffer are sent with a Content-Length, larger
+   * responses are chunked.
+   * @return the responseBufferSize or -1 for Jetty's default.
+   */
+  public int getResponseBufferSize()
+  {
+    return responseBufferSize;
+  }
+
+  /**
+   * @param responseBufferSize the responseBufferSize to set (-1 for Jetty's default).
+   * @return this for chaining.
+   */
+  public StartSettings setResponseBufferSize(final int responseBufferSize)
+  {
+    this.responseBufferSize = responseBufferSize;
+    return this;
+  }
+
+  /**
+   * Max number of idle buffers (of each kind) kept in the buffer pool of the connector. The connections take their buffers from the pool
+   * while they're busy and return them when they're idle, so idle keep-alive connections don't hold buffers.
+   * @return the maxBuffers or -1 for Jetty's default.
+   */
+  public int getMaxBuffers()
+  {
+    return maxBuffers;
+  }
+
+  /**
+   * @param maxBuffers the maxBuffers to set (-1 for Jetty's default).
+   * @return this for chaining.
+   */
+  public StartSettings setMaxBuffers(final int maxBuffers)
+  {
+    this.maxBuffers = maxBuffers;
+    return this;
+  }
+
+  /**
+   * If true, the server checks periodically the usage of the thread pool, the open connections and the heap usage after garbage
+   * collection and sheds load while a threshold is exceeded (shorter idle time-outs, optionally no new connections and 503 for
+   * non-essential paths).
+   * @return the lowResourcesMonitor
+   */
+  public boolean isLowResourcesMonitor()
+  {
+    return lowResourcesMonitor;
+  }
+
+  /**
+   * @param lowResourcesMonitor the lowResourcesMonitor to set
+   * @return this for chaining.
+   */
+  public StartSettings setLowResourcesMonitor(final boolean lowResourcesMonitor)
+  {
+    this.lowResourcesMonitor = lowResourcesMonitor;
+    return this;
+  }
+
+  /**
+   * Percentage of active threads of the max threads above which the server is low on resources. Default is 90, 0 for no limit.
+   * @return the lowResourcesThreadUsage
+   */
+  public int getLowResourcesThreadUsage()
+  {
+    return lowResourcesThreadUsage;
+  }
+
+  /**
+   * @param lowResourcesThreadUsage the lowResourcesThreadUsage to set
+   * @return this for chaining.
+   */
+  public StartSettings setLowResourcesThreadUsage(final int lowResourcesThreadUsage)
+  {
+    this.lowResourcesThreadUsage = lowResourcesThreadUsage;
+    return this;
+  }
+
+  /**
+   * Number of open connections above which the server is low on resources. Default is 0 (no limit).
+   * @return the lowResourcesMaxConnections
+   */
+  public int getLowResourcesMaxConnections()
+  {
+    return lowResourcesMaxConnections;
+  }
+
+  /**
+   * @param lowResourcesMaxConnections the lowResourcesMaxConnections to set
+   * @return this for chaining.
+   */
+  public StartSettings setLowResourcesMaxConnections(final int lowResourcesMaxConnections)
+  {
+    this.lowResourcesMaxConnections = lowResourcesMaxConnections;
+    return this;
+  }
+
+  /**
+   * Percentage of the used heap after the last garbage collection above which the server is low on resources. Default is 90, 0 for no
+   * limit.
+   * @return the lowResourcesHeapUsage
+   */
+  public int getLowResourcesHeapUsage()
+  {
+    return lowResourcesHeapUsage;
+  }
+
+  /**
+   * @param lowResourcesHeapUsage the lowResourcesHeapUsage to set
+   * @return this for chaining.
+   */
+  public StartSettings setLowResourcesHeapUsage(final int lowResourcesHeapUsage)
+  {
+    this.lowResourcesHeapUsage = lowResourcesHeapUsage;
+    return this;
+  }
+
+  /**
+   * If true, no new connections are accepted while the server is low on resources (nio connector only). Default is false.
+   * @return the lowResourcesPauseAccept
+   */
+  public boolean isLowResourcesPauseAccept()
+  {
+    return lowResourcesPauseAccept;
+  }
+
+  /**
+   * @param lowResourcesPauseAccept the lowResourcesPauseAccept to set
+   * @return this for chaining.
+   */
+  public StartSettings setLowResourcesPauseAccept(final boolean lowResourcesPauseAccept)
+  {
+    this.lowResourcesPauseAccept = lowResourcesPauseAccept;
+    return this;
+  }
+
+  /**
+   * Regular expression found in the paths of non-essential requests, which are answered with 503 while the server is low on resources.
+   * Default is none.
+   * @return the lowResourcesShedPattern
+   */
+  public String getLowResourcesShedPattern()
+  {
+    return lowResourcesShedPattern;
+  }
+
+  /**
+   * @param lowResourcesShedPattern the lowResourcesShedPattern to set
+   * @return this for chaining.
+   */
+  public StartSettings setLowResourcesShedPattern(final String lowResourcesShedPattern)
+  {
+    this.lowResourcesShedPattern = lowResourcesShedPattern;
+    return this;
+  }
+
+  /**
+   * Value in seconds of the Retry-After header of requests rejected because of low resources. Default is 10.
+   * @return the lowResourcesRetryAfter
+   */
+  public int getLowResourcesRetryAfter()
+  {
+    return lowResourcesRetryAfter;
+  }
+
+  /**
+   * @param lowResourcesRetryAfter the lowResourcesRetryAfter to set
+   * @return this for chaining.
+   */
+  public StartSettings setLowResourcesRetryAfter(final int lowResourcesRetryAfter)
+  {
+    this.lowResourcesRetryAfter = lowResourcesRetryAfter;
+    return this;
+  }
+
+  /**
+   * Period in milliseconds of the checks of the low resources monitor. Default is 1,000.
+   * @return the lowResourcesCheckPeriod
+   */
+  public int getLowResourcesCheckPeriod()
+  {
+    return lowResourcesCheckPeriod;
+  }
+
+  /**
+   * @param lowResourcesCheckPeriod the lowResourcesCheckPeriod to set
+   * @return this for chaining.
+   */
+  public StartSettings setLowResourcesCheckPeriod(final int lowResourcesCheckPeriod)
+  {
+    this.lowResourcesCheckPeriod = lowResourcesCheckPeriod;
+    return this;
+  }
+
+  /**
+   * If true, the request rate and the concurrent requests per client and the concurrent requests of the rate limit patterns
+   * are limited. Default is false.
+   * @return the rateLimit
+   */
+  public boolean isRateLimit()
+  {
+    return rateLimit;
+  }
+
+  /**
+   * @param rateLimit the rateLimit to set
+   * @return this for chaining.
+   */
+  public StartSettings setRateLimit(final boolean rateLimit)
+  {
+    this.rateLimit = rateLimit;
+    return this;
+  }
+
+  /**
+   * Identifies the clients of the rate limits. Default is {@link RateLimitKey#IP}.
+   * @return the rateLimitKey
+   */
+  public RateLimitKey getRateLimitKey()
+  {
+    return rateLimitKey;
+  }
+
+  /**
+   * @param rateLimitKey the rateLimitKey to set
+   * @return this for chaining.
+   */
+  public StartSettings setRateLimitKey(final RateLimitKey rateLimitKey)
+  {
+    this.rateLimitKey = rateLimitKey;
+    return this;
+  }
+
+  /**
+   * Sustained requests per second per client, 0 for no rate limit. Default is 20.
+   * @return the rateLimitRequestsPerSecond
+   */
+  public int getRateLimitRequestsPerSecond()
+  {
+    return rateLimitRequestsPerSecond;
+  }
+
+  /**
+   * @param rateLimitRequestsPerSecond the rateLimitRequestsPerSecond to set
+   * @return this for chaining.
+   */
+  public StartSettings setRateLimitRequestsPerSecond(final int rateLimitRequestsPerSecond)
+  {
+    this.rateLimitRequestsPerSecond = rateLimitRequestsPerSecond;
+    return this;
+  }
+
+  /**
+   * Number of requests a client may send at once after being idle (size of the token bucket). Default is 50.
+   * @return the rateLimitBurst
+   */
+  public int getRateLimitBurst()
+  {
+    return rateLimitBurst;
+  }
+
+  /**
+   * @param rateLimitBurst the rateLimitBurst to set
+   * @return this for chaining.
+   */
+  public StartSettings setRateLimitBurst(final int rateLimitBurst)
+  {
+    this.rateLimitBurst = rateLimitBurst;
+    return this;
+  }
+
+  /**
+   * Max number of concurrent requests per client, 0 for no limit. Default is 8.
+   * @return the rateLimitMaxConcurrent
+   */
+  public int getRateLimitMaxConcurrent()
+  {
+    return rateLimitMaxConcurrent;
+  }
+
+  /**
+   * @param rateLimitMaxConcurrent the rateLimitMaxConcurrent to set
+   * @return this for chaining.
+   */
+  public StartSettings setRateLimitMaxConcurrent(final int rateLimitMaxConcurrent)
+  {
+    this.rateLimitMaxConcurrent = rateLimitMaxConcurrent;
+    return this;
+  }
+
+  /**
+   * Max number of clients tracked by the rate limiter. Requests of further clients share the limits of a single client until idle
+   * clients are evicted. Default is 10,000.
+   * @return the rateLimitMaxClients
+   */
+  public int getRateLimitMaxClients()
+  {
+    return rateLimitMaxClients;
+  }
+
+  /**
+   * @param rateLimitMaxClients the rateLimitMaxClients to set
+   * @return this for chaining.
+   */
+  public StartSettings setRateLimitMaxClients(final int rateLimitMaxClients)
+  {
+    this.rateLimitMaxClients = rateLimitMaxClients;
+    return this;
+  }
+
+  /**
+   * Max number of concurrent requests over all clients of expensive paths (e. g. exports) given as list of regex=permits
+   * separated by ';', e. g. "/export=2;\.pdf$=4". The first matching regular expression is used. Default is none.
+   * @return the rateLimitPatterns
+   */
+  public String getRateLimitPatterns()
+  {
+    return rateLimitPatterns;
+  }
+
+  /**
+   * @param rateLimitPatterns the rateLimitPatterns to set
+   * @return this for chaining.
+   */
+  public StartSettings setRateLimitPatterns(final String rateLimitPatterns)
+  {
+    this.rateLimitPatterns = rateLimitPatterns;
+    return this;
+  }
+
+  /**
+   * Max time in milliseconds a request of a rate limit pattern waits for a permit before it's rejected with 503, 0 for rejecting it
+   * immediately. Default is 5,000 (see {@link #getRateLimitPatternMaxQueued()}).
+   * @return the rateLimitPatternMaxWait
+   */
+  public int getRateLimitPatternMaxWait()
+  {
+    return rateLimitPatternMaxWait;
+  }
+
+  /**
+   * @param rateLimitPatternMaxWait the rateLimitPatternMaxWait to set
+   * @return this for chaining.
+   */
+  public StartSettings setRateLimitPatternMaxWait(final int rateLimitPatternMaxWait)
+  {
+    this.rateLimitPatternMaxWait = rateLimitPatternMaxWait;
+    return this;
+  }
+
+  /**
+   * Max number of requests per rate limit pattern waiting for a permit, further requests are rejected with 503 immediately. Every waiting
+   * request blocks a server thread. Default is 4.
+   * @return the rateLimitPatternMaxQueued
+   */
+  public int getRateLimitPatternMaxQueued()
+  {
+    return rateLimitPatternMaxQueued;
+  }
+
+  /**
+   * @param rateLimitPatternMaxQueued the rateLimitPatternMaxQueued to set
+   * @return this for chaining.
+   */
+  public StartSettings setRateLimitPatternMaxQueued(final int rateLimitPatternMaxQueued)
+  {
+    this.rateLimitPatternMaxQueued = rateLimitPatternMaxQueued;
+    return this;
+  }
+
+  /**
+   * Min number of threads of the server thread pool.
+   * @return the threadPoolMinThreads
+   */
+  public int getThreadPoolMinThreads()
+  {
+    return threadPoolMinThreads;
+  }
+
+  /**
+   * @param threadPoolMinThreads the threadPoolMinThreads to set
+   * @return this for chaining.
+   */
+  public StartSettings setThreadPoolMinThreads(final int threadPoolMinThreads)
+  {
+    this.threadPoolMinThreads = threadPoolMinThreads;
+    return this;
+  }
+
+  /**
+   * Max number of threads of the server thread pool. Please note: the acceptors and selectors of the connector use threads of this pool
+   * too.
+   * @return the threadPoolMaxThreads
+   */
+  public int getThreadPoolMaxThreads()
+  {
+    return threadPoolMaxThreads;
+  }
+
+  /**
+   * @param threadPoolMaxThreads the threadPoolMaxThreads to set
+   * @return this for chaining.
+   */
+  public StartSettings setThreadPoolMaxThreads(final int threadPoolMaxThreads)
+  {
+    this.threadPoolMaxThreads = threadPoolMaxThreads;
+    return this;
+  }
+
+  /**
+   * Max number of jobs waiting for a free thread. If not positive, the queue is unbounded.
+   * @return the threadPoolQueueCapacity
+   */
+  public int getThreadPoolQueueCapacity()
+  {
+    return threadPoolQueueCapacity;
+  }
+
+  /**
+   * @param threadPoolQueueCapacity the threadPoolQueueCapacity to set
+   * @return this for chaining.
+   */
+  public StartSettings setThreadPoolQueueCapacity(final int threadPoolQueueCapacity)
+  {
+    this.threadPoolQueueCapacity = threadPoolQueueCapacity;
+    return this;
+  }
+
+  /**
+   * Idle threads above the min number of threads are stopped after this time in milliseconds.
+   * @return the threadPoolIdleTimeout
+   */
+  public int getThreadPoolIdleTimeout()
+  {
+    return threadPoolIdleTimeout;
+  }
+
+  /**
+   * @param threadPoolIdleTimeout the threadPoolIdleTimeout to set
+   * @return this for chaining.
+   */
+  public StartSettings setThreadPoolIdleTimeout(final int threadPoolIdleTimeout)
+  {
+    this.threadPoolIdleTimeout = threadPoolIdleTimeout;
+    return this;
+  }
+
+  /**
+   * What to do if the job queue of the thread pool is full.
+   * @return the threadPoolRejectPolicy
+   */
+  public ThreadPoolRejectPolicy getThreadPoolRejectPolicy()
+  {
+    return threadPoolRejectPolicy;
+  }
+
+  /**
+   * @param threadPoolRejectPolicy the threadPoolRejectPolicy to set
+   * @return this for chaining.
+   */
+  public StartSettings setThreadPoolRejectPolicy(final ThreadPoolRejectPolicy threadPoolRejectPolicy)
+  {
+    this.threadPoolRejectPolicy = threadPoolRejectPolicy;
+    return this;
+  }
+
+  /**
+   * The threads the requests are processed on. Default is {@link RequestExecutionMode#PLATFORM}. {@link RequestExecutionMode#VIRTUAL}
+   * requires the non-blocking connector, with the blocking connector the requests are processed on the thread pool.
+   * @return the requestExecutionMode
+   */
+  public RequestExecutionMode getRequestExecutionMode()
+  {
+    return requestExecutionMode;
+  }
+
+  /**
+   * @param requestExecutionMode the requestExecutionMode to set
+   * @return this for chaining.
+   */
+  public StartSettings setRequestExecutionMode(final RequestExecutionMode requestExecutionMode)
+  {
+    this.requestExecutionMode = requestExecutionMode;
+    return this;
+  }
+
+  /**
+   * Max number of requests processed on virtual threads at the same time, 0 for no limit. Default is -1 (the max size of the JDBC pool,
+   * because most of the request time is spent waiting for the data base).
+   * @return the virtualThreadsMaxConcurrent
+   * @see #getEffectiveVirtualThreadsMaxConcurrent()
+   */
+  public int getVirtualThreadsMaxConcurrent()
+  {
+    return virtualThreadsMaxConcurrent;
+  }
+
+  /**
+   * @param virtualThreadsMaxConcurrent the virtualThreadsMaxConcurrent to set (-1 for the max size of the JDBC pool, 0 for no limit).
+   * @return this for chaining.
+   */
+  public StartSettings setVirtualThreadsMaxConcurrent(final int virtualThreadsMaxConcurrent)
+  {
+    this.virtualThreadsMaxConcurrent = virtualThreadsMaxConcurrent;
+    return this;
+  }
+
+  /**
+   * @return The virtualThreadsMaxConcurrent or the max size of the JDBC pool if not given.
+   */
+  public int getEffectiveVirtualThreadsMaxConcurrent()
+  {
+    return virtualThreadsMaxConcurrent >= 0 ? virtualThreadsMaxConcurrent : jdbcMaxActive;
+  }
+
   public void resetDatabaseSettings()
   {
     resetHsqlDatabaseSettings();
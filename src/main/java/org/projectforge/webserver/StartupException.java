@@ -0,0 +1,38 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver;
+
+/**
+ * Thrown by {@link AbstractStartHelper#start(boolean)} if the start-up failed, e. g. the data base can't be opened or the admin server or
+ * the server itself can't be started. The server is already stopped when this exception is thrown.
+ */
+public class StartupException extends RuntimeException
+{
+  private static final long serialVersionUID = 2785154376361407381L;
+
+  public StartupException(final String message, final Throwable cause)
+  {
+    super(message, cause);
+  }
+}
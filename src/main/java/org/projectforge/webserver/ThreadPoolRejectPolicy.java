@@ -0,0 +1,56 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * What to do with requests if the job queue of the server thread pool is full.
+ */
+public enum ThreadPoolRejectPolicy
+{
+  /**
+   * Requests are answered immediately with 503 (Service Unavailable) as long as the job queue is full, so clients get a fast response
+   * instead of a time-out. Connections which can't be queued anymore get a 503 written by the thread pool before they are closed. Default.
+   */
+  SERVICE_UNAVAILABLE,
+
+  /**
+   * No load shedding: jobs which can't be queued anymore are refused by the thread pool and their connection is closed without response.
+   */
+  CLOSE_CONNECTION;
+
+  /**
+   * @param value The name of the policy (case insensitive, '-' may be used instead of '_').
+   * @return The policy or null if the given value is empty.
+   * @throws IllegalArgumentException if the value isn't a known policy.
+   */
+  public static ThreadPoolRejectPolicy fromString(final String value)
+  {
+    if (StringUtils.isBlank(value) == true) {
+      return null;
+    }
+    return ThreadPoolRejectPolicy.valueOf(value.trim().toUpperCase().replace('-', '_'));
+  }
+}
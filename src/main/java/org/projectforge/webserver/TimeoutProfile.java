@@ -0,0 +1,97 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Connection time-outs of the http connector. The development profile uses long time-outs for making debugging easier, the production
+ * profile frees connections and threads of dead or slow clients quickly.
+ */
+public enum TimeoutProfile
+{
+  DEVELOPMENT(AbstractStartHelper.MILLIS_HOUR, AbstractStartHelper.MILLIS_HOUR, AbstractStartHelper.MILLIS_HOUR, 0), //
+  PRODUCTION(30000, 60000, 5000, 1000);
+
+  private final int maxIdleTime;
+
+  private final int readTimeout;
+
+  private final int lowResourcesMaxIdleTime;
+
+  private final int lowResourcesConnections;
+
+  private TimeoutProfile(final int maxIdleTime, final int readTimeout, final int lowResourcesMaxIdleTime, final int lowResourcesConnections)
+  {
+    this.maxIdleTime = maxIdleTime;
+    this.readTimeout = readTimeout;
+    this.lowResourcesMaxIdleTime = lowResourcesMaxIdleTime;
+    this.lowResourcesConnections = lowResourcesConnections;
+  }
+
+  /**
+   * Idle time in milliseconds after which connections without any request in progress are closed.
+   */
+  public int getMaxIdleTime()
+  {
+    return maxIdleTime;
+  }
+
+  /**
+   * Max time in milliseconds a blocking read or write may stall while a request is in progress.
+   */
+  public int getReadTimeout()
+  {
+    return readTimeout;
+  }
+
+  /**
+   * Idle time in milliseconds used instead of the max idle time while the server is low on resources.
+   */
+  public int getLowResourcesMaxIdleTime()
+  {
+    return lowResourcesMaxIdleTime;
+  }
+
+  /**
+   * Number of open connections above which the server is low on resources (nio connector only, 0 for no limit).
+   */
+  public int getLowResourcesConnections()
+  {
+    return lowResourcesConnections;
+  }
+
+  /**
+   * @param value "development" or "production" (case insensitive).
+   * @return The profile or null if the given value is empty.
+   * @throws IllegalArgumentException if the value isn't a known profile.
+   */
+  public static TimeoutProfile fromString(final String value)
+  {
+    if (StringUtils.isBlank(value) == true) {
+      return null;
+    }
+    return TimeoutProfile.valueOf(value.trim().toUpperCase());
+  }
+}
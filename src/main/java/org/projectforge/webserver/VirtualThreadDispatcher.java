@@ -0,0 +1,239 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.projectforge.webserver.metrics.LatencyHistogram;
+import org.projectforge.webserver.metrics.MetricsSource;
+import org.projectforge.webserver.metrics.PrometheusWriter;
+
+/**
+ * Runs the connection jobs (request processing) of the non-blocking connector on virtual threads. The virtual threads are created by
+ * reflection, because the server is compiled for Java 7. The number of jobs running at the same time is limited (normally to the max size
+ * of the JDBC pool): otherwise blocking JDBC calls of thousands of virtual threads would only pile up in the connection pool. Jobs
+ * exceeding the limit park their virtual thread until a permit is available.
+ */
+public class VirtualThreadDispatcher implements MetricsSource
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(VirtualThreadDispatcher.class);
+
+  /**
+   * Jobs of these classes process the requests of a connection until no further input is available, all other jobs (acceptors, selectors
+   * etc.) run for the life time of the connector and remain on the server thread pool. The jobs of the blocking connector
+   * (SocketConnector$ConnectorEndPoint) aren't dispatched: they serve a keep-alive connection including its idle time, so they would hold a
+   * permit of the concurrency limit while waiting for the next request.
+   */
+  private static final String[] CONNECTION_JOB_CLASS_PREFIXES = { "org.eclipse.jetty.io.nio.SelectChannelEndPoint$"};
+
+  private final ThreadFactory threadFactory;
+
+  private final int maxConcurrent;
+
+  private final Semaphore permits;
+
+  private final AtomicInteger activeJobs = new AtomicInteger();
+
+  private final AtomicInteger waitingJobs = new AtomicInteger();
+
+  private final AtomicLong dispatchedJobs = new AtomicLong();
+
+  private final LatencyHistogram waitTimes = new LatencyHistogram();
+
+  private volatile boolean running = true;
+
+  /**
+   * @param name Prefix of the names of the virtual threads.
+   * @param maxConcurrent Max number of jobs running at the same time, 0 for no limit.
+   * @return The dispatcher or null if the Java runtime doesn't support virtual threads.
+   */
+  public static VirtualThreadDispatcher create(final String name, final int maxConcurrent)
+  {
+    final ThreadFactory threadFactory = createVirtualThreadFactory(name);
+    if (threadFactory == null) {
+      return null;
+    }
+    return new VirtualThreadDispatcher(threadFactory, maxConcurrent);
+  }
+
+  /**
+   * Calls Thread.ofVirtual().name(name, 0).factory() (Java 21+).
+   * @param name
+   * @return The factory or null if virtual threads aren't supported (or only as preview feature not enabled).
+   */
+  static ThreadFactory createVirtualThreadFactory(final String name)
+  {
+    try {
+      final Method ofVirtual = Thread.class.getMethod("ofVirtual");
+      final Class< ? > builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = ofVirtual.invoke(null);
+      builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name, 0L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (final NoSuchMethodException ex) {
+      log.debug("Virtual threads not supported by Java " + System.getProperty("java.version") + ".");
+    } catch (final ClassNotFoundException ex) {
+      log.debug("Virtual threads not supported by Java " + System.getProperty("java.version") + ".");
+    } catch (final InvocationTargetException ex) {
+      log.info("Virtual threads not available: " + ex.getCause());
+    } catch (final Exception ex) {
+      log.warn("Can't create virtual thread factory: " + ex.getMessage(), ex);
+    }
+    return null;
+  }
+
+  VirtualThreadDispatcher(final ThreadFactory threadFactory, final int maxConcurrent)
+  {
+    this.threadFactory = threadFactory;
+    this.maxConcurrent = maxConcurrent;
+    this.permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent, true) : null;
+  }
+
+  /**
+   * @param job
+   * @return true if the job processes a connection and should be dispatched to a virtual thread.
+   */
+  public boolean isConnectionJob(final Runnable job)
+  {
+    final String className = job.getClass().getName();
+    for (final String prefix : CONNECTION_JOB_CLASS_PREFIXES) {
+      if (className.startsWith(prefix) == true) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Starts a new virtual thread for the given job.
+   * @param job
+   * @return false if the dispatcher is stopped.
+   */
+  public boolean dispatch(final Runnable job)
+  {
+    if (running == false) {
+      return false;
+    }
+    dispatchedJobs.incrementAndGet();
+    threadFactory.newThread(new Runnable() {
+      public void run()
+      {
+        final boolean acquired = acquire();
+        activeJobs.incrementAndGet();
+        try {
+          // The job is run even without permit, otherwise the dispatched end point would never be processed nor closed:
+          job.run();
+        } finally {
+          activeJobs.decrementAndGet();
+          if (acquired == true) {
+            permits.release();
+          }
+        }
+      }
+    }).start();
+    return true;
+  }
+
+  /**
+   * No further jobs are accepted, running jobs are finished.
+   */
+  public void stop()
+  {
+    running = false;
+  }
+
+  public int getMaxConcurrent()
+  {
+    return maxConcurrent;
+  }
+
+  /**
+   * @return Number of jobs currently running.
+   */
+  public int getActiveJobs()
+  {
+    return activeJobs.get();
+  }
+
+  /**
+   * @return Number of jobs waiting for a permit.
+   */
+  public int getWaitingJobs()
+  {
+    return waitingJobs.get();
+  }
+
+  public long getDispatchedJobs()
+  {
+    return dispatchedJobs.get();
+  }
+
+  public void writeMetrics(final PrometheusWriter writer)
+  {
+    writer.counter("projectforge_virtual_threads_dispatched_total", "Number of connection jobs dispatched to virtual threads.",
+        getDispatchedJobs());
+    writer.gauge("projectforge_virtual_threads_active", "Number of connection jobs running on virtual threads.", getActiveJobs());
+    writer.gauge("projectforge_virtual_threads_waiting", "Number of connection jobs waiting for a permit of the concurrency limit.",
+        getWaitingJobs());
+    writer.summary("projectforge_virtual_threads_wait_seconds", "Time connection jobs waited for a permit of the concurrency limit.",
+        waitTimes);
+  }
+
+  @Override
+  public String toString()
+  {
+    return "VirtualThreadDispatcher[active=" + getActiveJobs() + ", waiting=" + getWaitingJobs() + ", maxConcurrent=" + maxConcurrent + "]";
+  }
+
+  /**
+   * @return true if a permit was acquired, false if there is no concurrency limit or the thread was interrupted while waiting.
+   */
+  private boolean acquire()
+  {
+    if (permits == null) {
+      return false;
+    }
+    if (permits.tryAcquire() == true) {
+      waitTimes.record(0);
+      return true;
+    }
+    final long start = System.nanoTime();
+    waitingJobs.incrementAndGet();
+    try {
+      permits.acquire();
+      return true;
+    } catch (final InterruptedException ex) {
+      // The interrupt flag isn't restored: an interrupted thread would close the channel of the end point on its next read.
+      log.warn("Interrupted while waiting for a permit, processing connection job without permit.");
+      return false;
+    } finally {
+      waitingJobs.decrementAndGet();
+      waitTimes.recordSince(start);
+    }
+  }
+}
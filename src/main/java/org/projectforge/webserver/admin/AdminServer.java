@@ -0,0 +1,230 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.admin;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.server.nio.SelectChannelConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+/**
+ * Small web server for monitoring and administration on its own port and with its own few threads. So the endpoints are reachable even
+ * if the ProjectForge server is saturated and they don't pass the Wicket and session handling. The server should be bound to localhost or
+ * an internal network only. Restricted endpoints (e. g. shutdown) require the token in the header {@link #TOKEN_HEADER}, without a
+ * configured token they accept requests from the loopback interface only.
+ */
+public class AdminServer
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(AdminServer.class);
+
+  private final Server server;
+
+  public static final String TOKEN_HEADER = "X-Admin-Token";
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final Map<String, AdminEndpoint> endpoints = new TreeMap<String, AdminEndpoint>();
+
+  private final Set<String> restrictedPaths = new HashSet<String>();
+
+  private byte[] token;
+
+  /**
+   * @param host The interface to bind, null for all interfaces.
+   * @param port
+   */
+  public AdminServer(final String host, final int port)
+  {
+    server = new Server();
+    final QueuedThreadPool threadPool = new QueuedThreadPool();
+    threadPool.setName("ProjectForge-Admin");
+    threadPool.setMinThreads(2);
+    threadPool.setMaxThreads(8);
+    server.setThreadPool(threadPool);
+    final SelectChannelConnector connector = new SelectChannelConnector();
+    connector.setHost(host);
+    connector.setPort(port);
+    connector.setAcceptors(1);
+    connector.setMaxIdleTime(30000);
+    server.addConnector(connector);
+    server.setHandler(new AbstractHandler() {
+      public void handle(final String target, final Request baseRequest, final HttpServletRequest request,
+          final HttpServletResponse response) throws IOException, ServletException
+      {
+        baseRequest.setHandled(true);
+        final AdminEndpoint endpoint;
+        final boolean restricted;
+        synchronized (endpoints) {
+          endpoint = endpoints.get(target);
+          restricted = restrictedPaths.contains(target);
+        }
+        if (endpoint != null && restricted == true && isAuthorized(request) == false) {
+          log.warn("Unauthorized admin request " + target + " from " + request.getRemoteAddr() + " rejected.");
+          response.sendError(HttpServletResponse.SC_FORBIDDEN);
+        } else if (endpoint != null) {
+          endpoint.handle(request, response);
+        } else if ("/".equals(target) == true) {
+          writeIndex(response);
+        } else {
+          response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+      }
+    });
+  }
+
+  /**
+   * @param path The path of the endpoint, e. g. "/jdbc".
+   * @param endpoint
+   * @return this for chaining.
+   */
+  public AdminServer addEndpoint(final String path, final AdminEndpoint endpoint)
+  {
+    return addEndpoint(path, endpoint, false);
+  }
+
+  /**
+   * @param path The path of the endpoint, e. g. "/jdbc".
+   * @param endpoint
+   * @param restricted If true, the endpoint requires the token or a request from the loopback interface.
+   * @return this for chaining.
+   */
+  public AdminServer addEndpoint(final String path, final AdminEndpoint endpoint, final boolean restricted)
+  {
+    synchronized (endpoints) {
+      endpoints.put(path, endpoint);
+      if (restricted == true) {
+        restrictedPaths.add(path);
+      } else {
+        restrictedPaths.remove(path);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * @param token The shared secret of the restricted endpoints, null or empty for accepting requests from the loopback interface only.
+   * @return this for chaining.
+   */
+  public AdminServer setToken(final String token)
+  {
+    this.token = token != null && token.length() > 0 ? token.getBytes(UTF_8) : null;
+    return this;
+  }
+
+  /**
+   * @param request
+   * @return true if the request has the token (if configured) or is sent from the loopback interface (if no token is configured).
+   */
+  boolean isAuthorized(final HttpServletRequest request)
+  {
+    if (token != null) {
+      final String header = request.getHeader(TOKEN_HEADER);
+      // Constant time comparison:
+      return header != null && MessageDigest.isEqual(token, header.getBytes(UTF_8)) == true;
+    }
+    try {
+      // The remote address is an ip address, so no name lookup is done:
+      return InetAddress.getByName(request.getRemoteAddr()).isLoopbackAddress();
+    } catch (final IOException ex) {
+      return false;
+    }
+  }
+
+  public void start() throws Exception
+  {
+    server.start();
+    log.info("Admin server started on " + server.getConnectors()[0].getHost() + ":" + server.getConnectors()[0].getLocalPort() + ".");
+  }
+
+  /**
+   * @return The port the admin server is listening on (e. g. if started with port 0).
+   */
+  public int getLocalPort()
+  {
+    return server.getConnectors()[0].getLocalPort();
+  }
+
+  public void stop()
+  {
+    try {
+      server.stop();
+    } catch (final Exception ex) {
+      log.error("Error while stopping admin server: " + ex.getMessage(), ex);
+    }
+  }
+
+  /**
+   * Writes the given text as plain text response.
+   * @param response
+   * @param text
+   * @throws IOException
+   */
+  public static void writeText(final HttpServletResponse response, final String text) throws IOException
+  {
+    writeText(response, text, "text/plain; charset=utf-8");
+  }
+
+  /**
+   * Writes the given text with the given content type.
+   * @param response
+   * @param text
+   * @param contentType
+   * @throws IOException
+   */
+  public static void writeText(final HttpServletResponse response, final String text, final String contentType) throws IOException
+  {
+    response.setContentType(contentType);
+    response.setHeader("Cache-Control", "no-cache");
+    final PrintWriter writer = response.getWriter();
+    writer.write(text);
+    writer.flush();
+  }
+
+  private void writeIndex(final HttpServletResponse response) throws IOException
+  {
+    final StringBuilder buf = new StringBuilder();
+    buf.append("ProjectForge admin endpoints:\n");
+    synchronized (endpoints) {
+      for (final String path : endpoints.keySet()) {
+        buf.append("  ").append(path).append("\n");
+      }
+    }
+    writeText(response, buf.toString());
+  }
+}
@@ -0,0 +1,488 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.deploy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.jetty.util.IO;
+
+/**
+ * Index of the jars in WEB-INF/lib which have to be scanned by Jetty's MetaInfConfiguration, FragmentConfiguration,
+ * TagLibConfiguration and AnnotationConfiguration (quickstart). A jar is indexed if it contains tag library descriptors, a
+ * web-fragment.xml, META-INF/resources, a ServletContainerInitializer (META-INF/services) or classes referencing
+ * javax.servlet.annotation. Jars containing the classes handled by the ServletContainerInitializers (subtypes of the types given by
+ * their annotation HandlesTypes or classes referencing these types) are indexed too. The servlet version of the web app isn't checked.
+ * All other jars are excluded from the scan via Jetty's WebInfIncludeJarPattern, the class loading isn't affected.<br/>
+ * The index is stored as properties file together with a fingerprint of the jars (names, sizes and modification times), so an outdated
+ * index is detected and rebuilt.
+ */
+public class AnnotationScanIndex
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(AnnotationScanIndex.class);
+
+  private static final byte[] SERVLET_ANNOTATION = "javax/servlet/annotation/".getBytes();
+
+  private static final String INITIALIZER_SERVICE = "META-INF/services/javax.servlet.ServletContainerInitializer";
+
+  /**
+   * Part of the fingerprint, so indexes created by former versions of the scan are rebuilt.
+   */
+  private static final String INDEX_VERSION = "2";
+
+  private static final String PROP_FINGERPRINT = "fingerprint";
+
+  private static final String PROP_JARS = "jars";
+
+  private static final String PROP_ALL_JARS = "allJars";
+
+  private final String fingerprint;
+
+  private final List<String> jars;
+
+  private final int numberOfAllJars;
+
+  private AnnotationScanIndex(final String fingerprint, final List<String> jars, final int numberOfAllJars)
+  {
+    this.fingerprint = fingerprint;
+    this.jars = jars;
+    this.numberOfAllJars = numberOfAllJars;
+  }
+
+  /**
+   * Loads the index from the given file or creates and saves it if the index file doesn't exist or is outdated.
+   * @param webAppDir The extracted war.
+   * @param indexFile
+   * @param excludeJars Regular expression of jar names known to have no annotations, TLDs or web fragments (only indexed if they contain
+   *          classes handled by a ServletContainerInitializer), may be null.
+   * @return The index.
+   * @throws IOException
+   */
+  public static AnnotationScanIndex getIndex(final File webAppDir, final File indexFile, final String excludeJars) throws IOException
+  {
+    final File[] allJars = getJars(webAppDir);
+    final String fingerprint = getFingerprint(allJars, excludeJars);
+    if (indexFile.exists() == true) {
+      final Properties props = new Properties();
+      final InputStream in = new FileInputStream(indexFile);
+      try {
+        props.load(in);
+      } finally {
+        IO.close(in);
+      }
+      if (fingerprint.equals(props.getProperty(PROP_FINGERPRINT)) == true) {
+        final String jars = props.getProperty(PROP_JARS, "");
+        final List<String> list = jars.length() > 0 ? Arrays.asList(StringUtils.split(jars, ',')) : new ArrayList<String>();
+        return new AnnotationScanIndex(fingerprint, list, Integer.parseInt(props.getProperty(PROP_ALL_JARS, "0")));
+      }
+      log.info("Quickstart index '" + indexFile.getAbsolutePath() + "' is outdated (jars of the war changed).");
+    }
+    final long start = System.currentTimeMillis();
+    final List<String> jars = scan(allJars, excludeJars != null ? Pattern.compile(excludeJars) : null);
+    final AnnotationScanIndex index = new AnnotationScanIndex(fingerprint, jars, allJars.length);
+    index.save(indexFile);
+    log.info("Quickstart index created in "
+        + (System.currentTimeMillis() - start)
+        + "ms: "
+        + jars.size()
+        + " of "
+        + allJars.length
+        + " jars have to be scanned "
+        + jars
+        + ".");
+    return index;
+  }
+
+  /**
+   * Scans the jars in parallel (the jars are independent of each other), afterwards the jars containing the classes handled by the
+   * ServletContainerInitializers are added.
+   * @return The names of the jars which have to be scanned by Jetty in the order of the given jars.
+   */
+  private static List<String> scan(final File[] allJars, final Pattern excludePattern) throws IOException
+  {
+    final JarScan[] scans = new JarScan[allJars.length];
+    final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    try {
+      final List<Future<JarScan>> results = new ArrayList<Future<JarScan>>();
+      for (final File jar : allJars) {
+        results.add(executor.submit(new Callable<JarScan>() {
+          public JarScan call() throws IOException
+          {
+            return scanJar(jar);
+          }
+        }));
+      }
+      for (int i = 0; i < allJars.length; i++) {
+        scans[i] = results.get(i).get();
+      }
+    } catch (final InterruptedException ex) {
+      throw new IOException("Scan of jars interrupted.", ex);
+    } catch (final ExecutionException ex) {
+      throw ex.getCause() instanceof IOException ? (IOException) ex.getCause() : new IOException(ex.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+    final boolean[] required = new boolean[allJars.length];
+    for (int i = 0; i < allJars.length; i++) {
+      // Excluded jars are known to have no annotations, but may contain classes handled by an initializer:
+      required[i] = scans[i].scanRequired == true
+          && (excludePattern == null || excludePattern.matcher(allJars[i].getName()).matches() == false);
+    }
+    addHandledTypes(allJars, scans, required);
+    final List<String> jars = new ArrayList<String>();
+    for (int i = 0; i < allJars.length; i++) {
+      if (required[i] == true) {
+        jars.add(allJars[i].getName());
+      }
+    }
+    return jars;
+  }
+
+  /**
+   * Marks the jars containing subtypes of the types given by the annotation HandlesTypes of the ServletContainerInitializers as required.
+   * Annotation types (and types not found in WEB-INF/lib) may also be used as annotation of the handled classes, so the jars containing
+   * classes referencing these types are marked as well.
+   */
+  private static void addHandledTypes(final File[] allJars, final JarScan[] scans, final boolean[] required) throws IOException
+  {
+    final Map<String, Integer> jarOfClass = new HashMap<String, Integer>();
+    final Map<String, List<String>> subtypes = new HashMap<String, List<String>>();
+    for (int i = 0; i < scans.length; i++) {
+      for (final ClassFileInfo info : scans[i].classes) {
+        if (jarOfClass.containsKey(info.getName()) == false) {
+          jarOfClass.put(info.getName(), i);
+        }
+        addSubtype(subtypes, info.getSuperName(), info.getName());
+        for (final String iface : info.getInterfaces()) {
+          addSubtype(subtypes, iface, info.getName());
+        }
+      }
+    }
+    final Set<String> handledTypes = new HashSet<String>();
+    for (final JarScan scan : scans) {
+      for (final String initializer : scan.initializers) {
+        final String className = initializer.replace('.', '/');
+        final Integer jar = jarOfClass.get(className);
+        if (jar == null) {
+          continue; // Provided by the container.
+        }
+        final ZipFile zipFile = new ZipFile(allJars[jar]);
+        try {
+          handledTypes.addAll(ClassFileInfo.readHandlesTypes(read(zipFile, zipFile.getEntry(className + ".class"))));
+        } finally {
+          zipFile.close();
+        }
+      }
+    }
+    if (handledTypes.isEmpty() == true) {
+      return;
+    }
+    final Set<String> referencedTypes = new HashSet<String>();
+    final LinkedList<String> queue = new LinkedList<String>(handledTypes);
+    final Set<String> visited = new HashSet<String>(handledTypes);
+    while (queue.isEmpty() == false) {
+      final String type = queue.removeFirst();
+      final Integer jar = jarOfClass.get(type);
+      if (jar != null) {
+        required[jar] = true;
+      }
+      if (handledTypes.contains(type) == true && (jar == null || scans[jar].isAnnotation(type) == true)) {
+        referencedTypes.add("L" + type + ";");
+      }
+      final List<String> list = subtypes.get(type);
+      if (list != null) {
+        for (final String subtype : list) {
+          if (visited.add(subtype) == true) {
+            queue.add(subtype);
+          }
+        }
+      }
+    }
+    if (referencedTypes.isEmpty() == true) {
+      return;
+    }
+    for (int i = 0; i < allJars.length; i++) {
+      if (required[i] == false && containsReference(allJars[i], referencedTypes) == true) {
+        required[i] = true;
+      }
+    }
+  }
+
+  private static void addSubtype(final Map<String, List<String>> subtypes, final String type, final String subtype)
+  {
+    if (type == null) {
+      return;
+    }
+    List<String> list = subtypes.get(type);
+    if (list == null) {
+      list = new ArrayList<String>();
+      subtypes.put(type, list);
+    }
+    list.add(subtype);
+  }
+
+  /**
+   * @return The pattern for Jetty's WebInfIncludeJarPattern matching all indexed jars.
+   */
+  public String getIncludeJarPattern()
+  {
+    return getIncludeJarPattern(jars);
+  }
+
+  /**
+   * @param jarNames
+   * @return A pattern for Jetty's WebInfIncludeJarPattern matching only the given jars (matched against the uri of the jars).
+   */
+  public static String getIncludeJarPattern(final Collection<String> jarNames)
+  {
+    if (jarNames.isEmpty() == true) {
+      return "^$"; // Matches no jar.
+    }
+    final StringBuilder buf = new StringBuilder();
+    buf.append(".*/(");
+    boolean first = true;
+    for (final String name : jarNames) {
+      if (first == false) {
+        buf.append('|');
+      }
+      first = false;
+      buf.append(Pattern.quote(name));
+    }
+    buf.append(")$");
+    return buf.toString();
+  }
+
+  /**
+   * @return The names of the jars to scan.
+   */
+  public List<String> getJars()
+  {
+    return jars;
+  }
+
+  /**
+   * @return The number of all jars in WEB-INF/lib.
+   */
+  public int getNumberOfAllJars()
+  {
+    return numberOfAllJars;
+  }
+
+  private void save(final File indexFile) throws IOException
+  {
+    final Properties props = new Properties();
+    props.setProperty(PROP_FINGERPRINT, fingerprint);
+    props.setProperty(PROP_JARS, StringUtils.join(jars, ','));
+    props.setProperty(PROP_ALL_JARS, String.valueOf(numberOfAllJars));
+    indexFile.getParentFile().mkdirs();
+    final OutputStream out = new FileOutputStream(indexFile);
+    try {
+      props.store(out, "Jars to scan for annotations, TLDs and web fragments (quickstart index of ProjectForge).");
+    } finally {
+      IO.close(out);
+    }
+  }
+
+  private static File[] getJars(final File webAppDir)
+  {
+    final File[] jars = new File(new File(webAppDir, "WEB-INF"), "lib").listFiles();
+    if (jars == null) {
+      return new File[0];
+    }
+    Arrays.sort(jars);
+    return jars;
+  }
+
+  private static String getFingerprint(final File[] jars, final String excludeJars)
+  {
+    final CRC32 crc = new CRC32();
+    for (final File jar : jars) {
+      crc.update((jar.getName() + ":" + jar.length() + ":" + jar.lastModified() + ";").getBytes());
+    }
+    if (excludeJars != null) {
+      crc.update(excludeJars.getBytes());
+    }
+    crc.update(INDEX_VERSION.getBytes());
+    return Long.toHexString(crc.getValue()) + "-" + jars.length;
+  }
+
+  private static JarScan scanJar(final File jar) throws IOException
+  {
+    final JarScan scan = new JarScan();
+    final ZipFile zipFile = new ZipFile(jar);
+    try {
+      final Enumeration< ? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements() == true) {
+        final ZipEntry entry = entries.nextElement();
+        final String name = entry.getName();
+        if (name.startsWith("META-INF/") == true) {
+          if (INITIALIZER_SERVICE.equals(name) == true) {
+            scan.scanRequired = true;
+            scan.initializers.addAll(readServices(zipFile, entry));
+          } else if (name.endsWith(".tld") == true
+              || name.startsWith("META-INF/resources/") == true
+              || "META-INF/web-fragment.xml".equals(name) == true) {
+            scan.scanRequired = true;
+          }
+        } else if (name.endsWith(".class") == true) {
+          final byte[] bytes = read(zipFile, entry);
+          if (scan.scanRequired == false && indexOf(bytes, SERVLET_ANNOTATION) >= 0) {
+            scan.scanRequired = true;
+          }
+          try {
+            scan.classes.add(ClassFileInfo.read(bytes));
+          } catch (final IOException ex) {
+            log.debug("Can't read class file '" + name + "' of jar '" + jar.getName() + "': " + ex.getMessage());
+          }
+        }
+      }
+    } finally {
+      zipFile.close();
+    }
+    return scan;
+  }
+
+  /**
+   * @return The class names listed by the given service file (comments and blank lines are skipped).
+   */
+  private static List<String> readServices(final ZipFile zipFile, final ZipEntry entry) throws IOException
+  {
+    final List<String> classNames = new ArrayList<String>();
+    for (final String line : StringUtils.split(new String(read(zipFile, entry), "UTF-8"), "\r\n")) {
+      final String className = StringUtils.substringBefore(line, "#").trim();
+      if (className.length() > 0) {
+        classNames.add(className);
+      }
+    }
+    return classNames;
+  }
+
+  /**
+   * @param descriptors Type descriptors (Lcom/acme/Foo;).
+   * @return true if any class of the jar contains one of the given type descriptors (used by annotations, fields and methods).
+   */
+  private static boolean containsReference(final File jar, final Collection<String> descriptors) throws IOException
+  {
+    final List<byte[]> patterns = new ArrayList<byte[]>();
+    for (final String descriptor : descriptors) {
+      patterns.add(descriptor.getBytes("UTF-8"));
+    }
+    final ZipFile zipFile = new ZipFile(jar);
+    try {
+      final Enumeration< ? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements() == true) {
+        final ZipEntry entry = entries.nextElement();
+        if (entry.getName().endsWith(".class") == false) {
+          continue;
+        }
+        final byte[] bytes = read(zipFile, entry);
+        for (final byte[] pattern : patterns) {
+          if (indexOf(bytes, pattern) >= 0) {
+            return true;
+          }
+        }
+      }
+    } finally {
+      zipFile.close();
+    }
+    return false;
+  }
+
+  private static byte[] read(final ZipFile zipFile, final ZipEntry entry) throws IOException
+  {
+    final InputStream in = zipFile.getInputStream(entry);
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      IO.copy(in, out);
+    } finally {
+      IO.close(in);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Annotations of classes are referenced by their type descriptors in the constant pool, so it's sufficient to search the byte code for
+   * the package or class name.
+   */
+  private static int indexOf(final byte[] bytes, final byte[] pattern)
+  {
+    outer: for (int i = 0; i <= bytes.length - pattern.length; i++) {
+      for (int j = 0; j < pattern.length; j++) {
+        if (bytes[i + j] != pattern[j]) {
+          continue outer;
+        }
+      }
+      return i;
+    }
+    return -1;
+  }
+
+  /**
+   * Result of the scan of a single jar.
+   */
+  private static class JarScan
+  {
+    private boolean scanRequired;
+
+    private final List<String> initializers = new ArrayList<String>();
+
+    private final List<ClassFileInfo> classes = new ArrayList<ClassFileInfo>();
+
+    private boolean isAnnotation(final String className)
+    {
+      for (final ClassFileInfo info : classes) {
+        if (info.getName().equals(className) == true) {
+          return info.isAnnotation();
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,250 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.deploy;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal reader of class files without loading the classes: name, super class and interfaces of a class and the classes given by the
+ * annotation HandlesTypes of a ServletContainerInitializer. All class names are internal names (com/acme/Foo).
+ */
+class ClassFileInfo
+{
+  private static final int ACC_ANNOTATION = 0x2000;
+
+  private static final String HANDLES_TYPES = "Ljavax/servlet/annotation/HandlesTypes;";
+
+  private final String name;
+
+  private final String superName;
+
+  private final String[] interfaces;
+
+  private final int accessFlags;
+
+  private ClassFileInfo(final String name, final String superName, final String[] interfaces, final int accessFlags)
+  {
+    this.name = name;
+    this.superName = superName;
+    this.interfaces = interfaces;
+    this.accessFlags = accessFlags;
+  }
+
+  /**
+   * @param bytes The class file.
+   * @return The name, super class and interfaces of the class.
+   * @throws IOException if the bytes aren't a valid class file.
+   */
+  static ClassFileInfo read(final byte[] bytes) throws IOException
+  {
+    final DataInputStream in = open(bytes);
+    final Object[] pool = readConstantPool(in);
+    return readHeader(in, pool);
+  }
+
+  /**
+   * @param bytes The class file of a ServletContainerInitializer.
+   * @return The classes given by the annotation HandlesTypes of the class, empty if not annotated.
+   * @throws IOException if the bytes aren't a valid class file.
+   */
+  static List<String> readHandlesTypes(final byte[] bytes) throws IOException
+  {
+    final DataInputStream in = open(bytes);
+    final Object[] pool = readConstantPool(in);
+    readHeader(in, pool);
+    skipMembers(in); // Fields.
+    skipMembers(in); // Methods.
+    final List<String> types = new ArrayList<String>();
+    final int attributes = in.readUnsignedShort();
+    for (int i = 0; i < attributes; i++) {
+      final String attributeName = (String) pool[in.readUnsignedShort()];
+      final int length = in.readInt();
+      if ("RuntimeVisibleAnnotations".equals(attributeName) == false) {
+        in.skipBytes(length);
+        continue;
+      }
+      final int annotations = in.readUnsignedShort();
+      for (int j = 0; j < annotations; j++) {
+        readAnnotation(in, pool, types);
+      }
+    }
+    return types;
+  }
+
+  public String getName()
+  {
+    return name;
+  }
+
+  /**
+   * @return The super class or null for java/lang/Object.
+   */
+  public String getSuperName()
+  {
+    return superName;
+  }
+
+  public String[] getInterfaces()
+  {
+    return interfaces;
+  }
+
+  public boolean isAnnotation()
+  {
+    return (accessFlags & ACC_ANNOTATION) != 0;
+  }
+
+  private static DataInputStream open(final byte[] bytes) throws IOException
+  {
+    final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+    if (in.readInt() != 0xCAFEBABE) {
+      throw new IOException("Not a class file.");
+    }
+    in.skipBytes(4); // Version.
+    return in;
+  }
+
+  /**
+   * @return The constant pool: Utf8 entries as String, class entries as Integer (index of the name), null for all other entries.
+   */
+  private static Object[] readConstantPool(final DataInputStream in) throws IOException
+  {
+    final Object[] pool = new Object[in.readUnsignedShort()];
+    for (int i = 1; i < pool.length; i++) {
+      final int tag = in.readUnsignedByte();
+      switch (tag) {
+        case 1: // Utf8
+          pool[i] = in.readUTF();
+          break;
+        case 7: // Class
+          pool[i] = in.readUnsignedShort();
+          break;
+        case 8: // String
+        case 16: // MethodType
+        case 19: // Module
+        case 20: // Package
+          in.skipBytes(2);
+          break;
+        case 15: // MethodHandle
+          in.skipBytes(3);
+          break;
+        case 3: // Integer
+        case 4: // Float
+        case 9: // Fieldref
+        case 10: // Methodref
+        case 11: // InterfaceMethodref
+        case 12: // NameAndType
+        case 17: // Dynamic
+        case 18: // InvokeDynamic
+          in.skipBytes(4);
+          break;
+        case 5: // Long
+        case 6: // Double
+          in.skipBytes(8);
+          ++i; // Takes two entries.
+          break;
+        default:
+          throw new IOException("Unknown constant pool tag " + tag + ".");
+      }
+    }
+    return pool;
+  }
+
+  private static ClassFileInfo readHeader(final DataInputStream in, final Object[] pool) throws IOException
+  {
+    final int accessFlags = in.readUnsignedShort();
+    final String name = getClassName(pool, in.readUnsignedShort());
+    final String superName = getClassName(pool, in.readUnsignedShort());
+    final String[] interfaces = new String[in.readUnsignedShort()];
+    for (int i = 0; i < interfaces.length; i++) {
+      interfaces[i] = getClassName(pool, in.readUnsignedShort());
+    }
+    return new ClassFileInfo(name, superName, interfaces, accessFlags);
+  }
+
+  private static String getClassName(final Object[] pool, final int index)
+  {
+    return index == 0 ? null : (String) pool[(Integer) pool[index]];
+  }
+
+  private static void skipMembers(final DataInputStream in) throws IOException
+  {
+    final int members = in.readUnsignedShort();
+    for (int i = 0; i < members; i++) {
+      in.skipBytes(6); // Access flags, name and descriptor.
+      final int attributes = in.readUnsignedShort();
+      for (int j = 0; j < attributes; j++) {
+        in.skipBytes(2);
+        in.skipBytes(in.readInt());
+      }
+    }
+  }
+
+  /**
+   * Reads an annotation and adds the classes of the value of HandlesTypes to the given list.
+   */
+  private static void readAnnotation(final DataInputStream in, final Object[] pool, final List<String> types) throws IOException
+  {
+    final boolean handlesTypes = HANDLES_TYPES.equals(pool[in.readUnsignedShort()]);
+    final int pairs = in.readUnsignedShort();
+    for (int i = 0; i < pairs; i++) {
+      final boolean value = "value".equals(pool[in.readUnsignedShort()]);
+      readElementValue(in, pool, handlesTypes == true && value == true ? types : null);
+    }
+  }
+
+  /**
+   * @param types If not null, class values are added (as internal names).
+   */
+  private static void readElementValue(final DataInputStream in, final Object[] pool, final List<String> types) throws IOException
+  {
+    final int tag = in.readUnsignedByte();
+    switch (tag) {
+      case 'c':
+        final String descriptor = (String) pool[in.readUnsignedShort()];
+        if (types != null && descriptor.startsWith("L") == true && descriptor.endsWith(";") == true) {
+          types.add(descriptor.substring(1, descriptor.length() - 1));
+        }
+        break;
+      case 'e':
+        in.skipBytes(4);
+        break;
+      case '@':
+        readAnnotation(in, pool, new ArrayList<String>());
+        break;
+      case '[':
+        final int values = in.readUnsignedShort();
+        for (int i = 0; i < values; i++) {
+          readElementValue(in, pool, types);
+        }
+        break;
+      default: // Primitive or String constant.
+        in.skipBytes(2);
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.deploy;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Enumeration;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.jetty.util.IO;
+
+/**
+ * Persistent cache of extracted war files. Without this cache Jetty unpacks the war into a new temporary directory on every start. The
+ * war is extracted into a sub directory of the cache directory named by the war file, its modification time and its size. On restart the
+ * extracted directory is reused if the war wasn't changed. A war is extracted into a temporary directory first and renamed after
+ * successful extraction, so an interrupted extraction is never used. Extractions of former versions of the war are deleted.
+ */
+public class WarExtractionCache
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(WarExtractionCache.class);
+
+  private static final String TMP_SUFFIX = ".tmp";
+
+  private final File cacheDir;
+
+  /**
+   * @param cacheDir The directory containing the extracted wars (created if not exist).
+   */
+  public WarExtractionCache(final File cacheDir)
+  {
+    this.cacheDir = cacheDir;
+  }
+
+  /**
+   * @param warFile
+   * @return The directory containing the extracted war (extracted by this call or reused from a former start).
+   * @throws IOException
+   */
+  public File getExtractedWar(final File warFile) throws IOException
+  {
+    final long start = System.currentTimeMillis();
+    final File dir = new File(cacheDir, getKey(warFile));
+    if (dir.isDirectory() == true) {
+      log.info("Reusing extracted war '" + dir.getAbsolutePath() + "' (war unchanged).");
+      deleteStaleExtractions(warFile, dir);
+      return dir;
+    }
+    if (cacheDir.isDirectory() == false && cacheDir.mkdirs() == false) {
+      throw new IOException("Can't create war cache directory '" + cacheDir.getAbsolutePath() + "'.");
+    }
+    final File tmpDir = new File(cacheDir, dir.getName() + TMP_SUFFIX);
+    if (tmpDir.exists() == true) {
+      IO.delete(tmpDir); // Interrupted extraction.
+    }
+    extract(warFile, tmpDir);
+    if (tmpDir.renameTo(dir) == false) {
+      throw new IOException("Can't rename '" + tmpDir.getAbsolutePath() + "' to '" + dir.getAbsolutePath() + "'.");
+    }
+    log.info("War '" + warFile.getAbsolutePath() + "' extracted to '" + dir.getAbsolutePath() + "' in "
+        + (System.currentTimeMillis() - start) + "ms.");
+    deleteStaleExtractions(warFile, dir);
+    return dir;
+  }
+
+  /**
+   * @param warFile
+   * @return The name of the extraction directory of the given war: name, modification time and size.
+   */
+  static String getKey(final File warFile)
+  {
+    return getPrefix(warFile) + Long.toHexString(warFile.lastModified()) + "-" + Long.toHexString(warFile.length());
+  }
+
+  private static String getPrefix(final File warFile)
+  {
+    final String name = warFile.getName();
+    if (name.toLowerCase().endsWith(".war") == true) {
+      return name.substring(0, name.length() - 4) + "-";
+    }
+    return name + "-";
+  }
+
+  private void extract(final File warFile, final File dir) throws IOException
+  {
+    final String canonicalDir = dir.getCanonicalPath() + File.separator;
+    final ZipFile zipFile = new ZipFile(warFile);
+    try {
+      final Enumeration< ? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements() == true) {
+        final ZipEntry entry = entries.nextElement();
+        final File file = new File(dir, entry.getName());
+        if (file.getCanonicalPath().startsWith(canonicalDir) == false) {
+          throw new IOException("Entry '" + entry.getName() + "' of war '" + warFile.getAbsolutePath() + "' is outside of the war.");
+        }
+        if (entry.isDirectory() == true) {
+          file.mkdirs();
+          continue;
+        }
+        file.getParentFile().mkdirs();
+        final InputStream in = zipFile.getInputStream(entry);
+        final OutputStream out = new FileOutputStream(file);
+        try {
+          IO.copy(in, out);
+        } finally {
+          IO.close(out);
+          IO.close(in);
+        }
+        if (entry.getTime() > 0) {
+          file.setLastModified(entry.getTime());
+        }
+      }
+    } finally {
+      zipFile.close();
+    }
+  }
+
+  private void deleteStaleExtractions(final File warFile, final File current)
+  {
+    // Exactly <name>-<modification time>-<size>[.tmp], so extractions of other wars with the same prefix are kept:
+    final Pattern pattern = Pattern.compile(Pattern.quote(getPrefix(warFile)) + "[0-9a-f]+-[0-9a-f]+(" + Pattern.quote(TMP_SUFFIX) + ")?");
+    final File[] files = cacheDir.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (final File file : files) {
+      if (file.isDirectory() == false || pattern.matcher(file.getName()).matches() == false || file.equals(current) == true) {
+        continue;
+      }
+      log.info("Deleting stale war extraction '" + file.getAbsolutePath() + "'.");
+      if (IO.delete(file) == false) {
+        log.warn("Can't delete stale war extraction '" + file.getAbsolutePath() + "'.");
+      }
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.handler;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+/**
+ * Sets a long-lived Cache-Control header for versioned resources (resources with a version or content hash in their path, which never
+ * change under the same path). So browsers and proxies don't need to revalidate them. The header is set before the request is handled,
+ * so the web app (e. g. Wicket's resource caching strategy) is able to overwrite it.
+ */
+public class CacheControlHandler extends HandlerWrapper
+{
+  /**
+   * Matches Wicket's versioned resources (name-ver-1234567890.js) and resources with a content hash (name.0123abcd.js or name-0123abcd.js).
+   */
+  public static final String DEFAULT_VERSIONED_PATTERN = "(-ver-[^/]+|[.-][0-9a-fA-F]{8,})\\.[a-zA-Z0-9]+$";
+
+  private final Pattern versionedPattern;
+
+  private final String cacheControl;
+
+  /**
+   * @param versionedPattern Regular expression found in the paths of versioned resources.
+   * @param maxAge Max age in seconds.
+   */
+  public CacheControlHandler(final String versionedPattern, final int maxAge)
+  {
+    this.versionedPattern = Pattern.compile(versionedPattern);
+    this.cacheControl = "public, max-age=" + maxAge;
+  }
+
+  @Override
+  public void handle(final String target, final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response)
+      throws IOException, ServletException
+  {
+    if (versionedPattern.matcher(target).find() == true) {
+      response.setHeader("Cache-Control", cacheControl);
+    }
+    super.handle(target, baseRequest, request, response);
+  }
+
+  public String getCacheControl()
+  {
+    return cacheControl;
+  }
+}
@@ -0,0 +1,184 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.handler;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free per-client token bucket (implemented as generic cell rate algorithm: per client only the theoretical arrival time of the next
+ * request is stored and updated by compare-and-set) and counter of the concurrent requests per client. The number of tracked clients is
+ * bounded: if the limit is reached, clients with a full bucket and without running requests are evicted (they're in the same state as
+ * unknown clients, so nothing is lost). The eviction scans all clients, so it runs at most once per second. If no client can be evicted,
+ * the requests of all new clients share the limits of a single overflow client until there's room again.
+ */
+public class ClientRateLimiter
+{
+  private final ConcurrentHashMap<String, Client> clients = new ConcurrentHashMap<String, Client>();
+
+  private final long emissionIntervalNanos;
+
+  private final long burstToleranceNanos;
+
+  private final int maxConcurrentRequests;
+
+  private final int maxClients;
+
+  private static final long EVICTION_INTERVAL_NANOS = 1000000000L;
+
+  private final AtomicLong untrackedRequests = new AtomicLong();
+
+  private final AtomicLong nextEviction = new AtomicLong(System.nanoTime());
+
+  private final Client overflowClient = new Client(System.nanoTime());
+
+  static class Client
+  {
+    final AtomicLong theoreticalArrivalTime;
+
+    final AtomicInteger activeRequests = new AtomicInteger();
+
+    Client(final long now)
+    {
+      theoreticalArrivalTime = new AtomicLong(now);
+    }
+  }
+
+  /**
+   * @param requestsPerSecond Sustained request rate per client, 0 for no rate limit.
+   * @param burst Number of requests a client may send at once (after being idle).
+   * @param maxConcurrentRequests Max number of requests per client processed at the same time, 0 for no limit.
+   * @param maxClients Max number of tracked clients.
+   */
+  public ClientRateLimiter(final double requestsPerSecond, final int burst, final int maxConcurrentRequests, final int maxClients)
+  {
+    this.emissionIntervalNanos = requestsPerSecond > 0 ? (long) (1000000000L / requestsPerSecond) : 0;
+    this.burstToleranceNanos = emissionIntervalNanos * Math.max(0, burst - 1);
+    this.maxConcurrentRequests = maxConcurrentRequests;
+    this.maxClients = maxClients;
+  }
+
+  /**
+   * @param key The key of the client.
+   * @return The client or the overflow client shared by all clients which can't be tracked, because the max number of clients is reached.
+   */
+  Client getClient(final String key)
+  {
+    Client client = clients.get(key);
+    if (client != null) {
+      return client;
+    }
+    if (clients.size() >= maxClients) {
+      evict();
+      if (clients.size() >= maxClients) {
+        untrackedRequests.incrementAndGet();
+        return overflowClient;
+      }
+    }
+    client = new Client(System.nanoTime());
+    final Client existing = clients.putIfAbsent(key, client);
+    return existing != null ? existing : client;
+  }
+
+  /**
+   * Takes a token of the client's bucket.
+   * @param client
+   * @return 0 if the request is allowed, otherwise the nanos until the next request would be allowed.
+   */
+  long acquireToken(final Client client)
+  {
+    if (emissionIntervalNanos <= 0) {
+      return 0;
+    }
+    while (true) {
+      final long now = System.nanoTime();
+      final long tat = client.theoreticalArrivalTime.get();
+      final long newTat = Math.max(tat, now) + emissionIntervalNanos;
+      final long allowAt = newTat - emissionIntervalNanos - burstToleranceNanos;
+      if (allowAt > now) {
+        return allowAt - now;
+      }
+      if (client.theoreticalArrivalTime.compareAndSet(tat, newTat) == true) {
+        return 0;
+      }
+    }
+  }
+
+  /**
+   * @param client
+   * @return true if the request may be processed, false if the client has already the max number of concurrent requests. If true is
+   *         returned, {@link #release(Client)} must be called after processing the request.
+   */
+  boolean acquireConcurrency(final Client client)
+  {
+    if (client.activeRequests.incrementAndGet() > maxConcurrentRequests && maxConcurrentRequests > 0) {
+      client.activeRequests.decrementAndGet();
+      return false;
+    }
+    return true;
+  }
+
+  void release(final Client client)
+  {
+    client.activeRequests.decrementAndGet();
+  }
+
+  /**
+   * @return Number of tracked clients.
+   */
+  public int getClients()
+  {
+    return clients.size();
+  }
+
+  /**
+   * @return Number of requests limited by the overflow client, because the max number of clients was reached.
+   */
+  public long getUntrackedRequests()
+  {
+    return untrackedRequests.get();
+  }
+
+  /**
+   * Removes all clients with a full bucket and without running requests. Does nothing if the last eviction is less than a second ago or
+   * another thread is evicting.
+   */
+  private void evict()
+  {
+    final long now = System.nanoTime();
+    final long next = nextEviction.get();
+    if (now - next < 0 || nextEviction.compareAndSet(next, now + EVICTION_INTERVAL_NANOS) == false) {
+      return;
+    }
+    final Iterator<Client> it = clients.values().iterator();
+    while (it.hasNext() == true) {
+      final Client client = it.next();
+      if (client.activeRequests.get() == 0 && client.theoreticalArrivalTime.get() <= now) {
+        it.remove();
+      }
+    }
+  }
+}
@@ -0,0 +1,227 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.handler;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.jetty.http.HttpMethods;
+import org.eclipse.jetty.http.gzip.AbstractCompressedStream;
+import org.eclipse.jetty.http.gzip.CompressedResponseWrapper;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+/**
+ * Compresses the responses with gzip or deflate (depending on the Accept-Encoding header of the client, gzip is preferred). Only
+ * responses of the given mime types and with at least the given size are compressed, responses already having a Content-Encoding (e. g.
+ * precompressed static resources) are left untouched. In contrast to Jetty's GzipHandler, the compression level is configurable and the
+ * deflaters are pooled instead of allocating a new one for every response.
+ */
+public class CompressionHandler extends HandlerWrapper
+{
+  public static final String DEFAULT_MIME_TYPES = "text/html,text/plain,text/xml,text/css,text/javascript,application/javascript,"
+      + "application/x-javascript,application/json,application/xml,application/xhtml+xml,image/svg+xml";
+
+  private static final String GZIP = "gzip";
+
+  private static final String DEFLATE = "deflate";
+
+  private final Set<String> mimeTypes = new HashSet<String>();
+
+  private final int minSize;
+
+  private final int bufferSize = CompressedResponseWrapper.DEFAULT_BUFFER_SIZE;
+
+  private final DeflaterPool gzipPool;
+
+  private final DeflaterPool deflatePool;
+
+  /**
+   * @param mimeTypes Comma separated list of the mime types to compress.
+   * @param minSize Min size of the responses to compress in bytes.
+   * @param level The compression level (1-9, -1 for the default level of the deflater).
+   * @param poolCapacity Max number of idle deflaters per format, should be the max number of threads.
+   */
+  public CompressionHandler(final String mimeTypes, final int minSize, final int level, final int poolCapacity)
+  {
+    for (final String mimeType : StringUtils.split(mimeTypes, ", ")) {
+      this.mimeTypes.add(mimeType.toLowerCase());
+    }
+    this.minSize = minSize;
+    this.gzipPool = new DeflaterPool(level, true, poolCapacity);
+    this.deflatePool = new DeflaterPool(level, false, poolCapacity);
+  }
+
+  @Override
+  public void handle(final String target, final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response)
+      throws IOException, ServletException
+  {
+    final String encoding = getEncoding(request.getHeader("Accept-Encoding"));
+    if (encoding == null
+        || HttpMethods.HEAD.equalsIgnoreCase(request.getMethod()) == true
+        || response.containsHeader("Content-Encoding") == true
+        || isStarted() == false) {
+      super.handle(target, baseRequest, request, response);
+      return;
+    }
+    final CompressedResponseWrapper wrappedResponse = newCompressedResponseWrapper(encoding, request, response);
+    boolean exceptional = true;
+    try {
+      super.handle(target, baseRequest, request, wrappedResponse);
+      exceptional = false;
+    } finally {
+      if (exceptional == true && response.isCommitted() == false) {
+        wrappedResponse.resetBuffer();
+        wrappedResponse.noCompression();
+      } else {
+        wrappedResponse.finish();
+      }
+    }
+  }
+
+  @Override
+  protected void doStop() throws Exception
+  {
+    super.doStop();
+    gzipPool.clear();
+    deflatePool.clear();
+  }
+
+  public Set<String> getMimeTypes()
+  {
+    return mimeTypes;
+  }
+
+  public int getMinSize()
+  {
+    return minSize;
+  }
+
+  /**
+   * @param acceptEncoding The Accept-Encoding header of the request.
+   * @return gzip or deflate if accepted by the client (gzip is preferred), otherwise null.
+   */
+  static String getEncoding(final String acceptEncoding)
+  {
+    if (acceptEncoding == null) {
+      return null;
+    }
+    boolean deflate = false;
+    for (final String token : StringUtils.split(acceptEncoding, ',')) {
+      final String value = token.trim().toLowerCase();
+      final int pos = value.indexOf(';');
+      final String coding = pos >= 0 ? value.substring(0, pos).trim() : value;
+      if (pos >= 0 && value.substring(pos + 1).replace(" ", "").matches("q=0(\\.0*)?") == true) {
+        continue; // Explicitly not accepted.
+      }
+      if (GZIP.equals(coding) == true || "x-gzip".equals(coding) == true) {
+        return GZIP;
+      }
+      if (DEFLATE.equals(coding) == true) {
+        deflate = true;
+      }
+    }
+    return deflate == true ? DEFLATE : null;
+  }
+
+  private CompressedResponseWrapper newCompressedResponseWrapper(final String encoding, final HttpServletRequest request,
+      final HttpServletResponse response)
+  {
+    final CompressedResponseWrapper wrapper = new CompressedResponseWrapper(request, response) {
+      private CompressedStream compressedStream;
+
+      @Override
+      protected AbstractCompressedStream newCompressedStream(final HttpServletRequest request, final HttpServletResponse response)
+          throws IOException
+      {
+        compressedStream = new CompressedStream(encoding, request, this);
+        return compressedStream;
+      }
+
+      @Override
+      public void finish() throws IOException
+      {
+        if (compressedStream != null) {
+          compressedStream.finishing = true;
+        }
+        super.finish();
+      }
+    };
+    wrapper.setMimeTypes(mimeTypes);
+    wrapper.setBufferSize(bufferSize);
+    wrapper.setMinCompressSize(minSize);
+    return wrapper;
+  }
+
+  /**
+   * Jetty's stream compresses a response without Content-Length on finish regardless of its size (and the wrapper flushes the writer
+   * before finishing it, which compresses as well). So the buffered size is checked against the min size on finish.
+   */
+  private class CompressedStream extends AbstractCompressedStream
+  {
+    private final boolean gzip;
+
+    /**
+     * Set by the wrapper before finishing the response, the flush of the writer doesn't decide about the compression then.
+     */
+    private boolean finishing;
+
+    CompressedStream(final String encoding, final HttpServletRequest request, final CompressedResponseWrapper wrapper) throws IOException
+    {
+      super(encoding, request, wrapper, "Accept-Encoding");
+      this.gzip = GZIP.equals(encoding);
+    }
+
+    @Override
+    protected DeflaterOutputStream createStream() throws IOException
+    {
+      return new PooledDeflaterOutputStream(_response.getOutputStream(), gzip == true ? gzipPool : deflatePool, gzip, bufferSize);
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+      if (finishing == true && _bOut != null) {
+        return; // Decided by finish().
+      }
+      super.flush();
+    }
+
+    @Override
+    public void finish() throws IOException
+    {
+      if (_closed == false && _bOut != null && _wrapper.getContentLength() < 0 && _bOut.getCount() < _wrapper.getMinCompressSize()) {
+        doNotCompress(false);
+      }
+      super.finish();
+    }
+  }
+}
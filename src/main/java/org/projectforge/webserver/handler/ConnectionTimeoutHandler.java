@@ -0,0 +1,89 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.handler;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+/**
+ * Uses the read time-out as max idle time of the connection while a request is processed and restores the idle time-out of the connector
+ * afterwards (or sets the keep-alive time-out if given). So slow uploads and long running requests aren't cut by a short idle time-out for
+ * keep-alive connections.
+ */
+public class ConnectionTimeoutHandler extends HandlerWrapper
+{
+  private final int readTimeout;
+
+  private final int keepAliveTimeout;
+
+  /**
+   * @param readTimeout Max idle time in milliseconds while a request is in progress.
+   */
+  public ConnectionTimeoutHandler(final int readTimeout)
+  {
+    this(readTimeout, -1);
+  }
+
+  /**
+   * @param readTimeout Max idle time in milliseconds while a request is in progress.
+   * @param keepAliveTimeout Max idle time in milliseconds of a persistent connection between two requests, if negative the max idle time
+   *          of the connector is used.
+   */
+  public ConnectionTimeoutHandler(final int readTimeout, final int keepAliveTimeout)
+  {
+    this.readTimeout = readTimeout;
+    this.keepAliveTimeout = keepAliveTimeout;
+  }
+
+  @Override
+  public void handle(final String target, final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response)
+      throws IOException, ServletException
+  {
+    final EndPoint endPoint = baseRequest.getConnection().getEndPoint();
+    final int idleTimeout = endPoint.getMaxIdleTime();
+    endPoint.setMaxIdleTime(readTimeout);
+    try {
+      super.handle(target, baseRequest, request, response);
+    } finally {
+      endPoint.setMaxIdleTime(keepAliveTimeout >= 0 ? keepAliveTimeout : idleTimeout);
+    }
+  }
+
+  public int getReadTimeout()
+  {
+    return readTimeout;
+  }
+
+  public int getKeepAliveTimeout()
+  {
+    return keepAliveTimeout;
+  }
+}
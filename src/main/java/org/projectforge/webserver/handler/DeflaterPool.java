@@ -0,0 +1,87 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.handler;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Pool of deflaters with the same compression level and format. A deflater allocates about 256 KB of native memory, which is only freed
+ * by {@link Deflater#end()} or by the finalizer. Allocating a new one for every compressed response produces a lot of native memory
+ * garbage and finalizer work, so the deflaters are reset and reused instead.
+ */
+public class DeflaterPool
+{
+  private final int level;
+
+  private final boolean nowrap;
+
+  private final BlockingQueue<Deflater> deflaters;
+
+  /**
+   * @param level The compression level (0-9 or {@link Deflater#DEFAULT_COMPRESSION}).
+   * @param nowrap If true, the deflaters produce raw deflate data (for the gzip format), otherwise the zlib format (for content encoding
+   *          deflate).
+   * @param capacity Max number of idle deflaters held by the pool, further released deflaters are ended.
+   */
+  public DeflaterPool(final int level, final boolean nowrap, final int capacity)
+  {
+    this.level = level;
+    this.nowrap = nowrap;
+    this.deflaters = new ArrayBlockingQueue<Deflater>(Math.max(1, capacity));
+  }
+
+  /**
+   * @return An idle deflater of the pool or a new one if the pool is empty.
+   */
+  public Deflater acquire()
+  {
+    final Deflater deflater = deflaters.poll();
+    return deflater != null ? deflater : new Deflater(level, nowrap);
+  }
+
+  /**
+   * Resets the given deflater and returns it to the pool.
+   * @param deflater
+   */
+  public void release(final Deflater deflater)
+  {
+    deflater.reset();
+    if (deflaters.offer(deflater) == false) {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Ends all idle deflaters.
+   */
+  public void clear()
+  {
+    Deflater deflater;
+    while ((deflater = deflaters.poll()) != null) {
+      deflater.end();
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.handler;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+/**
+ * Counts the requests in process, so the shutdown is able to wait for them. While draining, requests are still processed, but their
+ * responses close the connection (Connection: close), so clients with persistent connections (e. g. a load balancer) open a new connection
+ * to another server instead of sending further requests to this one.
+ */
+public class GracefulShutdownHandler extends HandlerWrapper
+{
+  private final AtomicInteger activeRequests = new AtomicInteger();
+
+  private volatile boolean draining;
+
+  @Override
+  public void handle(final String target, final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response)
+      throws IOException, ServletException
+  {
+    activeRequests.incrementAndGet();
+    try {
+      if (draining == true) {
+        response.setHeader("Connection", "close");
+      }
+      super.handle(target, baseRequest, request, response);
+    } finally {
+      activeRequests.decrementAndGet();
+    }
+  }
+
+  /**
+   * Lets the responses of all further requests close their connections.
+   */
+  public void startDraining()
+  {
+    draining = true;
+  }
+
+  public boolean isDraining()
+  {
+    return draining;
+  }
+
+  public int getActiveRequests()
+  {
+    return activeRequests.get();
+  }
+
+  /**
+   * Waits until no more requests are in process.
+   * @param timeoutMillis
+   * @return The number of requests still in process after the time-out (0 if all requests are done).
+   * @throws InterruptedException
+   */
+  public int awaitIdle(final long timeoutMillis) throws InterruptedException
+  {
+    final long deadline = System.currentTimeMillis() + timeoutMillis;
+    int active;
+    while ((active = activeRequests.get()) > 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(Math.min(50, Math.max(1, deadline - System.currentTimeMillis())));
+    }
+    return active;
+  }
+}
@@ -0,0 +1,68 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.handler;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.AbstractHttpConnection;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+/**
+ * Limits the number of requests per persistent connection: the response of the last allowed request closes the connection
+ * (Connection: close). So long-living connections of clients and load balancers are redistributed from time to time and the buffers and
+ * the state of a connection don't live forever.
+ */
+public class KeepAliveHandler extends HandlerWrapper
+{
+  private final int maxRequestsPerConnection;
+
+  /**
+   * @param maxRequestsPerConnection Max number of requests per connection (including the current one).
+   */
+  public KeepAliveHandler(final int maxRequestsPerConnection)
+  {
+    this.maxRequestsPerConnection = maxRequestsPerConnection;
+  }
+
+  @Override
+  public void handle(final String target, final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response)
+      throws IOException, ServletException
+  {
+    final AbstractHttpConnection connection = baseRequest.getConnection();
+    if (connection != null && connection.getRequests() >= maxRequestsPerConnection) {
+      response.setHeader("Connection", "close");
+    }
+    super.handle(target, baseRequest, request, response);
+  }
+
+  public int getMaxRequestsPerConnection()
+  {
+    return maxRequestsPerConnection;
+  }
+}
@@ -0,0 +1,74 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.handler;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.projectforge.webserver.LowResourcesMonitor;
+
+/**
+ * Answers requests of non-essential paths (e. g. exports or feeds) with 503 (Service Unavailable) and Retry-After while the server is low
+ * on resources, so the remaining resources are left for the interactive users.
+ */
+public class LowResourcesHandler extends HandlerWrapper
+{
+  private final LowResourcesMonitor monitor;
+
+  private final Pattern nonEssentialPattern;
+
+  private final String retryAfter;
+
+  /**
+   * @param monitor
+   * @param nonEssentialPattern Regular expression found in the paths of non-essential requests.
+   * @param retryAfterSeconds Value of the Retry-After header.
+   */
+  public LowResourcesHandler(final LowResourcesMonitor monitor, final String nonEssentialPattern, final int retryAfterSeconds)
+  {
+    this.monitor = monitor;
+    this.nonEssentialPattern = Pattern.compile(nonEssentialPattern);
+    this.retryAfter = String.valueOf(retryAfterSeconds);
+  }
+
+  @Override
+  public void handle(final String target, final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response)
+      throws IOException, ServletException
+  {
+    if (monitor.isLowOnResources() == true && nonEssentialPattern.matcher(target).find() == true) {
+      monitor.incrementShedRequests();
+      response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      response.setHeader("Retry-After", retryAfter);
+      baseRequest.setHandled(true);
+      return;
+    }
+    super.handle(target, baseRequest, request, response);
+  }
+}
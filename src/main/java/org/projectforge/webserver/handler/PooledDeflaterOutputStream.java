@@ -0,0 +1,112 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.handler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Deflater output stream writing the gzip or zlib format with a deflater of a {@link DeflaterPool}. The deflater is returned to the pool
+ * when the stream is closed.
+ */
+public class PooledDeflaterOutputStream extends DeflaterOutputStream
+{
+  private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, 0 };
+
+  private final DeflaterPool pool;
+
+  private final CRC32 crc;
+
+  private boolean released;
+
+  /**
+   * @param out
+   * @param pool The pool of the deflaters, the deflaters must produce raw deflate data (nowrap) for the gzip format.
+   * @param gzip If true, the gzip header and trailer are written around the deflated data.
+   * @param bufferSize
+   * @throws IOException
+   */
+  public PooledDeflaterOutputStream(final OutputStream out, final DeflaterPool pool, final boolean gzip, final int bufferSize)
+      throws IOException
+  {
+    super(out, pool.acquire(), bufferSize);
+    this.pool = pool;
+    if (gzip == true) {
+      crc = new CRC32();
+      out.write(GZIP_HEADER);
+    } else {
+      crc = null;
+    }
+  }
+
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException
+  {
+    super.write(b, off, len);
+    if (crc != null) {
+      crc.update(b, off, len);
+    }
+  }
+
+  @Override
+  public void finish() throws IOException
+  {
+    if (def.finished() == true) {
+      return;
+    }
+    super.finish();
+    if (crc != null) {
+      final byte[] trailer = new byte[8];
+      writeInt((int) crc.getValue(), trailer, 0);
+      writeInt((int) def.getBytesRead(), trailer, 4);
+      out.write(trailer);
+    }
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    try {
+      super.close();
+    } finally {
+      if (released == false) {
+        released = true;
+        pool.release(def);
+      }
+    }
+  }
+
+  /**
+   * Writes the given value in little-endian byte order (as required by the gzip format).
+   */
+  private static void writeInt(final int value, final byte[] buf, final int offset)
+  {
+    buf[offset] = (byte) value;
+    buf[offset + 1] = (byte) (value >> 8);
+    buf[offset + 2] = (byte) (value >> 16);
+    buf[offset + 3] = (byte) (value >> 24);
+  }
+}
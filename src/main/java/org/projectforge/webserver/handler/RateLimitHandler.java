@@ -0,0 +1,328 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.handler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.SessionManager;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.projectforge.webserver.RateLimitKey;
+import org.projectforge.webserver.metrics.LatencyHistogram;
+import org.projectforge.webserver.metrics.MetricsSource;
+import org.projectforge.webserver.metrics.PrometheusWriter;
+
+/**
+ * Limits the request rate and the number of concurrent requests per client (see {@link ClientRateLimiter}) and the number of concurrent
+ * requests of expensive paths (e. g. exports) over all clients. Requests exceeding a client limit are answered with 429 (Too Many
+ * Requests), requests of a limited path wait up to the given time for a permit and are answered with 503 (Service Unavailable) if none
+ * becomes available. A waiting request blocks its server thread, so the number of waiting requests per path is limited as well: further
+ * requests are answered with 503 immediately.
+ */
+public class RateLimitHandler extends HandlerWrapper implements MetricsSource
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(RateLimitHandler.class);
+
+  private static final int SC_TOO_MANY_REQUESTS = 429;
+
+  private final ClientRateLimiter limiter;
+
+  private final RateLimitKey key;
+
+  private final long patternMaxWaitMillis;
+
+  private final int patternMaxQueued;
+
+  private final List<PatternLimit> patternLimits = new ArrayList<PatternLimit>();
+
+  private final AtomicLong rateRejections = new AtomicLong();
+
+  private final AtomicLong concurrencyRejections = new AtomicLong();
+
+  private SessionManager sessionManager;
+
+  private static class PatternLimit
+  {
+    final String regex;
+
+    final Pattern pattern;
+
+    final int permits;
+
+    final Semaphore semaphore;
+
+    final LatencyHistogram waitTimes = new LatencyHistogram();
+
+    final AtomicLong rejections = new AtomicLong();
+
+    final AtomicInteger queued = new AtomicInteger();
+
+    PatternLimit(final String regex, final int permits)
+    {
+      this.regex = regex;
+      this.pattern = Pattern.compile(regex);
+      this.permits = permits;
+      this.semaphore = new Semaphore(permits, true);
+    }
+  }
+
+  /**
+   * @param limiter
+   * @param key Identifies the clients.
+   * @param patternMaxWaitMillis Max time a request of a limited path waits for a permit, 0 for rejecting it immediately.
+   * @param patternMaxQueued Max number of requests per limited path waiting for a permit.
+   */
+  public RateLimitHandler(final ClientRateLimiter limiter, final RateLimitKey key, final long patternMaxWaitMillis,
+      final int patternMaxQueued)
+  {
+    this.limiter = limiter;
+    this.key = key;
+    this.patternMaxWaitMillis = patternMaxWaitMillis;
+    this.patternMaxQueued = patternMaxQueued;
+  }
+
+  /**
+   * @param sessionManager The session manager of the web app, required for {@link RateLimitKey#SESSION}.
+   * @return this for chaining.
+   */
+  public RateLimitHandler setSessionManager(final SessionManager sessionManager)
+  {
+    this.sessionManager = sessionManager;
+    return this;
+  }
+
+  /**
+   * @param regex Regular expression found in the paths of the limited requests.
+   * @param permits Max number of concurrent requests of the matching paths over all clients.
+   * @return this for chaining.
+   */
+  public RateLimitHandler addPatternLimit(final String regex, final int permits)
+  {
+    patternLimits.add(new PatternLimit(regex, permits));
+    return this;
+  }
+
+  /**
+   * @param definitions Pattern limits separated by ';', each given as regex=permits, e. g. "/export=2;\.pdf$=4".
+   * @return this for chaining.
+   * @throws IllegalArgumentException if a definition is invalid.
+   */
+  public RateLimitHandler addPatternLimits(final String definitions)
+  {
+    if (StringUtils.isBlank(definitions) == true) {
+      return this;
+    }
+    for (final String definition : StringUtils.split(definitions, ';')) {
+      final int pos = definition.lastIndexOf('=');
+      if (pos <= 0) {
+        throw new IllegalArgumentException("Invalid rate limit pattern (regex=permits expected): " + definition);
+      }
+      final int permits;
+      try {
+        permits = Integer.parseInt(definition.substring(pos + 1).trim());
+      } catch (final NumberFormatException ex) {
+        throw new IllegalArgumentException("Invalid number of permits of rate limit pattern: " + definition);
+      }
+      addPatternLimit(definition.substring(0, pos).trim(), permits);
+    }
+    return this;
+  }
+
+  @Override
+  public void handle(final String target, final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response)
+      throws IOException, ServletException
+  {
+    final ClientRateLimiter.Client client = limiter.getClient(getClientKey(request));
+    final long waitNanos = limiter.acquireToken(client);
+    if (waitNanos > 0) {
+      rateRejections.incrementAndGet();
+      reject(baseRequest, response, SC_TOO_MANY_REQUESTS, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+      return;
+    }
+    if (limiter.acquireConcurrency(client) == false) {
+      concurrencyRejections.incrementAndGet();
+      reject(baseRequest, response, SC_TOO_MANY_REQUESTS, 1);
+      return;
+    }
+    try {
+      handleLimited(target, baseRequest, request, response);
+    } finally {
+      limiter.release(client);
+    }
+  }
+
+  /**
+   * Applies the first matching pattern limit.
+   */
+  private void handleLimited(final String target, final Request baseRequest, final HttpServletRequest request,
+      final HttpServletResponse response) throws IOException, ServletException
+  {
+    for (final PatternLimit limit : patternLimits) {
+      if (limit.pattern.matcher(target).find() == false) {
+        continue;
+      }
+      final long start = System.nanoTime();
+      final boolean acquired = acquirePermit(limit);
+      limit.waitTimes.recordSince(start);
+      if (acquired == false) {
+        limit.rejections.incrementAndGet();
+        if (log.isDebugEnabled() == true) {
+          log.debug("No permit for '"
+              + target
+              + "' (pattern '"
+              + limit.regex
+              + "') within "
+              + patternMaxWaitMillis
+              + "ms or more than "
+              + patternMaxQueued
+              + " waiting requests.");
+        }
+        reject(baseRequest, response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, Math.max(1, patternMaxWaitMillis / 1000));
+        return;
+      }
+      try {
+        super.handle(target, baseRequest, request, response);
+      } finally {
+        limit.semaphore.release();
+      }
+      return;
+    }
+    super.handle(target, baseRequest, request, response);
+  }
+
+  /**
+   * Takes a free permit or waits for one, if less than the max number of requests are already waiting.
+   * @return true if the permit was acquired.
+   */
+  private boolean acquirePermit(final PatternLimit limit)
+  {
+    if (limit.semaphore.tryAcquire() == true) {
+      return true;
+    }
+    if (patternMaxWaitMillis <= 0) {
+      return false;
+    }
+    if (limit.queued.incrementAndGet() > patternMaxQueued) {
+      limit.queued.decrementAndGet();
+      return false;
+    }
+    try {
+      return limit.semaphore.tryAcquire(patternMaxWaitMillis, TimeUnit.MILLISECONDS);
+    } catch (final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      limit.queued.decrementAndGet();
+    }
+  }
+
+  private String getClientKey(final HttpServletRequest request)
+  {
+    if (key == RateLimitKey.SESSION && sessionManager != null) {
+      final String sessionId = getSessionId(request);
+      if (sessionId != null) {
+        return "S:" + sessionId;
+      }
+    }
+    return request.getRemoteAddr();
+  }
+
+  /**
+   * This handler runs outside of the web app (before its session handler), so neither request.getSession(false) nor the requested
+   * session id are available. The session id sent by the client may be changed with every request, so only ids of existing sessions are
+   * returned.
+   * @return The id of the existing session given by the session cookie or path parameter or null.
+   */
+  private String getSessionId(final HttpServletRequest request)
+  {
+    final Cookie[] cookies = request.getCookies();
+    if (cookies != null && sessionManager.isUsingCookies() == true) {
+      for (final Cookie cookie : cookies) {
+        if (sessionManager.getSessionCookie().equalsIgnoreCase(cookie.getName()) == true
+            && sessionManager.getHttpSession(cookie.getValue()) != null) {
+          return cookie.getValue();
+        }
+      }
+    }
+    final String prefix = sessionManager.getSessionIdPathParameterNamePrefix();
+    final String uri = request.getRequestURI();
+    final int pos = prefix != null && uri != null ? uri.indexOf(prefix) : -1;
+    if (pos >= 0) {
+      final String sessionId = StringUtils.substringBefore(StringUtils.substringBefore(uri.substring(pos + prefix.length()), ";"), "?");
+      if (sessionManager.getHttpSession(sessionId) != null) {
+        return sessionId;
+      }
+    }
+    return null;
+  }
+
+  private void reject(final Request baseRequest, final HttpServletResponse response, final int status, final long retryAfterSeconds)
+  {
+    response.setStatus(status);
+    response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+    baseRequest.setHandled(true);
+  }
+
+  public void writeMetrics(final PrometheusWriter writer)
+  {
+    final String rejectedHelp = "Number of requests rejected by the rate limits.";
+    writer.counter("projectforge_ratelimit_rejected_total", rejectedHelp, rateRejections.get(), "reason", "rate");
+    writer.counter("projectforge_ratelimit_rejected_total", rejectedHelp, concurrencyRejections.get(), "reason", "concurrency");
+    writer.gauge("projectforge_ratelimit_clients", "Number of clients tracked by the rate limiter.", limiter.getClients());
+    writer.counter("projectforge_ratelimit_untracked_total",
+        "Number of requests not limited per client, because the max number of tracked clients was reached.",
+        limiter.getUntrackedRequests());
+    // One loop per metric, the samples of a metric must not be interrupted by other metrics.
+    for (final PatternLimit limit : patternLimits) {
+      writer.counter("projectforge_ratelimit_pattern_rejected_total",
+          "Number of requests of a limited path rejected, because no permit became available.", limit.rejections.get(), "pattern",
+          limit.regex);
+    }
+    for (final PatternLimit limit : patternLimits) {
+      writer.gauge("projectforge_ratelimit_pattern_active", "Number of running requests of a limited path.",
+          limit.permits - limit.semaphore.availablePermits(), "pattern", limit.regex);
+    }
+    for (final PatternLimit limit : patternLimits) {
+      writer.gauge("projectforge_ratelimit_pattern_queued", "Number of requests of a limited path waiting for a permit.",
+          limit.queued.get(), "pattern", limit.regex);
+    }
+    for (final PatternLimit limit : patternLimits) {
+      writer.summary("projectforge_ratelimit_pattern_wait_seconds", "Time requests of a limited path waited for a permit.",
+          limit.waitTimes, "pattern", limit.regex);
+    }
+  }
+}
@@ -0,0 +1,292 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.handler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.projectforge.webserver.metrics.LatencyHistogram;
+import org.projectforge.webserver.metrics.MetricsSource;
+import org.projectforge.webserver.metrics.PrometheusWriter;
+import org.projectforge.webserver.metrics.RateCounter;
+
+/**
+ * Measures the requests: number of requests per second, latency percentiles, requests in flight, transferred bytes and number of responses
+ * per status code. The latencies and transferred bytes are also measured per route (see {@link RouteGrouping}). The number of routes is
+ * limited, requests of further routes are counted as route {@link #OTHER_ROUTE}. All counters are lock-free.
+ */
+public class RequestStatisticsHandler extends HandlerWrapper implements RequestStatisticsHandlerMBean, MetricsSource
+{
+  public static final String OTHER_ROUTE = "other";
+
+  private final LatencyHistogram latency = new LatencyHistogram();
+
+  private final RateCounter rate = new RateCounter();
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  private final AtomicLongArray statusCounts = new AtomicLongArray(600);
+
+  private final AtomicLong bytesIn = new AtomicLong();
+
+  private final AtomicLong bytesOut = new AtomicLong();
+
+  private final ConcurrentMap<String, RouteStatistics> routes = new ConcurrentHashMap<String, RouteStatistics>();
+
+  private final RouteStatistics otherRoute = new RouteStatistics(OTHER_ROUTE);
+
+  private final RouteGrouping routeGrouping;
+
+  private final int maxRoutes;
+
+  /**
+   * @param routeGrouping
+   * @param maxRoutes Maximum number of routes (without {@link #OTHER_ROUTE}).
+   */
+  public RequestStatisticsHandler(final RouteGrouping routeGrouping, final int maxRoutes)
+  {
+    this.routeGrouping = routeGrouping;
+    this.maxRoutes = maxRoutes;
+  }
+
+  @Override
+  public void handle(final String target, final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response)
+      throws IOException, ServletException
+  {
+    final long start = System.nanoTime();
+    inFlight.incrementAndGet();
+    boolean failed = true;
+    try {
+      super.handle(target, baseRequest, request, response);
+      failed = false;
+    } finally {
+      inFlight.decrementAndGet();
+      latency.recordSince(start);
+      rate.increment();
+      final int status;
+      if (failed == true) {
+        status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR; // Exception is converted into a 500 by Jetty afterwards.
+      } else if (baseRequest.isHandled() == false) {
+        status = HttpServletResponse.SC_NOT_FOUND; // Not handled requests are answered with 404 by Jetty afterwards.
+      } else {
+        status = baseRequest.getResponse().getStatus();
+      }
+      if (status >= 0 && status < statusCounts.length()) {
+        statusCounts.incrementAndGet(status);
+      }
+      final long in = request.getContentLength();
+      final long out = baseRequest.getResponse().getContentCount();
+      if (in > 0) {
+        bytesIn.addAndGet(in);
+      }
+      if (out > 0) {
+        bytesOut.addAndGet(out);
+      }
+      getRouteStatistics(target).record(start, in, out, status);
+    }
+  }
+
+  private RouteStatistics getRouteStatistics(final String target)
+  {
+    final String route = routeGrouping.getRoute(target);
+    RouteStatistics result = routes.get(route);
+    if (result != null) {
+      return result;
+    }
+    if (routes.size() >= maxRoutes) {
+      return otherRoute;
+    }
+    result = new RouteStatistics(route);
+    final RouteStatistics existing = routes.putIfAbsent(route, result);
+    return existing != null ? existing : result;
+  }
+
+  /**
+   * @return The statistics of all routes including {@link #OTHER_ROUTE} (if used).
+   */
+  public Collection<RouteStatistics> getRouteStatistics()
+  {
+    final List<RouteStatistics> result = new ArrayList<RouteStatistics>(routes.values());
+    if (otherRoute.getLatencyHistogram().getCount() > 0) {
+      result.add(otherRoute);
+    }
+    return result;
+  }
+
+  public void writeMetrics(final PrometheusWriter writer)
+  {
+    final Collection<RouteStatistics> list = getRouteStatistics();
+    for (final RouteStatistics route : list) {
+      writer.summary("projectforge_http_request_duration_seconds", "Latency of the HTTP requests per route.", route.getLatencyHistogram(),
+          "route", route.getRoute());
+    }
+    for (final RouteStatistics route : list) {
+      writer.counter("projectforge_http_request_bytes_total", "Received bytes of the request bodies per route.", route.getBytesIn(),
+          "route", route.getRoute());
+    }
+    for (final RouteStatistics route : list) {
+      writer.counter("projectforge_http_response_bytes_total", "Sent bytes of the response bodies per route.", route.getBytesOut(),
+          "route", route.getRoute());
+    }
+    for (final RouteStatistics route : list) {
+      writer.counter("projectforge_http_server_errors_total", "Number of responses with status 5xx per route.", route.getServerErrors(),
+          "route", route.getRoute());
+    }
+    for (int status = 0; status < statusCounts.length(); status++) {
+      final long count = statusCounts.get(status);
+      if (count > 0) {
+        writer.counter("projectforge_http_responses_total", "Number of responses per status code.", count, "status",
+            String.valueOf(status));
+      }
+    }
+    writer.gauge("projectforge_http_requests_in_flight", "Number of requests currently processed.", getRequestsInFlight());
+    writer.gauge("projectforge_http_requests_per_second", "Requests per second averaged over the last minute.", getRequestsPerSecond());
+  }
+
+  public LatencyHistogram getLatencyHistogram()
+  {
+    return latency;
+  }
+
+  public long getRequests()
+  {
+    return latency.getCount();
+  }
+
+  public double getRequestsPerSecond()
+  {
+    return rate.getRatePerSecond();
+  }
+
+  public int getRequestsInFlight()
+  {
+    return inFlight.get();
+  }
+
+  public long getBytesIn()
+  {
+    return bytesIn.get();
+  }
+
+  public long getBytesOut()
+  {
+    return bytesOut.get();
+  }
+
+  public int getRoutes()
+  {
+    return routes.size();
+  }
+
+  public double getLatencyMean()
+  {
+    return latency.getMean() / 1000;
+  }
+
+  public double getLatency50thPercentile()
+  {
+    return latency.getPercentile(50) / 1000.0;
+  }
+
+  public double getLatency95thPercentile()
+  {
+    return latency.getPercentile(95) / 1000.0;
+  }
+
+  public double getLatency99thPercentile()
+  {
+    return latency.getPercentile(99) / 1000.0;
+  }
+
+  public double getLatencyMax()
+  {
+    return latency.getMax() / 1000.0;
+  }
+
+  public long getResponses2xx()
+  {
+    return getResponses(200);
+  }
+
+  public long getResponses3xx()
+  {
+    return getResponses(300);
+  }
+
+  public long getResponses4xx()
+  {
+    return getResponses(400);
+  }
+
+  public long getResponses5xx()
+  {
+    return getResponses(500);
+  }
+
+  /**
+   * @param status
+   * @return Number of responses with the given status code.
+   */
+  public long getResponsesByStatus(final int status)
+  {
+    return status >= 0 && status < statusCounts.length() ? statusCounts.get(status) : 0;
+  }
+
+  public String getResponsesByStatus()
+  {
+    final StringBuilder buf = new StringBuilder();
+    for (int status = 0; status < statusCounts.length(); status++) {
+      final long count = statusCounts.get(status);
+      if (count > 0) {
+        if (buf.length() > 0) {
+          buf.append(", ");
+        }
+        buf.append(status).append('=').append(count);
+      }
+    }
+    return buf.toString();
+  }
+
+  private long getResponses(final int from)
+  {
+    long result = 0;
+    for (int status = from; status < from + 100; status++) {
+      result += statusCounts.get(status);
+    }
+    return result;
+  }
+}
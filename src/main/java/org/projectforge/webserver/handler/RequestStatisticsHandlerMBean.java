@@ -0,0 +1,74 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.handler;
+
+/**
+ * JMX interface of {@link RequestStatisticsHandler}. Times are given in milliseconds.
+ */
+public interface RequestStatisticsHandlerMBean
+{
+  public long getRequests();
+
+  public double getRequestsPerSecond();
+
+  public int getRequestsInFlight();
+
+  /**
+   * @return Received bytes of the request bodies.
+   */
+  public long getBytesIn();
+
+  /**
+   * @return Sent bytes of the response bodies.
+   */
+  public long getBytesOut();
+
+  /**
+   * @return Number of measured routes.
+   */
+  public int getRoutes();
+
+  public double getLatencyMean();
+
+  public double getLatency50thPercentile();
+
+  public double getLatency95thPercentile();
+
+  public double getLatency99thPercentile();
+
+  public double getLatencyMax();
+
+  public long getResponses2xx();
+
+  public long getResponses3xx();
+
+  public long getResponses4xx();
+
+  public long getResponses5xx();
+
+  /**
+   * @return The number of responses per status code, e. g. "200=1234, 302=12, 404=1".
+   */
+  public String getResponsesByStatus();
+}
@@ -0,0 +1,95 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Maps request paths to routes for the request statistics, so the number of routes stays bounded: Wicket resources and static files are
+ * grouped, page parameters of bookmarkable pages are removed and numerical ids are replaced by {id}. The rules are applied in the order
+ * of their definition, every rule is applied to the result of the previous one. The routes of up to 10,000 paths are cached, because
+ * applying the rules costs about a microsecond per request.
+ */
+public class RouteGrouping
+{
+  private final List<Pattern> patterns = new ArrayList<Pattern>();
+
+  private final List<String> replacements = new ArrayList<String>();
+
+  private static final int MAX_CACHED_PATHS = 10000;
+
+  private final ConcurrentMap<String, String> cache = new ConcurrentHashMap<String, String>();
+
+  /**
+   * Creates the route grouping with the default rules for Wicket.
+   */
+  public RouteGrouping()
+  {
+    addRule(";.*$", ""); // Path parameters such as jsessionid.
+    addRule("/wicket/resource/.*$", "/wicket/resource/*");
+    addRule("/wicket/bookmarkable/([^/]+).*$", "/wicket/bookmarkable/$1");
+    addRule("/[^/]*\\.(css|js|png|gif|jpg|jpeg|ico|svg|woff|woff2|ttf|eot)$", "/*.$1");
+    addRule("/[0-9]+(?=/|$)", "/{id}");
+  }
+
+  /**
+   * @param regex
+   * @param replacement The replacement of all matches, may contain groups ($1 etc.).
+   * @return this for chaining.
+   */
+  public RouteGrouping addRule(final String regex, final String replacement)
+  {
+    patterns.add(Pattern.compile(regex));
+    replacements.add(replacement);
+    cache.clear();
+    return this;
+  }
+
+  /**
+   * @param path The request path (without query string).
+   * @return The route of the given path.
+   */
+  public String getRoute(final String path)
+  {
+    if (path == null) {
+      return "/";
+    }
+    String route = cache.get(path);
+    if (route != null) {
+      return route;
+    }
+    route = path;
+    for (int i = 0; i < patterns.size(); i++) {
+      route = patterns.get(i).matcher(route).replaceAll(replacements.get(i));
+    }
+    if (cache.size() < MAX_CACHED_PATHS) {
+      cache.put(path, route);
+    }
+    return route;
+  }
+}
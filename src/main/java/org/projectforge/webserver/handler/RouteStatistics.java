@@ -0,0 +1,94 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.handler;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.projectforge.webserver.metrics.LatencyHistogram;
+
+/**
+ * Latencies, transferred bytes and server errors of one route (see {@link RouteGrouping}). All counters are lock-free.
+ */
+public class RouteStatistics
+{
+  private final String route;
+
+  private final LatencyHistogram latency = new LatencyHistogram();
+
+  private final AtomicLong bytesIn = new AtomicLong();
+
+  private final AtomicLong bytesOut = new AtomicLong();
+
+  private final AtomicLong serverErrors = new AtomicLong();
+
+  RouteStatistics(final String route)
+  {
+    this.route = route;
+  }
+
+  void record(final long startNanos, final long in, final long out, final int status)
+  {
+    latency.recordSince(startNanos);
+    if (in > 0) {
+      bytesIn.addAndGet(in);
+    }
+    if (out > 0) {
+      bytesOut.addAndGet(out);
+    }
+    if (status >= 500) {
+      serverErrors.incrementAndGet();
+    }
+  }
+
+  public String getRoute()
+  {
+    return route;
+  }
+
+  public LatencyHistogram getLatencyHistogram()
+  {
+    return latency;
+  }
+
+  /**
+   * @return Received bytes of the request bodies.
+   */
+  public long getBytesIn()
+  {
+    return bytesIn.get();
+  }
+
+  /**
+   * @return Sent bytes of the response bodies.
+   */
+  public long getBytesOut()
+  {
+    return bytesOut.get();
+  }
+
+  public long getServerErrors()
+  {
+    return serverErrors.get();
+  }
+}
@@ -0,0 +1,190 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.handler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.http.HttpContent;
+import org.eclipse.jetty.http.MimeTypes;
+import org.eclipse.jetty.io.Buffer;
+import org.eclipse.jetty.io.ByteArrayBuffer;
+import org.eclipse.jetty.server.ResourceCache;
+import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.util.resource.ResourceFactory;
+import org.projectforge.webserver.metrics.MetricsSource;
+import org.projectforge.webserver.metrics.PrometheusWriter;
+
+/**
+ * Cache of the static resources served by Jetty's DefaultServlet. It's registered as context attribute {@link #ATTRIBUTE_NAME}, the
+ * DefaultServlet uses it instead of creating its own cache. The cached resources are held in direct buffers (or in memory-mapped file
+ * buffers), which the nio connector writes to the socket without copying them to the heap. Resources larger than the max cached file
+ * size are streamed.<br/>
+ * Jetty's resource cache sends weak ETags, this cache sends strong ETags built from the last modification time and the length of the
+ * resource (like Apache httpd and nginx do).
+ */
+public class StaticResourceCache extends ResourceCache implements MetricsSource
+{
+  public static final String ATTRIBUTE_NAME = "org.projectforge.webserver.staticResourceCache";
+
+  private final AtomicLong lookups = new AtomicLong();
+
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * @param factory Resolves the paths of the resources, e. g. the web app context.
+   * @param mimeTypes
+   * @param useFileMappedBuffer If true, cached files are memory-mapped instead of copied into direct buffers. Mapped files can't be
+   *          deleted or replaced on Windows while they're cached.
+   */
+  public StaticResourceCache(final ResourceFactory factory, final MimeTypes mimeTypes, final boolean useFileMappedBuffer)
+  {
+    super(null, factory, mimeTypes, useFileMappedBuffer, false);
+  }
+
+  @Override
+  public HttpContent lookup(final String pathInContext) throws IOException
+  {
+    final HttpContent content = super.lookup(pathInContext);
+    if (content == null) {
+      return null;
+    }
+    lookups.incrementAndGet();
+    return new StrongETagContent(content);
+  }
+
+  /**
+   * Is only called for resources which aren't cached yet (or which are too large to be cached).
+   * @see org.eclipse.jetty.server.ResourceCache#isCacheable(org.eclipse.jetty.util.resource.Resource)
+   */
+  @Override
+  protected boolean isCacheable(final Resource resource)
+  {
+    misses.incrementAndGet();
+    return super.isCacheable(resource);
+  }
+
+  /**
+   * @return The number of served resources found in the cache.
+   */
+  public long getHits()
+  {
+    return Math.max(0, lookups.get() - misses.get());
+  }
+
+  /**
+   * @return The number of served resources not found in the cache (loaded into the cache or too large to be cached).
+   */
+  public long getMisses()
+  {
+    return misses.get();
+  }
+
+  public void writeMetrics(final PrometheusWriter writer)
+  {
+    writer.counter("projectforge_static_cache_requests_total", "Number of served static resources by cache result.", getHits(),
+        "result", "hit");
+    writer.counter("projectforge_static_cache_requests_total", "Number of served static resources by cache result.", getMisses(),
+        "result", "miss");
+    writer.gauge("projectforge_static_cache_bytes", "Size of the cached static resources.", getCachedSize());
+    writer.gauge("projectforge_static_cache_files", "Number of cached static resources.", getCachedFiles());
+    writer.gauge("projectforge_static_cache_max_bytes", "Max size of the cached static resources.", getMaxCacheSize());
+  }
+
+  @Override
+  public String toString()
+  {
+    return "StaticResourceCache[hits=" + getHits() + ", misses=" + getMisses() + ", " + super.toString() + "]";
+  }
+
+  /**
+   * @return The strong ETag ("lastModified-length" in hex) of a resource.
+   */
+  static String getStrongETag(final long lastModified, final long length)
+  {
+    return "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"";
+  }
+
+  /**
+   * Delegates to the cached (or uncached) content, but sends a strong ETag.
+   */
+  private static class StrongETagContent implements HttpContent
+  {
+    private final HttpContent content;
+
+    private final Buffer etag;
+
+    StrongETagContent(final HttpContent content)
+    {
+      this.content = content;
+      this.etag = new ByteArrayBuffer(getStrongETag(content.getResource().lastModified(), content.getContentLength()));
+    }
+
+    public Buffer getContentType()
+    {
+      return content.getContentType();
+    }
+
+    public Buffer getLastModified()
+    {
+      return content.getLastModified();
+    }
+
+    public Buffer getIndirectBuffer()
+    {
+      return content.getIndirectBuffer();
+    }
+
+    public Buffer getDirectBuffer()
+    {
+      return content.getDirectBuffer();
+    }
+
+    public Buffer getETag()
+    {
+      return etag;
+    }
+
+    public Resource getResource()
+    {
+      return content.getResource();
+    }
+
+    public long getContentLength()
+    {
+      return content.getContentLength();
+    }
+
+    public InputStream getInputStream() throws IOException
+    {
+      return content.getInputStream();
+    }
+
+    public void release()
+    {
+      content.release();
+    }
+  }
+}
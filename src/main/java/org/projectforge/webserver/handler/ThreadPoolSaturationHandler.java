@@ -0,0 +1,74 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.handler;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.projectforge.webserver.ServerThreadPool;
+
+/**
+ * Answers requests with 503 (Service Unavailable) as long as the job queue of the server thread pool is full. This gives clients a fast
+ * response and frees the threads as quick as possible instead of letting the queued requests run into time-outs. Connections which don't
+ * get a thread at all are answered by the {@link ServerThreadPool} itself, this handler only sees requests which already got one.
+ */
+public class ThreadPoolSaturationHandler extends HandlerWrapper
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(ThreadPoolSaturationHandler.class);
+
+  private final ServerThreadPool threadPool;
+
+  private final AtomicBoolean saturated = new AtomicBoolean();
+
+  public ThreadPoolSaturationHandler(final ServerThreadPool threadPool)
+  {
+    this.threadPool = threadPool;
+  }
+
+  @Override
+  public void handle(final String target, final Request baseRequest, final HttpServletRequest request, final HttpServletResponse response)
+      throws IOException, ServletException
+  {
+    if (threadPool.isQueueFull() == true) {
+      if (saturated.compareAndSet(false, true) == true) {
+        log.warn("Server thread pool saturated, rejecting requests with 503: " + threadPool);
+      }
+      threadPool.incrementRejectedRequests();
+      response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      response.setHeader("Retry-After", String.valueOf(ServerThreadPool.RETRY_AFTER_SECONDS));
+      baseRequest.setHandled(true);
+      return;
+    }
+    if (saturated.get() == true && saturated.compareAndSet(true, false) == true) {
+      log.info("Server thread pool recovered: " + threadPool);
+    }
+    super.handle(target, baseRequest, request, response);
+  }
+}
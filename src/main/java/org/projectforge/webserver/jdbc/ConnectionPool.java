@@ -0,0 +1,59 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.jdbc;
+
+import javax.sql.DataSource;
+
+/**
+ * A jdbc connection pool independent of the pool implementation.
+ */
+public interface ConnectionPool
+{
+  /**
+   * @return The name of the pool (used for logging and monitoring).
+   */
+  public String getName();
+
+  public JdbcPoolType getType();
+
+  /**
+   * @return The pooled data source.
+   */
+  public DataSource getDataSource();
+
+  /**
+   * @return Number of connections currently borrowed from the pool.
+   */
+  public int getActiveConnections();
+
+  /**
+   * @return Number of open connections waiting in the pool.
+   */
+  public int getIdleConnections();
+
+  /**
+   * Closes all connections of the pool. The pool can't be used afterwards.
+   */
+  public void close();
+}
@@ -0,0 +1,165 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+/**
+ * Opens and validates a number of pooled connections in parallel, so the first requests after a restart don't pay the connection setup
+ * (e. g. TLS handshake and authentication). All connections are held until every connection is opened, so the pool has to open a new
+ * physical connection for each of them. Afterwards they're returned to the pool as idle connections.
+ */
+public class ConnectionPrewarmer
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(ConnectionPrewarmer.class);
+
+  private static final int MAX_THREADS = 16;
+
+  private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+  private final DataSource dataSource;
+
+  private final int connections;
+
+  private final String validationQuery;
+
+  /**
+   * @param dataSource The pooled data source.
+   * @param connections Number of connections to open.
+   * @param validationQuery The query for validating the connections, if null the connections are validated by
+   *          {@link Connection#isValid(int)}.
+   */
+  public ConnectionPrewarmer(final DataSource dataSource, final int connections, final String validationQuery)
+  {
+    this.dataSource = dataSource;
+    this.connections = connections;
+    this.validationQuery = validationQuery;
+  }
+
+  /**
+   * @return Number of opened and validated connections.
+   */
+  public int prewarm()
+  {
+    if (connections <= 0) {
+      return 0;
+    }
+    final long begin = System.currentTimeMillis();
+    final ExecutorService executor = Executors.newFixedThreadPool(Math.min(connections, MAX_THREADS), new ThreadFactory() {
+      private final AtomicInteger counter = new AtomicInteger();
+
+      public Thread newThread(final Runnable runnable)
+      {
+        final Thread thread = new Thread(runnable, "ProjectForge-Prewarm-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    final List<Future<Connection>> futures = new ArrayList<Future<Connection>>();
+    for (int i = 0; i < connections; i++) {
+      futures.add(executor.submit(new Callable<Connection>() {
+        public Connection call() throws Exception
+        {
+          return openConnection();
+        }
+      }));
+    }
+    int validated = 0;
+    String problem = null;
+    boolean interrupted = false;
+    final List<Connection> opened = new ArrayList<Connection>();
+    for (final Future<Connection> future : futures) {
+      // Every opened connection has to be returned to the pool, so the waiting isn't aborted if interrupted (it's limited by the
+      // connection time-out of the pool):
+      while (true) {
+        try {
+          opened.add(future.get());
+          ++validated;
+          break;
+        } catch (final InterruptedException ex) {
+          interrupted = true;
+        } catch (final ExecutionException ex) {
+          problem = ex.getCause().getMessage();
+          break;
+        }
+      }
+    }
+    executor.shutdown();
+    if (interrupted == true) {
+      Thread.currentThread().interrupt();
+    }
+    for (final Connection connection : opened) {
+      try {
+        connection.close();
+      } catch (final SQLException ex) {
+        log.warn("Can't return pre-warmed connection to the pool: " + ex.getMessage(), ex);
+      }
+    }
+    final long millis = System.currentTimeMillis() - begin;
+    if (problem != null) {
+      log.warn("Pre-warmed " + validated + " of " + connections + " data base connections in " + millis + "ms, last problem: " + problem);
+    } else {
+      log.info("Pre-warmed " + validated + " data base connections in " + millis + "ms.");
+    }
+    return validated;
+  }
+
+  private Connection openConnection() throws SQLException
+  {
+    final Connection connection = dataSource.getConnection();
+    try {
+      if (validationQuery != null) {
+        final Statement statement = connection.createStatement();
+        try {
+          statement.setQueryTimeout(VALIDATION_TIMEOUT_SECONDS);
+          statement.execute(validationQuery);
+        } finally {
+          statement.close();
+        }
+      } else if (connection.isValid(VALIDATION_TIMEOUT_SECONDS) == false) {
+        throw new SQLException("Connection isn't valid.");
+      }
+      return connection;
+    } catch (final SQLException ex) {
+      connection.close();
+      throw ex;
+    } catch (final RuntimeException ex) {
+      connection.close();
+      throw ex;
+    }
+  }
+}
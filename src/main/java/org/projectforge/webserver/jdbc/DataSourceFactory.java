@@ -0,0 +1,172 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.jdbc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+/**
+ * Creates the data source jdbc/ProjectForgeDS. This factory is called by WEB-INF/jetty-env.xml and configures the pool by the system
+ * properties jettyEnv.* set by the start helper. The data source is created only once and shared by the web app and the start helper. If
+ * read replicas are configured, the data source routes read-only connections to them (see {@link ReplicaRoutingDataSource}). If statement
+ * tracing is enabled, the execution times of all statements (of the primary and the replicas) are measured by a {@link StatementTracer}.
+ */
+public class DataSourceFactory
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(DataSourceFactory.class);
+
+  private static ConnectionPool connectionPool;
+
+  private static JdbcPoolMonitor monitor;
+
+  private static DataSource dataSource;
+
+  private static List<ConnectionPool> replicaPools;
+
+  private static ReplicaRoutingDataSource routingDataSource;
+
+  private static StatementTracer statementTracer;
+
+  /**
+   * @return The data source, created on the first call.
+   */
+  public static synchronized DataSource getDataSource()
+  {
+    initialize();
+    return dataSource;
+  }
+
+  /**
+   * @return The connection pool of the data source, created on the first call.
+   */
+  public static synchronized ConnectionPool getConnectionPool()
+  {
+    initialize();
+    return connectionPool;
+  }
+
+  /**
+   * @return The monitor of the connection pool or null if the data source isn't yet created or monitoring is disabled.
+   */
+  public static synchronized JdbcPoolMonitor getMonitor()
+  {
+    return monitor;
+  }
+
+  /**
+   * @return The data source routing read-only connections to the read replicas or null if the data source isn't yet created or no
+   *         replicas are configured.
+   */
+  public static synchronized ReplicaRoutingDataSource getRoutingDataSource()
+  {
+    return routingDataSource;
+  }
+
+  /**
+   * @return The tracer of the sql statements or null if the data source isn't yet created or statement tracing is disabled.
+   */
+  public static synchronized StatementTracer getStatementTracer()
+  {
+    return statementTracer;
+  }
+
+  /**
+   * @return true, if the data source was already created.
+   */
+  public static synchronized boolean isInitialized()
+  {
+    return connectionPool != null;
+  }
+
+  /**
+   * Closes the connection pool (if created). A further call of {@link #getDataSource()} creates a new pool.
+   */
+  public static synchronized void close()
+  {
+    if (connectionPool == null) {
+      return;
+    }
+    log.info("Closing connection pool '" + connectionPool.getName() + "'.");
+    if (monitor != null) {
+      monitor.stop();
+      monitor = null;
+    }
+    if (replicaPools != null) {
+      for (final ConnectionPool pool : replicaPools) {
+        pool.close();
+      }
+      replicaPools = null;
+      routingDataSource = null;
+    }
+    connectionPool.close();
+    connectionPool = null;
+    dataSource = null;
+    statementTracer = null;
+  }
+
+  /**
+   * @param settings
+   * @return A new connection pool of the type given by the settings.
+   */
+  public static ConnectionPool createConnectionPool(final JdbcPoolSettings settings)
+  {
+    log.info("Creating connection pool " + settings);
+    if (settings.getType() == JdbcPoolType.DBCP) {
+      return new DbcpConnectionPool(settings);
+    }
+    return new HikariConnectionPool(settings);
+  }
+
+  private static void initialize()
+  {
+    if (connectionPool != null) {
+      return;
+    }
+    final JdbcPoolSettings settings = JdbcPoolSettings.fromSystemProperties();
+    connectionPool = createConnectionPool(settings);
+    dataSource = connectionPool.getDataSource();
+    if (settings.isMonitoring() == true) {
+      monitor = new JdbcPoolMonitor(connectionPool, settings.getLeakDetectionThreshold(), settings.getSlowBorrowThreshold());
+      monitor.setJmx(settings.isJmx());
+      monitor.start();
+      dataSource = new InstrumentedDataSource(dataSource, monitor);
+    }
+    final String[] replicaUrls = settings.getReplicaUrls();
+    if (replicaUrls != null && replicaUrls.length > 0) {
+      replicaPools = new ArrayList<ConnectionPool>();
+      for (int i = 0; i < replicaUrls.length; i++) {
+        replicaPools.add(createConnectionPool(settings.createReplicaSettings(i)));
+      }
+      routingDataSource = new ReplicaRoutingDataSource(dataSource, replicaPools, settings.getReplicaRetryDelay());
+      dataSource = routingDataSource;
+    }
+    if (settings.isStatementTracing() == true) {
+      statementTracer = new StatementTracer(settings.getSlowQueryThreshold(), settings.getMaxStatementFingerprints(),
+          settings.getSlowQueryLog());
+      dataSource = new TracingDataSource(dataSource, statementTracer);
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.jdbc;
+
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbcp.BasicDataSource;
+
+/**
+ * Connection pool based on commons-dbcp.
+ */
+public class DbcpConnectionPool implements ConnectionPool
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(DbcpConnectionPool.class);
+
+  private final String name;
+
+  private final BasicDataSource dataSource;
+
+  public DbcpConnectionPool(final JdbcPoolSettings settings)
+  {
+    this.name = settings.getName();
+    dataSource = new BasicDataSource();
+    dataSource.setDriverClassName(settings.getDriverClassName());
+    dataSource.setUrl(settings.getUrl());
+    dataSource.setUsername(settings.getUser());
+    dataSource.setPassword(settings.getPassword());
+    dataSource.setMaxActive(settings.getMaxActive());
+    dataSource.setMinIdle(settings.getMinIdle());
+    if (settings.getMaxIdle() >= 0) {
+      dataSource.setMaxIdle(settings.getMaxIdle());
+    } else if (settings.getPrewarmConnections() > dataSource.getMaxIdle()) {
+      // Otherwise the pre-warmed connections exceeding dbcp's default are closed when returned:
+      dataSource.setMaxIdle(settings.getPrewarmConnections());
+    }
+    dataSource.setMaxWait(settings.getConnectionTimeout());
+    if (settings.getMaxLifetime() != JdbcPoolSettings.DEFAULT_MAX_LIFETIME) {
+      log.warn("Max life time of connections isn't supported by dbcp, ignoring maxLifetime=" + settings.getMaxLifetime() + "ms.");
+    }
+    if (settings.getStatementCacheSize() > 0) {
+      dataSource.setPoolPreparedStatements(true);
+      dataSource.setMaxOpenPreparedStatements(settings.getStatementCacheSize());
+    }
+    if (settings.getValidationQuery() != null) {
+      dataSource.setValidationQuery(settings.getValidationQuery());
+      dataSource.setTestOnBorrow(settings.isTestOnBorrow());
+    }
+  }
+
+  public String getName()
+  {
+    return name;
+  }
+
+  public JdbcPoolType getType()
+  {
+    return JdbcPoolType.DBCP;
+  }
+
+  public DataSource getDataSource()
+  {
+    return dataSource;
+  }
+
+  public int getActiveConnections()
+  {
+    return dataSource.getNumActive();
+  }
+
+  public int getIdleConnections()
+  {
+    return dataSource.getNumIdle();
+  }
+
+  public void close()
+  {
+    try {
+      dataSource.close();
+    } catch (final SQLException ex) {
+      log.error("Error while closing connection pool '" + name + "': " + ex.getMessage(), ex);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.jdbc;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * Connection pool based on HikariCP. The pool is initialized lazily on the first request of a connection.
+ */
+public class HikariConnectionPool implements ConnectionPool
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(HikariConnectionPool.class);
+
+  private final String name;
+
+  private final HikariDataSource dataSource;
+
+  public HikariConnectionPool(final JdbcPoolSettings settings)
+  {
+    this.name = settings.getName();
+    dataSource = new HikariDataSource();
+    dataSource.setPoolName(settings.getName());
+    if (settings.getDriverClassName() != null) {
+      dataSource.setDriverClassName(settings.getDriverClassName());
+    }
+    dataSource.setJdbcUrl(settings.getUrl());
+    dataSource.setUsername(settings.getUser());
+    dataSource.setPassword(settings.getPassword());
+    dataSource.setMaximumPoolSize(settings.getMaxActive());
+    dataSource.setMinimumIdle(Math.min(settings.getMinIdle(), settings.getMaxActive()));
+    dataSource.setConnectionTimeout(settings.getConnectionTimeout());
+    dataSource.setMaxLifetime(settings.getMaxLifetime());
+    if (settings.isTestOnBorrow() == false) {
+      log.warn("Hikari validates connections always, ignoring testOnBorrow=false.");
+    }
+    if (settings.getValidationQuery() != null) {
+      // Hikari validates idle connections on borrow always, the test query is needed for non JDBC 4 drivers (HSQLDB 1.8).
+      dataSource.setConnectionTestQuery(settings.getValidationQuery());
+    }
+    if (settings.getStatementCacheSize() > 0) {
+      // Hikari doesn't cache statements itself, the cache of the jdbc driver is used.
+      if (StringUtils.startsWith(settings.getUrl(), "jdbc:postgresql:") == true) {
+        dataSource.addDataSourceProperty("preparedStatementCacheQueries", String.valueOf(settings.getStatementCacheSize()));
+      } else {
+        log.warn("Statement caching isn't supported by Hikari for '"
+            + settings.getUrl()
+            + "', ignoring statement cache size "
+            + settings.getStatementCacheSize()
+            + ". Use the dbcp pool for caching statements.");
+      }
+    }
+  }
+
+  public String getName()
+  {
+    return name;
+  }
+
+  public JdbcPoolType getType()
+  {
+    return JdbcPoolType.HIKARI;
+  }
+
+  public DataSource getDataSource()
+  {
+    return dataSource;
+  }
+
+  public int getActiveConnections()
+  {
+    final HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+    return pool != null ? pool.getActiveConnections() : 0;
+  }
+
+  public int getIdleConnections()
+  {
+    final HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+    return pool != null ? pool.getIdleConnections() : 0;
+  }
+
+  public void close()
+  {
+    dataSource.close();
+  }
+}
@@ -0,0 +1,215 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.jdbc;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * Data source wrapper reporting every borrow and return of connections to a {@link JdbcPoolMonitor}. The statements, result sets and meta
+ * data are wrapped as well, so {@link Statement#getConnection()} returns the wrapped connection and closing it returns the lease.
+ */
+public class InstrumentedDataSource implements DataSource
+{
+  private final DataSource dataSource;
+
+  private final JdbcPoolMonitor monitor;
+
+  public InstrumentedDataSource(final DataSource dataSource, final JdbcPoolMonitor monitor)
+  {
+    this.dataSource = dataSource;
+    this.monitor = monitor;
+  }
+
+  public JdbcPoolMonitor getMonitor()
+  {
+    return monitor;
+  }
+
+  public Connection getConnection() throws SQLException
+  {
+    final long start = System.nanoTime();
+    final Connection connection;
+    try {
+      connection = dataSource.getConnection();
+    } catch (final SQLException ex) {
+      monitor.borrowFailed(start);
+      throw ex;
+    } catch (final RuntimeException ex) {
+      monitor.borrowFailed(start);
+      throw ex;
+    }
+    return wrap(connection, monitor.connectionBorrowed(start));
+  }
+
+  public Connection getConnection(final String username, final String password) throws SQLException
+  {
+    final long start = System.nanoTime();
+    final Connection connection;
+    try {
+      connection = dataSource.getConnection(username, password);
+    } catch (final SQLException ex) {
+      monitor.borrowFailed(start);
+      throw ex;
+    } catch (final RuntimeException ex) {
+      monitor.borrowFailed(start);
+      throw ex;
+    }
+    return wrap(connection, monitor.connectionBorrowed(start));
+  }
+
+  private Connection wrap(final Connection connection, final JdbcPoolMonitor.Lease lease)
+  {
+    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class< ? >[] { Connection.class},
+        new ConnectionHandler(connection, lease));
+  }
+
+  private class ConnectionHandler implements InvocationHandler
+  {
+    private final Connection connection;
+
+    private final JdbcPoolMonitor.Lease lease;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    ConnectionHandler(final Connection connection, final JdbcPoolMonitor.Lease lease)
+    {
+      this.connection = connection;
+      this.lease = lease;
+    }
+
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable
+    {
+      final String name = method.getName();
+      if ("equals".equals(name) == true) {
+        return proxy == args[0];
+      } else if ("hashCode".equals(name) == true) {
+        return System.identityHashCode(proxy);
+      } else if ("close".equals(name) == true) {
+        if (closed.compareAndSet(false, true) == true) {
+          try {
+            connection.close();
+          } finally {
+            monitor.connectionReturned(lease);
+          }
+        }
+        return null;
+      }
+      final Object result = InstrumentedDataSource.invoke(connection, method, args);
+      if (result instanceof Statement && method.getReturnType().isInterface() == true) {
+        // createStatement, prepareStatement or prepareCall:
+        return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class< ? >[] { method.getReturnType()},
+            new StatementHandler((Statement) result, (Connection) proxy));
+      }
+      return JdbcWrapperHandler.wrap(result, method, (Connection) proxy, null);
+    }
+  }
+
+  /**
+   * Returns the wrapped connection instead of the pooled one, the result sets return the wrapped statement.
+   */
+  private static class StatementHandler implements InvocationHandler
+  {
+    private final Statement statement;
+
+    private final Connection connection;
+
+    StatementHandler(final Statement statement, final Connection connection)
+    {
+      this.statement = statement;
+      this.connection = connection;
+    }
+
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable
+    {
+      final String name = method.getName();
+      if ("getConnection".equals(name) == true) {
+        return connection;
+      } else if ("equals".equals(name) == true) {
+        return proxy == args[0];
+      } else if ("hashCode".equals(name) == true) {
+        return System.identityHashCode(proxy);
+      }
+      return JdbcWrapperHandler.wrap(InstrumentedDataSource.invoke(statement, method, args), method, connection, (Statement) proxy);
+    }
+  }
+
+  private static Object invoke(final Object target, final Method method, final Object[] args) throws Throwable
+  {
+    try {
+      return method.invoke(target, args);
+    } catch (final InvocationTargetException ex) {
+      throw ex.getTargetException();
+    }
+  }
+
+  public PrintWriter getLogWriter() throws SQLException
+  {
+    return dataSource.getLogWriter();
+  }
+
+  public void setLogWriter(final PrintWriter out) throws SQLException
+  {
+    dataSource.setLogWriter(out);
+  }
+
+  public void setLoginTimeout(final int seconds) throws SQLException
+  {
+    dataSource.setLoginTimeout(seconds);
+  }
+
+  public int getLoginTimeout() throws SQLException
+  {
+    return dataSource.getLoginTimeout();
+  }
+
+  public Logger getParentLogger() throws SQLFeatureNotSupportedException
+  {
+    throw new SQLFeatureNotSupportedException();
+  }
+
+  public <T> T unwrap(final Class<T> iface) throws SQLException
+  {
+    if (iface.isInstance(this) == true) {
+      return iface.cast(this);
+    }
+    return dataSource.unwrap(iface);
+  }
+
+  public boolean isWrapperFor(final Class< ? > iface) throws SQLException
+  {
+    return iface.isInstance(this) == true || dataSource.isWrapperFor(iface);
+  }
+}
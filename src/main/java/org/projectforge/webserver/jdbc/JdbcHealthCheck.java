@@ -0,0 +1,110 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Checks whether a pooled connection can be borrowed and validated. The result is cached for the given time to live, so frequent probes
+ * of a load balancer don't load the data base: concurrent probes wait for a running check instead of starting their own one.
+ */
+public class JdbcHealthCheck
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(JdbcHealthCheck.class);
+
+  private static final int QUERY_TIMEOUT_SECONDS = 5;
+
+  private final String validationQuery;
+
+  private final long ttlMillis;
+
+  private long checkedAt;
+
+  private boolean checked;
+
+  private String problem;
+
+  /**
+   * @param validationQuery The query to execute with the borrowed connection, if null the connection isn't validated by a query.
+   * @param ttlMillis Time to live of the result.
+   */
+  public JdbcHealthCheck(final String validationQuery, final long ttlMillis)
+  {
+    this.validationQuery = validationQuery;
+    this.ttlMillis = ttlMillis;
+  }
+
+  /**
+   * @return null if a pooled connection was validated successfully, otherwise the problem.
+   */
+  public synchronized String getProblem()
+  {
+    final long now = System.currentTimeMillis();
+    if (checked == false || now - checkedAt >= ttlMillis) {
+      final String previous = problem;
+      problem = check();
+      checkedAt = System.currentTimeMillis();
+      if (checked == true && problem != null && previous == null) {
+        log.warn("Data base health check failed: " + problem);
+      } else if (checked == true && problem == null && previous != null) {
+        log.info("Data base health check succeeded again.");
+      }
+      checked = true;
+    }
+    return problem;
+  }
+
+  private String check()
+  {
+    if (DataSourceFactory.isInitialized() == false) {
+      return "Connection pool not initialized.";
+    }
+    Connection connection = null;
+    try {
+      connection = DataSourceFactory.getDataSource().getConnection();
+      if (validationQuery != null) {
+        final Statement statement = connection.createStatement();
+        try {
+          statement.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+          statement.execute(validationQuery);
+        } finally {
+          statement.close();
+        }
+      }
+      return null;
+    } catch (final SQLException ex) {
+      return "Validation of a pooled connection failed: " + ex.getMessage();
+    } finally {
+      if (connection != null) {
+        try {
+          connection.close();
+        } catch (final SQLException ex) {
+          log.warn("Can't return connection to the pool: " + ex.getMessage(), ex);
+        }
+      }
+    }
+  }
+}
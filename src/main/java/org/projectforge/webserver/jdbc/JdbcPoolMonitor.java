@@ -0,0 +1,382 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.jdbc;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.projectforge.webserver.metrics.JmxUtils;
+import org.projectforge.webserver.metrics.LatencyHistogram;
+import org.projectforge.webserver.metrics.MetricsSource;
+import org.projectforge.webserver.metrics.PrometheusWriter;
+
+/**
+ * Collects the figures of a connection pool: wait time for borrowing connections, time connections are held, active and idle connections.
+ * If a leak detection threshold is given, the borrowing stack trace of every connection is kept and connections held longer than the
+ * threshold are logged with this stack trace. Without leak detection the monitor only needs some atomic counter updates per borrow, so it's
+ * cheap enough for productive environments.
+ */
+public class JdbcPoolMonitor implements JdbcPoolMonitorMBean, MetricsSource
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(JdbcPoolMonitor.class);
+
+  private static final String JMX_TYPE = "JdbcPool";
+
+  private final ConnectionPool pool;
+
+  private final long leakDetectionThresholdMillis;
+
+  private final long slowBorrowThresholdMillis;
+
+  private final LatencyHistogram borrowWait = new LatencyHistogram();
+
+  private final LatencyHistogram holdTime = new LatencyHistogram();
+
+  private final AtomicLong borrowFailures = new AtomicLong();
+
+  private final AtomicLong slowBorrows = new AtomicLong();
+
+  private final AtomicLong leaksDetected = new AtomicLong();
+
+  private final AtomicLong leaseCounter = new AtomicLong();
+
+  private final ConcurrentHashMap<Long, Lease> leases = new ConcurrentHashMap<Long, Lease>();
+
+  private ScheduledExecutorService leakDetector;
+
+  private boolean jmx;
+
+  /**
+   * A borrowed connection.
+   */
+  static class Lease
+  {
+    final long id;
+
+    final long borrowedNanos;
+
+    final long borrowedMillis;
+
+    final String threadName;
+
+    final Throwable borrowedAt;
+
+    volatile boolean reported;
+
+    Lease(final long id, final Throwable borrowedAt)
+    {
+      this.id = id;
+      this.borrowedNanos = System.nanoTime();
+      this.borrowedMillis = System.currentTimeMillis();
+      this.threadName = Thread.currentThread().getName();
+      this.borrowedAt = borrowedAt;
+    }
+
+    long getHeldMillis()
+    {
+      return (System.nanoTime() - borrowedNanos) / 1000000;
+    }
+  }
+
+  /**
+   * @param pool
+   * @param leakDetectionThresholdMillis Connections held longer are logged as potential leak, 0 for no leak detection.
+   * @param slowBorrowThresholdMillis Borrows waiting longer for a connection are logged, 0 for no logging.
+   */
+  public JdbcPoolMonitor(final ConnectionPool pool, final long leakDetectionThresholdMillis, final long slowBorrowThresholdMillis)
+  {
+    this.pool = pool;
+    this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+    this.slowBorrowThresholdMillis = slowBorrowThresholdMillis;
+  }
+
+  /**
+   * @param jmx If true, this monitor is registered as MBean on {@link #start()}.
+   */
+  public void setJmx(final boolean jmx)
+  {
+    this.jmx = jmx;
+  }
+
+  /**
+   * Starts the leak detection (if configured) and registers this monitor as MBean (if JMX is enabled).
+   */
+  public void start()
+  {
+    if (leakDetectionThresholdMillis > 0) {
+      leakDetector = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        public Thread newThread(final Runnable runnable)
+        {
+          final Thread thread = new Thread(runnable, "ProjectForge-JdbcLeakDetector-" + pool.getName());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+      final long period = Math.max(1000, leakDetectionThresholdMillis / 2);
+      leakDetector.scheduleWithFixedDelay(new Runnable() {
+        public void run()
+        {
+          detectLeaks();
+        }
+      }, period, period, TimeUnit.MILLISECONDS);
+    }
+    if (jmx == true) {
+      JmxUtils.register(this, JMX_TYPE, pool.getName());
+    }
+  }
+
+  public void stop()
+  {
+    if (leakDetector != null) {
+      leakDetector.shutdownNow();
+      leakDetector = null;
+    }
+    if (jmx == true) {
+      JmxUtils.unregister(JMX_TYPE, pool.getName());
+    }
+  }
+
+  /**
+   * @param startNanos Start time of borrowing.
+   * @return The lease to pass to {@link #connectionReturned(Lease)}.
+   */
+  Lease connectionBorrowed(final long startNanos)
+  {
+    final long waitMicros = (System.nanoTime() - startNanos) / 1000;
+    borrowWait.record(waitMicros);
+    if (slowBorrowThresholdMillis > 0 && waitMicros / 1000 >= slowBorrowThresholdMillis) {
+      slowBorrows.incrementAndGet();
+      log.warn("Slow borrow of connection from pool '"
+          + pool.getName()
+          + "': waited "
+          + waitMicros / 1000
+          + "ms (active="
+          + pool.getActiveConnections()
+          + ", idle="
+          + pool.getIdleConnections()
+          + ").");
+    }
+    final Lease lease;
+    if (leakDetectionThresholdMillis > 0) {
+      lease = new Lease(leaseCounter.incrementAndGet(), new Throwable("Connection borrowed"));
+      leases.put(lease.id, lease);
+    } else {
+      lease = new Lease(0, null);
+    }
+    return lease;
+  }
+
+  void connectionReturned(final Lease lease)
+  {
+    holdTime.recordSince(lease.borrowedNanos);
+    if (lease.borrowedAt != null) {
+      leases.remove(lease.id);
+      if (lease.reported == true) {
+        log.info("Connection of pool '"
+            + pool.getName()
+            + "' previously reported as leak was returned after "
+            + lease.getHeldMillis()
+            + "ms (thread "
+            + lease.threadName
+            + ").");
+      }
+    }
+  }
+
+  void borrowFailed(final long startNanos)
+  {
+    borrowWait.recordSince(startNanos);
+    borrowFailures.incrementAndGet();
+  }
+
+  void detectLeaks()
+  {
+    for (final Lease lease : leases.values()) {
+      if (lease.reported == false && lease.getHeldMillis() >= leakDetectionThresholdMillis) {
+        lease.reported = true;
+        leaksDetected.incrementAndGet();
+        log.warn("Potential connection leak in pool '"
+            + pool.getName()
+            + "': connection held for "
+            + lease.getHeldMillis()
+            + "ms by thread "
+            + lease.threadName
+            + ".", lease.borrowedAt);
+      }
+    }
+  }
+
+  public ConnectionPool getPool()
+  {
+    return pool;
+  }
+
+  public LatencyHistogram getBorrowWaitHistogram()
+  {
+    return borrowWait;
+  }
+
+  public LatencyHistogram getHoldTimeHistogram()
+  {
+    return holdTime;
+  }
+
+  public int getActiveConnections()
+  {
+    return pool.getActiveConnections();
+  }
+
+  public int getIdleConnections()
+  {
+    return pool.getIdleConnections();
+  }
+
+  public long getBorrowCount()
+  {
+    return borrowWait.getCount() - borrowFailures.get();
+  }
+
+  public long getBorrowFailures()
+  {
+    return borrowFailures.get();
+  }
+
+  public long getSlowBorrows()
+  {
+    return slowBorrows.get();
+  }
+
+  public double getBorrowWaitMean()
+  {
+    return borrowWait.getMean() / 1000;
+  }
+
+  public double getBorrowWait95thPercentile()
+  {
+    return borrowWait.getPercentile(95) / 1000.0;
+  }
+
+  public double getBorrowWait99thPercentile()
+  {
+    return borrowWait.getPercentile(99) / 1000.0;
+  }
+
+  public double getBorrowWaitMax()
+  {
+    return borrowWait.getMax() / 1000.0;
+  }
+
+  public double getHoldTimeMean()
+  {
+    return holdTime.getMean() / 1000;
+  }
+
+  public double getHoldTime95thPercentile()
+  {
+    return holdTime.getPercentile(95) / 1000.0;
+  }
+
+  public double getHoldTime99thPercentile()
+  {
+    return holdTime.getPercentile(99) / 1000.0;
+  }
+
+  public double getHoldTimeMax()
+  {
+    return holdTime.getMax() / 1000.0;
+  }
+
+  public long getLeaksDetected()
+  {
+    return leaksDetected.get();
+  }
+
+  /**
+   * @return Number of connections currently held longer than the leak detection threshold (always 0 without leak detection).
+   */
+  public int getLongHeldConnections()
+  {
+    int result = 0;
+    for (final Lease lease : leases.values()) {
+      if (lease.getHeldMillis() >= leakDetectionThresholdMillis) {
+        ++result;
+      }
+    }
+    return result;
+  }
+
+  public void writeMetrics(final PrometheusWriter writer)
+  {
+    final String name = pool.getName();
+    writer.gauge("projectforge_jdbc_connections_active", "Number of borrowed connections.", getActiveConnections(), "pool", name);
+    writer.gauge("projectforge_jdbc_connections_idle", "Number of idle connections.", getIdleConnections(), "pool", name);
+    writer.summary("projectforge_jdbc_borrow_wait_seconds", "Time waited for a connection of the pool.", borrowWait, "pool", name);
+    writer.summary("projectforge_jdbc_hold_seconds", "Time a connection was held by the application.", holdTime, "pool", name);
+    writer.counter("projectforge_jdbc_borrow_failures_total", "Number of failed attempts to get a connection.", getBorrowFailures(),
+        "pool", name);
+    writer.counter("projectforge_jdbc_slow_borrows_total", "Number of borrows slower than the threshold.", getSlowBorrows(), "pool", name);
+    writer.counter("projectforge_jdbc_leaks_detected_total", "Number of detected connection leaks.", getLeaksDetected(), "pool", name);
+  }
+
+  /**
+   * @return Human readable report of the pool including the stack traces of all connections held longer than the leak detection
+   *         threshold.
+   */
+  public String dump()
+  {
+    final StringWriter sw = new StringWriter();
+    final PrintWriter out = new PrintWriter(sw);
+    out.println("Connection pool '" + pool.getName() + "' (" + pool.getType() + ")");
+    out.println("  active connections: " + getActiveConnections());
+    out.println("  idle connections:   " + getIdleConnections());
+    out.println("  borrow failures:    " + getBorrowFailures());
+    out.println("  slow borrows:       " + getSlowBorrows() + " (threshold " + slowBorrowThresholdMillis + "ms)");
+    out.println("  borrow wait:        " + borrowWait);
+    out.println("  hold time:          " + holdTime);
+    if (leakDetectionThresholdMillis <= 0) {
+      out.println("  leak detection:     disabled");
+    } else {
+      out.println("  leaks detected:     " + getLeaksDetected() + " (threshold " + leakDetectionThresholdMillis + "ms)");
+      final Iterator<Lease> it = leases.values().iterator();
+      while (it.hasNext() == true) {
+        final Lease lease = it.next();
+        if (lease.getHeldMillis() < leakDetectionThresholdMillis) {
+          continue;
+        }
+        out.println();
+        out.println("Connection held for " + lease.getHeldMillis() + "ms by thread " + lease.threadName + ":");
+        lease.borrowedAt.printStackTrace(out);
+      }
+    }
+    out.flush();
+    return sw.toString();
+  }
+}
@@ -0,0 +1,62 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.jdbc;
+
+/**
+ * JMX interface of {@link JdbcPoolMonitor}. Times are given in milliseconds.
+ */
+public interface JdbcPoolMonitorMBean
+{
+  public int getActiveConnections();
+
+  public int getIdleConnections();
+
+  public long getBorrowCount();
+
+  public long getBorrowFailures();
+
+  public long getSlowBorrows();
+
+  public double getBorrowWaitMean();
+
+  public double getBorrowWait95thPercentile();
+
+  public double getBorrowWait99thPercentile();
+
+  public double getBorrowWaitMax();
+
+  public double getHoldTimeMean();
+
+  public double getHoldTime95thPercentile();
+
+  public double getHoldTime99thPercentile();
+
+  public double getHoldTimeMax();
+
+  public long getLeaksDetected();
+
+  public int getLongHeldConnections();
+
+  public String dump();
+}
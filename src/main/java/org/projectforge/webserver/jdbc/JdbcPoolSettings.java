@@ -0,0 +1,623 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.jdbc;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * The settings of a jdbc connection pool. The settings of the ProjectForge data source are passed by the start helper as system properties
+ * (jettyEnv.*) to the web app and read by {@link #fromSystemProperties()}.
+ */
+public class JdbcPoolSettings implements Cloneable
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(JdbcPoolSettings.class);
+
+  public static final String PROPERTY_PREFIX = "jettyEnv.";
+
+  public static final long DEFAULT_MAX_LIFETIME = 30 * 60 * 1000;
+
+  private String name = "ProjectForgeDS";
+
+  private JdbcPoolType type = JdbcPoolType.HIKARI;
+
+  private String driverClassName;
+
+  private String url;
+
+  private String user;
+
+  private String password;
+
+  private int maxActive = 200;
+
+  private int minIdle = 2;
+
+  private int maxIdle = -1;
+
+  private long connectionTimeout = 30000;
+
+  private long maxLifetime = DEFAULT_MAX_LIFETIME;
+
+  private int statementCacheSize = 0;
+
+  private String validationQuery;
+
+  private boolean testOnBorrow = true;
+
+  private boolean monitoring = true;
+
+  private long leakDetectionThreshold = 0;
+
+  private long slowBorrowThreshold = 1000;
+
+  private String[] replicaUrls;
+
+  private String replicaUser;
+
+  private String replicaPassword;
+
+  private int replicaMaxActive = 20;
+
+  private long replicaRetryDelay = 30000;
+
+  private boolean statementTracing = false;
+
+  private long slowQueryThreshold = 1000;
+
+  private int maxStatementFingerprints = 500;
+
+  private String slowQueryLog;
+
+  private int prewarmConnections = 0;
+
+  private boolean jmx = false;
+
+  /**
+   * Reads the pool settings from the system properties jettyEnv.* set by the start helper.
+   */
+  public static JdbcPoolSettings fromSystemProperties()
+  {
+    final JdbcPoolSettings settings = new JdbcPoolSettings();
+    final JdbcPoolType type = JdbcPoolType.fromString(getProperty("jdbcPoolType"));
+    if (type != null) {
+      settings.type = type;
+    }
+    settings.driverClassName = getProperty("driverClassName");
+    settings.url = getProperty("jdbcUrl");
+    settings.user = getProperty("jdbcUser");
+    settings.password = getProperty("jdbcPassword");
+    settings.maxActive = getInt("jdbcMaxActive", settings.maxActive);
+    settings.minIdle = getInt("jdbcMinIdle", settings.minIdle);
+    settings.maxIdle = getInt("jdbcMaxIdle", settings.maxIdle);
+    settings.connectionTimeout = getLong("jdbcConnectionTimeout", settings.connectionTimeout);
+    settings.maxLifetime = getLong("jdbcMaxLifetime", settings.maxLifetime);
+    settings.statementCacheSize = getInt("jdbcStatementCacheSize", settings.statementCacheSize);
+    settings.validationQuery = getProperty("jdbcValidationQuery");
+    final String testOnBorrow = getProperty("jdbcTestOnBorrow");
+    if (testOnBorrow != null) {
+      settings.testOnBorrow = "true".equals(testOnBorrow.toLowerCase());
+    }
+    final String monitoring = getProperty("jdbcMonitoring");
+    if (monitoring != null) {
+      settings.monitoring = "true".equals(monitoring.toLowerCase());
+    }
+    settings.leakDetectionThreshold = getLong("jdbcLeakDetectionThreshold", settings.leakDetectionThreshold);
+    settings.slowBorrowThreshold = getLong("jdbcSlowBorrowThreshold", settings.slowBorrowThreshold);
+    final String replicaUrls = getProperty("jdbcReplicaUrls");
+    if (replicaUrls != null) {
+      settings.replicaUrls = StringUtils.split(replicaUrls, ", ");
+    }
+    settings.replicaUser = getProperty("jdbcReplicaUser");
+    settings.replicaPassword = getProperty("jdbcReplicaPassword");
+    settings.replicaMaxActive = getInt("jdbcReplicaMaxActive", settings.replicaMaxActive);
+    settings.replicaRetryDelay = getLong("jdbcReplicaRetryDelay", settings.replicaRetryDelay);
+    final String statementTracing = getProperty("jdbcStatementTracing");
+    if (statementTracing != null) {
+      settings.statementTracing = "true".equals(statementTracing.toLowerCase());
+    }
+    settings.slowQueryThreshold = getLong("jdbcSlowQueryThreshold", settings.slowQueryThreshold);
+    settings.maxStatementFingerprints = getInt("jdbcMaxStatementFingerprints", settings.maxStatementFingerprints);
+    settings.slowQueryLog = getProperty("jdbcSlowQueryLog");
+    settings.prewarmConnections = getInt("jdbcPrewarmConnections", settings.prewarmConnections);
+    final String jmx = getProperty("jmx");
+    if (jmx != null) {
+      settings.jmx = "true".equals(jmx.toLowerCase());
+    }
+    return settings;
+  }
+
+  static String getProperty(final String key)
+  {
+    final String value = System.getProperty(PROPERTY_PREFIX + key);
+    return StringUtils.isBlank(value) == true ? null : value.trim();
+  }
+
+  static int getInt(final String key, final int defaultValue)
+  {
+    return (int) getLong(key, defaultValue);
+  }
+
+  static long getLong(final String key, final long defaultValue)
+  {
+    final String value = getProperty(key);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(value);
+    } catch (final NumberFormatException ex) {
+      log.error("Can't parse system property '" + PROPERTY_PREFIX + key + "': " + value + ", using default " + defaultValue + ".");
+      return defaultValue;
+    }
+  }
+
+  public String getName()
+  {
+    return name;
+  }
+
+  public JdbcPoolSettings setName(final String name)
+  {
+    this.name = name;
+    return this;
+  }
+
+  public JdbcPoolType getType()
+  {
+    return type;
+  }
+
+  public JdbcPoolSettings setType(final JdbcPoolType type)
+  {
+    this.type = type;
+    return this;
+  }
+
+  public String getDriverClassName()
+  {
+    return driverClassName;
+  }
+
+  public JdbcPoolSettings setDriverClassName(final String driverClassName)
+  {
+    this.driverClassName = driverClassName;
+    return this;
+  }
+
+  public String getUrl()
+  {
+    return url;
+  }
+
+  public JdbcPoolSettings setUrl(final String url)
+  {
+    this.url = url;
+    return this;
+  }
+
+  public String getUser()
+  {
+    return user;
+  }
+
+  public JdbcPoolSettings setUser(final String user)
+  {
+    this.user = user;
+    return this;
+  }
+
+  public String getPassword()
+  {
+    return password;
+  }
+
+  public JdbcPoolSettings setPassword(final String password)
+  {
+    this.password = password;
+    return this;
+  }
+
+  /**
+   * Max number of connections of the pool (idle and borrowed).
+   */
+  public int getMaxActive()
+  {
+    return maxActive;
+  }
+
+  public JdbcPoolSettings setMaxActive(final int maxActive)
+  {
+    this.maxActive = maxActive;
+    return this;
+  }
+
+  /**
+   * Min number of idle connections held open by the pool.
+   */
+  public int getMinIdle()
+  {
+    return minIdle;
+  }
+
+  public JdbcPoolSettings setMinIdle(final int minIdle)
+  {
+    this.minIdle = minIdle;
+    return this;
+  }
+
+  /**
+   * Max number of idle connections (dbcp only, Hikari closes surplus idle connections after its idle time-out). If negative, the pool's
+   * default is used.
+   */
+  public int getMaxIdle()
+  {
+    return maxIdle;
+  }
+
+  public JdbcPoolSettings setMaxIdle(final int maxIdle)
+  {
+    this.maxIdle = maxIdle;
+    return this;
+  }
+
+  /**
+   * Max time in milliseconds to wait for a free connection.
+   */
+  public long getConnectionTimeout()
+  {
+    return connectionTimeout;
+  }
+
+  public JdbcPoolSettings setConnectionTimeout(final long connectionTimeout)
+  {
+    this.connectionTimeout = connectionTimeout;
+    return this;
+  }
+
+  /**
+   * Max life time in milliseconds of a pooled connection (Hikari only, dbcp 1.4 doesn't support it).
+   */
+  public long getMaxLifetime()
+  {
+    return maxLifetime;
+  }
+
+  public JdbcPoolSettings setMaxLifetime(final long maxLifetime)
+  {
+    this.maxLifetime = maxLifetime;
+    return this;
+  }
+
+  /**
+   * Number of cached prepared statements per connection, 0 for no caching. Hikari supports this only for PostgreSQL (by the cache of the
+   * driver).
+   */
+  public int getStatementCacheSize()
+  {
+    return statementCacheSize;
+  }
+
+  public JdbcPoolSettings setStatementCacheSize(final int statementCacheSize)
+  {
+    this.statementCacheSize = statementCacheSize;
+    return this;
+  }
+
+  /**
+   * Query for validating connections. Required for drivers not supporting JDBC 4 (such as HSQLDB 1.8).
+   */
+  public String getValidationQuery()
+  {
+    return validationQuery;
+  }
+
+  public JdbcPoolSettings setValidationQuery(final String validationQuery)
+  {
+    this.validationQuery = validationQuery;
+    return this;
+  }
+
+  /**
+   * Validate connections before they're borrowed from the pool? Dbcp only, Hikari validates connections always.
+   */
+  public boolean isTestOnBorrow()
+  {
+    return testOnBorrow;
+  }
+
+  public JdbcPoolSettings setTestOnBorrow(final boolean testOnBorrow)
+  {
+    this.testOnBorrow = testOnBorrow;
+    return this;
+  }
+
+  /**
+   * Instrument the pool by a {@link JdbcPoolMonitor}?
+   */
+  public boolean isMonitoring()
+  {
+    return monitoring;
+  }
+
+  public JdbcPoolSettings setMonitoring(final boolean monitoring)
+  {
+    this.monitoring = monitoring;
+    return this;
+  }
+
+  /**
+   * Connections held longer than this time in milliseconds are logged with the stack trace of the borrower, 0 for no leak detection.
+   */
+  public long getLeakDetectionThreshold()
+  {
+    return leakDetectionThreshold;
+  }
+
+  public JdbcPoolSettings setLeakDetectionThreshold(final long leakDetectionThreshold)
+  {
+    this.leakDetectionThreshold = leakDetectionThreshold;
+    return this;
+  }
+
+  /**
+   * Borrows waiting longer than this time in milliseconds for a connection are logged, 0 for no logging.
+   */
+  public long getSlowBorrowThreshold()
+  {
+    return slowBorrowThreshold;
+  }
+
+  public JdbcPoolSettings setSlowBorrowThreshold(final long slowBorrowThreshold)
+  {
+    this.slowBorrowThreshold = slowBorrowThreshold;
+    return this;
+  }
+
+  /**
+   * Urls of the read replicas, read-only connections are routed to them (see {@link ReplicaRoutingDataSource}). Null for no replicas.
+   */
+  public String[] getReplicaUrls()
+  {
+    return replicaUrls;
+  }
+
+  public JdbcPoolSettings setReplicaUrls(final String... replicaUrls)
+  {
+    this.replicaUrls = replicaUrls;
+    return this;
+  }
+
+  /**
+   * User of the read replicas, if null the user of the primary data base is used.
+   */
+  public String getReplicaUser()
+  {
+    return replicaUser;
+  }
+
+  public JdbcPoolSettings setReplicaUser(final String replicaUser)
+  {
+    this.replicaUser = replicaUser;
+    return this;
+  }
+
+  /**
+   * Password of the read replicas, if null the password of the primary data base is used.
+   */
+  public String getReplicaPassword()
+  {
+    return replicaPassword;
+  }
+
+  public JdbcPoolSettings setReplicaPassword(final String replicaPassword)
+  {
+    this.replicaPassword = replicaPassword;
+    return this;
+  }
+
+  /**
+   * Max number of connections of the pool of every read replica.
+   */
+  public int getReplicaMaxActive()
+  {
+    return replicaMaxActive;
+  }
+
+  public JdbcPoolSettings setReplicaMaxActive(final int replicaMaxActive)
+  {
+    this.replicaMaxActive = replicaMaxActive;
+    return this;
+  }
+
+  /**
+   * Time in milliseconds a failed read replica isn't used (read-only connections are routed to the other replicas or the primary).
+   */
+  public long getReplicaRetryDelay()
+  {
+    return replicaRetryDelay;
+  }
+
+  public JdbcPoolSettings setReplicaRetryDelay(final long replicaRetryDelay)
+  {
+    this.replicaRetryDelay = replicaRetryDelay;
+    return this;
+  }
+
+  /**
+   * Measure the execution time of every statement by a {@link StatementTracer}?
+   */
+  public boolean isStatementTracing()
+  {
+    return statementTracing;
+  }
+
+  public JdbcPoolSettings setStatementTracing(final boolean statementTracing)
+  {
+    this.statementTracing = statementTracing;
+    return this;
+  }
+
+  /**
+   * Statements executing at least this time in milliseconds are written to the slow query log, 0 for no logging. Requires statement
+   * tracing.
+   */
+  public long getSlowQueryThreshold()
+  {
+    return slowQueryThreshold;
+  }
+
+  public JdbcPoolSettings setSlowQueryThreshold(final long slowQueryThreshold)
+  {
+    this.slowQueryThreshold = slowQueryThreshold;
+    return this;
+  }
+
+  /**
+   * Max number of statement fingerprints with their own statistics, bounds the memory of the statement tracing.
+   */
+  public int getMaxStatementFingerprints()
+  {
+    return maxStatementFingerprints;
+  }
+
+  public JdbcPoolSettings setMaxStatementFingerprints(final int maxStatementFingerprints)
+  {
+    this.maxStatementFingerprints = maxStatementFingerprints;
+    return this;
+  }
+
+  /**
+   * File of the slow query log, if null the slow queries are written to the ProjectForge log.
+   */
+  public String getSlowQueryLog()
+  {
+    return slowQueryLog;
+  }
+
+  public JdbcPoolSettings setSlowQueryLog(final String slowQueryLog)
+  {
+    this.slowQueryLog = slowQueryLog;
+    return this;
+  }
+
+  /**
+   * Number of connections opened by the start helper while starting (see {@link ConnectionPrewarmer}). The pool keeps at least this number
+   * of idle connections (dbcp only, Hikari closes surplus idle connections after its idle time-out).
+   */
+  public int getPrewarmConnections()
+  {
+    return prewarmConnections;
+  }
+
+  public JdbcPoolSettings setPrewarmConnections(final int prewarmConnections)
+  {
+    this.prewarmConnections = prewarmConnections;
+    return this;
+  }
+
+  /**
+   * Register the {@link JdbcPoolMonitor} as MBean? Set by the start helper if JMX is enabled.
+   */
+  public boolean isJmx()
+  {
+    return jmx;
+  }
+
+  public JdbcPoolSettings setJmx(final boolean jmx)
+  {
+    this.jmx = jmx;
+    return this;
+  }
+
+  /**
+   * @param index Index of the replica url.
+   * @return The settings of the pool of the given read replica (the settings of the primary with url, user, password and max active
+   *         connections of the replica). The connection time-out is at most 5 seconds, so read-only connections fail over fast.
+   */
+  public JdbcPoolSettings createReplicaSettings(final int index)
+  {
+    final JdbcPoolSettings settings = clone();
+    settings.name = name + "-replica" + (index + 1);
+    settings.url = replicaUrls[index];
+    settings.user = replicaUser != null ? replicaUser : user;
+    settings.password = replicaPassword != null ? replicaPassword : password;
+    settings.maxActive = replicaMaxActive;
+    settings.connectionTimeout = Math.min(connectionTimeout, 5000);
+    settings.minIdle = Math.min(minIdle, replicaMaxActive);
+    settings.monitoring = false;
+    settings.replicaUrls = null;
+    settings.statementTracing = false;
+    settings.prewarmConnections = 0;
+    return settings;
+  }
+
+  @Override
+  public JdbcPoolSettings clone()
+  {
+    try {
+      return (JdbcPoolSettings) super.clone();
+    } catch (final CloneNotSupportedException ex) {
+      throw new UnsupportedOperationException(ex);
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return name
+        + "[type="
+        + type
+        + ", url="
+        + url
+        + ", user="
+        + user
+        + ", maxActive="
+        + maxActive
+        + ", minIdle="
+        + minIdle
+        + ", maxIdle="
+        + maxIdle
+        + ", connectionTimeout="
+        + connectionTimeout
+        + "ms, maxLifetime="
+        + maxLifetime
+        + "ms, statementCacheSize="
+        + statementCacheSize
+        + ", validationQuery="
+        + validationQuery
+        + ", testOnBorrow="
+        + testOnBorrow
+        + ", monitoring="
+        + monitoring
+        + ", leakDetectionThreshold="
+        + leakDetectionThreshold
+        + "ms, slowBorrowThreshold="
+        + slowBorrowThreshold
+        + "ms, statementTracing="
+        + statementTracing
+        + ", slowQueryThreshold="
+        + slowQueryThreshold
+        + "ms]";
+  }
+}
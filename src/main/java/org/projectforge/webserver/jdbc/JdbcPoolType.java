@@ -0,0 +1,55 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.jdbc;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * The implementation of the jdbc connection pool registered as jdbc/ProjectForgeDS.
+ */
+public enum JdbcPoolType
+{
+  /**
+   * Commons-dbcp 1.4 (BasicDataSource). Borrowing and returning connections is synchronized on the pool.
+   */
+  DBCP,
+
+  /**
+   * HikariCP: lock-light pool with a high throughput under concurrent load. Default.
+   */
+  HIKARI;
+
+  /**
+   * @param value "dbcp" or "hikari" (case insensitive).
+   * @return The pool type or null if the given value is empty.
+   * @throws IllegalArgumentException if the value isn't a known pool type.
+   */
+  public static JdbcPoolType fromString(final String value)
+  {
+    if (StringUtils.isBlank(value) == true) {
+      return null;
+    }
+    return JdbcPoolType.valueOf(value.trim().toUpperCase());
+  }
+}
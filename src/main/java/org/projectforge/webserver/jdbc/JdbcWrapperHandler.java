@@ -0,0 +1,97 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Invocation handler of the result sets and data base meta data of wrapped connections and statements, so
+ * {@link ResultSet#getStatement()} and {@link DatabaseMetaData#getConnection()} return the wrapping proxies instead of the pooled objects.
+ * The result sets of the meta data return null as statement (as allowed by the JDBC specification).
+ */
+class JdbcWrapperHandler implements InvocationHandler
+{
+  private final Object target;
+
+  private final Connection connection;
+
+  private final Statement statement;
+
+  /**
+   * @param result The result of a method of a wrapped connection or statement.
+   * @param method The invoked method.
+   * @param connection The wrapping connection.
+   * @param statement The wrapping statement or null if the method was invoked on the connection.
+   * @return The wrapped result if the result is a result set or data base meta data, otherwise the given result.
+   */
+  static Object wrap(final Object result, final Method method, final Connection connection, final Statement statement)
+  {
+    if (result instanceof ResultSet && method.getReturnType() == ResultSet.class) {
+      return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class< ? >[] { ResultSet.class},
+          new JdbcWrapperHandler(result, connection, statement));
+    } else if (result instanceof DatabaseMetaData && method.getReturnType() == DatabaseMetaData.class) {
+      return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class< ? >[] { DatabaseMetaData.class},
+          new JdbcWrapperHandler(result, connection, null));
+    }
+    return result;
+  }
+
+  private JdbcWrapperHandler(final Object target, final Connection connection, final Statement statement)
+  {
+    this.target = target;
+    this.connection = connection;
+    this.statement = statement;
+  }
+
+  public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable
+  {
+    final String name = method.getName();
+    if ("equals".equals(name) == true) {
+      return proxy == args[0];
+    } else if ("hashCode".equals(name) == true) {
+      return System.identityHashCode(proxy);
+    } else if ("getConnection".equals(name) == true && target instanceof DatabaseMetaData) {
+      return connection;
+    } else if ("getStatement".equals(name) == true && target instanceof ResultSet) {
+      return statement;
+    }
+    final Object result;
+    try {
+      result = method.invoke(target, args);
+    } catch (final InvocationTargetException ex) {
+      throw ex.getTargetException();
+    }
+    if (target instanceof DatabaseMetaData) {
+      return wrap(result, method, connection, null);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,310 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.jdbc;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.projectforge.webserver.metrics.MetricsSource;
+import org.projectforge.webserver.metrics.PrometheusWriter;
+
+/**
+ * Data source routing read-only connections round-robin to the pools of the read replicas and all other connections to the primary data
+ * base. Because the callers (e. g. the transaction manager) mark a connection as read-only after borrowing it, the returned connections are
+ * lazy: auto-commit, read-only and transaction isolation are only recorded until the first statement is created (or any other method
+ * needing a physical connection is called). Then the physical connection is borrowed from a replica pool if the connection is read-only
+ * and from the primary otherwise, and the recorded settings are applied.<br/>
+ * If a replica fails to provide a connection, it isn't used for the retry delay and the connection is borrowed from the next replica or,
+ * if no replica is available, from the primary.
+ */
+public class ReplicaRoutingDataSource implements DataSource, MetricsSource
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(ReplicaRoutingDataSource.class);
+
+  private final DataSource primary;
+
+  private final Replica[] replicas;
+
+  private final long retryDelayMillis;
+
+  private final AtomicInteger next = new AtomicInteger();
+
+  private final AtomicLong primaryConnections = new AtomicLong();
+
+  private final AtomicLong primaryFallbacks = new AtomicLong();
+
+  private static class Replica
+  {
+    final ConnectionPool pool;
+
+    final AtomicLong connections = new AtomicLong();
+
+    final AtomicLong failures = new AtomicLong();
+
+    volatile long unavailableUntil;
+
+    Replica(final ConnectionPool pool)
+    {
+      this.pool = pool;
+    }
+  }
+
+  /**
+   * @param primary The data source of the primary data base.
+   * @param replicaPools The pools of the read replicas.
+   * @param retryDelayMillis Time a failed replica isn't used.
+   */
+  public ReplicaRoutingDataSource(final DataSource primary, final List<ConnectionPool> replicaPools, final long retryDelayMillis)
+  {
+    this.primary = primary;
+    this.replicas = new Replica[replicaPools.size()];
+    for (int i = 0; i < replicas.length; i++) {
+      replicas[i] = new Replica(replicaPools.get(i));
+    }
+    this.retryDelayMillis = retryDelayMillis;
+  }
+
+  public Connection getConnection() throws SQLException
+  {
+    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class< ? >[] { Connection.class},
+        new LazyConnectionHandler());
+  }
+
+  /**
+   * Not routed, the connection is borrowed from the primary.
+   * @see javax.sql.DataSource#getConnection(java.lang.String, java.lang.String)
+   */
+  public Connection getConnection(final String username, final String password) throws SQLException
+  {
+    primaryConnections.incrementAndGet();
+    return primary.getConnection(username, password);
+  }
+
+  /**
+   * @return Number of replicas currently not marked as failed.
+   */
+  public int getAvailableReplicas()
+  {
+    final long now = System.currentTimeMillis();
+    int available = 0;
+    for (final Replica replica : replicas) {
+      if (replica.unavailableUntil <= now) {
+        ++available;
+      }
+    }
+    return available;
+  }
+
+  public void writeMetrics(final PrometheusWriter writer)
+  {
+    final long now = System.currentTimeMillis();
+    writer.counter("projectforge_jdbc_routed_connections_total", "Number of physical connections borrowed by the routing data source.",
+        primaryConnections.get(), "target", "primary");
+    for (final Replica replica : replicas) {
+      writer.counter("projectforge_jdbc_routed_connections_total", "Number of physical connections borrowed by the routing data source.",
+          replica.connections.get(), "target", replica.pool.getName());
+    }
+    writer.counter("projectforge_jdbc_replica_fallbacks_total",
+        "Number of read-only connections borrowed from the primary because no replica was available.", primaryFallbacks.get());
+    for (final Replica replica : replicas) {
+      writer.counter("projectforge_jdbc_replica_failures_total", "Number of failed borrows from a read replica.", replica.failures.get(),
+          "replica", replica.pool.getName());
+    }
+    for (final Replica replica : replicas) {
+      writer.gauge("projectforge_jdbc_replica_available", "1 if the read replica is used, 0 if it's marked as failed.",
+          replica.unavailableUntil <= now ? 1 : 0, "replica", replica.pool.getName());
+    }
+    for (final Replica replica : replicas) {
+      writer.gauge("projectforge_jdbc_replica_connections_active", "Number of connections borrowed from the pool of the read replica.",
+          replica.pool.getActiveConnections(), "replica", replica.pool.getName());
+    }
+  }
+
+  /**
+   * @param readOnly
+   * @return A physical connection of a replica (round-robin) if read-only and a replica is available, otherwise of the primary.
+   * @throws SQLException
+   */
+  Connection borrow(final boolean readOnly) throws SQLException
+  {
+    if (readOnly == true && replicas.length > 0) {
+      final int start = (next.getAndIncrement() & Integer.MAX_VALUE) % replicas.length;
+      for (int i = 0; i < replicas.length; i++) {
+        final Replica replica = replicas[(start + i) % replicas.length];
+        if (replica.unavailableUntil > System.currentTimeMillis()) {
+          continue;
+        }
+        try {
+          final Connection connection = replica.pool.getDataSource().getConnection();
+          replica.connections.incrementAndGet();
+          return connection;
+        } catch (final SQLException ex) {
+          replicaFailed(replica, ex);
+        } catch (final RuntimeException ex) {
+          replicaFailed(replica, ex); // E. g. pool initialization failed.
+        }
+      }
+      primaryFallbacks.incrementAndGet();
+    }
+    primaryConnections.incrementAndGet();
+    return primary.getConnection();
+  }
+
+  private void replicaFailed(final Replica replica, final Exception ex)
+  {
+    replica.failures.incrementAndGet();
+    replica.unavailableUntil = System.currentTimeMillis() + retryDelayMillis;
+    log.warn("Read replica '" + replica.pool.getName() + "' failed, not used for " + retryDelayMillis + "ms: " + ex.getMessage());
+  }
+
+  /**
+   * Records the settings of the connection until the physical connection is needed.
+   */
+  private class LazyConnectionHandler implements InvocationHandler
+  {
+    private Connection target;
+
+    private Boolean autoCommit;
+
+    private boolean readOnly;
+
+    private Integer transactionIsolation;
+
+    private boolean closed;
+
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable
+    {
+      final String name = method.getName();
+      if ("equals".equals(name) == true) {
+        return proxy == args[0];
+      } else if ("hashCode".equals(name) == true) {
+        return System.identityHashCode(proxy);
+      } else if ("toString".equals(name) == true) {
+        return "Lazy connection " + (target != null ? target.toString() : "(not borrowed, readOnly=" + readOnly + ")");
+      } else if ("close".equals(name) == true) {
+        closed = true;
+        if (target != null) {
+          target.close();
+        }
+        return null;
+      } else if ("isClosed".equals(name) == true) {
+        return closed;
+      }
+      if (target == null) {
+        if (closed == true) {
+          throw new SQLException("Connection is closed.");
+        }
+        if ("setReadOnly".equals(name) == true) {
+          readOnly = (Boolean) args[0];
+          return null;
+        } else if ("isReadOnly".equals(name) == true) {
+          return readOnly;
+        } else if ("setAutoCommit".equals(name) == true) {
+          autoCommit = (Boolean) args[0];
+          return null;
+        } else if ("getAutoCommit".equals(name) == true) {
+          return autoCommit != null ? autoCommit : Boolean.TRUE; // Default of new jdbc connections (and of the pools).
+        } else if ("setTransactionIsolation".equals(name) == true) {
+          transactionIsolation = (Integer) args[0];
+          return null;
+        } else if ("getTransactionIsolation".equals(name) == true && transactionIsolation != null) {
+          return transactionIsolation;
+        } else if ("commit".equals(name) == true || "rollback".equals(name) == true) {
+          return null; // Nothing to commit or roll back.
+        }
+        target = borrow(readOnly);
+        try {
+          if (readOnly == true) {
+            target.setReadOnly(true);
+          }
+          if (autoCommit != null) {
+            target.setAutoCommit(autoCommit);
+          }
+          if (transactionIsolation != null) {
+            target.setTransactionIsolation(transactionIsolation);
+          }
+        } catch (final SQLException ex) {
+          target.close();
+          target = null;
+          throw ex;
+        }
+      }
+      try {
+        return method.invoke(target, args);
+      } catch (final InvocationTargetException ex) {
+        throw ex.getTargetException();
+      }
+    }
+  }
+
+  public PrintWriter getLogWriter() throws SQLException
+  {
+    return primary.getLogWriter();
+  }
+
+  public void setLogWriter(final PrintWriter out) throws SQLException
+  {
+    primary.setLogWriter(out);
+  }
+
+  public void setLoginTimeout(final int seconds) throws SQLException
+  {
+    primary.setLoginTimeout(seconds);
+  }
+
+  public int getLoginTimeout() throws SQLException
+  {
+    return primary.getLoginTimeout();
+  }
+
+  public Logger getParentLogger() throws SQLFeatureNotSupportedException
+  {
+    throw new SQLFeatureNotSupportedException();
+  }
+
+  public <T> T unwrap(final Class<T> iface) throws SQLException
+  {
+    if (iface.isInstance(this) == true) {
+      return iface.cast(this);
+    }
+    return primary.unwrap(iface);
+  }
+
+  public boolean isWrapperFor(final Class< ? > iface) throws SQLException
+  {
+    return iface.isInstance(this) == true || primary.isWrapperFor(iface);
+  }
+}
@@ -0,0 +1,142 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.jdbc;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes sql statements to fingerprints, so statements differing only in their literals are counted together: string and numerical
+ * literals are replaced by ?, lists of parameters such as IN (?, ?, ?) are collapsed to (?...), comments are removed and white spaces are
+ * collapsed. The fingerprints of the most recent statements are cached, because Hibernate uses the same sql strings again and again.
+ */
+public class SqlFingerprint
+{
+  /**
+   * Longer fingerprints are truncated, so the memory of the statement statistics stays bounded.
+   */
+  public static final int MAX_LENGTH = 2000;
+
+  private static final int MAX_CACHED_STATEMENTS = 2000;
+
+  private static final int MAX_CACHED_STATEMENT_LENGTH = 4096;
+
+  private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+
+  private final ConcurrentMap<String, String> cache = new ConcurrentHashMap<String, String>();
+
+  /**
+   * @param sql
+   * @return The fingerprint of the given statement.
+   */
+  public String getFingerprint(final String sql)
+  {
+    if (sql == null) {
+      return "";
+    }
+    String fingerprint = cache.get(sql);
+    if (fingerprint != null) {
+      return fingerprint;
+    }
+    fingerprint = normalize(sql);
+    if (sql.length() <= MAX_CACHED_STATEMENT_LENGTH && cache.size() < MAX_CACHED_STATEMENTS) {
+      cache.put(sql, fingerprint);
+    }
+    return fingerprint;
+  }
+
+  /**
+   * @param sql
+   * @return The fingerprint of the given statement (not cached).
+   */
+  public static String normalize(final String sql)
+  {
+    final StringBuilder buf = new StringBuilder(Math.min(sql.length(), MAX_LENGTH + 16));
+    final int length = sql.length();
+    int i = 0;
+    while (i < length && buf.length() <= MAX_LENGTH) {
+      final char ch = sql.charAt(i);
+      if (ch == '\'') {
+        // String literal, '' is an escaped quote:
+        ++i;
+        while (i < length) {
+          if (sql.charAt(i) == '\'') {
+            if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+              i += 2;
+              continue;
+            }
+            break;
+          }
+          ++i;
+        }
+        ++i;
+        buf.append('?');
+      } else if (ch == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+        // Line comment:
+        while (i < length && sql.charAt(i) != '\n') {
+          ++i;
+        }
+        appendSpace(buf);
+      } else if (ch == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+        // Block comment:
+        final int end = sql.indexOf("*/", i + 2);
+        i = end < 0 ? length : end + 2;
+        appendSpace(buf);
+      } else if (Character.isDigit(ch) == true && (i == 0 || isIdentifierPart(sql.charAt(i - 1)) == false)) {
+        // Numerical literal (digits of identifiers such as t1_.id are kept):
+        while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) == true || sql.charAt(i) == '.')) {
+          ++i;
+        }
+        buf.append('?');
+      } else if (Character.isWhitespace(ch) == true) {
+        ++i;
+        appendSpace(buf);
+      } else {
+        buf.append(ch);
+        ++i;
+      }
+    }
+    String result = buf.toString().trim();
+    if (result.indexOf(',') >= 0) {
+      result = PARAMETER_LIST.matcher(result).replaceAll("(?...)");
+    }
+    if (result.length() > MAX_LENGTH) {
+      result = result.substring(0, MAX_LENGTH) + "...";
+    }
+    return result;
+  }
+
+  private static void appendSpace(final StringBuilder buf)
+  {
+    if (buf.length() > 0 && buf.charAt(buf.length() - 1) != ' ') {
+      buf.append(' ');
+    }
+  }
+
+  private static boolean isIdentifierPart(final char ch)
+  {
+    return Character.isLetterOrDigit(ch) == true || ch == '_' || ch == '$' || ch == '"';
+  }
+}
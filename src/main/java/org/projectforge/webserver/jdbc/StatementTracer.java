@@ -0,0 +1,327 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.jdbc;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.DailyRollingFileAppender;
+import org.apache.log4j.PatternLayout;
+import org.projectforge.webserver.metrics.LatencyHistogram;
+import org.projectforge.webserver.metrics.MetricsSource;
+import org.projectforge.webserver.metrics.PrometheusWriter;
+
+/**
+ * Measures the execution times of the sql statements per fingerprint (see {@link SqlFingerprint}). Statements slower than the threshold
+ * are written to the slow query log (the log4j category org.projectforge.webserver.jdbc.StatementTracer.SlowQueries, optionally with its
+ * own file). The number of fingerprints is limited, statements of further fingerprints are counted as "(other)". Recording needs only
+ * some atomic counter updates and a lookup of the cached fingerprint, the memory is bounded by about 3 KB per fingerprint.
+ */
+public class StatementTracer implements MetricsSource
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(StatementTracer.class);
+
+  private static final org.apache.log4j.Logger slowLog = org.apache.log4j.Logger.getLogger(StatementTracer.class.getName()
+      + ".SlowQueries");
+
+  static final String OTHER = "(other)";
+
+  /**
+   * The order of the top statements: by total execution time, 99th percentile, number of executions or max execution time.
+   */
+  public enum Order
+  {
+    TOTAL, P99, COUNT, MAX;
+
+    /**
+     * @param str The name of the order (case insensitive).
+     * @return The order or null if the given value isn't a known order.
+     */
+    public static Order fromString(final String str)
+    {
+      if (str == null) {
+        return null;
+      }
+      for (final Order order : values()) {
+        if (order.name().equalsIgnoreCase(str.trim()) == true) {
+          return order;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * The statistics of one fingerprint.
+   */
+  public static class StatementStats
+  {
+    private final String fingerprint;
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    private final AtomicLong errors = new AtomicLong();
+
+    private final AtomicLong slowStatements = new AtomicLong();
+
+    StatementStats(final String fingerprint)
+    {
+      this.fingerprint = fingerprint;
+    }
+
+    public String getFingerprint()
+    {
+      return fingerprint;
+    }
+
+    /**
+     * @return The execution times in microseconds.
+     */
+    public LatencyHistogram getHistogram()
+    {
+      return histogram;
+    }
+
+    public long getErrors()
+    {
+      return errors.get();
+    }
+
+    public long getSlowStatements()
+    {
+      return slowStatements.get();
+    }
+
+    long getValue(final Order order)
+    {
+      switch (order) {
+        case P99:
+          return histogram.getPercentile(99);
+        case COUNT:
+          return histogram.getCount();
+        case MAX:
+          return histogram.getMax();
+        default:
+          return histogram.getSum();
+      }
+    }
+  }
+
+  private final long slowThresholdMillis;
+
+  private final int maxFingerprints;
+
+  private final SqlFingerprint fingerprints = new SqlFingerprint();
+
+  private final ConcurrentHashMap<String, StatementStats> statistics = new ConcurrentHashMap<String, StatementStats>();
+
+  private final AtomicInteger trackedFingerprints = new AtomicInteger();
+
+  private final StatementStats other = new StatementStats(OTHER);
+
+  private final LatencyHistogram allStatements = new LatencyHistogram();
+
+  private final AtomicLong errors = new AtomicLong();
+
+  private final AtomicLong slowStatements = new AtomicLong();
+
+  /**
+   * @param slowThresholdMillis Statements executing at least this time in milliseconds are logged, 0 for no logging.
+   * @param maxFingerprints Max number of fingerprints with their own statistics.
+   * @param slowQueryLogFile If given, the slow queries are written to this file (rolled over daily) instead of the ProjectForge log.
+   */
+  public StatementTracer(final long slowThresholdMillis, final int maxFingerprints, final String slowQueryLogFile)
+  {
+    this.slowThresholdMillis = slowThresholdMillis;
+    this.maxFingerprints = maxFingerprints;
+    if (slowQueryLogFile != null) {
+      try {
+        slowLog.removeAllAppenders();
+        slowLog.addAppender(new DailyRollingFileAppender(new PatternLayout("%d{ISO8601} %m%n"), slowQueryLogFile, "'.'yyyy-MM-dd"));
+        slowLog.setAdditivity(false);
+        log.info("Slow queries are written to '" + slowQueryLogFile + "'.");
+      } catch (final IOException ex) {
+        log.error("Can't open slow query log '" + slowQueryLogFile + "', using the default log: " + ex.getMessage(), ex);
+      }
+    }
+  }
+
+  /**
+   * Records the execution of a statement.
+   * @param sql The executed sql statement.
+   * @param startNanos Start of the execution given by {@link System#nanoTime()}.
+   * @param failed True, if the execution threw an exception.
+   */
+  public void record(final String sql, final long startNanos, final boolean failed)
+  {
+    final long micros = (System.nanoTime() - startNanos) / 1000;
+    final StatementStats stats = getStatistics(fingerprints.getFingerprint(sql));
+    stats.histogram.record(micros);
+    allStatements.record(micros);
+    if (failed == true) {
+      stats.errors.incrementAndGet();
+      errors.incrementAndGet();
+    }
+    if (slowThresholdMillis > 0 && micros >= slowThresholdMillis * 1000) {
+      stats.slowStatements.incrementAndGet();
+      slowStatements.incrementAndGet();
+      slowLog.warn(micros / 1000
+          + "ms"
+          + (failed == true ? " (failed)" : "")
+          + " thread="
+          + Thread.currentThread().getName()
+          + ": "
+          + sql);
+    }
+  }
+
+  private StatementStats getStatistics(final String fingerprint)
+  {
+    StatementStats stats = statistics.get(fingerprint);
+    if (stats != null) {
+      return stats;
+    }
+    if (trackedFingerprints.incrementAndGet() > maxFingerprints) {
+      trackedFingerprints.decrementAndGet();
+      return other;
+    }
+    stats = new StatementStats(fingerprint);
+    final StatementStats existing = statistics.putIfAbsent(fingerprint, stats);
+    if (existing != null) {
+      trackedFingerprints.decrementAndGet();
+      return existing;
+    }
+    return stats;
+  }
+
+  public long getSlowThresholdMillis()
+  {
+    return slowThresholdMillis;
+  }
+
+  public int getMaxFingerprints()
+  {
+    return maxFingerprints;
+  }
+
+  /**
+   * @return The execution times of all statements in microseconds.
+   */
+  public LatencyHistogram getHistogram()
+  {
+    return allStatements;
+  }
+
+  public long getErrors()
+  {
+    return errors.get();
+  }
+
+  public long getSlowStatements()
+  {
+    return slowStatements.get();
+  }
+
+  /**
+   * @return Number of fingerprints with their own statistics.
+   */
+  public int getFingerprints()
+  {
+    return statistics.size();
+  }
+
+  /**
+   * @param top Max number of returned statistics.
+   * @param order
+   * @return The statistics of the fingerprints (including "(other)" if used) with the highest values of the given order.
+   */
+  public List<StatementStats> getTopStatements(final int top, final Order order)
+  {
+    final List<StatementStats> list = new ArrayList<StatementStats>(statistics.values());
+    if (other.histogram.getCount() > 0) {
+      list.add(other);
+    }
+    // The values are determined once before sorting, because they may change concurrently and percentiles aren't for free:
+    final Map<StatementStats, Long> values = new HashMap<StatementStats, Long>();
+    for (final StatementStats stats : list) {
+      values.put(stats, stats.getValue(order));
+    }
+    Collections.sort(list, new Comparator<StatementStats>() {
+      public int compare(final StatementStats o1, final StatementStats o2)
+      {
+        return values.get(o2).compareTo(values.get(o1));
+      }
+    });
+    return list.size() > top ? new ArrayList<StatementStats>(list.subList(0, top)) : list;
+  }
+
+  public void writeMetrics(final PrometheusWriter writer)
+  {
+    writer.summary("projectforge_jdbc_statement_seconds", "Execution time of sql statements.", allStatements);
+    writer.counter("projectforge_jdbc_statement_errors_total", "Number of sql statements failed with an exception.", getErrors());
+    writer.counter("projectforge_jdbc_slow_statements_total", "Number of sql statements slower than the threshold.",
+        getSlowStatements());
+    writer.gauge("projectforge_jdbc_statement_fingerprints", "Number of traced statement fingerprints.", getFingerprints());
+    writer.counter("projectforge_jdbc_untraced_statements_total",
+        "Number of sql statements not traced by their own fingerprint because the max number was reached.", other.histogram.getCount());
+  }
+
+  /**
+   * @param top Max number of listed fingerprints.
+   * @param order
+   * @return Human readable table of the top fingerprints.
+   */
+  public String dump(final int top, final Order order)
+  {
+    final StringWriter sw = new StringWriter();
+    final PrintWriter out = new PrintWriter(sw);
+    out.println("Sql statements");
+    out.println("  all statements:  " + allStatements);
+    out.println("  errors:          " + getErrors());
+    out.println("  slow statements: " + getSlowStatements() + " (threshold " + slowThresholdMillis + "ms)");
+    out.println("  fingerprints:    " + getFingerprints() + " (max " + maxFingerprints + ")");
+    out.println();
+    out.println("Top " + top + " fingerprints by " + order.name().toLowerCase() + " (times in ms):");
+    out.println(String.format("%12s %10s %9s %9s %9s %9s %7s %7s  %s", "total", "count", "mean", "p50", "p99", "max", "errors", "slow",
+        "statement"));
+    for (final StatementStats stats : getTopStatements(top, order)) {
+      final LatencyHistogram histogram = stats.histogram;
+      out.println(String.format("%12.1f %10d %9.2f %9.2f %9.2f %9.2f %7d %7d  %s", histogram.getSum() / 1000.0, histogram.getCount(),
+          histogram.getMean() / 1000.0, histogram.getPercentile(50) / 1000.0, histogram.getPercentile(99) / 1000.0,
+          histogram.getMax() / 1000.0, stats.getErrors(), stats.getSlowStatements(), stats.fingerprint));
+    }
+    out.flush();
+    return sw.toString();
+  }
+}
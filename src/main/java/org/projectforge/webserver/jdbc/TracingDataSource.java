@@ -0,0 +1,221 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.jdbc;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * Data source wrapper reporting the execution time of every statement to a {@link StatementTracer}. The connections and statements are
+ * wrapped by proxies, only the execute methods of the statements are measured. {@link Statement#getConnection()} returns the wrapped
+ * connection, result sets and meta data return the wrapped statement and connection.
+ */
+public class TracingDataSource implements DataSource
+{
+  private final DataSource dataSource;
+
+  private final StatementTracer tracer;
+
+  public TracingDataSource(final DataSource dataSource, final StatementTracer tracer)
+  {
+    this.dataSource = dataSource;
+    this.tracer = tracer;
+  }
+
+  public StatementTracer getTracer()
+  {
+    return tracer;
+  }
+
+  public Connection getConnection() throws SQLException
+  {
+    return wrap(dataSource.getConnection());
+  }
+
+  public Connection getConnection(final String username, final String password) throws SQLException
+  {
+    return wrap(dataSource.getConnection(username, password));
+  }
+
+  private Connection wrap(final Connection connection)
+  {
+    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class< ? >[] { Connection.class},
+        new ConnectionHandler(connection));
+  }
+
+  private static Object invoke(final Object target, final Method method, final Object[] args) throws Throwable
+  {
+    try {
+      return method.invoke(target, args);
+    } catch (final InvocationTargetException ex) {
+      throw ex.getTargetException();
+    }
+  }
+
+  private class ConnectionHandler implements InvocationHandler
+  {
+    private final Connection connection;
+
+    ConnectionHandler(final Connection connection)
+    {
+      this.connection = connection;
+    }
+
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable
+    {
+      final String name = method.getName();
+      if ("equals".equals(name) == true) {
+        return proxy == args[0];
+      } else if ("hashCode".equals(name) == true) {
+        return System.identityHashCode(proxy);
+      }
+      final Object result = TracingDataSource.invoke(connection, method, args);
+      if ("createStatement".equals(name) == true) {
+        return wrap(Statement.class, (Statement) result, null, proxy);
+      } else if ("prepareStatement".equals(name) == true) {
+        return wrap(PreparedStatement.class, (Statement) result, (String) args[0], proxy);
+      } else if ("prepareCall".equals(name) == true) {
+        return wrap(CallableStatement.class, (Statement) result, (String) args[0], proxy);
+      }
+      return JdbcWrapperHandler.wrap(result, method, (Connection) proxy, null);
+    }
+
+    private Object wrap(final Class< ? extends Statement> type, final Statement statement, final String sql, final Object connectionProxy)
+    {
+      return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class< ? >[] { type},
+          new StatementHandler(statement, sql, (Connection) connectionProxy));
+    }
+  }
+
+  private class StatementHandler implements InvocationHandler
+  {
+    private final Statement statement;
+
+    /**
+     * The sql of prepared statements.
+     */
+    private final String sql;
+
+    private final Connection connection;
+
+    /**
+     * The first sql added to the batch of a plain statement.
+     */
+    private String batchSql;
+
+    StatementHandler(final Statement statement, final String sql, final Connection connection)
+    {
+      this.statement = statement;
+      this.sql = sql;
+      this.connection = connection;
+    }
+
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable
+    {
+      final String name = method.getName();
+      if (name.startsWith("execute") == false) {
+        if ("getConnection".equals(name) == true) {
+          return connection;
+        } else if ("equals".equals(name) == true) {
+          return proxy == args[0];
+        } else if ("hashCode".equals(name) == true) {
+          return System.identityHashCode(proxy);
+        } else if ("addBatch".equals(name) == true && args != null && args.length > 0 && batchSql == null) {
+          batchSql = (String) args[0];
+        } else if ("clearBatch".equals(name) == true) {
+          batchSql = null;
+        }
+        return JdbcWrapperHandler.wrap(TracingDataSource.invoke(statement, method, args), method, connection, (Statement) proxy);
+      }
+      final String executedSql;
+      if (args != null && args.length > 0 && args[0] instanceof String) {
+        executedSql = (String) args[0];
+      } else if (sql != null) {
+        executedSql = sql;
+      } else {
+        executedSql = batchSql;
+        batchSql = null;
+      }
+      final long start = System.nanoTime();
+      boolean failed = true;
+      try {
+        final Object result = TracingDataSource.invoke(statement, method, args);
+        failed = false;
+        return JdbcWrapperHandler.wrap(result, method, connection, (Statement) proxy);
+      } finally {
+        tracer.record(executedSql, start, failed);
+      }
+    }
+  }
+
+  public PrintWriter getLogWriter() throws SQLException
+  {
+    return dataSource.getLogWriter();
+  }
+
+  public void setLogWriter(final PrintWriter out) throws SQLException
+  {
+    dataSource.setLogWriter(out);
+  }
+
+  public void setLoginTimeout(final int seconds) throws SQLException
+  {
+    dataSource.setLoginTimeout(seconds);
+  }
+
+  public int getLoginTimeout() throws SQLException
+  {
+    return dataSource.getLoginTimeout();
+  }
+
+  public Logger getParentLogger() throws SQLFeatureNotSupportedException
+  {
+    throw new SQLFeatureNotSupportedException();
+  }
+
+  public <T> T unwrap(final Class<T> iface) throws SQLException
+  {
+    if (iface.isInstance(this) == true) {
+      return iface.cast(this);
+    }
+    return dataSource.unwrap(iface);
+  }
+
+  public boolean isWrapperFor(final Class< ? > iface) throws SQLException
+  {
+    return iface.isInstance(this) == true || dataSource.isWrapperFor(iface);
+  }
+}
@@ -0,0 +1,199 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.server.RMIServerSocketFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnectorServer;
+import javax.management.remote.JMXConnectorServerFactory;
+import javax.management.remote.JMXServiceURL;
+import javax.management.remote.rmi.RMIConnectorServer;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.rmi.ssl.SslRMIClientSocketFactory;
+
+/**
+ * Registers the monitoring beans of the web server in the platform MBean server (domain org.projectforge.webserver).
+ */
+public class JmxUtils
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(JmxUtils.class);
+
+  public static final String DOMAIN = "org.projectforge.webserver";
+
+  /**
+   * Registers the given bean as "org.projectforge.webserver:type=&lt;type&gt;,name=&lt;name&gt;". An already registered bean with the same
+   * name is replaced. Errors are logged only, monitoring shouldn't prevent the server from starting.
+   * @param mbean
+   * @param type
+   * @param name
+   */
+  public static void register(final Object mbean, final String type, final String name)
+  {
+    try {
+      final ObjectName objectName = getObjectName(type, name);
+      final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+      if (mBeanServer.isRegistered(objectName) == true) {
+        mBeanServer.unregisterMBean(objectName);
+      }
+      mBeanServer.registerMBean(mbean, objectName);
+    } catch (final Exception ex) {
+      log.error("Can't register MBean " + type + "/" + name + ": " + ex.getMessage(), ex);
+    }
+  }
+
+  /**
+   * @param type
+   * @param name
+   * @see #register(Object, String, String)
+   */
+  public static void unregister(final String type, final String name)
+  {
+    try {
+      final ObjectName objectName = getObjectName(type, name);
+      final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+      if (mBeanServer.isRegistered(objectName) == true) {
+        mBeanServer.unregisterMBean(objectName);
+      }
+    } catch (final Exception ex) {
+      log.error("Can't unregister MBean " + type + "/" + name + ": " + ex.getMessage(), ex);
+    }
+  }
+
+  /**
+   * Starts a RMI registry and a JMX connector server bound to the given interface, so JMX clients (e. g. jconsole) can connect via
+   * service:jmx:rmi:///jndi/rmi://&lt;host&gt;:&lt;port&gt;/jmxrmi.
+   * <ul>
+   * <li>Loopback interface: registry and connector share the given port, authentication is optional (only local users can connect).</li>
+   * <li>Other interfaces: a password file is required and the connector uses SSL on a random port (configure the key store by the system
+   * properties javax.net.ssl.keyStore and javax.net.ssl.keyStorePassword). Only the registry listens on the given port.</li>
+   * </ul>
+   * @param host The interface to bind to, null for all interfaces.
+   * @param port
+   * @param passwordFile The password file (see jmx.remote.x.password.file), null for no authentication (loopback only).
+   * @param accessFile The access file (see jmx.remote.x.access.file), null for read/write access of all authenticated users.
+   * @return The started connector server.
+   * @throws IOException
+   * @throws IllegalArgumentException if a non loopback interface is given without password file.
+   */
+  public static JMXConnectorServer startConnectorServer(final String host, final int port, final String passwordFile,
+      final String accessFile) throws IOException
+  {
+    final InetAddress address = host != null ? InetAddress.getByName(host) : null;
+    final boolean loopback = address != null && address.isLoopbackAddress() == true;
+    if (loopback == false && passwordFile == null) {
+      throw new IllegalArgumentException("JMX connector on '"
+          + (host != null ? host : "all interfaces")
+          + "' requires a password file, use the loopback interface for connections without authentication.");
+    }
+    final String hostname = address != null ? address.getHostAddress() : InetAddress.getLocalHost().getHostName();
+    if (System.getProperty("java.rmi.server.hostname") == null) {
+      // Otherwise the stubs contain the host name of the machine, which may not resolve to the bound interface:
+      System.setProperty("java.rmi.server.hostname", hostname);
+    }
+    final BoundServerSocketFactory registrySocketFactory = new BoundServerSocketFactory(address, false);
+    LocateRegistry.createRegistry(port, null, registrySocketFactory);
+    final Map<String, Object> env = new HashMap<String, Object>();
+    if (passwordFile != null) {
+      env.put("jmx.remote.x.password.file", passwordFile);
+      if (accessFile != null) {
+        env.put("jmx.remote.x.access.file", accessFile);
+      }
+    }
+    final JMXServiceURL url;
+    if (loopback == true) {
+      env.put(RMIConnectorServer.RMI_SERVER_SOCKET_FACTORY_ATTRIBUTE, registrySocketFactory);
+      url = new JMXServiceURL("service:jmx:rmi://" + hostname + ":" + port + "/jndi/rmi://" + hostname + ":" + port + "/jmxrmi");
+    } else {
+      env.put(RMIConnectorServer.RMI_SERVER_SOCKET_FACTORY_ATTRIBUTE, new BoundServerSocketFactory(address, true));
+      env.put(RMIConnectorServer.RMI_CLIENT_SOCKET_FACTORY_ATTRIBUTE, new SslRMIClientSocketFactory());
+      url = new JMXServiceURL("service:jmx:rmi:///jndi/rmi://" + hostname + ":" + port + "/jmxrmi");
+    }
+    final JMXConnectorServer connectorServer = JMXConnectorServerFactory.newJMXConnectorServer(url, env,
+        ManagementFactory.getPlatformMBeanServer());
+    connectorServer.start();
+    log.info("JMX connector started: "
+        + url
+        + " (authentication="
+        + (passwordFile != null)
+        + ", ssl="
+        + (loopback == false)
+        + ")");
+    return connectorServer;
+  }
+
+  /**
+   * Creates server sockets bound to the given interface, optionally SSL sockets. Equal factories are needed for sharing the port of the
+   * registry with the connector.
+   */
+  private static class BoundServerSocketFactory implements RMIServerSocketFactory
+  {
+    private final InetAddress address;
+
+    private final boolean ssl;
+
+    BoundServerSocketFactory(final InetAddress address, final boolean ssl)
+    {
+      this.address = address;
+      this.ssl = ssl;
+    }
+
+    public ServerSocket createServerSocket(final int port) throws IOException
+    {
+      if (ssl == true) {
+        return SSLServerSocketFactory.getDefault().createServerSocket(port, 0, address);
+      }
+      return new ServerSocket(port, 0, address);
+    }
+
+    @Override
+    public boolean equals(final Object obj)
+    {
+      if (obj instanceof BoundServerSocketFactory == false) {
+        return false;
+      }
+      final BoundServerSocketFactory other = (BoundServerSocketFactory) obj;
+      return ssl == other.ssl && (address != null ? address.equals(other.address) : other.address == null);
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return (address != null ? address.hashCode() : 0) * 31 + (ssl == true ? 1 : 0);
+    }
+  }
+
+  private static ObjectName getObjectName(final String type, final String name) throws Exception
+  {
+    return new ObjectName(DOMAIN + ":type=" + type + ",name=" + name);
+  }
+}
@@ -0,0 +1,196 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies with logarithmic buckets (each power of two is divided in 8 linear sub buckets, so the relative error
+ * of the percentiles is below 12.5%). Values are given in microseconds, values above 2^31 microseconds (about 35 minutes) are counted in
+ * the last bucket. The memory footprint is fixed (about 2 KB) and recording is wait-free, so histograms may be used on hot paths.
+ */
+public class LatencyHistogram
+{
+  private static final int SUB_BUCKET_BITS = 3;
+
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+  private static final int MAX_EXPONENT = 31;
+
+  private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+  private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+  private final AtomicLong count = new AtomicLong();
+
+  private final AtomicLong sum = new AtomicLong();
+
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * @param micros The measured latency in microseconds.
+   */
+  public void record(final long micros)
+  {
+    final long value = micros < 0 ? 0 : Math.min(micros, MAX_VALUE);
+    buckets.incrementAndGet(getBucketIndex(value));
+    count.incrementAndGet();
+    sum.addAndGet(value);
+    long current = max.get();
+    while (value > current && max.compareAndSet(current, value) == false) {
+      current = max.get();
+    }
+  }
+
+  /**
+   * Records the time elapsed since the given start time.
+   * @param startNanos Start time given by {@link System#nanoTime()}.
+   */
+  public void recordSince(final long startNanos)
+  {
+    record((System.nanoTime() - startNanos) / 1000);
+  }
+
+  /**
+   * @return Number of recorded values.
+   */
+  public long getCount()
+  {
+    return count.get();
+  }
+
+  /**
+   * @return Sum of all recorded values in microseconds.
+   */
+  public long getSum()
+  {
+    return sum.get();
+  }
+
+  /**
+   * @return Max recorded value in microseconds.
+   */
+  public long getMax()
+  {
+    return max.get();
+  }
+
+  /**
+   * @return Mean of all recorded values in microseconds or 0 if nothing was recorded.
+   */
+  public double getMean()
+  {
+    final long n = count.get();
+    return n > 0 ? (double) sum.get() / n : 0;
+  }
+
+  /**
+   * @param percentile The percentile (0 - 100), e. g. 99.
+   * @return The upper bound of the bucket containing the percentile in microseconds (never greater than the max value) or 0 if nothing
+   *         was recorded.
+   */
+  public long getPercentile(final double percentile)
+  {
+    final long n = count.get();
+    if (n == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(n * percentile / 100.0));
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += buckets.get(i);
+      if (seen >= rank) {
+        return Math.min(getBucketUpperBound(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * @param micros
+   * @return Number of recorded values less or equal the given value (exact for bucket bounds, otherwise rounded down to the bucket).
+   */
+  public long getCountBelowOrEqual(final long micros)
+  {
+    if (micros < 0) {
+      return 0;
+    }
+    final int index = getBucketIndex(Math.min(micros, MAX_VALUE));
+    final int lastIndex = getBucketUpperBound(index) <= micros ? index : index - 1;
+    long result = 0;
+    for (int i = 0; i <= lastIndex; i++) {
+      result += buckets.get(i);
+    }
+    return result;
+  }
+
+  static int getBucketIndex(final long value)
+  {
+    if (value < 2 * SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    final int exponent = 63 - Long.numberOfLeadingZeros(value);
+    final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+  }
+
+  static long getBucketUpperBound(final int index)
+  {
+    if (index < 2 * SUB_BUCKET_COUNT) {
+      return index;
+    }
+    final int shift = index / SUB_BUCKET_COUNT - 1;
+    final long lowerBound = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+    return lowerBound + (1L << shift) - 1;
+  }
+
+  /**
+   * @return Short summary in milliseconds: count, mean, p50, p95, p99 and max.
+   */
+  @Override
+  public String toString()
+  {
+    return "count="
+        + getCount()
+        + ", mean="
+        + format(getMean())
+        + "ms, p50="
+        + format(getPercentile(50))
+        + "ms, p95="
+        + format(getPercentile(95))
+        + "ms, p99="
+        + format(getPercentile(99))
+        + "ms, max="
+        + format(getMax())
+        + "ms";
+  }
+
+  private static String format(final double micros)
+  {
+    return String.format("%.1f", micros / 1000.0);
+  }
+}
@@ -0,0 +1,152 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.metrics;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Writes metrics in the Prometheus text exposition format (version 0.0.4). All samples of one metric have to be written one after
+ * another, the HELP and TYPE lines are written before the first sample of each metric. Latencies are written in seconds as recommended by
+ * Prometheus.
+ */
+public class PrometheusWriter
+{
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private static final double[] QUANTILES = { 0.5, 0.9, 0.95, 0.99};
+
+  private final StringBuilder buf = new StringBuilder();
+
+  private final Set<String> declared = new HashSet<String>();
+
+  /**
+   * @param name
+   * @param help
+   * @param value
+   * @param labels Pairs of label name and value.
+   * @return this for chaining.
+   */
+  public PrometheusWriter counter(final String name, final String help, final double value, final String... labels)
+  {
+    declare(name, help, "counter");
+    sample(name, value, labels, null, null);
+    return this;
+  }
+
+  /**
+   * @param name
+   * @param help
+   * @param value
+   * @param labels Pairs of label name and value.
+   * @return this for chaining.
+   */
+  public PrometheusWriter gauge(final String name, final String help, final double value, final String... labels)
+  {
+    declare(name, help, "gauge");
+    sample(name, value, labels, null, null);
+    return this;
+  }
+
+  /**
+   * Writes the quantiles, the sum and the count of the given histogram as summary (in seconds).
+   * @param name The name of the metric, should end with "_seconds".
+   * @param help
+   * @param histogram
+   * @param labels Pairs of label name and value.
+   * @return this for chaining.
+   */
+  public PrometheusWriter summary(final String name, final String help, final LatencyHistogram histogram, final String... labels)
+  {
+    declare(name, help, "summary");
+    final long count = histogram.getCount();
+    for (final double quantile : QUANTILES) {
+      final double value = count > 0 ? histogram.getPercentile(quantile * 100) / 1000000.0 : Double.NaN;
+      sample(name, value, labels, "quantile", String.valueOf(quantile));
+    }
+    sample(name + "_sum", histogram.getSum() / 1000000.0, labels, null, null);
+    sample(name + "_count", count, labels, null, null);
+    return this;
+  }
+
+  @Override
+  public String toString()
+  {
+    return buf.toString();
+  }
+
+  private void declare(final String name, final String help, final String type)
+  {
+    if (declared.add(name) == false) {
+      return;
+    }
+    buf.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    buf.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  private void sample(final String name, final double value, final String[] labels, final String extraLabel, final String extraValue)
+  {
+    buf.append(name);
+    if (labels.length > 0 || extraLabel != null) {
+      buf.append('{');
+      boolean first = true;
+      for (int i = 0; i + 1 < labels.length; i += 2) {
+        first = label(first, labels[i], labels[i + 1]);
+      }
+      if (extraLabel != null) {
+        label(first, extraLabel, extraValue);
+      }
+      buf.append('}');
+    }
+    buf.append(' ');
+    if (Double.isNaN(value) == true) {
+      buf.append("NaN");
+    } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+      buf.append((long) value);
+    } else {
+      buf.append(value);
+    }
+    buf.append('\n');
+  }
+
+  private boolean label(final boolean first, final String name, final String value)
+  {
+    if (first == false) {
+      buf.append(',');
+    }
+    buf.append(name).append("=\"");
+    for (int i = 0; i < value.length(); i++) {
+      final char ch = value.charAt(i);
+      if (ch == '\\' || ch == '"') {
+        buf.append('\\').append(ch);
+      } else if (ch == '\n') {
+        buf.append("\\n");
+      } else {
+        buf.append(ch);
+      }
+    }
+    buf.append('"');
+    return false;
+  }
+}
@@ -0,0 +1,66 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free counter of events per second, averaged over the last minute. The events are counted in 60 slots (one per second), a slot is
+ * reset when it's used for a new second.
+ */
+public class RateCounter
+{
+  private static final int SLOTS = 60;
+
+  private final AtomicLongArray counts = new AtomicLongArray(SLOTS);
+
+  private final AtomicLongArray seconds = new AtomicLongArray(SLOTS);
+
+  public void increment()
+  {
+    final long second = System.currentTimeMillis() / 1000;
+    final int slot = (int) (second % SLOTS);
+    final long slotSecond = seconds.get(slot);
+    if (slotSecond != second && seconds.compareAndSet(slot, slotSecond, second) == true) {
+      counts.set(slot, 0);
+    }
+    counts.incrementAndGet(slot);
+  }
+
+  /**
+   * @return The events per second of the last minute (the current second isn't included because it isn't complete).
+   */
+  public double getRatePerSecond()
+  {
+    final long now = System.currentTimeMillis() / 1000;
+    long sum = 0;
+    for (int i = 0; i < SLOTS; i++) {
+      final long second = seconds.get(i);
+      if (second < now && second >= now - SLOTS) {
+        sum += counts.get(i);
+      }
+    }
+    return (double) sum / SLOTS;
+  }
+}
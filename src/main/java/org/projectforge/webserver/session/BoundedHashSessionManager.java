@@ -0,0 +1,266 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.session;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.server.session.AbstractSession;
+import org.eclipse.jetty.server.session.HashSessionManager;
+import org.eclipse.jetty.server.session.HashedSession;
+import org.projectforge.webserver.metrics.MetricsSource;
+import org.projectforge.webserver.metrics.PrometheusWriter;
+
+/**
+ * Session manager which limits the number and the estimated total size of the sessions resident in the heap. The sizes are estimated by
+ * the {@link SessionSizeEstimator} on every scavenge run if a memory budget is given or the size sampling is enabled (for the metrics).
+ * If a limit is exceeded, the least recently accessed sessions are passivated to the store directory (their attributes are written to a
+ * file and removed from the heap). A passivated session is activated on its next access. <b>Without store directory the sessions are
+ * invalidated instead, which logs out the users!</b> Sessions processing a request or accessed within the last 10 seconds are never
+ * evicted. To avoid sorting all sessions for every new session, the sessions are evicted down to 90% of the limits.
+ */
+public class BoundedHashSessionManager extends HashSessionManager implements BoundedHashSessionManagerMBean, MetricsSource
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(BoundedHashSessionManager.class);
+
+  private static final long MIN_IDLE_MILLIS = 10000;
+
+  private final int maxResidentSessions;
+
+  private final long memoryBudget;
+
+  private final int evictionCheckInterval;
+
+  private final SessionSizeEstimator sizeEstimator = new SessionSizeEstimator(100, 5 * 60 * 1000);
+
+  private final Object evictionLock = new Object();
+
+  private final AtomicInteger addedSinceEviction = new AtomicInteger();
+
+  private final AtomicLong passivatedSessions = new AtomicLong();
+
+  private final AtomicLong invalidatedSessions = new AtomicLong();
+
+  private volatile boolean sizeSampling;
+
+  private volatile int residentSessions;
+
+  private volatile long estimatedBytes;
+
+  /**
+   * @param maxResidentSessions Max number of sessions held in the heap, 0 for no limit.
+   * @param memoryBudget Max estimated total size of the sessions held in the heap in bytes, 0 for no limit.
+   */
+  public BoundedHashSessionManager(final int maxResidentSessions, final long memoryBudget)
+  {
+    this.maxResidentSessions = maxResidentSessions;
+    this.memoryBudget = memoryBudget;
+    this.evictionCheckInterval = maxResidentSessions > 0 ? Math.max(1, Math.min(50, maxResidentSessions / 10)) : 50;
+  }
+
+  @Override
+  protected void addSession(final AbstractSession session)
+  {
+    super.addSession(session);
+    if (isBounded() == true && addedSinceEviction.incrementAndGet() >= evictionCheckInterval) {
+      evict();
+    }
+  }
+
+  /**
+   * Activates passivated sessions (Jetty itself only does this if the idle save period is set).
+   * @see org.eclipse.jetty.server.session.HashSessionManager#getSession(java.lang.String)
+   */
+  @Override
+  public AbstractSession getSession(final String idInCluster)
+  {
+    final AbstractSession session = super.getSession(idInCluster);
+    if (session instanceof HashedSession && ((HashedSession) session).isIdled() == true) {
+      ((HashedSession) session).deIdle();
+    }
+    return session;
+  }
+
+  @Override
+  protected boolean removeSession(final String clusterId)
+  {
+    sizeEstimator.remove(clusterId);
+    return super.removeSession(clusterId);
+  }
+
+  @Override
+  protected void scavenge()
+  {
+    super.scavenge();
+    if (memoryBudget > 0 || sizeSampling == true) {
+      sizeEstimator.sample(_sessions.values()); // Serializes sessions, so only done if the sizes are needed.
+    }
+    evict();
+  }
+
+  /**
+   * @param sizeSampling If true, the session sizes are estimated even without memory budget (for the metrics).
+   */
+  public void setSizeSampling(final boolean sizeSampling)
+  {
+    this.sizeSampling = sizeSampling;
+  }
+
+  public int getResidentSessions()
+  {
+    return residentSessions;
+  }
+
+  public long getEstimatedBytes()
+  {
+    return estimatedBytes;
+  }
+
+  public long getAverageSessionBytes()
+  {
+    return sizeEstimator.getAverageSize();
+  }
+
+  public int getMaxResidentSessions()
+  {
+    return maxResidentSessions;
+  }
+
+  public long getMemoryBudget()
+  {
+    return memoryBudget;
+  }
+
+  public long getPassivatedSessions()
+  {
+    return passivatedSessions.get();
+  }
+
+  public long getInvalidatedSessions()
+  {
+    return invalidatedSessions.get();
+  }
+
+  public void writeMetrics(final PrometheusWriter writer)
+  {
+    writer.gauge("projectforge_sessions", "Number of sessions (resident and passivated).", getSessions());
+    writer.gauge("projectforge_sessions_resident", "Number of sessions held in the heap.", getResidentSessions());
+    writer.gauge("projectforge_sessions_estimated_bytes", "Estimated (serialized) size of the sessions held in the heap.",
+        getEstimatedBytes());
+    writer.counter("projectforge_sessions_evicted_total", "Number of sessions evicted because a limit was exceeded.",
+        getPassivatedSessions(), "action", "passivated");
+    writer.counter("projectforge_sessions_evicted_total", "Number of sessions evicted because a limit was exceeded.",
+        getInvalidatedSessions(), "action", "invalidated");
+  }
+
+  private boolean isBounded()
+  {
+    return maxResidentSessions > 0 || memoryBudget > 0;
+  }
+
+  /**
+   * Updates the number and the estimated size of the resident sessions and evicts the least recently used ones if a limit is exceeded.
+   */
+  private void evict()
+  {
+    synchronized (evictionLock) {
+      addedSinceEviction.set(0);
+      final List<HashedSession> candidates = new ArrayList<HashedSession>();
+      final long idleSince = System.currentTimeMillis() - MIN_IDLE_MILLIS;
+      int resident = 0;
+      long bytes = 0;
+      for (final HashedSession session : _sessions.values()) {
+        if (session.isIdled() == true) {
+          continue;
+        }
+        ++resident;
+        bytes += sizeEstimator.getSize(session);
+        if (session.getRequests() == 0 && session.getAccessed() < idleSince) {
+          candidates.add(session);
+        }
+      }
+      residentSessions = resident;
+      estimatedBytes = bytes;
+      if ((maxResidentSessions <= 0 || resident <= maxResidentSessions) && (memoryBudget <= 0 || bytes <= memoryBudget)) {
+        return;
+      }
+      Collections.sort(candidates, new Comparator<HashedSession>() {
+        public int compare(final HashedSession o1, final HashedSession o2)
+        {
+          final long a1 = o1.getAccessed();
+          final long a2 = o2.getAccessed();
+          return a1 < a2 ? -1 : (a1 == a2 ? 0 : 1);
+        }
+      });
+      final boolean passivate = getStoreDirectory() != null;
+      int evicted = 0;
+      final int residentTarget = maxResidentSessions * 9 / 10;
+      final long bytesTarget = memoryBudget / 10 * 9;
+      for (final HashedSession session : candidates) {
+        if ((maxResidentSessions <= 0 || resident <= residentTarget) && (memoryBudget <= 0 || bytes <= bytesTarget)) {
+          break;
+        }
+        if (session.getRequests() > 0) {
+          continue;
+        }
+        final long size = sizeEstimator.getSize(session);
+        try {
+          if (passivate == true) {
+            session.idle();
+            passivatedSessions.incrementAndGet();
+          } else {
+            session.invalidate();
+            invalidatedSessions.incrementAndGet();
+          }
+          --resident;
+          bytes -= size;
+          ++evicted;
+        } catch (final Exception ex) {
+          log.warn("Can't evict session " + session.getClusterId() + ": " + ex.getMessage(), ex);
+        }
+      }
+      residentSessions = resident;
+      estimatedBytes = bytes;
+      if (evicted == 0) {
+        return; // All sessions are in use or accessed recently.
+      }
+      log.info(evicted
+          + " least recently used sessions "
+          + (passivate == true ? "passivated" : "invalidated")
+          + " (resident sessions="
+          + resident
+          + ", estimated bytes="
+          + bytes
+          + ", maxResidentSessions="
+          + maxResidentSessions
+          + ", memoryBudget="
+          + memoryBudget
+          + ").");
+    }
+  }
+}
@@ -0,0 +1,61 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.session;
+
+/**
+ * JMX interface of {@link BoundedHashSessionManager}.
+ */
+public interface BoundedHashSessionManagerMBean
+{
+  /**
+   * @return Number of all sessions (resident and passivated).
+   */
+  public int getSessions();
+
+  /**
+   * @return Number of sessions held in the heap (updated on every scavenge run).
+   */
+  public int getResidentSessions();
+
+  /**
+   * @return Estimated (serialized) size of the sessions held in the heap (updated on every scavenge run).
+   */
+  public long getEstimatedBytes();
+
+  public long getAverageSessionBytes();
+
+  public int getMaxResidentSessions();
+
+  public long getMemoryBudget();
+
+  /**
+   * @return Number of sessions passivated because a limit was exceeded.
+   */
+  public long getPassivatedSessions();
+
+  /**
+   * @return Number of sessions invalidated because a limit was exceeded and no store directory is given.
+   */
+  public long getInvalidatedSessions();
+}
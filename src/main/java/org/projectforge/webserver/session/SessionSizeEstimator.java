@@ -0,0 +1,150 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.session;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.jetty.server.session.HashedSession;
+
+/**
+ * Estimates the heap size of sessions by their serialized size (the size of the passivated session). Serializing all sessions is too
+ * expensive, so only a limited number of sessions without or with an outdated estimate is serialized per run. Sessions without own
+ * estimate are estimated by the average size of the sampled sessions.
+ */
+public class SessionSizeEstimator
+{
+  private static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(SessionSizeEstimator.class);
+
+  private final ConcurrentMap<String, long[]> samples = new ConcurrentHashMap<String, long[]>();
+
+  private final int samplesPerRun;
+
+  private final long resampleMillis;
+
+  private volatile long averageSize;
+
+  /**
+   * @param samplesPerRun Max number of sessions serialized per call of {@link #sample(Collection)}.
+   * @param resampleMillis Estimates older than this are renewed.
+   */
+  public SessionSizeEstimator(final int samplesPerRun, final long resampleMillis)
+  {
+    this.samplesPerRun = samplesPerRun;
+    this.resampleMillis = resampleMillis;
+  }
+
+  /**
+   * Serializes up to samplesPerRun of the given sessions (passivated sessions are skipped), sessions without estimate first.
+   * @param sessions
+   */
+  public void sample(final Collection<HashedSession> sessions)
+  {
+    final long now = System.currentTimeMillis();
+    final List<HashedSession> outdated = new ArrayList<HashedSession>();
+    int sampled = 0;
+    for (final HashedSession session : sessions) {
+      if (sampled >= samplesPerRun) {
+        break;
+      }
+      if (session.isIdled() == true || session.isValid() == false) {
+        continue;
+      }
+      final long[] sample = samples.get(session.getClusterId());
+      if (sample == null) {
+        sample(session, now);
+        ++sampled;
+      } else if (sample[1] + resampleMillis < now) {
+        outdated.add(session);
+      }
+    }
+    for (int i = 0; i < outdated.size() && sampled < samplesPerRun; i++, sampled++) {
+      sample(outdated.get(i), now);
+    }
+    long sum = 0;
+    int count = 0;
+    for (final long[] sample : samples.values()) {
+      sum += sample[0];
+      ++count;
+    }
+    averageSize = count > 0 ? sum / count : 0;
+  }
+
+  /**
+   * @param session
+   * @return The estimated size in bytes (the average size if the session wasn't sampled yet).
+   */
+  public long getSize(final HashedSession session)
+  {
+    final long[] sample = samples.get(session.getClusterId());
+    return sample != null ? sample[0] : averageSize;
+  }
+
+  /**
+   * @return Average serialized size of the sampled sessions in bytes.
+   */
+  public long getAverageSize()
+  {
+    return averageSize;
+  }
+
+  public void remove(final String clusterId)
+  {
+    samples.remove(clusterId);
+  }
+
+  private void sample(final HashedSession session, final long now)
+  {
+    final CountingOutputStream out = new CountingOutputStream();
+    try {
+      session.save(out);
+      samples.put(session.getClusterId(), new long[] { out.count, now});
+    } catch (final Exception ex) {
+      // Not serializable attributes or concurrent modification:
+      log.debug("Can't estimate size of session " + session.getClusterId() + ": " + ex.getMessage());
+    }
+  }
+
+  private static class CountingOutputStream extends OutputStream
+  {
+    private long count;
+
+    @Override
+    public void write(final int b) throws IOException
+    {
+      ++count;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException
+    {
+      count += len;
+    }
+  }
+}
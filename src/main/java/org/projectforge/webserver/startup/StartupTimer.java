@@ -0,0 +1,185 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.startup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.component.LifeCycle;
+
+/**
+ * Records the durations of the start-up phases of the server (XML configuration, web app configurations, data source, servlets,
+ * connectors etc.). Phases running in parallel are recorded with their thread name. Also used for the phases of the graceful shutdown.
+ * Thread safe.
+ */
+public class StartupTimer
+{
+  private final long startNanos = System.nanoTime();
+
+  private final List<Phase> phases = new ArrayList<Phase>();
+
+  private final Map<String, Long> marks = new ConcurrentHashMap<String, Long>();
+
+  /**
+   * @return The current time in nanos, to be given to {@link #end(String, long)}.
+   */
+  public long begin()
+  {
+    return System.nanoTime();
+  }
+
+  /**
+   * Records a phase started at beginNanos and ending now.
+   * @param phase
+   * @param beginNanos
+   */
+  public void end(final String phase, final long beginNanos)
+  {
+    final long now = System.nanoTime();
+    final Phase entry = new Phase(phase, Thread.currentThread().getName(), (beginNanos - startNanos) / 1000000,
+        (now - beginNanos) / 1000000);
+    synchronized (phases) {
+      phases.add(entry);
+    }
+  }
+
+  /**
+   * Stores the current time under the given name (e. g. the end of one phase for measuring the time until the begin of another phase).
+   * @param name
+   */
+  public void mark(final String name)
+  {
+    marks.put(name, System.nanoTime());
+  }
+
+  /**
+   * @param name
+   * @return The time of the given mark in nanos or null if not marked.
+   */
+  public Long getMark(final String name)
+  {
+    return marks.get(name);
+  }
+
+  /**
+   * Records the phase from starting to started of the given life cycle (e. g. a connector or a web app context).
+   * @param lifeCycle
+   * @param phase
+   */
+  public void time(final LifeCycle lifeCycle, final String phase)
+  {
+    lifeCycle.addLifeCycleListener(new AbstractLifeCycle.AbstractLifeCycleListener() {
+      private long begin;
+
+      @Override
+      public void lifeCycleStarting(final LifeCycle event)
+      {
+        begin = begin();
+      }
+
+      @Override
+      public void lifeCycleStarted(final LifeCycle event)
+      {
+        end(phase, begin);
+      }
+    });
+  }
+
+  /**
+   * @return Milliseconds since creation of this timer.
+   */
+  public long getElapsedMillis()
+  {
+    return (System.nanoTime() - startNanos) / 1000000;
+  }
+
+  /**
+   * @return A copy of all phases in the order of their end.
+   */
+  public List<Phase> getPhases()
+  {
+    synchronized (phases) {
+      return new ArrayList<Phase>(phases);
+    }
+  }
+
+  /**
+   * @return A table of all phases: offset since start, duration, thread and name.
+   */
+  public String getReport()
+  {
+    final StringBuilder buf = new StringBuilder();
+    buf.append(String.format("%8s %8s  %-24s %s%n", "start", "duration", "thread", "phase"));
+    for (final Phase phase : getPhases()) {
+      buf.append(String.format("%6dms %6dms  %-24s %s%n", phase.getOffsetMillis(), phase.getMillis(), phase.getThread(), phase.getName()));
+    }
+    buf.append(String.format("Total: %dms%n", getElapsedMillis()));
+    return buf.toString();
+  }
+
+  public static class Phase
+  {
+    private final String name;
+
+    private final String thread;
+
+    private final long offsetMillis;
+
+    private final long millis;
+
+    Phase(final String name, final String thread, final long offsetMillis, final long millis)
+    {
+      this.name = name;
+      this.thread = thread;
+      this.offsetMillis = offsetMillis;
+      this.millis = millis;
+    }
+
+    public String getName()
+    {
+      return name;
+    }
+
+    public String getThread()
+    {
+      return thread;
+    }
+
+    /**
+     * @return Start of this phase in milliseconds since the start of the timer.
+     */
+    public long getOffsetMillis()
+    {
+      return offsetMillis;
+    }
+
+    public long getMillis()
+    {
+      return millis;
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.startup;
+
+import org.eclipse.jetty.webapp.Configuration;
+import org.eclipse.jetty.webapp.WebAppContext;
+
+/**
+ * Measures the pre-configure, configure and post-configure phases of a web app configuration (e. g. AnnotationConfiguration).
+ */
+public class TimedConfiguration implements Configuration
+{
+  /**
+   * Mark of the {@link StartupTimer} set after every configure phase.
+   */
+  public static final String MARK_CONFIGURED = "configured";
+
+  private final Configuration configuration;
+
+  private final StartupTimer timer;
+
+  private final String name;
+
+  public TimedConfiguration(final Configuration configuration, final StartupTimer timer)
+  {
+    this.configuration = configuration;
+    this.timer = timer;
+    this.name = configuration.getClass().getSimpleName();
+  }
+
+  public void preConfigure(final WebAppContext context) throws Exception
+  {
+    final long begin = timer.begin();
+    configuration.preConfigure(context);
+    timer.end(name + ".preConfigure", begin);
+  }
+
+  public void configure(final WebAppContext context) throws Exception
+  {
+    final long begin = timer.begin();
+    configuration.configure(context);
+    timer.end(name + ".configure", begin);
+    timer.mark(MARK_CONFIGURED);
+  }
+
+  public void postConfigure(final WebAppContext context) throws Exception
+  {
+    final long begin = timer.begin();
+    configuration.postConfigure(context);
+    timer.end(name + ".postConfigure", begin);
+  }
+
+  public void deconfigure(final WebAppContext context) throws Exception
+  {
+    configuration.deconfigure(context);
+  }
+
+  public void destroy(final WebAppContext context) throws Exception
+  {
+    configuration.destroy(context);
+  }
+
+  public void cloneConfigure(final WebAppContext template, final WebAppContext context) throws Exception
+  {
+    configuration.cloneConfigure(template, context);
+  }
+
+  /**
+   * @return The measured configuration.
+   */
+  public Configuration getConfiguration()
+  {
+    return configuration;
+  }
+}
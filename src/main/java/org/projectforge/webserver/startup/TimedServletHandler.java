@@ -0,0 +1,52 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.startup;
+
+import org.eclipse.jetty.servlet.ServletHandler;
+
+/**
+ * Measures the initialization of the filters and servlets (load-on-startup) and the time between the end of the web app configuration
+ * and this initialization (web.xml resolution and context listeners such as Spring's ContextLoaderListener).
+ */
+public class TimedServletHandler extends ServletHandler
+{
+  private final StartupTimer timer;
+
+  public TimedServletHandler(final StartupTimer timer)
+  {
+    this.timer = timer;
+  }
+
+  @Override
+  public void initialize() throws Exception
+  {
+    final Long configured = timer.getMark(TimedConfiguration.MARK_CONFIGURED);
+    if (configured != null) {
+      timer.end("Web.xml resolution and context listeners", configured);
+    }
+    final long begin = timer.begin();
+    super.initialize();
+    timer.end("Filter and servlet init", begin);
+  }
+}
@@ -0,0 +1,78 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Calendar;
+
+import org.junit.Test;
+
+public class HsqlMaintenanceTest
+{
+  @Test
+  public void parseTimes()
+  {
+    assertArrayEquals(new int[] { 150, 240}, HsqlMaintenance.parseTimes("02:30, 4"));
+    assertArrayEquals(new int[] { 185, 23 * 60 + 59}, HsqlMaintenance.parseTimes("3:05,23:59"));
+    assertArrayEquals(new int[] { 0}, HsqlMaintenance.parseTimes("00:00"));
+  }
+
+  @Test
+  public void parseInvalidTimes()
+  {
+    for (final String times : new String[] { null, "", " , ", "24:00", "12:60", "-1:00", "1:2:3", "ab", "3:xy"}) {
+      try {
+        HsqlMaintenance.parseTimes(times);
+        fail("IllegalArgumentException expected for '" + times + "'.");
+      } catch (final IllegalArgumentException ex) {
+        // Expected.
+      }
+    }
+  }
+
+  @Test
+  public void getNextRun()
+  {
+    final HsqlMaintenance maintenance = new HsqlMaintenance("jdbc:hsqldb:file:test", "sa", "", "14:30,02:00", false, null, 0, null, 0);
+    assertEquals(getTime(10, 2, 0), maintenance.getNextRun(getTime(10, 1, 0)));
+    assertEquals(getTime(10, 14, 30), maintenance.getNextRun(getTime(10, 2, 0))); // Not again at the same time.
+    assertEquals(getTime(10, 14, 30), maintenance.getNextRun(getTime(10, 2, 1)));
+    assertEquals(getTime(11, 2, 0), maintenance.getNextRun(getTime(10, 15, 0)));
+    assertEquals(getTime(11, 2, 0), maintenance.getNextRun(getTime(10, 23, 59)));
+  }
+
+  /**
+   * @return The time of the given day of March 2014 (no change of the daylight saving time around).
+   */
+  private long getTime(final int day, final int hour, final int minute)
+  {
+    final Calendar cal = Calendar.getInstance();
+    cal.clear();
+    cal.set(2014, Calendar.MARCH, day, hour, minute, 0);
+    return cal.getTimeInMillis();
+  }
+}
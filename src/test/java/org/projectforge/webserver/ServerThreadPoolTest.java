@@ -0,0 +1,135 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.projectforge.webserver.bench.BenchmarkStartHelper;
+import org.projectforge.webserver.bench.HelloServlet;
+
+/**
+ * Saturates the server thread pool with slow requests and checks that the connections which can't be queued anymore are answered with
+ * 503 by both connectors instead of being dropped or left waiting.
+ */
+public class ServerThreadPoolTest
+{
+  private static final int CLIENTS = 40;
+
+  @Test
+  public void overflowingConnectionsGet503()
+  {
+    for (final ConnectorMode mode : ConnectorMode.values()) {
+      final List<String> statusLines = saturate(mode);
+      assertEquals(mode + ": every client must get a response instead of a time-out", CLIENTS, statusLines.size());
+      assertTrue(mode + ": " + statusLines, statusLines.contains("HTTP/1.1 200 OK"));
+      assertTrue(mode + ": " + statusLines, statusLines.contains("HTTP/1.1 503 Service Unavailable"));
+    }
+  }
+
+  private List<String> saturate(final ConnectorMode mode)
+  {
+    final ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+    BenchmarkStartHelper helper = null;
+    try {
+      final int port = getFreePort();
+      final StartSettings settings = BenchmarkStartHelper.createStartSettings(port);
+      settings.setConnectorMode(mode);
+      settings.setThreadPoolMaxThreads(8);
+      settings.setThreadPoolQueueCapacity(2);
+      settings.setLowResourcesMonitor(false);
+      helper = new BenchmarkStartHelper(settings, BenchmarkStartHelper.createTempDir("projectforge-test-web"));
+      helper.addServlet("/sleep", new HelloServlet(16, 1000));
+      helper.start(false);
+      final List<Future<String>> futures = new ArrayList<Future<String>>();
+      for (int i = 0; i < CLIENTS; i++) {
+        futures.add(executor.submit(new Callable<String>() {
+          public String call() throws Exception
+          {
+            return getStatusLine(port, "/sleep");
+          }
+        }));
+      }
+      final List<String> statusLines = new ArrayList<String>();
+      for (final Future<String> future : futures) {
+        final String statusLine = future.get();
+        if (statusLine != null) {
+          statusLines.add(statusLine);
+        }
+      }
+      assertTrue(mode + ": " + helper.getThreadPool(), helper.getThreadPool().getRejectedJobs() > 0);
+      return statusLines;
+    } catch (final Exception ex) {
+      throw new RuntimeException(ex);
+    } finally {
+      executor.shutdownNow();
+      if (helper != null) {
+        helper.stop();
+      }
+    }
+  }
+
+  /**
+   * @return The status line or null if the server didn't answer within 5 seconds.
+   */
+  private static String getStatusLine(final int port, final String path) throws IOException
+  {
+    final Socket socket = new Socket("localhost", port);
+    try {
+      socket.setSoTimeout(5000);
+      final OutputStream out = socket.getOutputStream();
+      out.write(("GET " + path + " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n").getBytes());
+      out.flush();
+      return new BufferedReader(new InputStreamReader(socket.getInputStream(), "ISO-8859-1")).readLine();
+    } catch (final IOException ex) {
+      return null;
+    } finally {
+      socket.close();
+    }
+  }
+
+  private static int getFreePort() throws IOException
+  {
+    final ServerSocket serverSocket = new ServerSocket(0);
+    try {
+      return serverSocket.getLocalPort();
+    } finally {
+      serverSocket.close();
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+import org.junit.After;
+import org.junit.Test;
+import org.projectforge.common.DatabaseDialect;
+import org.projectforge.webserver.bench.BenchmarkStartHelper;
+import org.projectforge.webserver.jdbc.DataSourceFactory;
+import org.projectforge.webserver.jdbc.JdbcPoolSettings;
+
+/**
+ * Checks that a failing start-up stops the server and throws a {@link StartupException} instead of returning normally.
+ */
+public class StartupFailureTest
+{
+  @After
+  public void tearDown()
+  {
+    DataSourceFactory.close();
+    for (final String key : System.getProperties().stringPropertyNames()) {
+      if (key.startsWith(JdbcPoolSettings.PROPERTY_PREFIX) == true) {
+        System.clearProperty(key);
+      }
+    }
+  }
+
+  @Test
+  public void unreachableDataBase() throws IOException
+  {
+    final int port = getFreePort();
+    final StartSettings settings = createStartSettings(DatabaseDialect.HSQL, port);
+    // Nobody is listening on the port of the data base server:
+    settings.setJdbcUrl("jdbc:hsqldb:hsql://127.0.0.1:" + getFreePort() + "/projectforge");
+    settings.setJdbcConnectionTimeout(1000);
+    assertStartFails(settings);
+    assertFalse(DataSourceFactory.isInitialized());
+    assertPortFree(port);
+  }
+
+  @Test
+  public void occupiedPort() throws IOException
+  {
+    final ServerSocket serverSocket = new ServerSocket(0);
+    try {
+      assertStartFails(createStartSettings(null, serverSocket.getLocalPort()));
+    } finally {
+      serverSocket.close();
+    }
+  }
+
+  private void assertStartFails(final StartSettings settings) throws IOException
+  {
+    final BenchmarkStartHelper helper = new BenchmarkStartHelper(settings, BenchmarkStartHelper.createTempDir("projectforge-test-web"));
+    try {
+      helper.start(false);
+      fail("StartupException expected.");
+    } catch (final StartupException ex) {
+      assertTrue(helper.isStopped());
+    } finally {
+      helper.stop();
+    }
+  }
+
+  private static StartSettings createStartSettings(final DatabaseDialect dialect, final int port) throws IOException
+  {
+    final StartSettings settings = new StartSettings(dialect, BenchmarkStartHelper.createTempDir("projectforge-test").getAbsolutePath());
+    settings.setPort(port);
+    settings.setDevelopment(false);
+    settings.setShutdownHook(false);
+    settings.setLaunchBrowserAfterStartup(false);
+    settings.setWarCache(false);
+    settings.setQuickstart(false);
+    return settings;
+  }
+
+  private static void assertPortFree(final int port) throws IOException
+  {
+    new ServerSocket(port).close();
+  }
+
+  private static int getFreePort() throws IOException
+  {
+    final ServerSocket serverSocket = new ServerSocket(0);
+    try {
+      return serverSocket.getLocalPort();
+    } finally {
+      serverSocket.close();
+    }
+  }
+}
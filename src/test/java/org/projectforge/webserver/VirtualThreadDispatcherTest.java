@@ -0,0 +1,131 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * The dispatcher is tested with platform threads, so the test runs on Java versions without virtual threads too.
+ */
+public class VirtualThreadDispatcherTest
+{
+  private final List<Thread> threads = new CopyOnWriteArrayList<Thread>();
+
+  private final ThreadFactory threadFactory = new ThreadFactory() {
+    public Thread newThread(final Runnable runnable)
+    {
+      final Thread thread = new Thread(runnable, "VirtualThreadDispatcherTest-" + threads.size());
+      thread.setDaemon(true);
+      threads.add(thread);
+      return thread;
+    }
+  };
+
+  @Test
+  public void concurrencyLimit() throws InterruptedException
+  {
+    final VirtualThreadDispatcher dispatcher = new VirtualThreadDispatcher(threadFactory, 1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(2);
+    assertTrue(dispatcher.dispatch(new BlockingJob(release, done)));
+    assertTrue(dispatcher.dispatch(new BlockingJob(release, done)));
+    waitFor(dispatcher, 1, 1);
+    release.countDown();
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    waitFor(dispatcher, 0, 0);
+    assertEquals(2, dispatcher.getDispatchedJobs());
+    dispatcher.stop();
+    assertFalse(dispatcher.dispatch(new BlockingJob(release, done)));
+  }
+
+  @Test
+  public void interruptedJobIsRun() throws InterruptedException
+  {
+    final VirtualThreadDispatcher dispatcher = new VirtualThreadDispatcher(threadFactory, 1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(2);
+    dispatcher.dispatch(new BlockingJob(release, done));
+    waitFor(dispatcher, 1, 0); // So the second thread is the waiting one.
+    dispatcher.dispatch(new BlockingJob(release, done));
+    waitFor(dispatcher, 1, 1);
+    threads.get(1).interrupt();
+    // The interrupted job runs without permit instead of being dropped:
+    waitFor(dispatcher, 2, 0);
+    release.countDown();
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    waitFor(dispatcher, 0, 0);
+    // Only the permit of the first job is released, so the limit still holds:
+    final CountDownLatch third = new CountDownLatch(1);
+    final CountDownLatch fourth = new CountDownLatch(1);
+    final CountDownLatch block = new CountDownLatch(1);
+    dispatcher.dispatch(new BlockingJob(block, third));
+    dispatcher.dispatch(new BlockingJob(block, fourth));
+    waitFor(dispatcher, 1, 1);
+    block.countDown();
+    assertTrue(fourth.await(5, TimeUnit.SECONDS));
+  }
+
+  private static void waitFor(final VirtualThreadDispatcher dispatcher, final int active, final int waiting) throws InterruptedException
+  {
+    final long end = System.currentTimeMillis() + 5000;
+    while ((dispatcher.getActiveJobs() != active || dispatcher.getWaitingJobs() != waiting) && System.currentTimeMillis() < end) {
+      Thread.sleep(10);
+    }
+    assertEquals(dispatcher.toString(), active, dispatcher.getActiveJobs());
+    assertEquals(dispatcher.toString(), waiting, dispatcher.getWaitingJobs());
+  }
+
+  private static class BlockingJob implements Runnable
+  {
+    private final CountDownLatch release;
+
+    private final CountDownLatch done;
+
+    BlockingJob(final CountDownLatch release, final CountDownLatch done)
+    {
+      this.release = release;
+      this.done = done;
+    }
+
+    public void run()
+    {
+      try {
+        release.await(10, TimeUnit.SECONDS);
+      } catch (final InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      done.countDown();
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.admin;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AdminServerTest
+{
+  private AdminServer adminServer;
+
+  @Before
+  public void setUp() throws Exception
+  {
+    final AdminEndpoint endpoint = new AdminEndpoint() {
+      public void handle(final HttpServletRequest request, final HttpServletResponse response) throws IOException
+      {
+        AdminServer.writeText(response, "OK\n");
+      }
+    };
+    adminServer = new AdminServer("127.0.0.1", 0).addEndpoint("/public", endpoint).addEndpoint("/restricted", endpoint, true);
+    adminServer.start();
+  }
+
+  @After
+  public void tearDown()
+  {
+    adminServer.stop();
+  }
+
+  @Test
+  public void restrictedWithoutToken() throws IOException
+  {
+    assertEquals(200, getResponseCode("/public", null));
+    assertEquals(200, getResponseCode("/restricted", null)); // Loopback.
+    assertEquals(200, getResponseCode("/restricted", "any"));
+  }
+
+  @Test
+  public void restrictedWithToken() throws IOException
+  {
+    adminServer.setToken("secret");
+    assertEquals(200, getResponseCode("/public", null));
+    assertEquals(403, getResponseCode("/restricted", null));
+    assertEquals(403, getResponseCode("/restricted", "wrong"));
+    assertEquals(403, getResponseCode("/restricted", "secret2"));
+    assertEquals(200, getResponseCode("/restricted", "secret"));
+    assertEquals(404, getResponseCode("/unknown", null));
+  }
+
+  private int getResponseCode(final String path, final String token) throws IOException
+  {
+    final HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + adminServer.getLocalPort() + path)
+        .openConnection();
+    if (token != null) {
+      connection.setRequestProperty(AdminServer.TOKEN_HEADER, token);
+    }
+    try {
+      return connection.getResponseCode();
+    } finally {
+      connection.disconnect();
+    }
+  }
+}
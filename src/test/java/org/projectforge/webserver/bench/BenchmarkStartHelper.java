@@ -0,0 +1,113 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServlet;
+
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.webapp.WebAppContext;
+import org.projectforge.webserver.AbstractStartHelper;
+import org.projectforge.webserver.StartSettings;
+
+/**
+ * Start helper of the benchmarks: the server is configured by the start settings as the ProjectForge server, but the web app consists of
+ * the given servlets and the default servlet serving the files of the resource base.
+ */
+public class BenchmarkStartHelper extends AbstractStartHelper
+{
+  private final File resourceBase;
+
+  private final Map<String, HttpServlet> servlets = new LinkedHashMap<String, HttpServlet>();
+
+  /**
+   * @param startSettings
+   * @param resourceBase The directory of the static files (the web app root).
+   */
+  public BenchmarkStartHelper(final StartSettings startSettings, final File resourceBase)
+  {
+    super(startSettings);
+    this.resourceBase = resourceBase;
+  }
+
+  /**
+   * @param pathSpec
+   * @param servlet
+   * @return this for chaining.
+   */
+  public BenchmarkStartHelper addServlet(final String pathSpec, final HttpServlet servlet)
+  {
+    servlets.put(pathSpec, servlet);
+    return this;
+  }
+
+  @Override
+  protected WebAppContext getWebAppContext()
+  {
+    final WebAppContext webAppContext = new WebAppContext();
+    webAppContext.setContextPath("/");
+    webAppContext.setResourceBase(resourceBase.getAbsolutePath());
+    webAppContext.setParentLoaderPriority(true);
+    for (final Map.Entry<String, HttpServlet> entry : servlets.entrySet()) {
+      webAppContext.addServlet(new ServletHolder(entry.getValue()), entry.getKey());
+    }
+    return webAppContext;
+  }
+
+  /**
+   * @param port
+   * @return Start settings without data base, admin server, shutdown hook and browser launch for the given port.
+   * @throws IOException
+   */
+  public static StartSettings createStartSettings(final int port) throws IOException
+  {
+    final StartSettings settings = new StartSettings(createTempDir("projectforge-bench").getAbsolutePath());
+    settings.setPort(port);
+    settings.setDevelopment(false);
+    settings.setShutdownHook(false);
+    settings.setLaunchBrowserAfterStartup(false);
+    settings.setWarCache(false);
+    settings.setQuickstart(false);
+    return settings;
+  }
+
+  /**
+   * @param prefix
+   * @return A new temporary directory, deleted on exit of the JVM if empty.
+   * @throws IOException
+   */
+  public static File createTempDir(final String prefix) throws IOException
+  {
+    final File file = File.createTempFile(prefix, "");
+    if (file.delete() == false || file.mkdir() == false) {
+      throw new IOException("Can't create temporary directory '" + file.getAbsolutePath() + "'.");
+    }
+    file.deleteOnExit();
+    return file;
+  }
+}
@@ -0,0 +1,99 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.bench;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.projectforge.webserver.ConnectorMode;
+import org.projectforge.webserver.StartSettings;
+
+/**
+ * Load test of the connector modes: opens an increasing number of idle keep-alive connections and measures, whether new connections are
+ * still served, how many threads are held and the throughput of 20 clients besides the idle connections. With the blocking connector every
+ * idle connection holds a thread, so new connections aren't served anymore if the idle connections exceed the max threads.
+ * <p>
+ * Usage: ConnectorBenchmark [maxIdleConnections [maxThreads [port]]], defaults are 1000, 100 and 18180.
+ */
+public class ConnectorBenchmark
+{
+  public static void main(final String[] args) throws Exception
+  {
+    final int maxConnections = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    final int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+    final int port = args.length > 2 ? Integer.parseInt(args[2]) : 18180;
+    final List<String> report = new ArrayList<String>();
+    report.add(String.format("%-5s %8s %8s %8s %10s  %s", "mode", "idle", "served", "threads", "heap/conn", "throughput of 20 clients"));
+    for (final ConnectorMode mode : ConnectorMode.values()) {
+      for (int connections = maxConnections / 4; connections <= maxConnections; connections *= 2) {
+        report.add(run(mode, connections, maxThreads, port));
+      }
+    }
+    System.out.println();
+    System.out.println("Idle keep-alive connections (max threads " + maxThreads + "):");
+    for (final String line : report) {
+      System.out.println(line);
+    }
+  }
+
+  private static String run(final ConnectorMode mode, final int connections, final int maxThreads, final int port) throws Exception
+  {
+    final StartSettings settings = BenchmarkStartHelper.createStartSettings(port);
+    settings.setConnectorMode(mode);
+    settings.setThreadPoolMaxThreads(maxThreads);
+    settings.setMaxIdleTime(120000);
+    settings.setLowResourcesMonitor(false);
+    final BenchmarkStartHelper helper = new BenchmarkStartHelper(settings, BenchmarkStartHelper.createTempDir("projectforge-bench-web"));
+    helper.addServlet("/hello", new HelloServlet());
+    helper.start(false);
+    final List<Socket> sockets = new ArrayList<Socket>();
+    try {
+      final long heapBefore = HttpLoad.getUsedHeap();
+      int served = 0;
+      for (int i = 0; i < connections; i++) {
+        final Socket socket = HttpLoad.openIdleConnection(port, "/hello", 2000);
+        if (socket == null) {
+          break; // No thread left for new connections, the further ones won't be served either.
+        }
+        sockets.add(socket);
+        ++served;
+      }
+      final long heapPerConnection = served > 0 ? (HttpLoad.getUsedHeap() - heapBefore) / served : 0;
+      final int threads = helper.getThreadPool().getThreads();
+      final HttpLoad.Result result = HttpLoad.run("http://localhost:" + port + "/hello", 20, 3000);
+      return String.format("%-5s %8d %8d %8d %10d  %s", mode, connections, served, threads, heapPerConnection, result);
+    } finally {
+      for (final Socket socket : sockets) {
+        try {
+          socket.close();
+        } catch (final IOException ex) {
+          // Ignore.
+        }
+      }
+      helper.stop();
+    }
+  }
+}
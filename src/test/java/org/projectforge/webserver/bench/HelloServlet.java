@@ -0,0 +1,76 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.bench;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers every request with a small text of the given size, optionally after sleeping the given time (simulating a blocking call such as
+ * a data base query).
+ */
+public class HelloServlet extends HttpServlet
+{
+  private static final long serialVersionUID = 4370622462870271447L;
+
+  private final byte[] content;
+
+  private final long sleepMillis;
+
+  public HelloServlet()
+  {
+    this(16, 0);
+  }
+
+  /**
+   * @param size Size of the response in bytes.
+   * @param sleepMillis Time to sleep before answering.
+   */
+  public HelloServlet(final int size, final long sleepMillis)
+  {
+    this.content = new byte[size];
+    for (int i = 0; i < size; i++) {
+      content[i] = (byte) ('a' + i % 26);
+    }
+    this.sleepMillis = sleepMillis;
+  }
+
+  @Override
+  protected void doGet(final HttpServletRequest request, final HttpServletResponse response) throws IOException
+  {
+    if (sleepMillis > 0) {
+      try {
+        Thread.sleep(sleepMillis);
+      } catch (final InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    response.setContentType("text/plain");
+    response.setContentLength(content.length);
+    response.getOutputStream().write(content);
+  }
+}
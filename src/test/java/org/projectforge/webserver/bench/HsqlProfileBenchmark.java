@@ -0,0 +1,179 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.projectforge.webserver.HsqlProfile;
+
+/**
+ * Compares the HSQLDB profiles on a file data base with a timesheet-like table: inserts (each in its own transaction, as a user saving
+ * timesheets), queries of the timesheets of a user for a month, the time of the shutdown (checkpoint) and of reopening the data base and
+ * the size of the data base files. Every profile uses a new data base in a temporary directory.
+ * <p>
+ * Usage: HsqlProfileBenchmark [rows [queries]], defaults are 50000 and 2000.
+ */
+public class HsqlProfileBenchmark
+{
+  private static final int USERS = 50;
+
+  private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+  private static final long START_MILLIS = 1388534400000L; // 2014-01-01.
+
+  public static void main(final String[] args) throws Exception
+  {
+    final int rows = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+    final int queries = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+    Class.forName("org.hsqldb.jdbcDriver");
+    final List<String> report = new ArrayList<String>();
+    report.add(String.format("%-7s %10s %10s %11s %10s %10s", "profile", "inserts/s", "queries/s", "shutdown ms", "reopen ms", "files KB"));
+    run(HsqlProfile.NONE, Math.max(1000, rows / 5), queries / 5); // Warm-up of the JIT.
+    for (final HsqlProfile profile : HsqlProfile.values()) {
+      report.add(run(profile, rows, queries));
+    }
+    System.out.println();
+    System.out.println("HSQLDB profiles (" + rows + " timesheets of " + USERS + " users, " + queries + " month queries):");
+    for (final String line : report) {
+      System.out.println(line);
+    }
+  }
+
+  private static String run(final HsqlProfile profile, final int rows, final int queries) throws SQLException, IOException
+  {
+    final File dir = BenchmarkStartHelper.createTempDir("projectforge-bench-hsqldb");
+    final String url = profile.applyToUrl("jdbc:hsqldb:file:" + new File(dir, "projectforge").getAbsolutePath());
+    Connection connection = DriverManager.getConnection(url, "sa", "");
+    final Statement statement = connection.createStatement();
+    for (final String sql : profile.getStatements()) {
+      statement.execute(sql);
+    }
+    statement.execute("CREATE TABLE T_TIMESHEET (PK INTEGER NOT NULL PRIMARY KEY, USER_ID INTEGER NOT NULL, TASK_ID INTEGER NOT NULL, "
+        + "START_TIME TIMESTAMP NOT NULL, STOP_TIME TIMESTAMP NOT NULL, LOCATION VARCHAR(100), DESCRIPTION VARCHAR(4000), "
+        + "LAST_UPDATE TIMESTAMP)");
+    statement.execute("CREATE INDEX IDX_TIMESHEET_USER_START ON T_TIMESHEET (USER_ID, START_TIME)");
+    statement.close();
+    final double insertsPerSecond = insert(connection, rows);
+    final double queriesPerSecond = query(connection, rows, queries);
+    long begin = System.nanoTime();
+    final Statement shutdown = connection.createStatement();
+    shutdown.execute("SHUTDOWN");
+    shutdown.close();
+    connection.close();
+    final long shutdownMillis = (System.nanoTime() - begin) / 1000000;
+    begin = System.nanoTime();
+    connection = DriverManager.getConnection(url, "sa", "");
+    final Statement count = connection.createStatement();
+    final ResultSet rs = count.executeQuery("SELECT COUNT(*) FROM T_TIMESHEET");
+    rs.next();
+    if (rs.getInt(1) != rows) {
+      throw new IllegalStateException("Expected " + rows + " rows after reopening, found " + rs.getInt(1) + ".");
+    }
+    final long reopenMillis = (System.nanoTime() - begin) / 1000000;
+    count.execute("SHUTDOWN");
+    count.close();
+    connection.close();
+    long size = 0;
+    final File[] files = dir.listFiles();
+    for (final File file : files) {
+      size += file.length();
+      file.delete();
+    }
+    dir.delete();
+    return String.format("%-7s %10.0f %10.0f %11d %10d %10d", profile, insertsPerSecond, queriesPerSecond, shutdownMillis, reopenMillis,
+        size / 1024);
+  }
+
+  /**
+   * @return Inserts per second, every insert is committed.
+   */
+  private static double insert(final Connection connection, final int rows) throws SQLException
+  {
+    final Random random = new Random(42);
+    final StringBuilder description = new StringBuilder();
+    for (int i = 0; i < 20; i++) {
+      description.append("Implementation and review of the timesheet module ");
+    }
+    final PreparedStatement insert = connection.prepareStatement("INSERT INTO T_TIMESHEET VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+    final long begin = System.nanoTime();
+    for (int i = 0; i < rows; i++) {
+      final long start = START_MILLIS + (i / USERS) * DAY_MILLIS / 4;
+      insert.setInt(1, i);
+      insert.setInt(2, i % USERS);
+      insert.setInt(3, random.nextInt(500));
+      insert.setTimestamp(4, new Timestamp(start));
+      insert.setTimestamp(5, new Timestamp(start + 2 * 60 * 60 * 1000));
+      insert.setString(6, "Office");
+      insert.setString(7, description.substring(0, random.nextInt(description.length())));
+      insert.setTimestamp(8, new Timestamp(System.currentTimeMillis()));
+      insert.executeUpdate(); // Auto commit.
+    }
+    final long nanos = System.nanoTime() - begin;
+    insert.close();
+    return rows * 1000000000.0 / nanos;
+  }
+
+  /**
+   * @return Queries of the timesheets of a random user and month per second.
+   */
+  private static double query(final Connection connection, final int rows, final int queries) throws SQLException
+  {
+    final Random random = new Random(42);
+    final long days = Math.max(1, rows / USERS / 4);
+    final PreparedStatement select = connection
+        .prepareStatement("SELECT PK, TASK_ID, START_TIME, STOP_TIME, DESCRIPTION FROM T_TIMESHEET WHERE USER_ID = ? "
+            + "AND START_TIME >= ? AND START_TIME < ? ORDER BY START_TIME");
+    final long begin = System.nanoTime();
+    long found = 0;
+    for (int i = 0; i < queries; i++) {
+      final long from = START_MILLIS + (long) (random.nextDouble() * days) * DAY_MILLIS;
+      select.setInt(1, random.nextInt(USERS));
+      select.setTimestamp(2, new Timestamp(from));
+      select.setTimestamp(3, new Timestamp(from + 30 * DAY_MILLIS));
+      final ResultSet rs = select.executeQuery();
+      while (rs.next() == true) {
+        rs.getString(5);
+        ++found;
+      }
+      rs.close();
+    }
+    final long nanos = System.nanoTime() - begin;
+    select.close();
+    if (found == 0) {
+      throw new IllegalStateException("No timesheets found.");
+    }
+    return queries * 1000000000.0 / nanos;
+  }
+}
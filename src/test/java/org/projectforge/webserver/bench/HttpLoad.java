@@ -0,0 +1,239 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.projectforge.webserver.metrics.LatencyHistogram;
+
+/**
+ * Simple load generator of the benchmarks: a number of threads send GET requests over keep-alive connections (HttpURLConnection) as fast
+ * as possible for the given time. Also opens raw connections for measuring idle keep-alive connections.
+ */
+public class HttpLoad
+{
+  private static final int TIMEOUT_MILLIS = 5000;
+
+  /**
+   * The result of a load run.
+   */
+  public static class Result
+  {
+    public final long requests;
+
+    public final long errors;
+
+    public final long bytes;
+
+    public final long millis;
+
+    public final LatencyHistogram latency;
+
+    Result(final long requests, final long errors, final long bytes, final long millis, final LatencyHistogram latency)
+    {
+      this.requests = requests;
+      this.errors = errors;
+      this.bytes = bytes;
+      this.millis = millis;
+      this.latency = latency;
+    }
+
+    public double getRequestsPerSecond()
+    {
+      return millis > 0 ? requests * 1000.0 / millis : 0;
+    }
+
+    @Override
+    public String toString()
+    {
+      return String.format("%9.0f req/s, %8.1f MB/s, errors=%d, latency: %s", getRequestsPerSecond(), bytes * 1000.0 / millis / 1024 / 1024,
+          errors, latency);
+    }
+  }
+
+  /**
+   * Sends requests to the given url by the given number of threads for the given time. The load runs for a second before for warming up
+   * the JIT.
+   * @param url
+   * @param threads
+   * @param durationMillis
+   * @return The result (without the warm-up).
+   * @throws InterruptedException
+   */
+  public static Result run(final String url, final int threads, final long durationMillis) throws InterruptedException
+  {
+    run(url, threads, 1000, null);
+    return run(url, threads, durationMillis, null);
+  }
+
+  /**
+   * @param url
+   * @param threads
+   * @param durationMillis
+   * @param requestHeaders Additional request headers (name and value alternating), may be null.
+   * @return The result.
+   * @throws InterruptedException
+   */
+  public static Result run(final String url, final int threads, final long durationMillis, final String[] requestHeaders)
+      throws InterruptedException
+  {
+    final AtomicLong requests = new AtomicLong();
+    final AtomicLong errors = new AtomicLong();
+    final AtomicLong bytes = new AtomicLong();
+    final LatencyHistogram latency = new LatencyHistogram();
+    final long end = System.currentTimeMillis() + durationMillis;
+    final List<Thread> list = new ArrayList<Thread>();
+    for (int i = 0; i < threads; i++) {
+      final Thread thread = new Thread("HttpLoad-" + i) {
+        @Override
+        public void run()
+        {
+          final byte[] buf = new byte[8192];
+          while (System.currentTimeMillis() < end) {
+            final long start = System.nanoTime();
+            try {
+              final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+              connection.setConnectTimeout(TIMEOUT_MILLIS);
+              connection.setReadTimeout(TIMEOUT_MILLIS);
+              if (requestHeaders != null) {
+                for (int j = 0; j + 1 < requestHeaders.length; j += 2) {
+                  connection.setRequestProperty(requestHeaders[j], requestHeaders[j + 1]);
+                }
+              }
+              final int status = connection.getResponseCode();
+              final InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+              long read = 0;
+              if (in != null) {
+                int n;
+                while ((n = in.read(buf)) > 0) {
+                  read += n;
+                }
+                in.close(); // Keeps the connection alive.
+              }
+              latency.recordSince(start);
+              bytes.addAndGet(read);
+              if (status == 200 || status == 304) {
+                requests.incrementAndGet();
+              } else {
+                errors.incrementAndGet();
+              }
+            } catch (final IOException ex) {
+              errors.incrementAndGet();
+            }
+          }
+        }
+      };
+      list.add(thread);
+    }
+    final long begin = System.currentTimeMillis();
+    for (final Thread thread : list) {
+      thread.start();
+    }
+    for (final Thread thread : list) {
+      thread.join();
+    }
+    return new Result(requests.get(), errors.get(), bytes.get(), System.currentTimeMillis() - begin, latency);
+  }
+
+  /**
+   * Opens a connection, sends a keep-alive request and reads the response. The connection is kept open (idle).
+   * @param port
+   * @param path
+   * @param timeoutMillis Max time to wait for the response.
+   * @return The open connection or null if the request wasn't answered within the time-out.
+   * @throws IOException
+   */
+  public static Socket openIdleConnection(final int port, final String path, final int timeoutMillis) throws IOException
+  {
+    final Socket socket = new Socket("localhost", port);
+    socket.setSoTimeout(timeoutMillis);
+    final OutputStream out = socket.getOutputStream();
+    out.write(("GET " + path + " HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes("ISO-8859-1"));
+    out.flush();
+    try {
+      readResponse(socket.getInputStream());
+      return socket;
+    } catch (final IOException ex) {
+      socket.close();
+      return null;
+    }
+  }
+
+  /**
+   * Reads a response with content length.
+   * @param in
+   * @return The status code.
+   * @throws IOException
+   */
+  public static int readResponse(final InputStream in) throws IOException
+  {
+    final StringBuilder header = new StringBuilder();
+    while (header.length() < 4 || header.substring(header.length() - 4).equals("\r\n\r\n") == false) {
+      final int ch = in.read();
+      if (ch < 0) {
+        throw new IOException("Connection closed.");
+      }
+      header.append((char) ch);
+    }
+    final String headers = header.toString();
+    final int status = Integer.parseInt(headers.substring(9, 12));
+    int contentLength = 0;
+    for (final String line : headers.split("\r\n")) {
+      if (line.toLowerCase().startsWith("content-length:") == true) {
+        contentLength = Integer.parseInt(line.substring(15).trim());
+      }
+    }
+    for (int i = 0; i < contentLength; i++) {
+      if (in.read() < 0) {
+        throw new IOException("Connection closed.");
+      }
+    }
+    return status;
+  }
+
+  /**
+   * @return The used heap in bytes after garbage collection.
+   */
+  public static long getUsedHeap()
+  {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+      try {
+        Thread.sleep(100);
+      } catch (final InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    final Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,160 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.projectforge.webserver.StartSettings;
+
+/**
+ * Measures the effect of the keep-alive settings: the throughput for different max requests per connection (every closed connection
+ * costs a new TCP handshake) and, for different buffer sizes, the heap per connection and the throughput (responses larger than the
+ * response buffer are sent chunked). The heap is measured for idle keep-alive connections (the select channel connector returns the
+ * buffers of idle connections to the pool) and for connections with an incomplete request header (slow clients hold the header buffer).
+ * <p>
+ * Usage: KeepAliveBenchmark [threads [connections [durationMillis [port]]]], defaults are 8, 1000, 3000 and 18180.
+ */
+public class KeepAliveBenchmark
+{
+  private static final int[] MAX_REQUESTS_PER_CONNECTION = { 0, 1000, 100, 10, 1};
+
+  /**
+   * Request header, request and response buffer sizes, -1 is Jetty's default.
+   */
+  private static final int[][] BUFFER_SIZES = { { -1, -1, -1}, { 4 * 1024, 4 * 1024, 8 * 1024}, { 16 * 1024, 16 * 1024, 64 * 1024}};
+
+  private static final int RESPONSE_SIZE = 16 * 1024;
+
+  public static void main(final String[] args) throws Exception
+  {
+    final int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+    final int connections = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+    final long durationMillis = args.length > 2 ? Long.parseLong(args[2]) : 3000;
+    final int port = args.length > 3 ? Integer.parseInt(args[3]) : 18180;
+    final List<String> report = new ArrayList<String>();
+    final BenchmarkStartHelper warmUp = start(BenchmarkStartHelper.createStartSettings(port));
+    try {
+      HttpLoad.run("http://localhost:" + port + "/hello", threads, 5000, null); // Warm-up of the JIT.
+    } finally {
+      warmUp.stop();
+    }
+    report.add(String.format("%-12s %s", "max requests", "throughput"));
+    for (final int maxRequests : MAX_REQUESTS_PER_CONNECTION) {
+      final StartSettings settings = BenchmarkStartHelper.createStartSettings(port);
+      settings.setMaxRequestsPerConnection(maxRequests);
+      final BenchmarkStartHelper helper = start(settings);
+      try {
+        final HttpLoad.Result result = HttpLoad.run("http://localhost:" + port + "/hello", threads, durationMillis);
+        report.add(String.format("%-12s %s", maxRequests > 0 ? String.valueOf(maxRequests) : "unlimited", result));
+      } finally {
+        helper.stop();
+      }
+    }
+    report.add("");
+    report.add(String.format("%-7s %-7s %-8s %9s %9s  %s", "header", "request", "response", "idle/conn", "slow/conn", "throughput ("
+        + RESPONSE_SIZE / 1024
+        + "KB responses)"));
+    for (final int[] sizes : BUFFER_SIZES) {
+      final StartSettings settings = BenchmarkStartHelper.createStartSettings(port);
+      settings.setRequestHeaderSize(sizes[0]);
+      settings.setRequestBufferSize(sizes[1]);
+      settings.setResponseBufferSize(sizes[2]);
+      settings.setMaxIdleTime(120000);
+      settings.setLowResourcesMonitor(false);
+      final BenchmarkStartHelper helper = start(settings);
+      try {
+        final long idle = getHeapPerConnection(port, connections, false);
+        final long slow = getHeapPerConnection(port, connections, true);
+        final HttpLoad.Result result = HttpLoad.run("http://localhost:" + port + "/hello", threads, durationMillis);
+        report.add(String.format("%-7s %-7s %-8s %9d %9d  %s", getSize(sizes[0]), getSize(sizes[1]), getSize(sizes[2]), idle, slow,
+            result));
+      } finally {
+        helper.stop();
+      }
+    }
+    System.out.println();
+    System.out.println("Keep-alive (" + threads + " threads, " + connections + " connections for the heap per connection):");
+    for (final String line : report) {
+      System.out.println(line);
+    }
+  }
+
+  private static BenchmarkStartHelper start(final StartSettings settings) throws IOException
+  {
+    final BenchmarkStartHelper helper = new BenchmarkStartHelper(settings, BenchmarkStartHelper.createTempDir("projectforge-bench-web"));
+    helper.addServlet("/hello", new HelloServlet(RESPONSE_SIZE, 0));
+    helper.start(false);
+    return helper;
+  }
+
+  /**
+   * @param slow If true, the connections send an incomplete request header, otherwise a complete request (idle afterwards).
+   * @return The heap per open connection in bytes.
+   */
+  private static long getHeapPerConnection(final int port, final int connections, final boolean slow) throws IOException
+  {
+    final List<Socket> sockets = new ArrayList<Socket>();
+    try {
+      final long heapBefore = HttpLoad.getUsedHeap();
+      for (int i = 0; i < connections; i++) {
+        if (slow == true) {
+          final Socket socket = new Socket("localhost", port);
+          final OutputStream out = socket.getOutputStream();
+          out.write("GET /hello HTTP/1.1\r\nHost: localhost\r\nUser-Agent: KeepAliveBenchmark\r\n".getBytes("ISO-8859-1"));
+          out.flush();
+          sockets.add(socket);
+        } else {
+          final Socket socket = HttpLoad.openIdleConnection(port, "/hello", 2000);
+          if (socket == null) {
+            break;
+          }
+          sockets.add(socket);
+        }
+      }
+      try {
+        Thread.sleep(500); // Gives the server the time to read the requests.
+      } catch (final InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      return sockets.isEmpty() == false ? (HttpLoad.getUsedHeap() - heapBefore) / sockets.size() : 0;
+    } finally {
+      for (final Socket socket : sockets) {
+        try {
+          socket.close();
+        } catch (final IOException ex) {
+          // Ignore.
+        }
+      }
+    }
+  }
+
+  private static String getSize(final int size)
+  {
+    return size > 0 ? size / 1024 + "KB" : "default";
+  }
+}
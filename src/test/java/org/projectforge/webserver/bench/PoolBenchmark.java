@@ -0,0 +1,140 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.bench;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.projectforge.webserver.jdbc.ConnectionPool;
+import org.projectforge.webserver.jdbc.DataSourceFactory;
+import org.projectforge.webserver.jdbc.JdbcPoolSettings;
+import org.projectforge.webserver.jdbc.JdbcPoolType;
+import org.projectforge.webserver.metrics.LatencyHistogram;
+
+/**
+ * Compares the borrow/return throughput of the connection pools: the given number of threads borrow a connection from the pool, optionally
+ * run a trivial query and return the connection as fast as possible. The pools use an in-memory HSQLDB, so the figures show the overhead
+ * of the pools (and the contention on their locks if there are more threads than connections) and not of the data base.
+ * <p>
+ * Usage: PoolBenchmark [maxActive [durationMillis [query]]], defaults are 16, 3000 and false.
+ */
+public class PoolBenchmark
+{
+  private static final int[] THREADS = { 1, 4, 16, 64};
+
+  private static final String VALIDATION_QUERY = "SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS";
+
+  public static void main(final String[] args) throws Exception
+  {
+    final int maxActive = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+    final long durationMillis = args.length > 1 ? Long.parseLong(args[1]) : 3000;
+    final boolean query = args.length > 2 ? Boolean.parseBoolean(args[2]) : false;
+    Class.forName("org.hsqldb.jdbcDriver");
+    final List<String> report = new ArrayList<String>();
+    report.add(String.format("%-7s %7s %12s  %s", "pool", "threads", "ops/s", "borrow latency"));
+    for (final JdbcPoolType type : JdbcPoolType.values()) {
+      final JdbcPoolSettings settings = new JdbcPoolSettings().setName("bench-" + type).setType(type)
+          .setDriverClassName("org.hsqldb.jdbcDriver").setUrl("jdbc:hsqldb:mem:poolbench").setUser("sa").setPassword("")
+          .setMaxActive(maxActive).setMinIdle(maxActive).setMaxIdle(maxActive).setValidationQuery(VALIDATION_QUERY).setMonitoring(false);
+      final ConnectionPool pool = DataSourceFactory.createConnectionPool(settings);
+      try {
+        run(pool.getDataSource(), 4, 1000, query); // Warm-up of the JIT.
+        for (final int threads : THREADS) {
+          report.add(String.format("%-7s %7d %s", type, threads, run(pool.getDataSource(), threads, durationMillis, query)));
+        }
+      } finally {
+        pool.close();
+      }
+    }
+    System.out.println();
+    System.out.println("Borrow/return of connections (maxActive " + maxActive + (query == true ? ", with query" : "") + "):");
+    for (final String line : report) {
+      System.out.println(line);
+    }
+  }
+
+  private static String run(final DataSource dataSource, final int threads, final long durationMillis, final boolean query)
+      throws InterruptedException
+  {
+    final AtomicLong operations = new AtomicLong();
+    final AtomicLong errors = new AtomicLong();
+    final LatencyHistogram latency = new LatencyHistogram();
+    final CountDownLatch startSignal = new CountDownLatch(1);
+    final List<Thread> list = new ArrayList<Thread>();
+    final long[] end = new long[1];
+    for (int i = 0; i < threads; i++) {
+      final Thread thread = new Thread("PoolBenchmark-" + i) {
+        @Override
+        public void run()
+        {
+          try {
+            startSignal.await();
+          } catch (final InterruptedException ex) {
+            return;
+          }
+          long count = 0;
+          while (System.currentTimeMillis() < end[0]) {
+            final long start = System.nanoTime();
+            try {
+              final Connection connection = dataSource.getConnection();
+              latency.recordSince(start);
+              try {
+                if (query == true) {
+                  final Statement statement = connection.createStatement();
+                  final ResultSet rs = statement.executeQuery(VALIDATION_QUERY);
+                  rs.next();
+                  rs.close();
+                  statement.close();
+                }
+              } finally {
+                connection.close();
+              }
+              ++count;
+            } catch (final Exception ex) {
+              errors.incrementAndGet();
+            }
+          }
+          operations.addAndGet(count);
+        }
+      };
+      list.add(thread);
+      thread.start();
+    }
+    final long start = System.currentTimeMillis();
+    end[0] = start + durationMillis;
+    startSignal.countDown();
+    for (final Thread thread : list) {
+      thread.join();
+    }
+    final long millis = System.currentTimeMillis() - start;
+    return String.format("%12.0f  %s, errors=%d", operations.get() * 1000.0 / millis, latency, errors.get());
+  }
+}
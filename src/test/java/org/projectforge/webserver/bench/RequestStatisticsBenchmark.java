@@ -0,0 +1,172 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.bench;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.io.ByteArrayEndPoint;
+import org.eclipse.jetty.server.BlockingHttpConnection;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.projectforge.webserver.StartSettings;
+import org.projectforge.webserver.handler.RequestStatisticsHandler;
+import org.projectforge.webserver.handler.RouteGrouping;
+
+/**
+ * Measures the overhead of the {@link RequestStatisticsHandler}. The first part calls the handler directly (with a trivial wrapped
+ * handler), so the overhead isn't hidden by Jetty and the network stack. The second part measures the whole server over http with request
+ * statistics switched on and off.
+ * <p>
+ * Usage: RequestStatisticsBenchmark [durationMillis [port]], defaults are 3000 and 18180.
+ */
+public class RequestStatisticsBenchmark
+{
+  private static final String[] PATHS = { "/ProjectForge/wicket/bookmarkable/org.projectforge.web.timesheet.TimesheetListPage",
+      "/ProjectForge/wicket/resource/org.apache.wicket.ajax.AbstractDefaultAjaxBehavior/res/js/wicket-ajax-jquery-ver-1380103264000.js",
+      "/ProjectForge/rest/task/4711", "/ProjectForge/styles/projectforge.css", "/ProjectForge/wa/timesheetEdit;jsessionid=abc?id=12"};
+
+  private static final int[] THREADS = { 1, 8};
+
+  public static void main(final String[] args) throws Exception
+  {
+    final long durationMillis = args.length > 0 ? Long.parseLong(args[0]) : 3000;
+    final int port = args.length > 1 ? Integer.parseInt(args[1]) : 18180;
+    final List<String> report = new ArrayList<String>();
+    report.add(String.format("%-10s %-10s %7s %12s", "call", "statistics", "threads", "ns/request"));
+    for (final int threads : THREADS) {
+      for (final boolean statistics : new boolean[] { false, true}) {
+        report.add(String.format("%-10s %-10s %7d %12.0f", "direct", statistics, threads, runDirect(statistics, threads, durationMillis)));
+      }
+    }
+    runHttp(false, port, durationMillis); // Warm-up of Jetty, otherwise the first run is slower.
+    // Alternating runs show the noise of the http figures:
+    for (final boolean statistics : new boolean[] { false, true, false, true}) {
+      final HttpLoad.Result result = runHttp(statistics, port, durationMillis);
+      report.add(String.format("%-10s %-10s %7d %12.0f  %s", "http", statistics, 20, 1000000000.0 / result.getRequestsPerSecond(),
+          result));
+    }
+    System.out.println();
+    System.out.println("Overhead of the request statistics:");
+    for (final String line : report) {
+      System.out.println(line);
+    }
+  }
+
+  /**
+   * Calls the handler directly with a request and response of a connection without network (no Jetty stack around).
+   * @return Nanoseconds per request (wall clock time divided by the requests of all threads).
+   */
+  private static double runDirect(final boolean statistics, final int threads, final long durationMillis) throws Exception
+  {
+    final Handler target = new AbstractHandler() {
+      public void handle(final String target, final Request baseRequest, final HttpServletRequest request,
+          final HttpServletResponse response) throws IOException, ServletException
+      {
+        response.setStatus(HttpServletResponse.SC_OK);
+        baseRequest.setHandled(true);
+      }
+    };
+    final Handler handler;
+    if (statistics == true) {
+      final RequestStatisticsHandler statisticsHandler = new RequestStatisticsHandler(new RouteGrouping(), 100);
+      statisticsHandler.setHandler(target);
+      handler = statisticsHandler;
+    } else {
+      handler = target;
+    }
+    final Server server = new Server();
+    server.setHandler(handler);
+    server.start();
+    try {
+      runDirectLoad(server, handler, threads, 1000); // Warm-up of the JIT.
+      return runDirectLoad(server, handler, threads, durationMillis);
+    } finally {
+      server.stop();
+    }
+  }
+
+  private static double runDirectLoad(final Server server, final Handler handler, final int threads, final long durationMillis)
+      throws InterruptedException
+  {
+    final AtomicLong requests = new AtomicLong();
+    final long start = System.nanoTime();
+    final long end = System.currentTimeMillis() + durationMillis;
+    final List<Thread> list = new ArrayList<Thread>();
+    for (int i = 0; i < threads; i++) {
+      final Thread thread = new Thread("RequestStatisticsBenchmark-" + i) {
+        @Override
+        public void run()
+        {
+          final BlockingHttpConnection connection = new BlockingHttpConnection(new LocalConnector(), new ByteArrayEndPoint(new byte[0],
+              1024), server);
+          final Request request = connection.getRequest();
+          final Response response = connection.getResponse();
+          long count = 0;
+          try {
+            while ((count & 0xFF) != 0 || System.currentTimeMillis() < end) {
+              request.setHandled(false);
+              handler.handle(PATHS[(int) (count % PATHS.length)], request, request, response);
+              ++count;
+            }
+          } catch (final Exception ex) {
+            ex.printStackTrace();
+          }
+          requests.addAndGet(count);
+        }
+      };
+      list.add(thread);
+      thread.start();
+    }
+    for (final Thread thread : list) {
+      thread.join();
+    }
+    return (double) (System.nanoTime() - start) / requests.get();
+  }
+
+  private static HttpLoad.Result runHttp(final boolean statistics, final int port, final long durationMillis) throws Exception
+  {
+    final StartSettings settings = BenchmarkStartHelper.createStartSettings(port);
+    settings.setRequestStatistics(statistics);
+    settings.setLowResourcesMonitor(false);
+    final BenchmarkStartHelper helper = new BenchmarkStartHelper(settings, BenchmarkStartHelper.createTempDir("projectforge-bench-web"));
+    helper.addServlet("/rest/*", new HelloServlet());
+    helper.start(false);
+    try {
+      return HttpLoad.run("http://localhost:" + port + "/rest/task/4711", 20, durationMillis);
+    } finally {
+      helper.stop();
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.projectforge.webserver.StartSettings;
+
+/**
+ * Compares serving static files by Jetty's DefaultServlet without and with the static resource cache (static content mode): throughput
+ * of unconditional requests for a small, a medium and a large file and of conditional requests with the ETag of the file or, without
+ * ETag, its modification time (answered by 304 Not Modified).
+ * <p>
+ * Usage: StaticResourceBenchmark [threads [durationMillis [port]]], defaults are 8, 3000 and 18180.
+ */
+public class StaticResourceBenchmark
+{
+  private static final String[] FILES = { "small.css", "medium.js", "large.png"};
+
+  private static final int[] SIZES = { 2 * 1024, 60 * 1024, 400 * 1024};
+
+  public static void main(final String[] args) throws Exception
+  {
+    final int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+    final long durationMillis = args.length > 1 ? Long.parseLong(args[1]) : 3000;
+    final int port = args.length > 2 ? Integer.parseInt(args[2]) : 18180;
+    final File resourceBase = BenchmarkStartHelper.createTempDir("projectforge-bench-web");
+    final Random random = new Random(42);
+    for (int i = 0; i < FILES.length; i++) {
+      final byte[] content = new byte[SIZES[i]];
+      random.nextBytes(content);
+      final File file = new File(resourceBase, FILES[i]);
+      file.deleteOnExit();
+      final OutputStream out = new FileOutputStream(file);
+      try {
+        out.write(content);
+      } finally {
+        out.close();
+      }
+    }
+    final List<String> report = new ArrayList<String>();
+    report.add(String.format("%-6s %-10s %-17s %s", "cache", "file", "request", "throughput"));
+    for (final boolean cache : new boolean[] { false, true}) {
+      final StartSettings settings = BenchmarkStartHelper.createStartSettings(port);
+      settings.setStaticContent(cache);
+      final BenchmarkStartHelper helper = new BenchmarkStartHelper(settings, resourceBase);
+      helper.start(false);
+      try {
+        for (final String file : FILES) {
+          HttpLoad.run("http://localhost:" + port + "/" + file, threads, 2000, null); // Warm-up of the JIT.
+        }
+        for (final String file : FILES) {
+          final String url = "http://localhost:" + port + "/" + file;
+          report.add(String.format("%-6s %-10s %-17s %s", cache == true ? "on" : "off", file, "full", HttpLoad.run(url, threads,
+              durationMillis)));
+          final String[] condition = getCondition(url);
+          if (condition != null) {
+            report.add(String.format("%-6s %-10s %-17s %s", cache == true ? "on" : "off", file, condition[0],
+                HttpLoad.run(url, threads, durationMillis, condition)));
+          }
+        }
+      } finally {
+        helper.stop();
+      }
+    }
+    System.out.println();
+    System.out.println("Static resources (" + threads + " threads):");
+    for (final String line : report) {
+      System.out.println(line);
+    }
+  }
+
+  /**
+   * @return The request header (name and value) of a conditional request for the given url or null if the response has no validator.
+   */
+  private static String[] getCondition(final String url) throws IOException
+  {
+    final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+    try {
+      connection.getResponseCode();
+      final String etag = connection.getHeaderField("ETag");
+      if (etag != null) {
+        return new String[] { "If-None-Match", etag};
+      }
+      final String lastModified = connection.getHeaderField("Last-Modified");
+      return lastModified != null ? new String[] { "If-Modified-Since", lastModified} : null;
+    } finally {
+      connection.disconnect();
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.projectforge.webserver.ConnectorMode;
+import org.projectforge.webserver.RequestExecutionMode;
+import org.projectforge.webserver.StartSettings;
+
+/**
+ * Compares processing requests on the server thread pool and on virtual threads (non-blocking connector) for requests blocking for some
+ * time (simulating a data base query) and an increasing number of clients. With platform threads the throughput is limited to max threads
+ * divided by the blocking time, with virtual threads by the concurrency limit (unlimited and the given limit). Requires Java 21+ for the
+ * virtual threads.
+ * <p>
+ * Usage: VirtualThreadBenchmark [sleepMillis [maxThreads [maxConcurrent [durationMillis [port]]]]], defaults are 50, 50, 50, 3000 and
+ * 18180.
+ */
+public class VirtualThreadBenchmark
+{
+  private static final int[] CLIENTS = { 20, 100, 400};
+
+  public static void main(final String[] args) throws Exception
+  {
+    final long sleepMillis = args.length > 0 ? Long.parseLong(args[0]) : 50;
+    final int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+    final int maxConcurrent = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+    final long durationMillis = args.length > 3 ? Long.parseLong(args[3]) : 3000;
+    final int port = args.length > 4 ? Integer.parseInt(args[4]) : 18180;
+    final List<String> report = new ArrayList<String>();
+    report.add(String.format("%-8s %10s %7s %8s  %s", "mode", "concurrent", "clients", "threads", "throughput"));
+    run(report, RequestExecutionMode.PLATFORM, 0, sleepMillis, maxThreads, durationMillis, port);
+    run(report, RequestExecutionMode.VIRTUAL, 0, sleepMillis, maxThreads, durationMillis, port);
+    run(report, RequestExecutionMode.VIRTUAL, maxConcurrent, sleepMillis, maxThreads, durationMillis, port);
+    System.out.println();
+    System.out.println("Requests blocking " + sleepMillis + "ms (max threads " + maxThreads + "):");
+    for (final String line : report) {
+      System.out.println(line);
+    }
+  }
+
+  private static void run(final List<String> report, final RequestExecutionMode mode, final int maxConcurrent, final long sleepMillis,
+      final int maxThreads, final long durationMillis, final int port) throws Exception
+  {
+    final StartSettings settings = BenchmarkStartHelper.createStartSettings(port);
+    settings.setConnectorMode(ConnectorMode.NIO);
+    settings.setRequestExecutionMode(mode);
+    settings.setVirtualThreadsMaxConcurrent(maxConcurrent);
+    settings.setThreadPoolMaxThreads(maxThreads);
+    settings.setLowResourcesMonitor(false);
+    final BenchmarkStartHelper helper = new BenchmarkStartHelper(settings, BenchmarkStartHelper.createTempDir("projectforge-bench-web"));
+    helper.addServlet("/hello", new HelloServlet(1024, sleepMillis));
+    helper.start(false);
+    try {
+      if (mode == RequestExecutionMode.VIRTUAL && helper.getThreadPool().getVirtualThreadDispatcher() == null) {
+        report.add(String.format("%-8s %10s  virtual threads not supported by Java %s", mode, "", System.getProperty("java.version")));
+        return;
+      }
+      for (final int clients : CLIENTS) {
+        final HttpLoad.Result result = HttpLoad.run("http://localhost:" + port + "/hello", clients, durationMillis);
+        final String concurrent = mode == RequestExecutionMode.PLATFORM ? "-" : (maxConcurrent > 0 ? String.valueOf(maxConcurrent)
+            : "unlimited");
+        report.add(String.format("%-8s %10s %7d %8d  %s", mode, concurrent, clients, helper.getThreadPool().getThreads(), result));
+      }
+    } finally {
+      helper.stop();
+    }
+  }
+}
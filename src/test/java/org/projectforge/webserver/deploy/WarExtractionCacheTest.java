@@ -0,0 +1,105 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.deploy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.eclipse.jetty.util.IO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WarExtractionCacheTest
+{
+  private File dir;
+
+  private File cacheDir;
+
+  @Before
+  public void setUp() throws IOException
+  {
+    dir = File.createTempFile("WarExtractionCacheTest", "");
+    dir.delete();
+    dir.mkdirs();
+    cacheDir = new File(dir, "cache");
+  }
+
+  @After
+  public void tearDown()
+  {
+    IO.delete(dir);
+  }
+
+  @Test
+  public void reuseUnchangedWar() throws IOException
+  {
+    final File war = createWar("projectforge.war", "index.html");
+    final WarExtractionCache cache = new WarExtractionCache(cacheDir);
+    final File extracted = cache.getExtractedWar(war);
+    assertEquals(WarExtractionCache.getKey(war), extracted.getName());
+    assertTrue(new File(extracted, "index.html").isFile());
+    assertEquals(extracted, cache.getExtractedWar(war));
+  }
+
+  @Test
+  public void deleteOnlyStaleExtractionsOfSameWar() throws IOException
+  {
+    final File war = createWar("projectforge.war", "index.html");
+    final File otherWar = createWar("projectforge-cafe.war", "other.html");
+    final WarExtractionCache cache = new WarExtractionCache(cacheDir);
+    final File other = cache.getExtractedWar(otherWar);
+    final File stale = cache.getExtractedWar(war);
+    final File staleTmp = new File(cacheDir, "projectforge-1-2.tmp");
+    staleTmp.mkdirs();
+    war.setLastModified(war.lastModified() - 10000);
+    final File current = cache.getExtractedWar(war);
+    assertFalse(current.equals(stale));
+    assertTrue(current.isDirectory());
+    assertFalse(stale.exists());
+    assertFalse(staleTmp.exists());
+    assertTrue(other.isDirectory());
+  }
+
+  private File createWar(final String name, final String entry) throws IOException
+  {
+    final File war = new File(dir, name);
+    final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(war));
+    try {
+      out.putNextEntry(new ZipEntry(entry));
+      out.write("<html/>".getBytes("UTF-8"));
+      out.closeEntry();
+    } finally {
+      out.close();
+    }
+    return war;
+  }
+}
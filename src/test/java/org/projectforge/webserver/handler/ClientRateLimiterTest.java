@@ -0,0 +1,98 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ClientRateLimiterTest
+{
+  @Test
+  public void acquireToken() throws InterruptedException
+  {
+    final ClientRateLimiter limiter = new ClientRateLimiter(10, 3, 0, 100);
+    final ClientRateLimiter.Client client = limiter.getClient("client");
+    for (int i = 0; i < 3; i++) {
+      assertEquals("Request " + i + " of the burst.", 0, limiter.acquireToken(client));
+    }
+    final long waitNanos = limiter.acquireToken(client);
+    assertTrue(waitNanos > 0);
+    assertTrue(waitNanos <= TimeUnit.MILLISECONDS.toNanos(100));
+    assertTrue(limiter.acquireToken(client) > 0); // A rejected request doesn't take a token.
+    assertEquals(0, limiter.acquireToken(limiter.getClient("other")));
+    Thread.sleep(TimeUnit.NANOSECONDS.toMillis(waitNanos) + 10);
+    assertEquals(0, limiter.acquireToken(client));
+    assertTrue(limiter.acquireToken(client) > 0);
+  }
+
+  @Test
+  public void acquireTokenWithoutRateLimit()
+  {
+    final ClientRateLimiter limiter = new ClientRateLimiter(0, 1, 0, 100);
+    final ClientRateLimiter.Client client = limiter.getClient("client");
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(0, limiter.acquireToken(client));
+    }
+  }
+
+  @Test
+  public void acquireConcurrency()
+  {
+    final ClientRateLimiter limiter = new ClientRateLimiter(0, 1, 2, 100);
+    final ClientRateLimiter.Client client = limiter.getClient("client");
+    assertTrue(limiter.acquireConcurrency(client));
+    assertTrue(limiter.acquireConcurrency(client));
+    assertFalse(limiter.acquireConcurrency(client));
+    limiter.release(client);
+    assertTrue(limiter.acquireConcurrency(client));
+  }
+
+  @Test
+  public void overflowClient() throws InterruptedException
+  {
+    final ClientRateLimiter limiter = new ClientRateLimiter(10, 1, 0, 2);
+    assertEquals(0, limiter.acquireToken(limiter.getClient("a")));
+    assertEquals(0, limiter.acquireToken(limiter.getClient("b")));
+    final ClientRateLimiter.Client overflow = limiter.getClient("c");
+    assertSame(overflow, limiter.getClient("d"));
+    assertEquals(2, limiter.getUntrackedRequests());
+    // The clients beyond the max number share the limits:
+    assertEquals(0, limiter.acquireToken(overflow));
+    assertTrue(limiter.acquireToken(limiter.getClient("e")) > 0);
+    // The buckets of a and b are full again, but the eviction runs at most once per second:
+    Thread.sleep(200);
+    assertSame(overflow, limiter.getClient("f"));
+    Thread.sleep(1000);
+    final ClientRateLimiter.Client client = limiter.getClient("g");
+    assertNotSame(overflow, client);
+    assertEquals(1, limiter.getClients());
+  }
+}
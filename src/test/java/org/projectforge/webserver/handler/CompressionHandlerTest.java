@@ -0,0 +1,174 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.nio.SelectChannelConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompressionHandlerTest
+{
+  private static final int MIN_SIZE = 256;
+
+  private Server server;
+
+  private SelectChannelConnector connector;
+
+  @Before
+  public void setUp() throws Exception
+  {
+    server = new Server();
+    connector = new SelectChannelConnector();
+    connector.setHost("127.0.0.1");
+    connector.setPort(0);
+    server.addConnector(connector);
+    final ServletContextHandler context = new ServletContextHandler();
+    context.setContextPath("/");
+    context.addServlet(new ServletHolder(new HttpServlet() {
+      @Override
+      protected void doGet(final HttpServletRequest request, final HttpServletResponse response) throws IOException
+      {
+        final int size = Integer.parseInt(request.getParameter("size"));
+        response.setContentType(request.getParameter("type"));
+        if (request.getParameter("length") != null) {
+          response.setContentLength(size);
+        }
+        if (request.getParameter("stream") != null) {
+          response.getOutputStream().write(createContent(size).getBytes("UTF-8"));
+        } else {
+          response.getWriter().write(createContent(size));
+        }
+      }
+    }), "/*");
+    final CompressionHandler handler = new CompressionHandler(CompressionHandler.DEFAULT_MIME_TYPES, MIN_SIZE, -1, 4);
+    handler.setHandler(context);
+    server.setHandler(handler);
+    server.start();
+  }
+
+  @After
+  public void tearDown() throws Exception
+  {
+    server.stop();
+  }
+
+  @Test
+  public void smallResponsesAreNotCompressed() throws IOException
+  {
+    assertUncompressed(95, "size=95&type=text/html");
+    assertUncompressed(95, "size=95&type=text/html&stream=true");
+    assertUncompressed(95, "size=95&type=text/html&length=true");
+    assertUncompressed(MIN_SIZE - 1, "size=" + (MIN_SIZE - 1) + "&type=text/html");
+  }
+
+  @Test
+  public void largeResponsesAreCompressed() throws IOException
+  {
+    for (final String params : new String[] { "size=5000&type=text/html", "size=5000&type=text/html&stream=true",
+        "size=5000&type=text/html&length=true", "size=" + MIN_SIZE + "&type=text/html", "size=100000&type=application/json"}) {
+      assertCompressed("gzip", params);
+      assertCompressed("deflate", params);
+    }
+  }
+
+  @Test
+  public void otherMimeTypesAreNotCompressed() throws IOException
+  {
+    assertUncompressed(5000, "size=5000&type=image/png&stream=true");
+  }
+
+  private void assertUncompressed(final int size, final String params) throws IOException
+  {
+    final HttpURLConnection connection = open("gzip, deflate", params);
+    assertEquals(200, connection.getResponseCode());
+    assertNull(params, connection.getHeaderField("Content-Encoding"));
+    assertEquals(params, createContent(size), read(connection.getInputStream()));
+  }
+
+  private void assertCompressed(final String encoding, final String params) throws IOException
+  {
+    final HttpURLConnection connection = open(encoding, params);
+    assertEquals(200, connection.getResponseCode());
+    assertEquals(params, encoding, connection.getHeaderField("Content-Encoding"));
+    final InputStream in;
+    if ("gzip".equals(encoding) == true) {
+      in = new GZIPInputStream(connection.getInputStream());
+    } else {
+      in = new InflaterInputStream(connection.getInputStream());
+    }
+    final int size = Integer.parseInt(params.substring("size=".length(), params.indexOf('&')));
+    assertEquals(params, createContent(size), read(in));
+  }
+
+  private HttpURLConnection open(final String acceptEncoding, final String params) throws IOException
+  {
+    final HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + connector.getLocalPort() + "/test?" + params)
+        .openConnection();
+    connection.setRequestProperty("Accept-Encoding", acceptEncoding);
+    return connection;
+  }
+
+  private static String read(final InputStream in) throws IOException
+  {
+    try {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final byte[] buf = new byte[4096];
+      int read;
+      while ((read = in.read(buf)) >= 0) {
+        out.write(buf, 0, read);
+      }
+      return out.toString("UTF-8");
+    } finally {
+      in.close();
+    }
+  }
+
+  private static String createContent(final int size)
+  {
+    final StringBuilder buf = new StringBuilder(size);
+    for (int i = 0; i < size; i++) {
+      buf.append((char) ('a' + i % 26));
+    }
+    return buf.toString();
+  }
+}
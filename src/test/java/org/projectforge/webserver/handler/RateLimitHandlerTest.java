@@ -0,0 +1,143 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.server.nio.SelectChannelConnector;
+import org.junit.After;
+import org.junit.Test;
+import org.projectforge.webserver.RateLimitKey;
+
+public class RateLimitHandlerTest
+{
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  private Server server;
+
+  private SelectChannelConnector connector;
+
+  @After
+  public void tearDown() throws Exception
+  {
+    release.countDown();
+    executor.shutdownNow();
+    if (server != null) {
+      server.stop();
+    }
+  }
+
+  @Test
+  public void waitingRequestsAreBounded() throws Exception
+  {
+    start(5000, 1);
+    final Future<Integer> running = request("/export/1");
+    Thread.sleep(200);
+    final Future<Integer> waiting = request("/export/2");
+    Thread.sleep(200);
+    final long begin = System.currentTimeMillis();
+    assertEquals(503, request("/export/3").get().intValue()); // Neither a permit nor a place in the queue.
+    assertTrue(System.currentTimeMillis() - begin < 2000);
+    assertEquals(200, request("/other").get().intValue()); // Not limited.
+    release.countDown();
+    assertEquals(200, running.get().intValue());
+    assertEquals(200, waiting.get().intValue());
+  }
+
+  @Test
+  public void failFast() throws Exception
+  {
+    start(0, 1);
+    final Future<Integer> running = request("/export/1");
+    Thread.sleep(200);
+    assertEquals(503, request("/export/2").get().intValue());
+    release.countDown();
+    assertEquals(200, running.get().intValue());
+    assertEquals(200, request("/export/3").get().intValue());
+  }
+
+  private void start(final long maxWaitMillis, final int maxQueued) throws Exception
+  {
+    server = new Server();
+    connector = new SelectChannelConnector();
+    connector.setHost("127.0.0.1");
+    connector.setPort(0);
+    server.addConnector(connector);
+    final RateLimitHandler handler = new RateLimitHandler(new ClientRateLimiter(0, 1, 0, 100), RateLimitKey.IP, maxWaitMillis, maxQueued);
+    handler.addPatternLimits("/export=1");
+    handler.setHandler(new AbstractHandler() {
+      public void handle(final String target, final Request baseRequest, final HttpServletRequest request,
+          final HttpServletResponse response) throws IOException, ServletException
+      {
+        if (target.startsWith("/export") == true) {
+          try {
+            release.await(10, TimeUnit.SECONDS);
+          } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        baseRequest.setHandled(true);
+      }
+    });
+    server.setHandler(handler);
+    server.start();
+  }
+
+  private Future<Integer> request(final String path)
+  {
+    return executor.submit(new Callable<Integer>() {
+      public Integer call() throws Exception
+      {
+        final HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + connector.getLocalPort() + path)
+            .openConnection();
+        try {
+          return connection.getResponseCode();
+        } finally {
+          connection.disconnect();
+        }
+      }
+    });
+  }
+}
@@ -0,0 +1,92 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.handler;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class RouteGroupingTest
+{
+  private final RouteGrouping grouping = new RouteGrouping();
+
+  @Test
+  public void nullPath()
+  {
+    assertEquals("/", grouping.getRoute(null));
+  }
+
+  @Test
+  public void pathParameters()
+  {
+    assertEquals("/ProjectForge/wa/timesheetEdit", grouping.getRoute("/ProjectForge/wa/timesheetEdit;jsessionid=abc123"));
+  }
+
+  @Test
+  public void wicketResources()
+  {
+    assertEquals("/ProjectForge/wicket/resource/*",
+        grouping.getRoute("/ProjectForge/wicket/resource/org.apache.wicket.ajax.AbstractDefaultAjaxBehavior/res/js/wicket-ajax.js"));
+  }
+
+  @Test
+  public void bookmarkablePages()
+  {
+    assertEquals("/ProjectForge/wicket/bookmarkable/org.projectforge.web.timesheet.TimesheetListPage",
+        grouping.getRoute("/ProjectForge/wicket/bookmarkable/org.projectforge.web.timesheet.TimesheetListPage/id/12/tab/2"));
+  }
+
+  @Test
+  public void staticFiles()
+  {
+    assertEquals("/ProjectForge/styles/*.css", grouping.getRoute("/ProjectForge/styles/projectforge.css"));
+    assertEquals("/ProjectForge/images/*.png", grouping.getRoute("/ProjectForge/images/logo.png"));
+    assertEquals("/ProjectForge/styles/projectforge.cssx", grouping.getRoute("/ProjectForge/styles/projectforge.cssx"));
+  }
+
+  @Test
+  public void numericalIds()
+  {
+    assertEquals("/rest/task/{id}", grouping.getRoute("/rest/task/4711"));
+    assertEquals("/rest/task/{id}/children/{id}", grouping.getRoute("/rest/task/4711/children/12"));
+    assertEquals("/rest/v2/task", grouping.getRoute("/rest/v2/task"));
+    assertEquals("/rest/task/4711a", grouping.getRoute("/rest/task/4711a"));
+  }
+
+  @Test
+  public void cachedRoutesAreStable()
+  {
+    assertEquals("/rest/task/{id}", grouping.getRoute("/rest/task/1"));
+    assertEquals("/rest/task/{id}", grouping.getRoute("/rest/task/1"));
+  }
+
+  @Test
+  public void customRules()
+  {
+    grouping.getRoute("/export/report-2014.pdf");
+    grouping.addRule("/export/.*$", "/export/*");
+    // Adding a rule clears the cached routes:
+    assertEquals("/export/*", grouping.getRoute("/export/report-2014.pdf"));
+  }
+}
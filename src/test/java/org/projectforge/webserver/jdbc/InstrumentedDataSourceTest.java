@@ -0,0 +1,121 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class InstrumentedDataSourceTest
+{
+  private ConnectionPool pool;
+
+  private JdbcPoolMonitor monitor;
+
+  private InstrumentedDataSource dataSource;
+
+  @Before
+  public void setUp()
+  {
+    pool = DataSourceFactory.createConnectionPool(new JdbcPoolSettings().setName("InstrumentedDataSourceTest")
+        .setDriverClassName("org.hsqldb.jdbcDriver").setUrl("jdbc:hsqldb:mem:instrumented").setUser("sa").setPassword("").setMaxActive(2)
+        .setMinIdle(0).setValidationQuery("SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS"));
+    monitor = new JdbcPoolMonitor(pool, 0, 0);
+    dataSource = new InstrumentedDataSource(pool.getDataSource(), monitor);
+  }
+
+  @After
+  public void tearDown()
+  {
+    pool.close();
+  }
+
+  @Test
+  public void equalsByIdentity() throws Exception
+  {
+    final Connection connection = dataSource.getConnection();
+    final Connection other = dataSource.getConnection();
+    try {
+      assertTrue(connection.equals(connection));
+      assertFalse(connection.equals(other));
+      assertEquals(System.identityHashCode(connection), connection.hashCode());
+    } finally {
+      connection.close();
+      other.close();
+    }
+  }
+
+  @Test
+  public void statementReturnsWrappedConnection() throws Exception
+  {
+    final Connection connection = dataSource.getConnection();
+    final Statement statement = connection.createStatement();
+    final PreparedStatement preparedStatement = connection.prepareStatement("SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS");
+    assertSame(connection, statement.getConnection());
+    assertSame(connection, preparedStatement.getConnection());
+    preparedStatement.executeQuery().close();
+    preparedStatement.close();
+    statement.close();
+    // Closing the connection of the statement returns the lease:
+    statement.getConnection().close();
+    assertEquals(1, monitor.getHoldTimeHistogram().getCount());
+    connection.close();
+    assertEquals(1, monitor.getHoldTimeHistogram().getCount());
+    assertEquals(0, pool.getActiveConnections());
+  }
+
+  @Test
+  public void resultSetAndMetaDataReturnWrappedObjects() throws Exception
+  {
+    final Connection connection = dataSource.getConnection();
+    try {
+      final Statement statement = connection.createStatement();
+      final ResultSet resultSet = statement.executeQuery("SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS");
+      assertSame(statement, resultSet.getStatement());
+      assertSame(connection, resultSet.getStatement().getConnection());
+      resultSet.close();
+      statement.close();
+      final DatabaseMetaData metaData = connection.getMetaData();
+      assertSame(connection, metaData.getConnection());
+      final ResultSet tables = metaData.getTables(null, null, "%", null);
+      assertNull(tables.getStatement());
+      tables.close();
+    } finally {
+      connection.close();
+    }
+    assertEquals(0, pool.getActiveConnections());
+  }
+}
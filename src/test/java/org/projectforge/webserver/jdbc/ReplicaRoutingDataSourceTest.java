@@ -0,0 +1,202 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.projectforge.webserver.metrics.PrometheusWriter;
+
+public class ReplicaRoutingDataSourceTest
+{
+  private static final String VALIDATION_QUERY = "SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS";
+
+  private final List<ConnectionPool> pools = new ArrayList<ConnectionPool>();
+
+  private ConnectionPool primary;
+
+  private ConnectionPool replica;
+
+  private ConnectionPool brokenReplica;
+
+  @Before
+  public void setUp() throws IOException
+  {
+    primary = createPool("primary", "jdbc:hsqldb:mem:routing-primary", JdbcPoolType.HIKARI);
+    replica = createPool("replica", "jdbc:hsqldb:mem:routing-replica", JdbcPoolType.HIKARI);
+    // Nobody is listening on the port (dbcp opens the connections lazily, Hikari would fail on creation):
+    brokenReplica = createPool("broken", "jdbc:hsqldb:hsql://127.0.0.1:" + getFreePort() + "/none", JdbcPoolType.DBCP);
+  }
+
+  @After
+  public void tearDown()
+  {
+    for (final ConnectionPool pool : pools) {
+      pool.close();
+    }
+  }
+
+  @Test
+  public void readOnlyToReplica() throws Exception
+  {
+    final ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary.getDataSource(), Arrays.asList(replica), 60000);
+    final Connection connection = dataSource.getConnection();
+    try {
+      connection.setReadOnly(true);
+      assertEquals("jdbc:hsqldb:mem:routing-replica", connection.getMetaData().getURL());
+      assertTrue(connection.isReadOnly());
+      assertEquals(1, replica.getActiveConnections());
+      assertEquals(0, primary.getActiveConnections());
+    } finally {
+      connection.close();
+    }
+    assertTrue(connection.isClosed());
+    assertEquals(0, replica.getActiveConnections());
+  }
+
+  @Test
+  public void readWriteToPrimary() throws Exception
+  {
+    final ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary.getDataSource(), Arrays.asList(replica), 60000);
+    final Connection connection = dataSource.getConnection();
+    try {
+      final Statement statement = connection.createStatement();
+      statement.close();
+      assertEquals("jdbc:hsqldb:mem:routing-primary", connection.getMetaData().getURL());
+      assertFalse(connection.isReadOnly());
+      assertEquals(0, replica.getActiveConnections());
+    } finally {
+      connection.close();
+    }
+  }
+
+  @Test
+  public void settingsAppliedAfterBorrow() throws Exception
+  {
+    final ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary.getDataSource(), Arrays.asList(replica), 60000);
+    final Connection connection = dataSource.getConnection();
+    try {
+      // Recorded, no physical connection is borrowed:
+      connection.setAutoCommit(false);
+      connection.setReadOnly(true);
+      connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+      assertFalse(connection.getAutoCommit());
+      assertTrue(connection.isReadOnly());
+      assertEquals(Connection.TRANSACTION_READ_COMMITTED, connection.getTransactionIsolation());
+      connection.commit();
+      connection.rollback();
+      assertEquals(0, replica.getActiveConnections());
+      assertEquals(0, primary.getActiveConnections());
+      // Borrowed from the replica with the recorded settings:
+      connection.createStatement().close();
+      assertEquals(1, replica.getActiveConnections());
+      assertEquals("jdbc:hsqldb:mem:routing-replica", connection.getMetaData().getURL());
+      assertFalse(connection.getAutoCommit());
+      assertTrue(connection.isReadOnly());
+      connection.commit();
+    } finally {
+      connection.close();
+    }
+    assertEquals(0, replica.getActiveConnections());
+  }
+
+  @Test
+  public void brokenReplicaIsSkipped() throws Exception
+  {
+    final ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary.getDataSource(), Arrays.asList(replica, brokenReplica),
+        60000);
+    assertEquals(2, dataSource.getAvailableReplicas());
+    for (int i = 0; i < 4; i++) {
+      // Round-robin, the second connection tries the broken replica first:
+      final Connection connection = dataSource.getConnection();
+      try {
+        connection.setReadOnly(true);
+        assertEquals("jdbc:hsqldb:mem:routing-replica", connection.getMetaData().getURL());
+      } finally {
+        connection.close();
+      }
+    }
+    assertEquals(1, dataSource.getAvailableReplicas());
+    final String metrics = getMetrics(dataSource);
+    assertTrue(metrics, metrics.contains("projectforge_jdbc_replica_failures_total{replica=\"broken\"} 1"));
+    assertTrue(metrics, metrics.contains("projectforge_jdbc_routed_connections_total{target=\"replica\"} 4"));
+    assertTrue(metrics, metrics.contains("projectforge_jdbc_replica_available{replica=\"broken\"} 0"));
+  }
+
+  @Test
+  public void fallbackToPrimary() throws Exception
+  {
+    final ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary.getDataSource(), Arrays.asList(brokenReplica), 60000);
+    final Connection connection = dataSource.getConnection();
+    try {
+      connection.setReadOnly(true);
+      assertEquals("jdbc:hsqldb:mem:routing-primary", connection.getMetaData().getURL());
+      assertTrue(connection.isReadOnly());
+    } finally {
+      connection.close();
+    }
+    assertEquals(0, dataSource.getAvailableReplicas());
+    final String metrics = getMetrics(dataSource);
+    assertTrue(metrics, metrics.contains("projectforge_jdbc_replica_fallbacks_total 1"));
+    assertTrue(metrics, metrics.contains("projectforge_jdbc_routed_connections_total{target=\"primary\"} 1"));
+  }
+
+  private ConnectionPool createPool(final String name, final String url, final JdbcPoolType type)
+  {
+    final ConnectionPool pool = DataSourceFactory.createConnectionPool(new JdbcPoolSettings().setName(name).setType(type)
+        .setDriverClassName("org.hsqldb.jdbcDriver").setUrl(url).setUser("sa").setPassword("").setMaxActive(2).setMinIdle(0)
+        .setConnectionTimeout(1000).setValidationQuery(VALIDATION_QUERY));
+    pools.add(pool);
+    return pool;
+  }
+
+  private static String getMetrics(final ReplicaRoutingDataSource dataSource)
+  {
+    final PrometheusWriter writer = new PrometheusWriter();
+    dataSource.writeMetrics(writer);
+    return writer.toString();
+  }
+
+  private static int getFreePort() throws IOException
+  {
+    final ServerSocket serverSocket = new ServerSocket(0);
+    try {
+      return serverSocket.getLocalPort();
+    } finally {
+      serverSocket.close();
+    }
+  }
+}
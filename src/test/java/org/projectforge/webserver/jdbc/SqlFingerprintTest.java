@@ -0,0 +1,78 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SqlFingerprintTest
+{
+  @Test
+  public void normalizeLiterals()
+  {
+    assertEquals("select * from t_user where username=? and id=?",
+        SqlFingerprint.normalize("select * from t_user where username='kai' and id=42"));
+    assertEquals("select * from t where name=?", SqlFingerprint.normalize("select * from t where name='O''Reilly'"));
+    assertEquals("select t1_.id from t1 t1_ where t1_.x>?", SqlFingerprint.normalize("select t1_.id from t1 t1_ where t1_.x>3.5"));
+  }
+
+  @Test
+  public void normalizeParameterLists()
+  {
+    assertEquals("select * from t where id in (?...)", SqlFingerprint.normalize("select * from t where id in (1, 2, 3)"));
+    assertEquals("select * from t where id in (?...)", SqlFingerprint.normalize("select * from t where id in ( ?,?,? )"));
+    assertEquals("select * from t where id in (?)", SqlFingerprint.normalize("select * from t where id in (?)"));
+  }
+
+  @Test
+  public void normalizeCommentsAndWhiteSpaces()
+  {
+    assertEquals("select a from t where b=?", SqlFingerprint.normalize("  select a -- the a\nfrom   t\t/* comment */ where\r\nb=?  "));
+    assertEquals("select a", SqlFingerprint.normalize("select a /* unterminated"));
+  }
+
+  @Test
+  public void normalizeTruncates()
+  {
+    final StringBuilder buf = new StringBuilder("select ");
+    for (int i = 0; i < SqlFingerprint.MAX_LENGTH; i++) {
+      buf.append("a");
+    }
+    final String fingerprint = SqlFingerprint.normalize(buf.toString());
+    assertEquals(SqlFingerprint.MAX_LENGTH + 3, fingerprint.length());
+    assertTrue(fingerprint.endsWith("...") == true);
+  }
+
+  @Test
+  public void getFingerprint()
+  {
+    final SqlFingerprint sqlFingerprint = new SqlFingerprint();
+    assertEquals("", sqlFingerprint.getFingerprint(null));
+    assertEquals("select * from t where id=?", sqlFingerprint.getFingerprint("select * from t where id=1"));
+    assertEquals("select * from t where id=?", sqlFingerprint.getFingerprint("select * from t where id=1")); // Cached.
+    assertEquals("select * from t where id=?", sqlFingerprint.getFingerprint("select * from t where id=2"));
+  }
+}
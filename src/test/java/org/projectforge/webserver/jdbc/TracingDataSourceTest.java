@@ -0,0 +1,88 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TracingDataSourceTest
+{
+  private ConnectionPool pool;
+
+  private TracingDataSource dataSource;
+
+  @Before
+  public void setUp()
+  {
+    pool = DataSourceFactory.createConnectionPool(new JdbcPoolSettings().setName("TracingDataSourceTest")
+        .setDriverClassName("org.hsqldb.jdbcDriver").setUrl("jdbc:hsqldb:mem:tracing").setUser("sa").setPassword("").setMaxActive(2)
+        .setMinIdle(0).setValidationQuery("SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS"));
+    dataSource = new TracingDataSource(pool.getDataSource(), new StatementTracer(0, 100, null));
+  }
+
+  @After
+  public void tearDown()
+  {
+    pool.close();
+  }
+
+  @Test
+  public void identity() throws Exception
+  {
+    final Connection connection = dataSource.getConnection();
+    final Connection other = dataSource.getConnection();
+    try {
+      assertTrue(connection.equals(connection) == true);
+      assertFalse(connection.equals(other) == true);
+      assertEquals(System.identityHashCode(connection), connection.hashCode());
+      final Statement statement = connection.createStatement();
+      assertSame(connection, statement.getConnection());
+      assertTrue(statement.equals(statement) == true);
+      final PreparedStatement preparedStatement = connection.prepareStatement("SELECT 1 FROM INFORMATION_SCHEMA.SYSTEM_USERS");
+      assertSame(connection, preparedStatement.getConnection());
+      assertFalse(preparedStatement.equals(statement) == true);
+      final ResultSet resultSet = preparedStatement.executeQuery();
+      assertSame(preparedStatement, resultSet.getStatement());
+      resultSet.close();
+      assertSame(connection, connection.getMetaData().getConnection());
+      preparedStatement.close();
+      statement.close();
+    } finally {
+      other.close();
+      connection.close();
+    }
+    assertEquals(1, dataSource.getTracer().getFingerprints());
+  }
+}
@@ -0,0 +1,139 @@
+/////////////////////////////////////////////////////////////////////////////
+//
+// Project ProjectForge Community Edition
+//         www.projectforge.org
+//
+// Copyright (C) 2001-2014 Kai Reinhard (k.reinhard@micromata.de)
+//
+// ProjectForge is dual-licensed.
+//
+// This community edition is free software; you can redistribute it and/or
+// modify it under the terms of the GNU General Public License as published
+// by the Free Software Foundation; version 3 of the License.
+//
+// This community edition is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+// Public License for more details.
+//
+// You should have received a copy of the GNU General Public License along
+// with this program; if not, see http://www.gnu.org/licenses/.
+//
+/////////////////////////////////////////////////////////////////////////////
+
+package org.projectforge.webserver.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest
+{
+  @Test
+  public void empty()
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getPercentile(99));
+    assertEquals(0, histogram.getMean(), 0);
+    assertEquals(0, histogram.getCountBelowOrEqual(1000));
+  }
+
+  @Test
+  public void bucketBounds()
+  {
+    for (long value = 0; value < 100000; value++) {
+      final int index = LatencyHistogram.getBucketIndex(value);
+      final long upperBound = LatencyHistogram.getBucketUpperBound(index);
+      assertTrue(value + " > " + upperBound, value <= upperBound);
+      if (index > 0) {
+        final long lowerBound = LatencyHistogram.getBucketUpperBound(index - 1) + 1;
+        assertTrue(value + " < " + lowerBound, value >= lowerBound);
+      }
+      // Relative error of the bucket is below 12.5%:
+      assertTrue(value + ": " + upperBound, upperBound - value <= value / 8);
+    }
+  }
+
+  @Test
+  public void percentiles()
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000); // 1ms ... 1s
+    }
+    assertEquals(1000, histogram.getCount());
+    assertEquals(1000000, histogram.getMax());
+    assertEquals(500500, histogram.getMean(), 0.001);
+    assertWithin(500000, histogram.getPercentile(50));
+    assertWithin(990000, histogram.getPercentile(99));
+    assertEquals(1000000, histogram.getPercentile(100));
+    assertWithin(1000, histogram.getPercentile(0.01));
+  }
+
+  @Test
+  public void percentileNeverExceedsMax()
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(1000);
+    assertEquals(1000, histogram.getPercentile(50));
+    assertEquals(1000, histogram.getPercentile(99));
+  }
+
+  @Test
+  public void outOfRangeValues()
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+    assertEquals(2, histogram.getCount());
+    assertEquals(0, histogram.getPercentile(50));
+    assertEquals((1L << 32) - 1, histogram.getMax());
+  }
+
+  @Test
+  public void countBelowOrEqual()
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < 16; i++) {
+      histogram.record(i);
+    }
+    histogram.record(1000);
+    histogram.record(100000);
+    assertEquals(11, histogram.getCountBelowOrEqual(10));
+    assertEquals(16, histogram.getCountBelowOrEqual(999));
+    assertEquals(17, histogram.getCountBelowOrEqual(1023));
+    assertEquals(18, histogram.getCountBelowOrEqual(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void concurrentRecording() throws InterruptedException
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    final Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread() {
+        @Override
+        public void run()
+        {
+          for (int j = 1; j <= 10000; j++) {
+            histogram.record(j);
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(80000, histogram.getCount());
+    assertEquals(8L * 10000 * 10001 / 2, histogram.getSum());
+    assertEquals(10000, histogram.getMax());
+  }
+
+  private static void assertWithin(final long expected, final long actual)
+  {
+    assertTrue(expected + " != " + actual, actual >= expected && actual <= expected + expected / 8);
+  }
+}